@@ -658,7 +658,7 @@ public abstract class Accumulator {
     public long getSnapshotValue() throws PersistitInterruptedException {
         final Transaction txn = _tree.getPersistit().getTransaction();
         txn.checkActive();
-        return getSnapshotValue(txn.getStartTimestamp(), txn.getStep());
+        return getSnapshotValue(txn.getStartTimestamp(), txn.getReadStep());
     }
 
     /**
@@ -157,7 +157,9 @@ public class BackupTask extends Task {
         final String path = JournalManager.fileToPath(new File(info.getCurrentJournalFile()));
         for (long generation = baseAddress / blockSize; generation <= currentAddress / blockSize; generation++) {
             final File file = JournalManager.generationToFile(path, generation);
-            _files.add(file.getAbsolutePath());
+            for (final File stripeFile : _persistit.getJournalManager().stripeFiles(file)) {
+                _files.add(stripeFile.getAbsolutePath());
+            }
         }
         final StringBuilder sb = new StringBuilder();
         for (final String file : _files) {
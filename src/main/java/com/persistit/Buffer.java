@@ -26,6 +26,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.persistit.CleanupManager.CleanupAction;
 import com.persistit.CleanupManager.CleanupAntiValue;
@@ -377,7 +378,14 @@ public class Buffer extends SharedResource {
      * Singly-linked list of Buffers current having the same hash code.
      * (Maintained by BufferPool.)
      */
-    private Buffer _next = null;
+    private volatile Buffer _next = null;
+
+    /**
+     * The Tree to which this page belongs if it is being retained in the pool
+     * as an index page, otherwise <code>null</code>. (Maintained by
+     * BufferPool.)
+     */
+    private final AtomicReference<Tree> _retainedTree = new AtomicReference<Tree>();
 
     private volatile long _lastPrunedTime;
 
@@ -523,16 +531,33 @@ public class Buffer extends SharedResource {
         _persistit.checkFatal();
         final Volume volume = getVolume();
         if (volume != null) {
-            if (prune) {
-                pruneMvvValues(null, false, null);
-            }
-            clearSlack();
-            save();
+            prepareWrite(prune);
             _vol.getStorage().writePage(this);
-            clearDirty();
-            volume.getStatistics().bumpWriteCounter();
-            _pool.bumpWriteCounter();
+            completeWrite();
+        }
+    }
+
+    /**
+     * Prepare the page image for writing. Used with {@link #completeWrite()}
+     * when several pages are written together by
+     * {@link VolumeStorage#writePages(Buffer[], int, int)}.
+     */
+    void prepareWrite(final boolean prune) throws PersistitException {
+        assert isOwnedAsWriterByMe();
+        if (prune) {
+            pruneMvvValues(null, false, null);
         }
+        clearSlack();
+        save();
+    }
+
+    /**
+     * Mark the page clean after its image has been written.
+     */
+    void completeWrite() {
+        clearDirty();
+        _vol.getStatistics().bumpWriteCounter();
+        _pool.bumpWriteCounter();
     }
 
     @Override
@@ -745,6 +770,14 @@ public class Buffer extends SharedResource {
         _vol = volume;
     }
 
+    Tree getRetainedTree() {
+        return _retainedTree.get();
+    }
+
+    boolean setRetainedTree(final Tree expected, final Tree tree) {
+        return _retainedTree.compareAndSet(expected, tree);
+    }
+
     /**
      * Set the right sibling's page address
      * 
@@ -27,12 +27,17 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.locks.ReentrantLock;
 
+import com.persistit.Configuration.BufferPoolConfiguration;
 import com.persistit.JournalManager.PageNode;
 import com.persistit.exception.InUseException;
 import com.persistit.exception.InvalidPageAddressException;
@@ -60,6 +65,18 @@ public class BufferPool {
 
     private final static int PAGE_WRITER_TRANCHE_SIZE = 5000;
 
+    /**
+     * Maximum number of hash chain links followed by a lookup that does not
+     * hold the hash lock
+     */
+    private final static int OPTIMISTIC_CHAIN_LIMIT = 32;
+
+    /**
+     * Maximum number of dirty pages claimed and written to the journal
+     * together by the PAGE_WRITER thread
+     */
+    private final static int PAGE_WRITER_BATCH_SIZE = 64;
+
     /**
      * Sleep time when buffers are exhausted
      */
@@ -89,6 +106,56 @@ public class BufferPool {
      */
     private final static float SMALL_VOLUME_RATIO = 0.1f;
 
+    /**
+     * Number of complete clock cycles allowed to find an evictable buffer
+     */
+    private final static int EVICTION_PASSES = 3;
+
+    /**
+     * Ratio of the free buffer reserve target to the low watermark at which
+     * the PAGE_WRITER is kicked to refill it
+     */
+    private final static int RESERVE_LOW_WATERMARK_RATIO = 2;
+
+    /**
+     * Largest fraction of the pool that may be held as free buffer reserve,
+     * expressed as a divisor
+     */
+    private final static int MAXIMUM_RESERVE_RATIO = 4;
+
+    /**
+     * Default maximum number of pages read ahead for a sequential traversal
+     */
+    public final static int DEFAULT_READ_AHEAD_LIMIT = 32;
+
+    /**
+     * Largest configurable read-ahead limit
+     */
+    public final static int MAXIMUM_READ_AHEAD_LIMIT = 1024;
+
+    /**
+     * Largest fraction of the pool a single read-ahead request may fill,
+     * expressed as a divisor
+     */
+    private final static int MAXIMUM_READ_AHEAD_RATIO = 16;
+
+    /**
+     * Largest percentage of the pool that may be occupied by retained index
+     * pages
+     */
+    public final static int MAXIMUM_INDEX_RETENTION = 50;
+
+    /**
+     * Maximum number of read-ahead requests waiting for the READ_AHEAD thread.
+     * Further requests are discarded.
+     */
+    private final static int READ_AHEAD_QUEUE_SIZE = 16;
+
+    /**
+     * READ_AHEAD polling interval; the thread is normally woken by a request
+     */
+    private final static long READ_AHEAD_POLL_INTERVAL = 1000;
+
     /**
      * Ratio of age-based write priority bump
      */
@@ -105,15 +172,37 @@ public class BufferPool {
      */
     private final static long INVENTORY_PRELOAD_LOG_MESSAGE_NS = 60L * NS_PER_S;
 
+    /**
+     * Maximum number of adjacent pages coalesced into one read during
+     * inventory preload
+     */
+    private final static int PRELOAD_MAX_RUN_PAGES = 64;
+
     /**
      * The Persistit instance that references this BufferPool.
      */
     private final Persistit _persistit;
 
     /**
-     * Hash table - fast access to buffer by hash of address.
+     * Hash table - fast access to buffer by hash of address. The length is
+     * always a multiple of {@value #HASH_LOCKS} so that every slot guarded by a
+     * given lock remains guarded by the same lock after the table is resized.
+     */
+    private volatile Buffer[] _hashTable;
+
+    /**
+     * Replacement hash table while {@link #resize(int)} is migrating entries,
+     * otherwise <code>null</code>.
+     */
+    private volatile Buffer[] _resizedHashTable;
+
+    /**
+     * Flags indicating which lock stripes have already been migrated to
+     * _resizedHashTable: non-zero once migrated. Each element is written while
+     * holding the corresponding lock and is also read without it by
+     * {@link #findOptimistically(Volume, long, boolean, int)}.
      */
-    private final Buffer[] _hashTable;
+    private final AtomicIntegerArray _rehashed = new AtomicIntegerArray(HASH_LOCKS);
 
     /**
      * Locks used to lock hashtable entries.
@@ -121,13 +210,31 @@ public class BufferPool {
     private final ReentrantLock[] _hashLocks;
 
     /**
-     * All Buffers in this pool
+     * All Buffers in this pool. While the pool is shrinking this array also
+     * holds the buffers being retired.
      */
-    private final Buffer[] _buffers;
+    private volatile Buffer[] _buffers;
     /**
-     * Count of Buffers allocated to this pool.
+     * Count of Buffers allocated to this pool. Only buffers with an index
+     * below this count are eligible for allocation.
      */
-    private final int _bufferCount;
+    private volatile int _bufferCount;
+
+    /**
+     * Serializes calls to {@link #resize(int)}
+     */
+    private final ReentrantLock _resizeLock = new ReentrantLock();
+
+    /**
+     * Buffer count requested by the resize operation in progress
+     */
+    private volatile int _resizeTargetCount;
+
+    /**
+     * Count of buffers to add or retire plus hash table lock stripes to migrate
+     * before the resize operation in progress is complete
+     */
+    private final AtomicInteger _resizeRemainingCount = new AtomicInteger();
 
     /**
      * Size of each buffer
@@ -139,7 +246,7 @@ public class BufferPool {
      * indicate buffers that have been invalidated and are therefore able to be
      * allocated without evicting a valid page.
      */
-    private final AtomicLongArray _availablePagesBits;
+    private volatile AtomicLongArray _availablePagesBits;
 
     private final AtomicBoolean _availablePages = new AtomicBoolean();
 
@@ -153,6 +260,64 @@ public class BufferPool {
      */
     private final AtomicInteger _clock = new AtomicInteger();
 
+    /**
+     * Policy that decides which valid page to evict
+     */
+    private volatile ReplacementPolicy _policy;
+
+    /**
+     * Clean, detached buffers ready to be handed out by {@link #allocBuffer()}
+     * without evicting a page. Refilled by the PAGE_WRITER thread. A buffer
+     * belongs to the reserve only while its reserved status bit is set: an
+     * allocation that takes a reserved buffer by another route clears the
+     * bit, leaving a stale entry that is skipped when it is polled.
+     */
+    private final ConcurrentLinkedQueue<Buffer> _freeBuffers = new ConcurrentLinkedQueue<Buffer>();
+
+    /**
+     * Count of buffers in _freeBuffers whose reserved bit is set. Decremented
+     * by whichever thread clears the bit.
+     */
+    private final AtomicInteger _freeBufferCount = new AtomicInteger();
+
+    /**
+     * Target size of the free buffer reserve, or zero if disabled
+     */
+    private volatile int _reserveCount;
+
+    /**
+     * Configured maximum read-ahead window, in pages
+     */
+    private volatile int _readAheadLimit;
+
+    /**
+     * Percentage of the pool in which index pages are retained in preference
+     * to data pages, or zero if disabled
+     */
+    private volatile int _indexRetention;
+
+    /**
+     * Count of buffers currently holding retained index pages
+     */
+    private final AtomicInteger _retainedIndexPageCount = new AtomicInteger();
+
+    /**
+     * Pending read-ahead requests
+     */
+    private final BlockingQueue<ReadAheadRequest> _readAheadQueue = new ArrayBlockingQueue<ReadAheadRequest>(
+            READ_AHEAD_QUEUE_SIZE);
+
+    /**
+     * Compressed cache of clean pages evicted from this pool, or
+     * <code>null</code> if disabled
+     */
+    private final VictimCache _victimCache;
+
+    /**
+     * Count of allocations that found the free buffer reserve empty
+     */
+    private final AtomicLong _reserveDepletedCounter = new AtomicLong();
+
     /**
      * Count of buffer pool misses (buffer not found in pool)
      */
@@ -163,6 +328,12 @@ public class BufferPool {
      */
     private final AtomicLong _hitCounter = new AtomicLong();
 
+    /**
+     * Count of lookups that acquired a hash lock because the optimistic
+     * lookup missed or lost a race
+     */
+    private final AtomicLong _lockedLookupCounter = new AtomicLong();
+
     /**
      * Count of newly created pages
      */
@@ -220,6 +391,16 @@ public class BufferPool {
      */
     private PageWriter _writer;
 
+    /**
+     * The READ_AHEAD IOTaskRunnable
+     */
+    private ReadAhead _readAhead;
+
+    /**
+     * Loader started by a background inventory preload, if any
+     */
+    private volatile InventoryPreloader _preloader;
+
     /**
      * Construct a BufferPool with the specified count of <code>Buffer</code>s
      * of the specified size.
@@ -230,6 +411,21 @@ public class BufferPool {
      *            The size (in bytes) of each buffer
      */
     BufferPool(final int count, final int size, final Persistit persistit) {
+        this(count, new BufferPoolConfiguration(size), persistit);
+    }
+
+    /**
+     * Construct a BufferPool with the specified count of <code>Buffer</code>s
+     * using the buffer size and policies specified by the supplied
+     * <code>BufferPoolConfiguration</code>.
+     * 
+     * @param count
+     *            The number of buffers in the pool
+     * @param config
+     *            The configuration supplying buffer size and policies
+     */
+    BufferPool(final int count, final BufferPoolConfiguration config, final Persistit persistit) {
+        final int size = config.getBufferSize();
         _persistit = persistit;
         if (count < MINIMUM_POOL_COUNT) {
             throw new IllegalArgumentException("Buffer pool count too small: " + count);
@@ -253,7 +449,7 @@ public class BufferPool {
         _bufferSize = size;
         _buffers = new Buffer[_bufferCount];
         _availablePagesBits = new AtomicLongArray((count + 63) / 64);
-        _hashTable = new Buffer[_bufferCount * HASH_MULTIPLE];
+        _hashTable = new Buffer[hashTableSize(_bufferCount)];
         _hashLocks = new ReentrantLock[HASH_LOCKS];
         _maxKeys = (_bufferSize - Buffer.HEADER_SIZE) / Buffer.MAX_KEY_RATIO;
 
@@ -289,15 +485,28 @@ public class BufferPool {
             System.err.println(_persistit.getAvailableHeap());
             throw e;
         }
+        _policy = ReplacementPolicy.forName(config.getReplacementPolicy(), _bufferCount);
+        setReserveCount(Math.min(config.getReserveCount(), _bufferCount / MAXIMUM_RESERVE_RATIO));
+        setReadAheadLimit(config.getReadAheadLimit());
+        setIndexRetention(config.getIndexRetention());
+        _victimCache = config.getVictimCacheSize() > 0 ? new VictimCache(config.getVictimCacheSize(),
+                config.getVictimCodec(), _bufferSize) : null;
+        _resizeTargetCount = _bufferCount;
         _writer = new PageWriter();
+        _readAhead = new ReadAhead();
     }
 
     void startThreads() throws PersistitException {
         _writer.start();
+        _readAhead.start();
     }
 
     void close() {
         _closed.set(true);
+        joinPreload();
+        _readAheadQueue.clear();
+        _persistit.waitForIOTaskStop(_readAhead);
+        _readAhead = null;
         _persistit.waitForIOTaskStop(_writer);
         _writer = null;
     }
@@ -307,6 +516,7 @@ public class BufferPool {
      * collector threads. This method should be used only by tests.
      */
     void crash() {
+        IOTaskRunnable.crash(_readAhead);
         IOTaskRunnable.crash(_writer);
     }
 
@@ -323,13 +533,43 @@ public class BufferPool {
     }
 
     int hashIndex(final Volume vol, final long page) {
-        return (int) (((page ^ vol.hashCode()) & Integer.MAX_VALUE) % _hashTable.length);
+        return hash(vol, page) % _hashTable.length;
+    }
+
+    private static int hash(final Volume vol, final long page) {
+        return (int) ((page ^ vol.hashCode()) & Integer.MAX_VALUE);
+    }
+
+    /**
+     * Compute the hash table length for a pool of the specified size: roughly
+     * {@value #HASH_MULTIPLE} slots per buffer, rounded up to a multiple of
+     * {@value #HASH_LOCKS}.
+     */
+    private static int hashTableSize(final int bufferCount) {
+        final long slots = ((long) bufferCount * HASH_MULTIPLE + HASH_LOCKS - 1) / HASH_LOCKS * HASH_LOCKS;
+        return (int) Math.min(slots, (Integer.MAX_VALUE / HASH_LOCKS - 1) * HASH_LOCKS);
+    }
+
+    /**
+     * Return the hash table containing the chain for the supplied hash code.
+     * A caller holding the corresponding lock in _hashLocks gets the table
+     * whose chain it may modify. A caller that does not hold the lock, such
+     * as {@link #findOptimistically(Volume, long, boolean, int)}, may get the
+     * old table while the stripe is being migrated and so see a partial
+     * chain; it must verify whatever it finds after claiming it, and treat a
+     * miss as inconclusive.
+     */
+    private Buffer[] hashTable(final int hash) {
+        final Buffer[] resized = _resizedHashTable;
+        if (resized != null && _rehashed.get(hash % HASH_LOCKS) != 0) {
+            return resized;
+        }
+        return _hashTable;
     }
 
     int countInUse(final Volume vol, final boolean writer) {
         int count = 0;
-        for (int i = 0; i < _bufferCount; i++) {
-            final Buffer buffer = _buffers[i];
+        for (final Buffer buffer : _buffers) {
             if ((vol == null || buffer.getVolume() == vol)
                     && ((buffer.getStatus() & SharedResource.CLAIMED_MASK) != 0 && (!writer || (buffer.getStatus() & SharedResource.WRITER_MASK) != 0))) {
                 count++;
@@ -349,12 +589,25 @@ public class BufferPool {
         info.writeCount = _writeCounter.get();
         info.forcedCheckpointWriteCount = _forcedCheckpointWriteCounter.get();
         info.forcedWriteCount = _forcedWriteCounter.get();
+        info.replacementPolicy = _policy.toString();
+        info.ghostHitCount = _policy.getGhostHitCounter();
+        info.protectedPageCount = _policy.getProtectedCount();
+        info.freeBufferCount = _freeBufferCount.get();
+        info.reserveDepletedCount = _reserveDepletedCounter.get();
+        info.resizeTargetCount = _resizeTargetCount;
+        info.resizeRemainingCount = _resizeRemainingCount.get();
+        info.retainedIndexPageCount = _retainedIndexPageCount.get();
+        if (_victimCache != null) {
+            info.victimCacheHitCount = _victimCache.getHitCounter();
+            info.victimCacheMissCount = _victimCache.getMissCounter();
+            info.victimCachePageCount = _victimCache.getPageCount();
+            info.victimCacheBytesUsed = _victimCache.getUsedBytes();
+        }
         int validPages = 0;
         int readerClaimedPages = 0;
         int writerClaimedPages = 0;
 
-        for (int index = 0; index < _bufferCount; index++) {
-            final Buffer buffer = _buffers[index];
+        for (final Buffer buffer : _buffers) {
             final int status = buffer.getStatus();
             if ((status & SharedResource.VALID_MASK) != 0)
                 validPages++;
@@ -376,8 +629,7 @@ public class BufferPool {
         int index = 0;
         switch (traveralType) {
         case 0:
-            for (int i = 0; i < _bufferCount; i++) {
-                final Buffer buffer = _buffers[i];
+            for (final Buffer buffer : _buffers) {
                 if (selected(buffer, includeMask, excludeMask)) {
                     populateInfo1(array, index, buffer);
                     index++;
@@ -419,6 +671,222 @@ public class BufferPool {
         return _bufferCount;
     }
 
+    /**
+     * @return The buffer count requested by the resize operation in progress,
+     *         or the current buffer count if no resize is in progress.
+     */
+    public int getResizeTargetCount() {
+        return _resizeTargetCount;
+    }
+
+    /**
+     * @return The number of buffers still to be added or retired plus the
+     *         number of hash table lock stripes still to be migrated by the
+     *         resize operation in progress, or zero if no resize is in
+     *         progress.
+     */
+    public int getResizeRemainingCount() {
+        return _resizeRemainingCount.get();
+    }
+
+    /**
+     * <p>
+     * Change the number of buffers in this pool while it is in use. Growing the
+     * pool allocates the additional buffers and makes them available for
+     * allocation immediately. Shrinking the pool first excludes the buffers
+     * being removed from allocation, then writes any dirty page each one holds
+     * and detaches it from the hash table. Buffers are retired one at a time,
+     * so threads using other pages are never blocked.
+     * </p>
+     * <p>
+     * In either case the hash table is then migrated to a length proportional
+     * to the new buffer count, one lock stripe at a time. Lookups that hash to
+     * a stripe wait only while that stripe is being migrated.
+     * </p>
+     * <p>
+     * Progress of a running resize operation is reported by
+     * {@link #getResizeTargetCount()} and {@link #getResizeRemainingCount()}.
+     * </p>
+     * 
+     * @param count
+     *            The new buffer count
+     * @throws IllegalArgumentException
+     *             if the count is out of range
+     * @throws IllegalStateException
+     *             if another resize operation is in progress, or if a buffer
+     *             that would be removed holds a fixed page. In the latter case
+     *             the pool retains every buffer from that one on.
+     * @throws PersistitException
+     */
+    void resize(final int count) throws PersistitException {
+        if (count < MINIMUM_POOL_COUNT) {
+            throw new IllegalArgumentException("Buffer pool count too small: " + count);
+        }
+        if (!_resizeLock.tryLock()) {
+            throw new IllegalStateException("Resize already in progress on " + this);
+        }
+        try {
+            final int oldCount = _bufferCount;
+            if (count == oldCount) {
+                return;
+            }
+            _resizeTargetCount = count;
+            _resizeRemainingCount.set(Math.abs(count - oldCount) + HASH_LOCKS);
+            if (count > oldCount) {
+                grow(count);
+            } else {
+                shrink(count);
+            }
+            rehash(_bufferCount);
+        } finally {
+            _resizeRemainingCount.set(0);
+            _resizeTargetCount = _bufferCount;
+            _resizeLock.unlock();
+        }
+    }
+
+    private void grow(final int count) {
+        final Buffer[] oldBuffers = _buffers;
+        final Buffer[] buffers = Arrays.copyOf(oldBuffers, count);
+        for (int index = oldBuffers.length; index < count; index++) {
+            buffers[index] = new Buffer(_bufferSize, index, this, _persistit);
+            _resizeRemainingCount.decrementAndGet();
+        }
+        //
+        // The new buffers are invalid and therefore immediately available
+        //
+        final AtomicLongArray oldBits = _availablePagesBits;
+        final AtomicLongArray bits = new AtomicLongArray((count + 63) / 64);
+        for (int q = 0; q < oldBits.length() && q < bits.length(); q++) {
+            bits.set(q, oldBits.get(q));
+        }
+        for (int index = oldBuffers.length; index < count; index++) {
+            bits.set(index / 64, bits.get(index / 64) | (1L << (index % 64)));
+        }
+        //
+        // Publication order matters: a thread that sees the new count must
+        // also see the buffers, the bit map and a policy sized to match.
+        //
+        _availablePagesBits = bits;
+        _buffers = buffers;
+        _policy = _policy.resized(count);
+        _bufferCount = count;
+        _availablePages.set(true);
+    }
+
+    private void shrink(final int count) throws PersistitException {
+        final Buffer[] buffers = _buffers;
+        int retained = buffers.length;
+        setReserveCount(Math.min(_reserveCount, count / MAXIMUM_RESERVE_RATIO));
+        _bufferCount = count;
+        try {
+            while (retained > count && retire(buffers[retained - 1])) {
+                retained--;
+                _resizeRemainingCount.decrementAndGet();
+            }
+        } finally {
+            _bufferCount = retained;
+            _policy = _policy.resized(retained);
+            _buffers = Arrays.copyOf(buffers, retained);
+        }
+        if (retained > count) {
+            throw new IllegalStateException("Unable to shrink " + this + " to " + count + " buffers: "
+                    + buffers[retained - 1] + " holds a fixed page");
+        }
+    }
+
+    /**
+     * Write and detach the page held by a buffer that is being removed from
+     * the pool. The buffer's index is no longer below the buffer count, so
+     * once it has been invalidated no other thread can assign a page to it.
+     * 
+     * @param buffer
+     *            the buffer being removed
+     * @return <code>false</code> if the buffer holds a fixed page and cannot
+     *         be removed
+     * @throws PersistitException
+     */
+    private boolean retire(final Buffer buffer) throws PersistitException {
+        while (!buffer.claim(true, Persistit.SHORT_DELAY)) {
+            _persistit.checkClosed();
+        }
+        try {
+            if (buffer.isFixed()) {
+                return false;
+            }
+            if (buffer.isValid()) {
+                if (buffer.isDirty()) {
+                    buffer.writePage();
+                }
+                invalidate(buffer);
+            } else {
+                buffer.clearDirty();
+            }
+            return true;
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Migrate the hash table to the length appropriate for the specified buffer
+     * count. Each lock stripe is moved while holding only its own lock; the
+     * {@link #hashTable(int)} method directs each lookup to the old or new
+     * table according to whether its stripe has been moved yet.
+     * 
+     * @param count
+     *            the buffer count
+     */
+    private void rehash(final int count) {
+        final int size = hashTableSize(count);
+        if (size == _hashTable.length) {
+            _resizeRemainingCount.addAndGet(-HASH_LOCKS);
+            return;
+        }
+        final Buffer[] resized = new Buffer[size];
+        _resizedHashTable = resized;
+        for (int stripe = 0; stripe < HASH_LOCKS; stripe++) {
+            _hashLocks[stripe].lock();
+            try {
+                final Buffer[] table = _hashTable;
+                for (int index = stripe; index < table.length; index += HASH_LOCKS) {
+                    Buffer buffer = table[index];
+                    table[index] = null;
+                    while (buffer != null) {
+                        final Buffer next = buffer.getNext();
+                        final int target = hash(buffer.getVolume(), buffer.getPageAddress()) % size;
+                        buffer.setNext(resized[target]);
+                        resized[target] = buffer;
+                        buffer = next;
+                    }
+                }
+                _rehashed.set(stripe, 1);
+            } finally {
+                _hashLocks[stripe].unlock();
+            }
+            _resizeRemainingCount.decrementAndGet();
+        }
+        _hashTable = resized;
+        _resizedHashTable = null;
+        for (int stripe = 0; stripe < HASH_LOCKS; stripe++) {
+            _hashLocks[stripe].lock();
+            try {
+                _rehashed.set(stripe, 0);
+            } finally {
+                _hashLocks[stripe].unlock();
+            }
+        }
+    }
+
+    /**
+     * @return whether the buffer lies within the portion of the pool from
+     *         which buffers may be allocated. Checked after claiming a buffer
+     *         because the pool may have shrunk since it was selected.
+     */
+    private boolean isAllocatable(final Buffer buffer) {
+        return buffer.getIndex() < _bufferCount;
+    }
+
     /**
      * @return The count of lookup operations for pages images in this pool that
      *         required a physical read operation. This number, in comparison
@@ -472,6 +940,159 @@ public class BufferPool {
         return _forcedCheckpointWriteCounter.get();
     }
 
+    /**
+     * @return The name of the replacement policy used to choose pages to
+     *         evict from this pool
+     */
+    public String getReplacementPolicy() {
+        return _policy.toString();
+    }
+
+    /**
+     * @return The count of pages read into this pool that were recognized by
+     *         the replacement policy as having been recently evicted. Always
+     *         zero for policies that do not remember evicted pages.
+     */
+    public long getGhostHitCounter() {
+        return _policy.getGhostHitCounter();
+    }
+
+    /**
+     * @return The count of buffers the replacement policy currently protects
+     *         from eviction by one-time accesses.
+     */
+    public int getProtectedPageCount() {
+        return _policy.getProtectedCount();
+    }
+
+    /**
+     * @return The target number of clean, detached buffers the PAGE_WRITER
+     *         thread keeps ready for allocation, or zero if the reserve is
+     *         disabled
+     */
+    public int getReserveCount() {
+        return _reserveCount;
+    }
+
+    /**
+     * Set the target number of clean, detached buffers the PAGE_WRITER thread
+     * keeps ready for allocation. When the reserve falls below half this
+     * number the PAGE_WRITER is woken to refill it. Zero disables the reserve.
+     * 
+     * @param reserveCount
+     *            the target, between zero and one quarter of the buffer count
+     */
+    public void setReserveCount(final int reserveCount) {
+        Util.rangeCheck(reserveCount, 0, _bufferCount / MAXIMUM_RESERVE_RATIO);
+        _reserveCount = reserveCount;
+    }
+
+    /**
+     * @return The count of buffers currently held in the free buffer reserve
+     */
+    public int getFreeBufferCount() {
+        return _freeBufferCount.get();
+    }
+
+    /**
+     * This counter is incremented each time a thread needing a buffer finds
+     * the free buffer reserve empty and must evict a page itself. A large
+     * value indicates the reserve is too small or the PAGE_WRITER thread is
+     * falling behind.
+     * 
+     * @return The count of allocations that found the reserve depleted
+     */
+    public long getReserveDepletedCounter() {
+        return _reserveDepletedCounter.get();
+    }
+
+    /**
+     * @return The maximum number of pages an Exchange may read ahead while
+     *         traversing leaf pages sequentially, after applying the limit of
+     *         one sixteenth of the buffer count. Zero means read-ahead is
+     *         disabled.
+     */
+    public int getReadAheadLimit() {
+        return Math.min(_readAheadLimit, _bufferCount / MAXIMUM_READ_AHEAD_RATIO);
+    }
+
+    /**
+     * Set the maximum number of pages an Exchange may read ahead while
+     * traversing leaf pages sequentially. The window starts small and doubles
+     * while the traversal remains sequential, up to this limit. Zero disables
+     * read-ahead.
+     * 
+     * @param readAheadLimit
+     *            the limit, between zero and
+     *            {@value #MAXIMUM_READ_AHEAD_LIMIT}
+     */
+    public void setReadAheadLimit(final int readAheadLimit) {
+        Util.rangeCheck(readAheadLimit, 0, MAXIMUM_READ_AHEAD_LIMIT);
+        _readAheadLimit = readAheadLimit;
+    }
+
+    /**
+     * @return The percentage of the pool in which index pages are retained in
+     *         preference to data pages. Zero means retention is disabled.
+     */
+    public int getIndexRetention() {
+        return _indexRetention;
+    }
+
+    /**
+     * Set the percentage of the pool in which index pages, and all pages of
+     * the directory tree, are retained in preference to data pages. While
+     * fewer than this share of buffers hold retained pages, each index page
+     * visited by a key search is marked as retained; the eviction clock then
+     * passes over retained pages until it has made
+     * {@value ReplacementPolicy#DESPERATE_PASS} full cycles without finding
+     * another candidate. Zero disables retention.
+     * 
+     * @param indexRetention
+     *            the percentage, between zero and
+     *            {@value #MAXIMUM_INDEX_RETENTION}
+     */
+    public void setIndexRetention(final int indexRetention) {
+        Util.rangeCheck(indexRetention, 0, MAXIMUM_INDEX_RETENTION);
+        _indexRetention = indexRetention;
+    }
+
+    /**
+     * @return The number of buffers currently holding retained index pages
+     */
+    public int getRetainedIndexPageCount() {
+        return _retainedIndexPageCount.get();
+    }
+
+    /**
+     * @return The count of pool misses satisfied by the victim cache
+     */
+    public long getVictimCacheHitCounter() {
+        return _victimCache == null ? 0 : _victimCache.getHitCounter();
+    }
+
+    /**
+     * @return The count of pool misses that were not found in the victim
+     *         cache and had to be read from the volume or journal
+     */
+    public long getVictimCacheMissCounter() {
+        return _victimCache == null ? 0 : _victimCache.getMissCounter();
+    }
+
+    /**
+     * @return The number of page images currently held in the victim cache
+     */
+    public int getVictimCachePageCount() {
+        return _victimCache == null ? 0 : _victimCache.getPageCount();
+    }
+
+    /**
+     * @return The victim cache, or <code>null</code> if it is disabled
+     */
+    VictimCache getVictimCache() {
+        return _victimCache;
+    }
+
     /**
      * Resets the get and hit counters to zero.
      */
@@ -480,6 +1101,11 @@ public class BufferPool {
         _hitCounter.set(0);
         _newCounter.set(0);
         _evictCounter.set(0);
+        _reserveDepletedCounter.set(0);
+        _policy.resetCounters();
+        if (_victimCache != null) {
+            _victimCache.resetCounters();
+        }
     }
 
     int getMaxKeys() {
@@ -544,25 +1170,37 @@ public class BufferPool {
      */
     boolean invalidate(final Volume volume) throws PersistitException {
         final float ratio = (float) volume.getStorage().getNextAvailablePage() / (float) _bufferCount;
+        final boolean result;
         if (ratio < SMALL_VOLUME_RATIO) {
-            return invalidateSmallVolume(volume, false);
+            result = invalidateSmallVolume(volume, false);
         } else {
-            return invalidateLargeVolume(volume, false);
+            result = invalidateLargeVolume(volume, false);
         }
+        invalidateVictims(volume);
+        return result;
     }
 
     boolean evict(final Volume volume) throws PersistitException {
-        return invalidateSmallVolume(volume, true);
+        final boolean result = invalidateSmallVolume(volume, true);
+        invalidateVictims(volume);
+        return result;
+    }
+
+    private void invalidateVictims(final Volume volume) {
+        if (_victimCache != null) {
+            _victimCache.invalidate(volume);
+        }
     }
 
     boolean invalidateSmallVolume(final Volume volume, final boolean mustWrite) throws PersistitException {
         boolean result = true;
         int markedAvailable = 0;
         for (long page = 1; page < volume.getStorage().getNextAvailablePage(); page++) {
-            final int hashIndex = hashIndex(volume, page);
-            _hashLocks[hashIndex % HASH_LOCKS].lock();
+            final int hash = hash(volume, page);
+            _hashLocks[hash % HASH_LOCKS].lock();
             try {
-                for (Buffer buffer = _hashTable[hashIndex]; buffer != null; buffer = buffer.getNext()) {
+                final Buffer[] table = hashTable(hash);
+                for (Buffer buffer = table[hash % table.length]; buffer != null; buffer = buffer.getNext()) {
                     if ((buffer.getVolume() == volume || volume == null) && !buffer.isFixed() && buffer.isValid()) {
                         if (buffer.claim(true, 0)) {
                             // re-check after claim
@@ -593,7 +1231,7 @@ public class BufferPool {
                     }
                 }
             } finally {
-                _hashLocks[hashIndex % HASH_LOCKS].unlock();
+                _hashLocks[hash % HASH_LOCKS].unlock();
             }
         }
         if (markedAvailable > 0) {
@@ -606,8 +1244,7 @@ public class BufferPool {
     boolean invalidateLargeVolume(final Volume volume, final boolean mustWrite) throws PersistitException {
         boolean result = true;
         int markedAvailable = 0;
-        for (int index = 0; index < _bufferCount; index++) {
-            final Buffer buffer = _buffers[index];
+        for (final Buffer buffer : _buffers) {
             if ((buffer.getVolume() == volume || volume == null) && !buffer.isFixed() && buffer.isValid()) {
                 if (buffer.claim(true, 0)) {
                     // re-check after claim
@@ -659,13 +1296,33 @@ public class BufferPool {
                 // ignore
             }
         }
+        _policy.removed(buffer, false);
+        releaseIndexPage(buffer);
         buffer.clearValid();
         buffer.clearDirty();
         buffer.setPageAddressAndVolume(0, null);
     }
 
+    /**
+     * Detach a clean buffer that is being evicted, first saving its page image
+     * in the victim cache if there is one. The image is stored while the
+     * buffer is still attached so that a concurrent request for the same page
+     * waits for the eviction to finish and then finds the image in the cache.
+     */
+    private boolean detachForEviction(final Buffer buffer) {
+        if (_victimCache == null) {
+            return detach(buffer);
+        }
+        _victimCache.put(buffer);
+        if (detach(buffer)) {
+            return true;
+        }
+        _victimCache.remove(buffer.getVolume(), buffer.getPageAddress());
+        return false;
+    }
+
     private boolean detach(final Buffer buffer) {
-        final int hash = hashIndex(buffer.getVolume(), buffer.getPageAddress());
+        final int hash = hash(buffer.getVolume(), buffer.getPageAddress());
         if (!_hashLocks[hash % HASH_LOCKS].tryLock()) {
             return false;
         }
@@ -673,10 +1330,12 @@ public class BufferPool {
 
             // Detach this buffer from the hash table.
             //
-            if (_hashTable[hash] == buffer) {
-                _hashTable[hash] = buffer.getNext();
+            final Buffer[] table = hashTable(hash);
+            final int index = hash % table.length;
+            if (table[index] == buffer) {
+                table[index] = buffer.getNext();
             } else {
-                Buffer prev = _hashTable[hash];
+                Buffer prev = table[index];
                 for (Buffer next = prev.getNext();; next = prev.getNext()) {
                     assert next != null : "Attempting to detach an unattached Buffer";
                     if (next == buffer) {
@@ -689,6 +1348,10 @@ public class BufferPool {
         } finally {
             _hashLocks[hash % HASH_LOCKS].unlock();
         }
+        if (buffer.clearPrefetched()) {
+            _persistit.getIOMeter().chargeReadAheadWasted(buffer.getVolume(), buffer.getPageAddress(),
+                    buffer.getBufferSize(), buffer.getIndex());
+        }
         return true;
     }
 
@@ -740,14 +1403,35 @@ public class BufferPool {
      */
     Buffer get(final Volume vol, final long page, final boolean writer, final boolean wantRead, final long timeout)
             throws PersistitException {
-        final int hash = hashIndex(vol, page);
-        Buffer buffer = null;
+        return get(vol, page, writer, wantRead, timeout, false);
+    }
+
+    /**
+     * Find or load a page as in {@link #get(Volume, long, boolean, boolean)}.
+     * When <code>prefetch</code> is <code>true</code> the request comes from
+     * the READ_AHEAD thread: it does not count as a get, hit or miss, and a
+     * page it loads is marked so that its first use by an application thread
+     * is counted as a read-ahead hit.
+     */
+    private Buffer get(final Volume vol, final long page, final boolean writer, final boolean wantRead,
+            final long timeout, final boolean prefetch) throws PersistitException {
+        final int hash = hash(vol, page);
+        Buffer buffer = findOptimistically(vol, page, writer, hash);
+        if (buffer != null) {
+            if (!prefetch) {
+                bumpGetHit(vol, buffer);
+            }
+            return buffer;
+        }
+        _lockedLookupCounter.incrementAndGet();
 
         for (;;) {
             boolean mustClaim = false;
             _hashLocks[hash % HASH_LOCKS].lock();
             try {
-                buffer = _hashTable[hash];
+                final Buffer[] table = hashTable(hash);
+                final int index = hash % table.length;
+                buffer = table[index];
                 //
                 // Search for the page
                 //
@@ -758,8 +1442,9 @@ public class BufferPool {
                         // Found it - now claim it.
                         //
                         if (buffer.claim(writer, 0)) {
-                            vol.getStatistics().bumpGetCounter();
-                            bumpHitCounter();
+                            if (!prefetch) {
+                                bumpGetHit(vol, buffer);
+                            }
                             assert !buffer.isOwnedAsWriterByOther();
                             return buffer;
                         } else {
@@ -775,27 +1460,7 @@ public class BufferPool {
                     // Page not found. Allocate an available buffer and read
                     // in the page from the Volume.
                     //
-                    buffer = allocBuffer();
-                    Debug.$assert1.t(!buffer.isDirty());
-                    Debug.$assert0.t(buffer != _hashTable[hash]);
-                    Debug.$assert0.t(buffer.getNext() != buffer);
-
-                    buffer.setPageAddressAndVolume(page, vol);
-                    buffer.setNext(_hashTable[hash]);
-                    _hashTable[hash] = buffer;
-                    //
-                    // It's not really valid yet, but it does have a writer
-                    // claim on it so no other Thread can access it. In the
-                    // meantime, any other Thread seeking access to the same
-                    // page will find it.
-                    //
-                    buffer.setValid();
-                    if (vol.isTemporary() || vol.isLockVolume()) {
-                        buffer.setTemporary();
-                    } else {
-                        buffer.clearTemporary();
-                    }
-                    Debug.$assert0.t(buffer.getNext() != buffer);
+                    buffer = assignBuffer(vol, page, table, index);
                 }
             } finally {
                 _hashLocks[hash % HASH_LOCKS].unlock();
@@ -826,8 +1491,9 @@ public class BufferPool {
                         //
                         // If so, then we're done.
                         //
-                        vol.getStatistics().bumpGetCounter();
-                        bumpHitCounter();
+                        if (!prefetch) {
+                            bumpGetHit(vol, buffer);
+                        }
                         assert !buffer.isOwnedAsWriterByOther();
                         return buffer;
                     } else {
@@ -857,28 +1523,280 @@ public class BufferPool {
                     boolean loaded = false;
                     try {
                         Debug.$assert0.t(buffer.getPageAddress() == page && buffer.getVolume() == vol
-                                && hashIndex(buffer.getVolume(), buffer.getPageAddress()) == hash);
-                        buffer.load(vol, page);
+                                && hash(buffer.getVolume(), buffer.getPageAddress()) == hash);
+                        if (_victimCache != null && _victimCache.load(buffer)) {
+                            buffer.load();
+                        } else {
+                            buffer.load(vol, page);
+                        }
                         loaded = true;
-                        vol.getStatistics().bumpGetCounter();
-                        bumpMissCounter();
+                        if (prefetch) {
+                            buffer.setPrefetched();
+                            _persistit.getIOMeter().chargeReadAheadPage(vol, page, buffer.getBufferSize(),
+                                    buffer.getIndex());
+                        } else {
+                            vol.getStatistics().bumpGetCounter();
+                            bumpMissCounter();
+                        }
                     } finally {
                         if (!loaded) {
                             invalidate(buffer);
                             buffer.release();
                         }
                     }
-                } else {
-                    buffer.clear();
-                    buffer.init(Buffer.PAGE_TYPE_UNALLOCATED);
-                    bumpNewCounter();
-                }
-                if (!writer) {
-                    buffer.releaseWriterClaim();
+                } else {
+                    if (_victimCache != null) {
+                        _victimCache.remove(vol, page);
+                    }
+                    buffer.clear();
+                    buffer.init(Buffer.PAGE_TYPE_UNALLOCATED);
+                    bumpNewCounter();
+                }
+                if (!writer) {
+                    buffer.releaseWriterClaim();
+                }
+                return buffer;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Look up a page without acquiring its hash lock. The hash chain is read
+     * while other threads may be changing it, so the buffer found may have
+     * been reassigned to another page by the time it is claimed. However, a
+     * buffer's volume, page address and valid flag change only while another
+     * thread holds a writer claim on it, so once this thread holds any claim
+     * a buffer that is still valid and still identifies the requested page is
+     * the right one and is still linked into the hash table.
+     * </p>
+     * <p>
+     * This method returns <code>null</code> rather than waiting if the page
+     * is not found, if the buffer cannot be claimed immediately, or if the
+     * chain is longer than {@value #OPTIMISTIC_CHAIN_LIMIT}. The caller then
+     * falls back to the locked lookup.
+     * </p>
+     * 
+     * @return the claimed Buffer, or <code>null</code>
+     */
+    private Buffer findOptimistically(final Volume vol, final long page, final boolean writer, final int hash)
+            throws PersistitInterruptedException {
+        final Buffer[] table = hashTable(hash);
+        Buffer buffer = table[hash % table.length];
+        for (int links = 0; buffer != null && links < OPTIMISTIC_CHAIN_LIMIT; links++) {
+            if (buffer.getPageAddress() == page && buffer.getVolume() == vol) {
+                if (buffer.claim(writer, 0)) {
+                    if (buffer.isValid() && buffer.getPageAddress() == page && buffer.getVolume() == vol) {
+                        assert !buffer.isOwnedAsWriterByOther();
+                        return buffer;
+                    }
+                    buffer.release();
+                }
+                return null;
+            }
+            buffer = buffer.getNext();
+        }
+        return null;
+    }
+
+    /**
+     * @return The count of lookups that acquired a hash lock. A lookup that
+     *         finds its page and claims it without waiting takes no lock.
+     */
+    long getLockedLookupCounter() {
+        return _lockedLookupCounter.get();
+    }
+
+    /**
+     * Mark a page visited by a key search as an index page to be retained in
+     * preference to data pages. Does nothing unless index retention is enabled
+     * and the page is an index page or belongs to the directory tree. The
+     * caller holds a claim on the buffer.
+     * 
+     * @param buffer
+     *            the Buffer
+     * @param tree
+     *            the Tree being searched
+     */
+    void retainIndexPage(final Buffer buffer, final Tree tree) {
+        final int indexRetention = _indexRetention;
+        if (indexRetention == 0) {
+            return;
+        }
+        final Tree previous = buffer.getRetainedTree();
+        if (previous == tree || !isRetainable(buffer, tree)) {
+            return;
+        }
+        if (previous == null) {
+            if (_retainedIndexPageCount.get() >= (long) _bufferCount * indexRetention / 100) {
+                return;
+            }
+            if (buffer.setRetainedTree(null, tree)) {
+                _retainedIndexPageCount.incrementAndGet();
+                tree.adjustResidentIndexPageCount(1);
+            }
+        } else if (buffer.setRetainedTree(previous, tree)) {
+            previous.adjustResidentIndexPageCount(-1);
+            tree.adjustResidentIndexPageCount(1);
+        }
+    }
+
+    private boolean isRetainable(final Buffer buffer, final Tree tree) {
+        return buffer.isValid() && tree.isValid()
+                && (buffer.isIndexPage() || buffer.isDataPage()
+                        && VolumeStructure.DIRECTORY_TREE_NAME.equals(tree.getName()));
+    }
+
+    /**
+     * Determine whether the eviction clock should pass over a buffer because
+     * it holds a retained index page. A page that is no longer retainable,
+     * for example because it has been deallocated, is released here.
+     */
+    private boolean isRetained(final Buffer buffer, final int pass) {
+        final Tree tree = buffer.getRetainedTree();
+        if (tree == null) {
+            return false;
+        }
+        if (_indexRetention == 0 || !isRetainable(buffer, tree)) {
+            releaseIndexPage(buffer);
+            return false;
+        }
+        if (buffer.isTouched()) {
+            buffer.clearTouched();
+            return pass < ReplacementPolicy.DESPERATE_PASS;
+        }
+        if (_retainedIndexPageCount.get() >= (long) _bufferCount * _indexRetention / 100) {
+            releaseIndexPage(buffer);
+            return false;
+        }
+        return pass < ReplacementPolicy.DESPERATE_PASS;
+    }
+
+    private void releaseIndexPage(final Buffer buffer) {
+        final Tree tree = buffer.getRetainedTree();
+        if (tree != null && buffer.setRetainedTree(tree, null)) {
+            _retainedIndexPageCount.decrementAndGet();
+            tree.adjustResidentIndexPageCount(-1);
+        }
+    }
+
+    private void bumpGetHit(final Volume vol, final Buffer buffer) {
+        vol.getStatistics().bumpGetCounter();
+        bumpHitCounter();
+        if (buffer.isPrefetched() && buffer.clearPrefetched()) {
+            _persistit.getIOMeter().chargeReadAheadHit(vol, buffer.getPageAddress(), buffer.getBufferSize(),
+                    buffer.getIndex());
+        }
+    }
+
+    /**
+     * Request that up to <code>count</code> pages, starting at
+     * <code>page</code> and following right-sibling links, be loaded into the
+     * pool by the READ_AHEAD thread. The request is discarded if read-ahead is
+     * disabled or too many requests are already pending.
+     * 
+     * @return <code>true</code> if the request was queued
+     */
+    boolean readAhead(final Volume vol, final long page, final int count) {
+        final ReadAhead readAhead = _readAhead;
+        if (readAhead == null || count <= 0 || _closed.get()) {
+            return false;
+        }
+        if (!_readAheadQueue.offer(new ReadAheadRequest(vol, page, count))) {
+            return false;
+        }
+        readAhead.kick();
+        return true;
+    }
+
+    /**
+     * Load a page on behalf of the READ_AHEAD thread.
+     * 
+     * @return the page's right sibling, or zero if the page is not a data page
+     *         or is the last page at its level
+     */
+    private long prefetch(final Volume vol, final long page) throws PersistitException {
+        final long resident = residentRightSibling(vol, page);
+        if (resident >= 0) {
+            return resident;
+        }
+        final Buffer buffer = get(vol, page, false, true, Persistit.SHORT_DELAY, true);
+        try {
+            return buffer.isDataPage() ? buffer.getRightSibling() : 0;
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Find the right sibling of a page that is already resident, without
+     * claiming its buffer, so that the READ_AHEAD thread can step past pages
+     * an earlier request or a foreground thread has already loaded. The buffer
+     * is checked as in {@link #findOptimistically(Volume, long, boolean, int)}
+     * but never claimed; a buffer that is being loaded or modified by a writer
+     * is treated as not resident. The result is only a hint: a sibling read
+     * while the page is being split merely sends read-ahead down a stale link.
+     * (Package-private for unit tests only.)
+     * 
+     * @return the page's right sibling, zero if it is resident but is not a
+     *         data page or is the last page at its level, or -1 if it is not
+     *         resident
+     */
+    long residentRightSibling(final Volume vol, final long page) {
+        final int hash = hash(vol, page);
+        final Buffer[] table = hashTable(hash);
+        Buffer buffer = table[hash % table.length];
+        for (int links = 0; buffer != null && links < OPTIMISTIC_CHAIN_LIMIT; links++) {
+            if (buffer.getPageAddress() == page && buffer.getVolume() == vol) {
+                if (isSettled(buffer.getStatus())) {
+                    final long rightSibling = buffer.isDataPage() ? buffer.getRightSibling() : 0;
+                    if (isSettled(buffer.getStatus()) && buffer.getPageAddress() == page
+                            && buffer.getVolume() == vol) {
+                        return rightSibling;
+                    }
                 }
-                return buffer;
+                return -1;
             }
+            buffer = buffer.getNext();
+        }
+        return -1;
+    }
+
+    private static boolean isSettled(final int status) {
+        return (status & (SharedResource.VALID_MASK | SharedResource.WRITER_MASK)) == SharedResource.VALID_MASK;
+    }
+
+    /**
+     * Allocate an available buffer, assign it to the specified page and link
+     * it into hash chain <code>table[index]</code>. The caller must hold the
+     * hash lock for the page. The returned Buffer is owned as writer by the
+     * current thread and must subsequently be loaded or invalidated.
+     */
+    private Buffer assignBuffer(final Volume vol, final long page, final Buffer[] table, final int index)
+            throws PersistitException {
+        final Buffer buffer = allocBuffer();
+        Debug.$assert1.t(!buffer.isDirty());
+        Debug.$assert0.t(buffer != table[index]);
+        Debug.$assert0.t(buffer.getNext() != buffer);
+
+        buffer.setPageAddressAndVolume(page, vol);
+        buffer.setNext(table[index]);
+        table[index] = buffer;
+        _policy.admitted(buffer);
+        //
+        // It's not really valid yet, but it does have a writer
+        // claim on it so no other Thread can access it. In the
+        // meantime, any other Thread seeking access to the same
+        // page will find it.
+        //
+        buffer.setValid();
+        if (vol.isTemporary() || vol.isLockVolume()) {
+            buffer.setTemporary();
+        } else {
+            buffer.clearTemporary();
         }
+        Debug.$assert0.t(buffer.getNext() != buffer);
+        return buffer;
     }
 
     /**
@@ -901,11 +1819,12 @@ public class BufferPool {
     public Buffer getBufferCopy(final Volume vol, final long page) throws InvalidPageAddressException,
             InvalidPageStructureException, VolumeClosedException, InUseException, PersistitIOException,
             PersistitInterruptedException {
-        final int hash = hashIndex(vol, page);
+        final int hash = hash(vol, page);
         Buffer buffer = null;
         _hashLocks[hash % HASH_LOCKS].lock();
         try {
-            buffer = _hashTable[hash];
+            final Buffer[] table = hashTable(hash);
+            buffer = table[hash % table.length];
             //
             // Search for the page
             //
@@ -937,17 +1856,19 @@ public class BufferPool {
     }
 
     public Buffer getBufferCopy(final int index) throws IllegalArgumentException {
-        if (index < 0 || index >= _bufferCount) {
+        final Buffer[] buffers = _buffers;
+        if (index < 0 || index >= buffers.length) {
             throw new IllegalArgumentException("Index " + index + " is out of range in " + this);
         }
-        return new Buffer(_buffers[index]);
+        return new Buffer(buffers[index]);
     }
 
     /**
      * Returns an available buffer. The replacement policy is to return a buffer
-     * that's already been marked invalid, if available. Otherwise use the Clock
-     * algorithm to choose a page for replacement that is approximately the
-     * least-recently-used page.
+     * from the free buffer reserve or one that's already been marked invalid,
+     * if available. Otherwise advance the
+     * clock hand until the pool's {@link ReplacementPolicy} accepts a buffer
+     * for replacement.
      * 
      * @return Buffer An available buffer, or <i>null</i> if no buffer is
      *         currently available. The buffer has a writer claim.
@@ -958,30 +1879,46 @@ public class BufferPool {
 
     private Buffer allocBuffer() throws PersistitException {
         //
-        // Start by searching for an invalid page. It's preferable
+        // Take a buffer cleaned in advance by the PAGE_WRITER thread if
+        // possible.
+        //
+        if (_reserveCount > 0) {
+            final Buffer buffer = takeFreeBuffer();
+            if (buffer != null) {
+                return buffer;
+            }
+            _reserveDepletedCounter.incrementAndGet();
+            kickWriter();
+        }
+        //
+        // Then search for an invalid page. It's preferable
         // since no valid page will need to be evicted.
         //
         if (_availablePages.get()) {
-            final int start = (_clock.get() / 64) * 64;
+            final AtomicLongArray availablePagesBits = _availablePagesBits;
+            final Buffer[] buffers = _buffers;
+            final int count = Math.min(_bufferCount, buffers.length);
+            final int start = (Math.min(_clock.get(), count - 1) / 64) * 64;
             for (int q = start;;) {
                 q += 64;
-                if (q >= _bufferCount) {
+                if (q >= count) {
                     q = 0;
                 }
-                long bits = _availablePagesBits.get(q / 64);
+                long bits = availablePagesBits.get(q / 64);
                 if (bits != 0) {
-                    for (int p = 0; p < 64; p++) {
+                    for (int p = 0; p < 64 && q + p < count; p++) {
                         if ((bits & (1L << p)) != 0) {
-                            final Buffer buffer = _buffers[q + p];
+                            final Buffer buffer = buffers[q + p];
                             //
                             // Note: need to verify that there are no claims -
                             // including those of the current thread.
                             //
                             if ((buffer.getStatus() & SharedResource.CLAIMED_MASK) == 0 && buffer.claim(true, 0)) {
-                                if (!buffer.isValid()) {
-                                    bits = _availablePagesBits.get(q / 64);
-                                    if (_availablePagesBits.compareAndSet(q / 64, bits, bits & ~(1L << p))) {
+                                if (!buffer.isValid() && isAllocatable(buffer)) {
+                                    bits = availablePagesBits.get(q / 64);
+                                    if (availablePagesBits.compareAndSet(q / 64, bits, bits & ~(1L << p))) {
                                         buffer.clearDirty();
+                                        unreserve(buffer);
                                         return buffer;
                                     }
                                 }
@@ -997,26 +1934,131 @@ public class BufferPool {
             }
             _availablePages.set(false);
         }
-        //
-        // Look for a page to evict.
-        //
-        for (int retry = 0; retry < _bufferCount * 2;) {
+        final Buffer buffer = evictBuffer(true);
+        if (buffer == null) {
+            throw new IllegalStateException("No available Buffers");
+        }
+        unreserve(buffer);
+        return buffer;
+    }
+
+    /**
+     * Take a buffer from the free buffer reserve. Entries whose buffer has
+     * been taken by another route since it was reserved are discarded; so is
+     * a buffer that is claimed by another thread, has been reused or lies
+     * outside a pool that has since shrunk.
+     * 
+     * @return An invalid buffer with a writer claim, or <code>null</code> if
+     *         the reserve is empty
+     * @throws PersistitInterruptedException
+     */
+    private Buffer takeFreeBuffer() throws PersistitInterruptedException {
+        Buffer buffer;
+        while ((buffer = _freeBuffers.poll()) != null) {
+            if (!buffer.clearReserved()) {
+                continue;
+            }
+            final int remaining = _freeBufferCount.decrementAndGet();
+            if ((buffer.getStatus() & SharedResource.CLAIMED_MASK) == 0 && buffer.claim(true, 0)) {
+                if (!buffer.isValid() && isAllocatable(buffer)) {
+                    buffer.clearDirty();
+                    if (remaining < _reserveCount / RESERVE_LOW_WATERMARK_RATIO) {
+                        kickWriter();
+                    }
+                    return buffer;
+                }
+                buffer.release();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remove a buffer about to be reused from the free buffer reserve, if it
+     * was there. Its entry in _freeBuffers becomes stale.
+     */
+    private void unreserve(final Buffer buffer) {
+        if (buffer.clearReserved()) {
+            _freeBufferCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Evict pages until the free buffer reserve reaches its target size. Called
+     * by the PAGE_WRITER thread, which therefore performs any writes of dirty
+     * pages that would otherwise be done by the allocating thread.
+     * 
+     * @return the number of buffers added to the reserve
+     * @throws PersistitException
+     */
+    int refillFreeBuffers() throws PersistitException {
+        int added = 0;
+        while (_freeBufferCount.get() < _reserveCount && !_closed.get()) {
+            final Buffer buffer = evictBuffer(false);
+            if (buffer == null) {
+                break;
+            }
+            final boolean reserved = buffer.setReserved();
+            buffer.release();
+            if (reserved) {
+                _freeBuffers.offer(buffer);
+                _freeBufferCount.incrementAndGet();
+                added++;
+            }
+        }
+        return added;
+    }
+
+    private void kickWriter() {
+        final PageWriter writer = _writer;
+        if (writer != null) {
+            writer.kick();
+        }
+    }
+
+    /**
+     * Use the clock and replacement policy to choose a page, write it if it is
+     * dirty, and detach it from the hash table.
+     * 
+     * @param forced
+     *            <code>true</code> if the caller is a thread that needs the
+     *            buffer now, in which case writing a dirty page is counted as
+     *            a forced write
+     * @return An invalid buffer with a writer claim, or <code>null</code> if
+     *         no buffer could be evicted
+     * @throws PersistitException
+     */
+    private Buffer evictBuffer(final boolean forced) throws PersistitException {
+        final Buffer[] buffers = _buffers;
+        final int count = Math.min(_bufferCount, buffers.length);
+        final ReplacementPolicy policy = _policy;
+        for (int retry = 0; retry < count * EVICTION_PASSES;) {
             final int clock = _clock.get();
-            assert clock < _bufferCount;
-            if (!_clock.compareAndSet(clock, (clock + 1) % _bufferCount)) {
+            if (clock >= count) {
+                //
+                // The pool has shrunk since the clock last advanced
+                //
+                _clock.compareAndSet(clock, 0);
                 continue;
             }
-            final Buffer buffer = _buffers[clock];
-            if (buffer.isTouched()) {
-                buffer.clearTouched();
-            } else {
+            if (!_clock.compareAndSet(clock, (clock + 1) % count)) {
+                continue;
+            }
+            final Buffer buffer = buffers[clock];
+            /*
+             * Refilling the reserve must not pick a buffer already in it
+             */
+            if (!isRetained(buffer, retry / count) && !policy.skip(buffer, retry / count)
+                    && (forced || !buffer.isReserved())) {
                 //
                 // Note: need to verify that there are no claims - including
                 // those of the current thread.
                 //
                 if (!buffer.isFixed() && (buffer.getStatus() & SharedResource.CLAIMED_MASK) == 0
                         && buffer.claim(true, 0)) {
-                    if (buffer.isDirty()) {
+                    if (!isAllocatable(buffer)) {
+                        buffer.release();
+                    } else if (buffer.isDirty()) {
                         // An invalid dirty buffer is available and does not
                         // need to be written.
                         if (!buffer.isValid()) {
@@ -1028,9 +2070,13 @@ public class BufferPool {
                         // this context
                         try {
                             buffer.writePage(false);
-                            if (detach(buffer)) {
+                            if (detachForEviction(buffer)) {
+                                _policy.removed(buffer, true);
+                                releaseIndexPage(buffer);
                                 buffer.clearValid();
-                                _forcedWriteCounter.incrementAndGet();
+                                if (forced) {
+                                    _forcedWriteCounter.incrementAndGet();
+                                }
                                 _evictCounter.incrementAndGet();
                                 _persistit.getIOMeter().chargeEvictPageFromPool(buffer.getVolume(),
                                         buffer.getPageAddress(), buffer.getBufferSize(), buffer.getIndex());
@@ -1043,7 +2089,9 @@ public class BufferPool {
                             }
                         }
                     } else {
-                        if (buffer.isValid() && detach(buffer)) {
+                        if (buffer.isValid() && detachForEviction(buffer)) {
+                            _policy.removed(buffer, true);
+                            releaseIndexPage(buffer);
                             buffer.clearValid();
                             _evictCounter.incrementAndGet();
                             _persistit.getIOMeter().chargeEvictPageFromPool(buffer.getVolume(),
@@ -1059,7 +2107,7 @@ public class BufferPool {
             }
             retry++;
         }
-        throw new IllegalStateException("No available Buffers");
+        return null;
     }
 
     enum Result {
@@ -1110,23 +2158,66 @@ public class BufferPool {
         return false;
     }
 
+    /**
+     * Write a tranche of dirty buffers selected by priority. The tranche is
+     * sorted by volume and page address and written in batches of up to
+     * {@value #PAGE_WRITER_BATCH_SIZE} pages; each batch is handed to
+     * {@link VolumeStorage#writePages(Buffer[], int, int)} so that its page
+     * images are appended to the journal together.
+     */
     void writeDirtyBuffers(final int[] priorities, final BufferHolder[] selectedBuffers) throws PersistitException {
         final int count = selectDirtyBuffers(priorities, selectedBuffers);
         if (count > 0) {
             Arrays.sort(selectedBuffers, 0, count);
+            final boolean prune = _persistit.getJournalManager().isWritePagePruningEnabled();
+            final Buffer[] batch = new Buffer[Math.min(count, PAGE_WRITER_BATCH_SIZE)];
+            int size = 0;
             for (int index = 0; index < count; index++) {
                 final BufferHolder holder = selectedBuffers[index];
                 final Buffer buffer = holder._buffer;
                 if (buffer.claim(true, 0)) {
-                    try {
-                        if (holder.matches(buffer) && buffer.isDirty() && buffer.isValid()) {
-                            buffer.writePage();
+                    if (holder.matches(buffer) && buffer.isDirty() && buffer.isValid()) {
+                        batch[size++] = buffer;
+                        if (size == batch.length) {
+                            writeBatch(batch, size, prune);
+                            size = 0;
                         }
-                    } finally {
+                    } else {
                         buffer.release();
                     }
                 }
             }
+            if (size > 0) {
+                writeBatch(batch, size, prune);
+            }
+        }
+    }
+
+    /**
+     * Write and release a batch of claimed dirty buffers sorted by volume and
+     * page address.
+     */
+    private void writeBatch(final Buffer[] batch, final int size, final boolean prune) throws PersistitException {
+        try {
+            _persistit.checkFatal();
+            for (int index = 0; index < size; index++) {
+                batch[index].prepareWrite(prune);
+            }
+            int from = 0;
+            for (int index = 1; index <= size; index++) {
+                if (index == size || batch[index].getVolume() != batch[from].getVolume()) {
+                    batch[from].getVolume().getStorage().writePages(batch, from, index - from);
+                    for (int written = from; written < index; written++) {
+                        batch[written].completeWrite();
+                    }
+                    from = index;
+                }
+            }
+        } finally {
+            for (int index = 0; index < size; index++) {
+                batch[index].release();
+                batch[index] = null;
+            }
         }
     }
 
@@ -1142,8 +2233,10 @@ public class BufferPool {
         final long flushTimestamp = _flushTimestamp.get();
 
         boolean flushed = true;
-        for (int index = clock; index < clock + _bufferCount; index++) {
-            final Buffer buffer = _buffers[index % _bufferCount];
+        final Buffer[] buffers = _buffers;
+        final int bufferCount = buffers.length;
+        for (int index = clock; index < clock + bufferCount; index++) {
+            final Buffer buffer = buffers[index % bufferCount];
             long timestamp = buffer.getTimestamp();
             /*
              * The following is subtle timing dance. If the buffer claim is
@@ -1246,7 +2339,8 @@ public class BufferPool {
         // compute "distance" between this buffer and the clock. A larger
         // distance results in lower priority.
         //
-        int distance = (buffer.getIndex() - _clock.get() + _bufferCount) % _bufferCount;
+        final int bufferCount = _bufferCount;
+        int distance = (buffer.getIndex() - _clock.get() + bufferCount) % bufferCount;
         int age = 0;
         //
         // If this buffer has been touched, then it won't be evicted for at
@@ -1254,7 +2348,7 @@ public class BufferPool {
         // increased.
         //
         if ((status & Buffer.TOUCHED_MASK) != 0) {
-            distance += _bufferCount;
+            distance += bufferCount;
         }
 
         if (!buffer.isTemporary()) {
@@ -1276,14 +2370,14 @@ public class BufferPool {
             // Temporary buffer - don't write it at all until the clock goes
             // through at least a full cycle.
             //
-            if (distance > _bufferCount) {
+            if (distance > bufferCount) {
                 return 0;
             }
         }
         //
         // Bias to a large positive integer (magnitude doesn't matter)
         //
-        return _bufferCount * 2 - distance + age;
+        return bufferCount * 2 - distance + age;
     }
 
     static class BufferHolder implements Comparable<BufferHolder> {
@@ -1372,6 +2466,8 @@ public class BufferPool {
                 }
             }
 
+            refillFreeBuffers();
+
             if (shouldWritePages()) {
                 writeDirtyBuffers(_priorities, _selectedBuffers);
             }
@@ -1388,6 +2484,53 @@ public class BufferPool {
         }
     }
 
+    private static class ReadAheadRequest {
+        private final Volume _volume;
+        private final long _page;
+        private final int _count;
+
+        private ReadAheadRequest(final Volume volume, final long page, final int count) {
+            _volume = volume;
+            _page = page;
+            _count = count;
+        }
+    }
+
+    /**
+     * Loads pages requested by {@link BufferPool#readAhead(Volume, long, int)}
+     * so that sequential traversals find them already in the pool.
+     */
+    class ReadAhead extends IOTaskRunnable {
+
+        ReadAhead() {
+            super(BufferPool.this._persistit);
+        }
+
+        void start() {
+            start("READ_AHEAD:" + _bufferSize, READ_AHEAD_POLL_INTERVAL);
+        }
+
+        @Override
+        public void runTask() {
+            ReadAheadRequest request;
+            while (!shouldStop() && (request = _readAheadQueue.poll()) != null) {
+                long page = request._page;
+                try {
+                    for (int count = 0; count < request._count && page > 0 && !shouldStop(); count++) {
+                        page = prefetch(request._volume, page);
+                    }
+                } catch (final PersistitException e) {
+                    // Read-ahead is advisory; abandon the rest of this request
+                }
+            }
+        }
+
+        @Override
+        protected boolean shouldStop() {
+            return _closed.get();
+        }
+    }
+
     @Override
     public String toString() {
         return "BufferPool[" + _bufferCount + "@" + _bufferSize + (_closed.get() ? ":closed" : "") + "]";
@@ -1399,10 +2542,11 @@ public class BufferPool {
      * @return toString value for buffer at index <code>i</code>.
      */
     String toString(final int i, final boolean detail) {
+        final Buffer buffer = _buffers[i];
         if (detail) {
-            return _buffers[i].toStringDetail();
+            return buffer.toStringDetail();
         } else {
-            return _buffers[i].toString();
+            return buffer.toString();
         }
     }
 
@@ -1454,8 +2598,9 @@ public class BufferPool {
             exchange.clear().append(_bufferSize).append(timestamp).append(Key.BEFORE);
             final Value value = exchange.getValue();
             final int clockValueBefore = _clock.get();
-            for (int index = 0; index < _buffers.length; index++) {
-                final Buffer buffer = _buffers[index];
+            final Buffer[] buffers = _buffers;
+            for (int index = 0; index < buffers.length; index++) {
+                final Buffer buffer = buffers[index];
                 long page1 = -1, page2 = -1;
                 Volume volume1 = null, volume2 = null;
                 if (buffer != null && buffer.isValid()) {
@@ -1499,16 +2644,28 @@ public class BufferPool {
     }
 
     void preloadBufferInventory() {
-        int count = 0;
-        int total = 0;
-        final long startTime = System.nanoTime();
-        long reportTime = startTime;
+        preloadBufferInventory(1, false);
+    }
 
+    /**
+     * Load the pages recorded in the most recent buffer inventory. The sorted
+     * inventory is divided into contiguous slices, one per loader thread, and
+     * each loader reads runs of adjacent pages with a single read operation.
+     * When <code>background</code> is <code>true</code> this method returns
+     * as soon as the loader threads have started; the loaders run at minimum
+     * priority and the pool remains fully usable while they proceed.
+     * 
+     * @param threads
+     *            number of loader threads
+     * @param background
+     *            <code>true</code> to load pages after this method returns
+     */
+    void preloadBufferInventory(final int threads, final boolean background) {
+        final List<PageNode> pageNodes = new ArrayList<PageNode>();
+        final int total;
         try {
-            final JournalManager jman = _persistit.getJournalManager();
             final Exchange exchange = getBufferInventoryExchange();
             final Value value = exchange.getValue();
-            final List<PageNode> pageNodes = new ArrayList<PageNode>();
             boolean foundInventory = false;
             exchange.clear().append(_bufferSize).append(Key.AFTER);
             while (exchange.previous()) {
@@ -1538,39 +2695,219 @@ public class BufferPool {
                 final PageNode pn = new PageNode(volumeHandle, pageAddress);
                 pageNodes.add(pn);
             }
+        } catch (final PersistitException e) {
+            _persistit.getLogBase().bufferInventoryException.log(e);
+            return;
+        }
+
+        Collections.sort(pageNodes, PageNode.READ_COMPARATOR);
+        //
+        // If the buffer pool is now smaller, no need to load more pages
+        //
+        final List<PageNode> list = pageNodes.size() > _bufferCount ? pageNodes.subList(0, _bufferCount) : pageNodes;
+        final InventoryPreloader preloader = new InventoryPreloader(list, total, Math.max(1, threads));
+        if (background) {
+            _preloader = preloader;
+            preloader.start(Thread.MIN_PRIORITY);
+        } else if (threads > 1) {
+            preloader.start(Thread.NORM_PRIORITY);
+            preloader.join();
+        } else {
+            preloader.load(0, list.size());
+            preloader.report(true);
+        }
+    }
+
+    /**
+     * Wait for loader threads started by
+     * {@link #preloadBufferInventory(int, boolean)} to finish.
+     */
+    void joinPreload() {
+        final InventoryPreloader preloader = _preloader;
+        if (preloader != null) {
+            preloader.join();
+        }
+    }
+
+    /**
+     * Find or claim a buffer for a page being preloaded.
+     * 
+     * @return a newly assigned Buffer, owned as writer, that still needs to be
+     *         read, or <code>null</code> if the page is already in the pool
+     */
+    private Buffer claimForPreload(final Volume vol, final long page) throws PersistitException {
+        final int hash = hash(vol, page);
+        _hashLocks[hash % HASH_LOCKS].lock();
+        try {
+            final Buffer[] table = hashTable(hash);
+            final int index = hash % table.length;
+            for (Buffer buffer = table[index]; buffer != null; buffer = buffer.getNext()) {
+                if (buffer.getPageAddress() == page && buffer.getVolume() == vol) {
+                    return null;
+                }
+            }
+            if (_victimCache != null) {
+                _victimCache.remove(vol, page);
+            }
+            return assignBuffer(vol, page, table, index);
+        } finally {
+            _hashLocks[hash % HASH_LOCKS].unlock();
+        }
+    }
+
+    /**
+     * Loads a range of an address-ordered page inventory into the pool using
+     * one or more threads. Adjacent pages of a volume are claimed together and
+     * read by {@link VolumeStorage#readPages(Buffer[], int, ByteBuffer)}.
+     */
+    private class InventoryPreloader {
+
+        private final List<PageNode> _pageNodes;
+        private final int _total;
+        private final int _threadCount;
+        private final int _maxRun;
+        private final Thread[] _threads;
+        private final AtomicInteger _count = new AtomicInteger();
+        private final long _startTime = System.nanoTime();
+        private final AtomicLong _reportTime = new AtomicLong(_startTime);
+        private final AtomicInteger _running = new AtomicInteger();
+
+        private InventoryPreloader(final List<PageNode> pageNodes, final int total, final int threads) {
+            _pageNodes = pageNodes;
+            _total = total;
+            _threadCount = Math.max(1, Math.min(threads, pageNodes.size()));
+            /*
+             * Limit the number of buffers claimed at once by each loader so
+             * that concurrent loaders cannot starve the pool.
+             */
+            _maxRun = Math.max(1, Math.min(PRELOAD_MAX_RUN_PAGES, _bufferCount / (_threadCount * 4)));
+            _threads = new Thread[_threadCount];
+        }
 
-            Collections.sort(pageNodes, PageNode.READ_COMPARATOR);
-            for (final PageNode pn : pageNodes) {
-                final Volume vol = jman.volumeForHandle(pn.getVolumeHandle());
-                if (vol == null) {
-                    continue;
+        private void start(final int priority) {
+            final int size = _pageNodes.size();
+            int from = 0;
+            for (int index = 0; index < _threadCount; index++) {
+                int to = index == _threadCount - 1 ? size : Math.max(from, (int) ((long) size * (index + 1)
+                        / _threadCount));
+                /*
+                 * Don't split a run of adjacent pages between two loaders
+                 */
+                while (to > 0 && to < size && isAdjacent(_pageNodes.get(to - 1), _pageNodes.get(to))) {
+                    to++;
                 }
-                try {
-                    final Buffer buff = get(vol, pn.getPageAddress(), false, true);
-                    buff.release();
-                    count++;
-                    final long now = System.nanoTime();
-                    if (now - reportTime >= INVENTORY_PRELOAD_LOG_MESSAGE_NS) {
-                        _persistit.getLogBase().bufferInventoryProgress
-                                .log(count, total, (now - reportTime) / NS_PER_S);
-                        reportTime = now;
+                final int sliceFrom = from;
+                final int sliceTo = to;
+                _threads[index] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            load(sliceFrom, sliceTo);
+                        } finally {
+                            if (_running.decrementAndGet() == 0) {
+                                report(true);
+                            }
+                        }
                     }
-                    if (count >= _bufferCount) {
-                        //
-                        // If the buffer pool is now smaller, no need to load
-                        // more pages
-                        //
+                }, "BUFFER_PRELOAD:" + _bufferSize + ":" + index);
+                _threads[index].setDaemon(true);
+                _threads[index].setPriority(priority);
+                from = to;
+            }
+            _running.set(_threadCount);
+            for (final Thread thread : _threads) {
+                thread.start();
+            }
+        }
+
+        private void join() {
+            for (final Thread thread : _threads) {
+                if (thread != null) {
+                    try {
+                        thread.join();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
                         break;
                     }
+                }
+            }
+        }
+
+        private boolean isAdjacent(final PageNode a, final PageNode b) {
+            return a.getVolumeHandle() == b.getVolumeHandle() && a.getPageAddress() + 1 == b.getPageAddress();
+        }
+
+        private boolean isStopped() {
+            return _closed.get() || _persistit.isClosed() || _count.get() >= _bufferCount;
+        }
+
+        private void load(final int from, final int to) {
+            final JournalManager jman = _persistit.getJournalManager();
+            final Buffer[] buffers = new Buffer[_maxRun];
+            final ByteBuffer scratch = ByteBuffer.allocate(_maxRun * _bufferSize);
+            int index = from;
+            while (index < to && !isStopped()) {
+                int end = index + 1;
+                while (end < to && end - index < _maxRun && isAdjacent(_pageNodes.get(end - 1), _pageNodes.get(end))) {
+                    end++;
+                }
+                try {
+                    final Volume vol = jman.volumeForHandle(_pageNodes.get(index).getVolumeHandle());
+                    if (vol != null) {
+                        _count.addAndGet(loadRun(vol, index, end, buffers, scratch));
+                        report(false);
+                    }
                 } catch (final PersistitException e) {
                     // ignore it
                 }
+                index = end;
             }
-        } catch (final PersistitException e) {
-            _persistit.getLogBase().bufferInventoryException.log(e);
-        } finally {
+        }
+
+        private int loadRun(final Volume vol, final int from, final int to, final Buffer[] buffers,
+                final ByteBuffer scratch) {
+            int claimed = 0;
+            int loaded = 0;
+            try {
+                for (int index = from; index < to; index++) {
+                    final Buffer buffer = claimForPreload(vol, _pageNodes.get(index).getPageAddress());
+                    if (buffer != null) {
+                        buffers[claimed++] = buffer;
+                    }
+                }
+                if (claimed > 0) {
+                    vol.getStorage().readPages(buffers, claimed, scratch);
+                }
+                while (loaded < claimed) {
+                    buffers[loaded].load();
+                    vol.getStatistics().bumpGetCounter();
+                    bumpMissCounter();
+                    loaded++;
+                }
+            } catch (final PersistitException e) {
+                // ignore it
+            } finally {
+                for (int index = 0; index < claimed; index++) {
+                    if (index >= loaded) {
+                        invalidate(buffers[index]);
+                    }
+                    buffers[index].release();
+                    buffers[index] = null;
+                }
+            }
+            return loaded;
+        }
+
+        private void report(final boolean done) {
             final long now = System.nanoTime();
-            _persistit.getLogBase().bufferInventoryProgress.log(count, total, (now - reportTime) / NS_PER_S);
+            final long reportTime = _reportTime.get();
+            if (done || now - reportTime >= INVENTORY_PRELOAD_LOG_MESSAGE_NS
+                    && _reportTime.compareAndSet(reportTime, now)) {
+                final int count = _count.get();
+                final long elapsed = Math.max(1, now - _startTime);
+                _persistit.getLogBase().bufferInventoryProgress.log(count, _total, elapsed / NS_PER_S,
+                        count * NS_PER_S / elapsed);
+            }
         }
     }
 
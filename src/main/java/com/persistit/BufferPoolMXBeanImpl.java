@@ -244,4 +244,138 @@ class BufferPoolMXBeanImpl implements BufferPoolMXBean {
         return recent().getEarliestDirtyTimestamp();
     }
 
+    /**
+     * @return Name of the page replacement policy used by this pool
+     */
+    @Override
+    @Description("Name of the page replacement policy used by this pool")
+    public String getReplacementPolicy() {
+        return recent().getReplacementPolicy();
+    }
+
+    /**
+     * Return the count of pages read into this pool that were recently
+     * evicted.
+     * 
+     * @return The ghost hit count
+     */
+    @Override
+    @Description("Count of pages read into this pool that were recently evicted")
+    public long getGhostHitCount() {
+        return recent().getGhostHitCount();
+    }
+
+    /**
+     * @return The count of pages protected from eviction by one-time accesses
+     */
+    @Override
+    @Description("The count of pages protected from eviction by one-time accesses")
+    public int getProtectedPageCount() {
+        return recent().getProtectedPageCount();
+    }
+
+    /**
+     * @return The count of clean buffers held in reserve for allocation
+     */
+    @Override
+    @Description("The count of clean buffers held in reserve for allocation")
+    public int getFreeBufferCount() {
+        return recent().getFreeBufferCount();
+    }
+
+    /**
+     * Return the count of allocations that found the free buffer reserve
+     * empty.
+     * 
+     * @return The reserve depleted count
+     */
+    @Override
+    @Description("Count of allocations that found the free buffer reserve empty")
+    public long getReserveDepletedCount() {
+        return recent().getReserveDepletedCount();
+    }
+
+    /**
+     * @return The buffer count requested by a resize operation in progress, or
+     *         the current buffer count if there is none
+     */
+    @Override
+    @Description("The buffer count requested by a resize operation in progress")
+    public int getResizeTargetCount() {
+        return recent().getResizeTargetCount();
+    }
+
+    /**
+     * @return The number of steps remaining in a resize operation in progress
+     */
+    @Override
+    @Description("The number of steps remaining in a resize operation in progress")
+    public int getResizeRemainingCount() {
+        return recent().getResizeRemainingCount();
+    }
+
+    /**
+     * @return The number of pool misses satisfied by the victim cache
+     */
+    @Override
+    @Description("The number of pool misses satisfied by the victim cache")
+    public long getVictimCacheHitCount() {
+        return recent().getVictimCacheHitCount();
+    }
+
+    /**
+     * @return The number of pool misses not found in the victim cache
+     */
+    @Override
+    @Description("The number of pool misses not found in the victim cache")
+    public long getVictimCacheMissCount() {
+        return recent().getVictimCacheMissCount();
+    }
+
+    /**
+     * @return The number of page images held in the victim cache
+     */
+    @Override
+    @Description("The number of page images held in the victim cache")
+    public int getVictimCachePageCount() {
+        return recent().getVictimCachePageCount();
+    }
+
+    /**
+     * @return The number of bytes of the victim cache occupied by page images
+     */
+    @Override
+    @Description("The number of bytes of the victim cache occupied by page images")
+    public long getVictimCacheBytesUsed() {
+        return recent().getVictimCacheBytesUsed();
+    }
+
+    /**
+     * @return The number of buffers holding retained index pages
+     */
+    @Override
+    @Description("The number of buffers holding retained index pages")
+    public int getRetainedIndexPageCount() {
+        return recent().getRetainedIndexPageCount();
+    }
+
+    /**
+     * Start a {@link BufferPoolResizeTask} to change the number of buffers in
+     * this pool.
+     * 
+     * @param bufferCount
+     *            The new buffer count
+     * @return The taskId, as a String
+     */
+    @Override
+    @Description("Start a task to change the number of buffers in this pool")
+    public String resize(final int bufferCount) {
+        try {
+            return _persistit.getManagement().launch(
+                    BufferPoolResizeTask.commandLine(_bufferSize, bufferCount));
+        } catch (final RemoteException e) {
+            return "Failed: " + e;
+        }
+    }
+
 }
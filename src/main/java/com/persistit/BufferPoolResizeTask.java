@@ -0,0 +1,82 @@
+/**
+ * Copyright 2012 Akiban Technologies, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import com.persistit.CLI.Arg;
+import com.persistit.CLI.Cmd;
+
+/**
+ * Task that grows or shrinks a {@link BufferPool} while Persistit is running.
+ * See {@link BufferPool#resize(int)} for details. The status reports the
+ * number of buffers still to be added or removed plus the number of hash table
+ * lock stripes still to be migrated.
+ * 
+ * @author peter
+ */
+public class BufferPoolResizeTask extends Task {
+
+    private int _bufferSize;
+    private int _bufferCount;
+    private volatile BufferPool _pool;
+    private volatile String _resizeStatus = "not started";
+
+    @Cmd("resize")
+    static Task createResizeTask(@Arg("size|int:16384:1024:16384|Buffer size of the pool to resize") final int size,
+            @Arg("count|int:0:0|New buffer count") final int count) throws Exception {
+        final BufferPoolResizeTask task = new BufferPoolResizeTask();
+        task._bufferSize = size;
+        task._bufferCount = count;
+        return task;
+    }
+
+    static String commandLine(final int bufferSize, final int bufferCount) {
+        return "resize size=" + bufferSize + " count=" + bufferCount;
+    }
+
+    @Override
+    protected void runTask() throws Exception {
+        final BufferPool pool = _persistit.getBufferPool(_bufferSize);
+        if (pool == null) {
+            postMessage("No buffer pool for buffer size " + _bufferSize, LOG_NORMAL);
+            return;
+        }
+        final int initialCount = pool.getBufferCount();
+        _pool = pool;
+        try {
+            pool.resize(_bufferCount);
+        } finally {
+            _pool = null;
+        }
+        postMessage("Resized " + pool + " from " + initialCount + " buffers", LOG_NORMAL);
+    }
+
+    @Override
+    protected void postMessage(final String message, final int level) {
+        super.postMessage(message, level);
+        _resizeStatus = message;
+    }
+
+    @Override
+    public String getStatus() {
+        final BufferPool pool = _pool;
+        if (pool != null) {
+            return "Resizing " + pool + " to " + pool.getResizeTargetCount() + " buffers: "
+                    + pool.getResizeRemainingCount() + " steps remaining";
+        }
+        return _resizeStatus;
+    }
+}
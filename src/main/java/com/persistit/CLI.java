@@ -156,8 +156,9 @@ public class CLI {
 
     private final static Map<String, Command> COMMANDS = new TreeMap<String, Command>();
 
-    private final static Class<?>[] CLASSES = { CLI.class, BackupTask.class, IntegrityCheck.class, StreamSaver.class,
-            StreamLoader.class, StatisticsTask.class, TaskCheck.class, VolumeHeader.class };
+    private final static Class<?>[] CLASSES = { CLI.class, BackupTask.class, BufferPoolResizeTask.class,
+            IntegrityCheck.class, StreamSaver.class, StreamLoader.class, StatisticsTask.class, TaskCheck.class,
+            VolumeHeader.class };
 
     static {
         for (final Class<?> clazz : CLASSES) {
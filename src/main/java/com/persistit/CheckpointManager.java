@@ -124,9 +124,7 @@ class CheckpointManager extends IOTaskRunnable implements CheckpointManagerMXBea
     }
 
     public void close(final boolean flush) throws PersistitException {
-        if (flush) {
-            checkpoint();
-        } else {
+        if (!flush || checkpoint() == null) {
             _fastClose.set(true);
         }
         _closed.set(true);
@@ -175,8 +173,19 @@ class CheckpointManager extends IOTaskRunnable implements CheckpointManagerMXBea
         return sb.toString();
     }
 
+    /**
+     * Create a new Checkpoint and wait for it to be written.
+     * 
+     * @return the Checkpoint, or <code>null</code> if checkpoints are
+     *         deferred until lazy recovery has finished
+     * @throws PersistitException
+     */
     Checkpoint checkpoint() throws PersistitException {
-        final long timestamp = createCheckpoint().getTimestamp();
+        final Checkpoint checkpoint = createCheckpoint();
+        if (checkpoint == null) {
+            return null;
+        }
+        final long timestamp = checkpoint.getTimestamp();
         _persistit.flushBuffers(timestamp);
 
         while (true) {
@@ -217,11 +226,21 @@ class CheckpointManager extends IOTaskRunnable implements CheckpointManagerMXBea
      * each Accumulator and then serializes that value into the database. That
      * process is not threadsafe, and there is no use case for concurrent
      * checkpoints.
+     * </p>
+     * <p>
+     * While lazy recovery has recovered transactions still to apply, this
+     * method does nothing: a checkpoint would certify that their updates are
+     * already reflected in the page images written before it.
+     * </p>
      * 
-     * @return The newly created Checkpoint
+     * @return The newly created Checkpoint, or <code>null</code> if
+     *         checkpoints are deferred until lazy recovery has finished
      * @throws PersistitException
      */
     synchronized Checkpoint createCheckpoint() throws PersistitException {
+        if (_persistit.getRecoveryManager().getPendingTransactionCount() > 0) {
+            return null;
+        }
         /*
          * Run within a transaction to get snapshot accumulator views. The
          * Checkpoint timestamp is the start timestamp of this transaction.
@@ -0,0 +1,234 @@
+/**
+ * Copyright 2012 Akiban Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.persistit.exception.PersistitException;
+import com.persistit.exception.PersistitInterruptedException;
+
+/**
+ * <p>
+ * Completion handle returned by {@link Transaction#commitAsync()}. The
+ * transaction it represents is already committed and visible to other
+ * transactions; this handle completes when the journal records holding its
+ * updates have been written durably to disk by the JOURNAL_FLUSHER thread.
+ * </p>
+ * <p>
+ * A thread can wait for durability by calling {@link #await()} or one of the
+ * {@link Future#get()} methods, or can register a listener with
+ * {@link #addListener(Runnable)} to be notified without waiting. If the
+ * JOURNAL_FLUSHER fails to write the journal, the handle completes
+ * exceptionally with the Exception it encountered.
+ * </p>
+ * <p>
+ * A CommitFuture cannot be cancelled.
+ * </p>
+ *
+ * @author peter
+ */
+public class CommitFuture implements Future<Void> {
+
+    private final long _flushedTimestamp;
+
+    private final long _createdNanos = System.nanoTime();
+
+    private final CountDownLatch _latch = new CountDownLatch(1);
+
+    private List<Runnable> _listeners;
+
+    private boolean _completed;
+
+    /**
+     * The thread running the listeners, which may learn the outcome before
+     * the latch is released
+     */
+    private volatile Thread _completer;
+
+    private volatile PersistitException _exception;
+
+    CommitFuture(final long flushedTimestamp) {
+        _flushedTimestamp = flushedTimestamp;
+    }
+
+    /**
+     * @return the timestamp after which the JOURNAL_FLUSHER must start a flush
+     *         cycle for the transaction to become durable
+     */
+    long getFlushedTimestamp() {
+        return _flushedTimestamp;
+    }
+
+    /**
+     * @return the System.nanoTime() at which this handle was created
+     */
+    long getCreatedNanos() {
+        return _createdNanos;
+    }
+
+    /**
+     * Complete this handle, running every registered listener in the calling
+     * thread and then notifying every waiting thread. A thread that returns
+     * from {@link #await()} or {@link #get()} therefore knows the listeners
+     * have run. Has no effect if already completed.
+     *
+     * @param exception
+     *            <code>null</code> if the transaction is durable, otherwise
+     *            the Exception that prevented it from becoming durable
+     * @return <code>true</code> if this call completed the handle
+     */
+    boolean complete(final PersistitException exception) {
+        final List<Runnable> listeners;
+        synchronized (this) {
+            if (_completed) {
+                return false;
+            }
+            _completed = true;
+            _exception = exception;
+            _completer = Thread.currentThread();
+            listeners = _listeners;
+            _listeners = null;
+        }
+        try {
+            if (listeners != null) {
+                RuntimeException failure = null;
+                for (final Runnable listener : listeners) {
+                    try {
+                        listener.run();
+                    } catch (final RuntimeException e) {
+                        if (failure == null) {
+                            failure = e;
+                        }
+                    }
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        } finally {
+            _completer = null;
+            _latch.countDown();
+        }
+        return true;
+    }
+
+    /**
+     * Register a listener to be run once this handle completes. If it has
+     * already completed the listener runs immediately in the calling thread;
+     * otherwise it runs in the JOURNAL_FLUSHER thread, and therefore should
+     * do little more than hand off work to another thread. The listener can
+     * call {@link #await()} to determine whether the commit succeeded.
+     *
+     * @param listener
+     *            the listener
+     */
+    public void addListener(final Runnable listener) {
+        synchronized (this) {
+            if (!_completed) {
+                if (_listeners == null) {
+                    _listeners = new ArrayList<Runnable>(1);
+                }
+                _listeners.add(listener);
+                return;
+            }
+        }
+        listener.run();
+    }
+
+    /**
+     * Wait until the transaction is durable.
+     *
+     * @throws PersistitInterruptedException
+     *             if the thread was interrupted while waiting
+     * @throws PersistitException
+     *             if the JOURNAL_FLUSHER failed to write the journal
+     */
+    public void await() throws PersistitException {
+        try {
+            awaitLatch();
+        } catch (final InterruptedException e) {
+            throw new PersistitInterruptedException(e);
+        }
+        final PersistitException exception = _exception;
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        return false;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return false;
+    }
+
+    @Override
+    public boolean isDone() {
+        return _latch.getCount() == 0 || isCompleter();
+    }
+
+    @Override
+    public Void get() throws InterruptedException, ExecutionException {
+        awaitLatch();
+        return result();
+    }
+
+    @Override
+    public Void get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException,
+            TimeoutException {
+        if (!isCompleter() && !_latch.await(timeout, unit)) {
+            throw new TimeoutException();
+        }
+        return result();
+    }
+
+    /**
+     * Wait for the latch unless called by a listener while this handle is
+     * being completed; the listener would otherwise wait for itself.
+     */
+    private void awaitLatch() throws InterruptedException {
+        if (!isCompleter()) {
+            _latch.await();
+        }
+    }
+
+    private boolean isCompleter() {
+        return _completer == Thread.currentThread();
+    }
+
+    private Void result() throws ExecutionException {
+        final PersistitException exception = _exception;
+        if (exception != null) {
+            throw new ExecutionException(exception);
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "CommitFuture(" + _flushedTimestamp + (isDone() ? _exception == null ? ",durable)" : ",failed)" : ")");
+    }
+}
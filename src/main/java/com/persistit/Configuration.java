@@ -141,6 +141,60 @@ public class Configuration {
      * specified memory allocation, including overhead for FastIndex elements.
      */
     public final static String BUFFER_MEM_PROPERTY_NAME = "buffer.memory.";
+    /**
+     * Property name prefix for specifying the page replacement policy of a
+     * buffer pool. The full property name should be one of "1024", "2048",
+     * "4096", "8192" or "16384" appended to this string, e.g.,
+     * "buffer.policy.8192". The value is either "CLOCK" (the default) or "2Q",
+     * a scan-resistant policy that protects frequently re-read pages from being
+     * displaced by large one-time traversals.
+     */
+    public final static String BUFFER_POLICY_PROPERTY_NAME = "buffer.policy.";
+    /**
+     * Property name prefix for specifying the number of clean buffers the
+     * PAGE_WRITER thread keeps ready for allocation so that application threads
+     * do not write dirty pages when they need a buffer. The full property name
+     * should be one of "1024", "2048", "4096", "8192" or "16384" appended to
+     * this string, e.g., "buffer.reserve.8192". The value is a buffer count and
+     * is limited to one quarter of the pool. The default is zero, which
+     * disables the reserve.
+     */
+    public final static String BUFFER_RESERVE_PROPERTY_NAME = "buffer.reserve.";
+    /**
+     * Property name prefix for specifying the maximum number of pages read
+     * ahead when an Exchange traverses leaf pages sequentially. The full
+     * property name should be one of "1024", "2048", "4096", "8192" or "16384"
+     * appended to this string, e.g., "buffer.readahead.8192". The value is a
+     * page count and is limited to one sixteenth of the pool. Zero disables
+     * read-ahead.
+     */
+    public final static String BUFFER_READ_AHEAD_PROPERTY_NAME = "buffer.readahead.";
+    /**
+     * Property name prefix for specifying the size of the compressed cache
+     * that holds clean pages evicted from a buffer pool. The full property name
+     * should be one of "1024", "2048", "4096", "8192" or "16384" appended to
+     * this string, e.g., "buffer.victimcache.8192". The value is a size in
+     * bytes, optionally followed by K, M or G. The default is zero, which
+     * disables the cache.
+     */
+    public final static String BUFFER_VICTIM_CACHE_PROPERTY_NAME = "buffer.victimcache.";
+    /**
+     * Property name prefix for specifying how pages held in the victim cache
+     * are encoded. The full property name should be one of "1024", "2048",
+     * "4096", "8192" or "16384" appended to this string, e.g.,
+     * "buffer.victimcodec.8192". The value is either "DEFLATE" (the default)
+     * or "NONE".
+     */
+    public final static String BUFFER_VICTIM_CODEC_PROPERTY_NAME = "buffer.victimcodec.";
+    /**
+     * Property name prefix for specifying the percentage of a buffer pool in
+     * which index pages are retained in preference to data pages. The full
+     * property name should be one of "1024", "2048", "4096", "8192" or "16384"
+     * appended to this string, e.g., "buffer.indexretention.8192". The value
+     * is a percentage no larger than 50. The default is zero, which disables
+     * retention.
+     */
+    public final static String BUFFER_INDEX_RETENTION_PROPERTY_NAME = "buffer.indexretention.";
     /**
      * Property name prefix for specifying Volumes. The full property name
      * should be a unique ordinal number appended to this string, e.g.,
@@ -297,11 +351,78 @@ public class Configuration {
      */
     public final static String BUFFER_PRELOAD_PROPERTY_NAME = "bufferpreload";
 
+    /**
+     * Property name to specify the number of threads used to preload buffers.
+     */
+    public final static String BUFFER_PRELOAD_THREADS_PROPERTY_NAME = "bufferpreloadthreads";
+    public final static int DEFAULT_BUFFER_PRELOAD_THREADS = 1;
+    public final static int MAXIMUM_BUFFER_PRELOAD_THREADS = 64;
+
+    /**
+     * Property name to specify whether buffers are preloaded in the background
+     * after startup completes.
+     */
+    public final static String BUFFER_PRELOAD_BACKGROUND_PROPERTY_NAME = "bufferpreloadbackground";
+
     /**
      * Property name to specify whether buffer inventory is enabled.
      */
     public final static String BUFFER_INVENTORY_PROPERTY_NAME = "bufferinventory";
 
+    /**
+     * Property name to specify whether the journal write buffer is allocated
+     * outside of the Java heap.
+     */
+    public final static String JOURNAL_DIRECT_BUFFER_PROPERTY_NAME = "journaldirectbuffer";
+
+    /**
+     * Property name to specify whether page images written to the journal are
+     * compressed.
+     */
+    public final static String JOURNAL_COMPRESSION_PROPERTY_NAME = "journalcompression";
+
+    /**
+     * Property name to specify whether page images written to the journal may
+     * be written as changes to an earlier image of the same page.
+     */
+    public final static String JOURNAL_DELTA_PROPERTY_NAME = "journaldelta";
+
+    /**
+     * Property name to specify the number of spare journal files kept ready
+     * for reuse.
+     */
+    public final static String JOURNAL_SPARE_FILES_PROPERTY_NAME = "journalsparefiles";
+
+    /**
+     * Property name to specify the number of threads that copy pages from the
+     * journal to their volumes.
+     */
+    public final static String JOURNAL_COPIER_THREADS_PROPERTY_NAME = "journalcopierthreads";
+
+    /**
+     * Property name to specify whether journal files that are no longer being
+     * written are read through memory mappings.
+     */
+    public final static String JOURNAL_MAPPED_READS_PROPERTY_NAME = "journalmappedreads";
+
+    /**
+     * Property name to specify additional directories across which journal
+     * files are striped.
+     */
+    public final static String JOURNAL_STRIPES_PROPERTY_NAME = "journalstripes";
+
+    /**
+     * Property name to specify the number of threads that apply recovered
+     * transactions.
+     */
+    public final static String RECOVERY_THREADS_PROPERTY_NAME = "recoverythreads";
+
+    /**
+     * Property name to specify whether recovered transactions are applied in
+     * the background after initialization.
+     */
+    public final static String LAZY_RECOVERY_PROPERTY_NAME = "lazyrecovery";
+
     /**
      * Property name to specify the default {@link JoinPolicy}.
      */
@@ -379,6 +500,12 @@ public class Configuration {
         private long maximumMemory;
         private long reservedMemory;
         private float fraction;
+        private String replacementPolicy;
+        private int reserveCount;
+        private int readAheadLimit;
+        private long victimCacheSize;
+        private String victimCodec;
+        private int indexRetention;
 
         private void reset() {
             minimumCount = 0;
@@ -387,9 +514,15 @@ public class Configuration {
             maximumMemory = Long.MAX_VALUE;
             reservedMemory = 0;
             fraction = 1.0f;
+            replacementPolicy = ReplacementPolicy.DEFAULT_NAME;
+            reserveCount = 0;
+            readAheadLimit = BufferPool.DEFAULT_READ_AHEAD_LIMIT;
+            victimCacheSize = 0;
+            victimCodec = VictimCache.DEFAULT_CODEC;
+            indexRetention = 0;
         }
 
-        private BufferPoolConfiguration(final int size) {
+        BufferPoolConfiguration(final int size) {
             bufferSize = size;
             reset();
         }
@@ -504,9 +637,131 @@ public class Configuration {
             this.fraction = fraction;
         }
 
+        /**
+         * @return the name of the page replacement policy
+         */
+        public String getReplacementPolicy() {
+            return replacementPolicy;
+        }
+
+        /**
+         * @param replacementPolicy
+         *            the name of the page replacement policy to set, either
+         *            "CLOCK" or "2Q"
+         * @throws IllegalArgumentException
+         *             if the name does not denote a known policy
+         */
+        public void setReplacementPolicy(final String replacementPolicy) {
+            this.replacementPolicy = ReplacementPolicy.canonicalName(replacementPolicy);
+        }
+
+        /**
+         * @return the number of clean buffers to keep in reserve
+         */
+        public int getReserveCount() {
+            return reserveCount;
+        }
+
+        /**
+         * @param reserveCount
+         *            the number of clean buffers the PAGE_WRITER thread should
+         *            keep ready for allocation, or zero to disable the reserve.
+         *            The value is reduced to one quarter of the buffer count if
+         *            it is larger.
+         */
+        public void setReserveCount(final int reserveCount) {
+            Util.rangeCheck(reserveCount, 0, BufferPool.MAXIMUM_POOL_COUNT);
+            this.reserveCount = reserveCount;
+        }
+
+        /**
+         * @return the maximum number of pages to read ahead during a
+         *         sequential traversal
+         */
+        public int getReadAheadLimit() {
+            return readAheadLimit;
+        }
+
+        /**
+         * @param readAheadLimit
+         *            the maximum number of pages to read ahead during a
+         *            sequential traversal, or zero to disable read-ahead. The
+         *            value is reduced to one sixteenth of the buffer count if
+         *            it is larger.
+         */
+        public void setReadAheadLimit(final int readAheadLimit) {
+            Util.rangeCheck(readAheadLimit, 0, BufferPool.MAXIMUM_READ_AHEAD_LIMIT);
+            this.readAheadLimit = readAheadLimit;
+        }
+
+        /**
+         * @return the size in bytes of the cache holding clean pages evicted
+         *         from the buffer pool
+         */
+        public long getVictimCacheSize() {
+            return victimCacheSize;
+        }
+
+        /**
+         * @param victimCacheSize
+         *            the size in bytes of the cache holding clean pages
+         *            evicted from the buffer pool, or zero to disable the
+         *            cache
+         */
+        public void setVictimCacheSize(final long victimCacheSize) {
+            if (victimCacheSize != 0) {
+                Util.rangeCheck(victimCacheSize, bufferSize, Integer.MAX_VALUE);
+            }
+            this.victimCacheSize = victimCacheSize;
+        }
+
+        /**
+         * @return the name of the codec used to encode pages in the victim
+         *         cache
+         */
+        public String getVictimCodec() {
+            return victimCodec;
+        }
+
+        /**
+         * @param victimCodec
+         *            the name of the codec used to encode pages in the victim
+         *            cache, either "DEFLATE" or "NONE"
+         * @throws IllegalArgumentException
+         *             if the name does not denote a known codec
+         */
+        public void setVictimCodec(final String victimCodec) {
+            this.victimCodec = VictimCache.canonicalCodecName(victimCodec);
+        }
+
+        /**
+         * @return the percentage of the pool in which index pages are retained
+         *         in preference to data pages
+         */
+        public int getIndexRetention() {
+            return indexRetention;
+        }
+
+        /**
+         * @param indexRetention
+         *            the percentage of the pool in which index pages are
+         *            retained in preference to data pages, or zero to disable
+         *            retention
+         */
+        public void setIndexRetention(final int indexRetention) {
+            Util.rangeCheck(indexRetention, 0, BufferPool.MAXIMUM_INDEX_RETENTION);
+            this.indexRetention = indexRetention;
+        }
+
         private final static String SIMPLE_COUNT_FORMAT = "count=%d";
         private final static String MIN_MAX_COUNT_FORMAT = "minCount=%d,maxCount=%d";
         private final static String MIN_MAX_MEMORY_FORMAT = "minMem=%s,maxMem=%s,reserved=%s,fraction=%s";
+        private final static String POLICY_FORMAT = ",policy=%s";
+        private final static String RESERVE_FORMAT = ",reserve=%d";
+        private final static String READ_AHEAD_FORMAT = ",readahead=%d";
+        private final static String VICTIM_CACHE_FORMAT = ",victimcache=%s";
+        private final static String VICTIM_CODEC_FORMAT = ",victimcodec=%s";
+        private final static String INDEX_RETENTION_FORMAT = ",indexretention=%d";
         private final static Pattern SIMPLE_COUNT_PATTERN = Pattern.compile("count=([0-9]+[KMGT]?)",
                 Pattern.CASE_INSENSITIVE);
         private final static Pattern MIN_MAX_COUNT_PATTERN = Pattern.compile(
@@ -514,6 +769,8 @@ public class Configuration {
         private final static Pattern MIN_MAX_MEMORY_PATTERN = Pattern.compile(
                 "minMem=([0-9]+[KMGT]?),maxMem=([0-9]+[KMGT]?),reserved=([0-9]+[KMGT]?),fraction=([0-9\\.]+)",
                 Pattern.CASE_INSENSITIVE);
+        private final static Pattern OPTION_PATTERN = Pattern.compile(",(policy|reserve|readahead|victimcache|victimcodec|indexretention)=([0-9A-Z]+)$",
+                Pattern.CASE_INSENSITIVE);
 
         /**
          * Compute the buffer count determined by the constraints of this
@@ -558,6 +815,24 @@ public class Configuration {
                 sb.append(String.format(MIN_MAX_MEMORY_FORMAT, displayableLongValue(minimumMemory),
                         displayableLongValue(maximumMemory), displayableLongValue(reservedMemory), fraction));
             }
+            if (!ReplacementPolicy.DEFAULT_NAME.equals(replacementPolicy)) {
+                sb.append(String.format(POLICY_FORMAT, replacementPolicy));
+            }
+            if (reserveCount != 0) {
+                sb.append(String.format(RESERVE_FORMAT, reserveCount));
+            }
+            if (readAheadLimit != BufferPool.DEFAULT_READ_AHEAD_LIMIT) {
+                sb.append(String.format(READ_AHEAD_FORMAT, readAheadLimit));
+            }
+            if (victimCacheSize != 0) {
+                sb.append(String.format(VICTIM_CACHE_FORMAT, displayableLongValue(victimCacheSize)));
+            }
+            if (!VictimCache.DEFAULT_CODEC.equals(victimCodec)) {
+                sb.append(String.format(VICTIM_CODEC_FORMAT, victimCodec));
+            }
+            if (indexRetention != 0) {
+                sb.append(String.format(INDEX_RETENTION_FORMAT, indexRetention));
+            }
             return sb.toString();
         }
 
@@ -571,25 +846,45 @@ public class Configuration {
          * 
          * where propertyNames are <code>count</code>, <code>minCount</code>,
          * <code>maxCount</code>, <code>minMemory</code>, <code>maxMemory</code>
-         * , <code>reserved</code> or <code>fraction</code>
+         * , <code>reserved</code> or <code>fraction</code>, optionally followed
+         * by <code>policy</code>, <code>reserve</code>, <code>readahead</code>,
+         * <code>victimcache</code>, <code>victimcodec</code> and
+         * <code>indexretention</code>.
          */
         public void parse(final String string) {
             final String[] terms = string.split(",", 2);
             if (terms.length > 1) {
                 checkBufferSize((int) parseLongProperty(string, terms[0]), string);
+                String spec = terms[1];
                 Matcher matcher;
-                matcher = SIMPLE_COUNT_PATTERN.matcher(terms[1]);
+                for (matcher = OPTION_PATTERN.matcher(spec); matcher.find(); matcher = OPTION_PATTERN.matcher(spec)) {
+                    if ("policy".equalsIgnoreCase(matcher.group(1))) {
+                        setReplacementPolicy(matcher.group(2));
+                    } else if ("readahead".equalsIgnoreCase(matcher.group(1))) {
+                        setReadAheadLimit((int) parseLongProperty(string, matcher.group(2)));
+                    } else if ("victimcache".equalsIgnoreCase(matcher.group(1))) {
+                        setVictimCacheSize(parseLongProperty(string, matcher.group(2)));
+                    } else if ("victimcodec".equalsIgnoreCase(matcher.group(1))) {
+                        setVictimCodec(matcher.group(2));
+                    } else if ("indexretention".equalsIgnoreCase(matcher.group(1))) {
+                        setIndexRetention((int) parseLongProperty(string, matcher.group(2)));
+                    } else {
+                        setReserveCount((int) parseLongProperty(string, matcher.group(2)));
+                    }
+                    spec = spec.substring(0, matcher.start());
+                }
+                matcher = SIMPLE_COUNT_PATTERN.matcher(spec);
                 if (matcher.matches()) {
                     setCount((int) parseLongProperty(string, matcher.group(1)));
                     return;
                 }
-                matcher = MIN_MAX_COUNT_PATTERN.matcher(terms[1]);
+                matcher = MIN_MAX_COUNT_PATTERN.matcher(spec);
                 if (matcher.matches()) {
                     setMinimumCount((int) parseLongProperty(string, matcher.group(1)));
                     setMaximumCount((int) parseLongProperty(string, matcher.group(2)));
                     return;
                 }
-                matcher = MIN_MAX_MEMORY_PATTERN.matcher(terms[1]);
+                matcher = MIN_MAX_MEMORY_PATTERN.matcher(spec);
                 if (matcher.matches()) {
                     setMemoryConstraints(string, parseLongProperty(string, matcher.group(1)),
                             parseLongProperty(string, matcher.group(2)), parseLongProperty(string, matcher.group(3)),
@@ -716,6 +1011,17 @@ public class Configuration {
     private boolean appendOnly;
     private boolean bufferInventoryEnabled;
     private boolean bufferPreloadEnabled;
+    private int bufferPreloadThreads = DEFAULT_BUFFER_PRELOAD_THREADS;
+    private boolean bufferPreloadBackground;
+    private boolean journalDirectBufferEnabled;
+    private boolean journalCompressionEnabled;
+    private boolean journalDeltaEnabled;
+    private int journalSpareFiles = JournalManager.DEFAULT_SPARE_FILE_LIMIT;
+    private int journalCopierThreads = JournalManager.DEFAULT_COPIER_THREADS;
+    private boolean journalMappedReadsEnabled;
+    private String journalStripes;
+    private int recoveryThreads = RecoveryManager.DEFAULT_REPLAY_THREADS;
+    private boolean lazyRecoveryEnabled;
     private boolean ignoreMissingVolumes;
     private String tmpVolDir;
     private int tmpVolPageSize;
@@ -803,6 +1109,17 @@ public class Configuration {
         setJoinPolicy(getProperty(JOIN_POLICY_PROPERTY_NAME));
         setJournalPath(getProperty(JOURNAL_PATH_PROPERTY_NAME, DEFAULT_JOURNAL_PATH));
         setJournalSize(getLongProperty(JOURNAL_BLOCKSIZE_PROPERTY_NAME, JournalManager.DEFAULT_BLOCK_SIZE));
+        setJournalDirectBufferEnabled(getBooleanProperty(JOURNAL_DIRECT_BUFFER_PROPERTY_NAME, false));
+        setJournalCompressionEnabled(getBooleanProperty(JOURNAL_COMPRESSION_PROPERTY_NAME, false));
+        setJournalDeltaEnabled(getBooleanProperty(JOURNAL_DELTA_PROPERTY_NAME, false));
+        setJournalSpareFiles(getIntegerProperty(JOURNAL_SPARE_FILES_PROPERTY_NAME,
+                JournalManager.DEFAULT_SPARE_FILE_LIMIT));
+        setJournalCopierThreads(getIntegerProperty(JOURNAL_COPIER_THREADS_PROPERTY_NAME,
+                JournalManager.DEFAULT_COPIER_THREADS));
+        setJournalMappedReadsEnabled(getBooleanProperty(JOURNAL_MAPPED_READS_PROPERTY_NAME, false));
+        setJournalStripes(getProperty(JOURNAL_STRIPES_PROPERTY_NAME));
+        setRecoveryThreads(getIntegerProperty(RECOVERY_THREADS_PROPERTY_NAME, RecoveryManager.DEFAULT_REPLAY_THREADS));
+        setLazyRecoveryEnabled(getBooleanProperty(LAZY_RECOVERY_PROPERTY_NAME, false));
         setLogFile(getProperty(LOGFILE_PROPERTY_NAME));
         setLogging(getProperty(LOGGING_PROPERTIES_NAME));
         setTmpVolDir(getProperty(TEMPORARY_VOLUME_DIR_PROPERTY_NAME));
@@ -817,6 +1134,9 @@ public class Configuration {
         setSysVolume(getProperty(SYSTEM_VOLUME_PROPERTY_NAME, DEFAULT_SYSTEM_VOLUME_NAME));
         setBufferInventoryEnabled(getBooleanProperty(BUFFER_INVENTORY_PROPERTY_NAME, false));
         setBufferPreloadEnabled(getBooleanProperty(BUFFER_PRELOAD_PROPERTY_NAME, false));
+        setBufferPreloadThreads(getIntegerProperty(BUFFER_PRELOAD_THREADS_PROPERTY_NAME,
+                DEFAULT_BUFFER_PRELOAD_THREADS));
+        setBufferPreloadBackground(getBooleanProperty(BUFFER_PRELOAD_BACKGROUND_PROPERTY_NAME, false));
         setUseOldVSpec(getBooleanProperty(USE_OLD_VSPEC, false));
 
         loadPropertiesBufferSpecifications();
@@ -829,9 +1149,21 @@ public class Configuration {
 
             final String countPropertyName = BUFFERS_PROPERTY_NAME + size;
             final String memPropertyName = BUFFER_MEM_PROPERTY_NAME + size;
+            final String policyPropertyName = BUFFER_POLICY_PROPERTY_NAME + size;
+            final String reservePropertyName = BUFFER_RESERVE_PROPERTY_NAME + size;
+            final String readAheadPropertyName = BUFFER_READ_AHEAD_PROPERTY_NAME + size;
+            final String victimCachePropertyName = BUFFER_VICTIM_CACHE_PROPERTY_NAME + size;
+            final String victimCodecPropertyName = BUFFER_VICTIM_CODEC_PROPERTY_NAME + size;
+            final String indexRetentionPropertyName = BUFFER_INDEX_RETENTION_PROPERTY_NAME + size;
 
             final String countSpec = getProperty(countPropertyName);
             final String memSpec = getProperty(memPropertyName);
+            final String policySpec = getProperty(policyPropertyName);
+            final String reserveSpec = getProperty(reservePropertyName);
+            final String readAheadSpec = getProperty(readAheadPropertyName);
+            final String victimCacheSpec = getProperty(victimCachePropertyName);
+            final String victimCodecSpec = getProperty(victimCodecPropertyName);
+            final String indexRetentionSpec = getProperty(indexRetentionPropertyName);
             int count = 0;
             final BufferPoolConfiguration bpc = bufferPoolMap.get(size);
 
@@ -850,6 +1182,24 @@ public class Configuration {
             } else if (count == 0) {
                 bpc.reset();
             }
+            if (policySpec != null) {
+                bpc.setReplacementPolicy(policySpec);
+            }
+            if (reserveSpec != null) {
+                bpc.setReserveCount((int) parseLongProperty(reservePropertyName, reserveSpec));
+            }
+            if (readAheadSpec != null) {
+                bpc.setReadAheadLimit((int) parseLongProperty(readAheadPropertyName, readAheadSpec));
+            }
+            if (victimCacheSpec != null) {
+                bpc.setVictimCacheSize(parseLongProperty(victimCachePropertyName, victimCacheSpec));
+            }
+            if (victimCodecSpec != null) {
+                bpc.setVictimCodec(victimCodecSpec);
+            }
+            if (indexRetentionSpec != null) {
+                bpc.setIndexRetention((int) parseLongProperty(indexRetentionPropertyName, indexRetentionSpec));
+            }
         }
     }
 
@@ -872,7 +1222,13 @@ public class Configuration {
     }
 
     final static int bufferSizeFromPropertyName(final String propertyName) {
-        if (propertyName.startsWith(BUFFERS_PROPERTY_NAME) || propertyName.startsWith(BUFFER_MEM_PROPERTY_NAME)) {
+        if (propertyName.startsWith(BUFFERS_PROPERTY_NAME) || propertyName.startsWith(BUFFER_MEM_PROPERTY_NAME)
+                || propertyName.startsWith(BUFFER_POLICY_PROPERTY_NAME)
+                || propertyName.startsWith(BUFFER_RESERVE_PROPERTY_NAME)
+                || propertyName.startsWith(BUFFER_READ_AHEAD_PROPERTY_NAME)
+                || propertyName.startsWith(BUFFER_VICTIM_CACHE_PROPERTY_NAME)
+                || propertyName.startsWith(BUFFER_VICTIM_CODEC_PROPERTY_NAME)
+                || propertyName.startsWith(BUFFER_INDEX_RETENTION_PROPERTY_NAME)) {
             final String[] s = propertyName.split("\\.");
             try {
                 final int size = Integer.parseInt(s[2]);
@@ -2037,6 +2393,376 @@ public class Configuration {
         this.bufferPreloadEnabled = bufferPreloadEnabled;
     }
 
+    /**
+     * Return the value defined by {@link #setBufferPreloadThreads}
+     * 
+     * @return the number of threads used to preload each buffer pool
+     */
+    public int getBufferPreloadThreads() {
+        return bufferPreloadThreads;
+    }
+
+    /**
+     * <p>
+     * Set the number of threads used to preload each buffer pool. The
+     * address-ordered inventory is divided into one contiguous slice per
+     * thread; multiple threads help when the volumes reside on storage that
+     * serves concurrent reads efficiently.
+     * </p>
+     * <p>
+     * Default value is {@value #DEFAULT_BUFFER_PRELOAD_THREADS}<br />
+     * Property name is {@value #BUFFER_PRELOAD_THREADS_PROPERTY_NAME}
+     * </p>
+     * 
+     * @param bufferPreloadThreads
+     *            number of preload threads, between 1 and
+     *            {@value #MAXIMUM_BUFFER_PRELOAD_THREADS}
+     */
+    public void setBufferPreloadThreads(final int bufferPreloadThreads) {
+        if (bufferPreloadThreads < 1 || bufferPreloadThreads > MAXIMUM_BUFFER_PRELOAD_THREADS) {
+            throw new IllegalArgumentException("Invalid buffer preload thread count: " + bufferPreloadThreads);
+        }
+        this.bufferPreloadThreads = bufferPreloadThreads;
+    }
+
+    /**
+     * Return the value defined by {@link #setBufferPreloadBackground}
+     * 
+     * @return <code>true</code> if buffer pools are preloaded in the
+     *         background
+     */
+    public boolean isBufferPreloadBackground() {
+        return bufferPreloadBackground;
+    }
+
+    /**
+     * <p>
+     * Control whether buffer preloading delays startup. When <code>true</code>,
+     * {@link Persistit#initialize()} returns without waiting for the preload
+     * to finish, and the preload threads run at minimum priority while
+     * application threads use the buffer pools.
+     * </p>
+     * <p>
+     * Default value is <code>false</code><br />
+     * Property name is {@value #BUFFER_PRELOAD_BACKGROUND_PROPERTY_NAME}
+     * </p>
+     * 
+     * @param bufferPreloadBackground
+     *            <code>true</code> to preload buffers in the background
+     */
+    public void setBufferPreloadBackground(final boolean bufferPreloadBackground) {
+        this.bufferPreloadBackground = bufferPreloadBackground;
+    }
+
+    /**
+     * Return the value defined by {@link #setJournalDirectBufferEnabled}
+     * 
+     * @return <code>true</code> if the journal write buffer is allocated
+     *         outside of the Java heap
+     */
+    public boolean isJournalDirectBufferEnabled() {
+        return journalDirectBufferEnabled;
+    }
+
+    /**
+     * <p>
+     * Control whether the journal write buffer is allocated as a direct
+     * (off-heap) <code>ByteBuffer</code>. A direct buffer is handed to the
+     * <code>FileChannel</code> without an intermediate copy, and its memory does
+     * not occupy space in the tenured generation. The default heap buffer is
+     * preferable when direct memory is constrained by
+     * <code>-XX:MaxDirectMemorySize</code>.
+     * </p>
+     * <p>
+     * This setting affects only the journal write buffer. Buffer pool pages
+     * are always allocated in the heap, whatever its value.
+     * </p>
+     * <p>
+     * Default value is <code>false</code><br />
+     * Property name is {@value #JOURNAL_DIRECT_BUFFER_PROPERTY_NAME}
+     * </p>
+     * 
+     * @param journalDirectBufferEnabled
+     *            <code>true</code> to allocate the journal write buffer outside
+     *            of the heap
+     */
+    public void setJournalDirectBufferEnabled(final boolean journalDirectBufferEnabled) {
+        this.journalDirectBufferEnabled = journalDirectBufferEnabled;
+    }
+
+    /**
+     * Return the value defined by {@link #setJournalCompressionEnabled}
+     * 
+     * @return <code>true</code> if page images written to the journal are
+     *         compressed
+     */
+    public boolean isJournalCompressionEnabled() {
+        return journalCompressionEnabled;
+    }
+
+    /**
+     * <p>
+     * Control whether page images written to the journal are compressed. When
+     * enabled, each page image that compresses to substantially less than its
+     * original size is written in a compressed PZ record rather than a PA
+     * record. This reduces the number of journal bytes written per checkpoint
+     * at the cost of CPU time in the threads that write pages. Journals
+     * containing PZ records can only be read by versions of Persistit that
+     * support them.
+     * </p>
+     * <p>
+     * Default value is <code>false</code><br />
+     * Property name is {@value #JOURNAL_COMPRESSION_PROPERTY_NAME}
+     * </p>
+     * 
+     * @param journalCompressionEnabled
+     *            <code>true</code> to compress page images written to the
+     *            journal
+     */
+    public void setJournalCompressionEnabled(final boolean journalCompressionEnabled) {
+        this.journalCompressionEnabled = journalCompressionEnabled;
+    }
+
+    /**
+     * Return the value defined by {@link #setJournalDeltaEnabled}
+     * 
+     * @return <code>true</code> if page images may be written to the journal
+     *         as changes to an earlier image
+     */
+    public boolean isJournalDeltaEnabled() {
+        return journalDeltaEnabled;
+    }
+
+    /**
+     * <p>
+     * Control whether page images written to the journal may be written as
+     * changes to an earlier image of the same page. When enabled, the journal
+     * remembers the image of each recently written data or index page, up to
+     * a bounded amount of memory. When such a page is written again, and only
+     * a small part of it has changed, a PD record holding the changed byte
+     * ranges is written in place of the full image. The full image is written
+     * again after a number of PD records, when the changes grow large, and
+     * whenever the journal rolls over to a new file. Journals containing PD
+     * records can only be read by versions of Persistit that support them.
+     * </p>
+     * <p>
+     * Default value is <code>false</code><br />
+     * Property name is {@value #JOURNAL_DELTA_PROPERTY_NAME}
+     * </p>
+     * 
+     * @param journalDeltaEnabled
+     *            <code>true</code> to write page images as changes to an
+     *            earlier image when possible
+     */
+    public void setJournalDeltaEnabled(final boolean journalDeltaEnabled) {
+        this.journalDeltaEnabled = journalDeltaEnabled;
+    }
+
+    /**
+     * Return the value defined by {@link #setJournalSpareFiles}
+     * 
+     * @return the maximum number of spare journal files kept ready for reuse
+     */
+    public int getJournalSpareFiles() {
+        return journalSpareFiles;
+    }
+
+    /**
+     * <p>
+     * Set the maximum number of spare journal files kept ready for reuse. When
+     * non-zero, a journal file that is no longer needed is renamed to become
+     * a spare rather than being deleted, and a new spare is created ahead of
+     * need whenever none is ready. The JOURNAL_COPIER thread fills each new
+     * spare with zeros, and clears the header of each recycled one, before it
+     * is used, so that starting a new journal file requires only a rename
+     * rather than allocating space on disk. Journal files are then not
+     * truncated when full, so each one occupies the full journal file size on
+     * disk. When journal files are striped, each spare includes a stripe file
+     * in every stripe directory.
+     * </p>
+     * <p>
+     * Default value is {@value JournalManager#DEFAULT_SPARE_FILE_LIMIT}<br />
+     * Property name is {@value #JOURNAL_SPARE_FILES_PROPERTY_NAME}
+     * </p>
+     * 
+     * @param journalSpareFiles
+     *            number of spare journal files, between 0 and
+     *            {@value JournalManager#MAXIMUM_SPARE_FILE_LIMIT}
+     */
+    public void setJournalSpareFiles(final int journalSpareFiles) {
+        Util.rangeCheck(journalSpareFiles, JournalManager.MINIMUM_SPARE_FILE_LIMIT,
+                JournalManager.MAXIMUM_SPARE_FILE_LIMIT);
+        this.journalSpareFiles = journalSpareFiles;
+    }
+
+    /**
+     * Return the value defined by {@link #setJournalCopierThreads}
+     * 
+     * @return the number of threads that write copied pages to their volumes
+     */
+    public int getJournalCopierThreads() {
+        return journalCopierThreads;
+    }
+
+    /**
+     * <p>
+     * Set the number of threads that write pages copied from the journal to
+     * their volumes. The pages of each copier cycle are divided among the
+     * threads by volume, so additional threads help only when more than one
+     * volume is being updated and the volumes reside on storage that serves
+     * concurrent writes efficiently.
+     * </p>
+     * <p>
+     * Default value is {@value JournalManager#DEFAULT_COPIER_THREADS}<br />
+     * Property name is {@value #JOURNAL_COPIER_THREADS_PROPERTY_NAME}
+     * </p>
+     * 
+     * @param journalCopierThreads
+     *            number of copier threads, between 1 and
+     *            {@value JournalManager#MAXIMUM_COPIER_THREADS}
+     */
+    public void setJournalCopierThreads(final int journalCopierThreads) {
+        Util.rangeCheck(journalCopierThreads, JournalManager.MINIMUM_COPIER_THREADS,
+                JournalManager.MAXIMUM_COPIER_THREADS);
+        this.journalCopierThreads = journalCopierThreads;
+    }
+
+    /**
+     * Return the value defined by {@link #setJournalMappedReadsEnabled}
+     * 
+     * @return <code>true</code> if sealed journal files are read through
+     *         memory mappings
+     */
+    public boolean isJournalMappedReadsEnabled() {
+        return journalMappedReadsEnabled;
+    }
+
+    /**
+     * <p>
+     * Control whether journal files that are no longer being written are read
+     * through read-only memory mappings. When enabled, reading a page image
+     * from such a file, and scanning it during recovery, copies bytes from
+     * the mapping rather than issuing a read system call. The file currently
+     * being written is always read through its channel. Mappings occupy
+     * virtual address space, not heap, and are released by the JVM once a
+     * file has been deleted and its mapping is no longer referenced.
+     * </p>
+     * <p>
+     * Default value is <code>false</code><br />
+     * Property name is {@value #JOURNAL_MAPPED_READS_PROPERTY_NAME}
+     * </p>
+     * 
+     * @param journalMappedReadsEnabled
+     *            <code>true</code> to read sealed journal files through memory
+     *            mappings
+     */
+    public void setJournalMappedReadsEnabled(final boolean journalMappedReadsEnabled) {
+        this.journalMappedReadsEnabled = journalMappedReadsEnabled;
+    }
+
+    /**
+     * Return the value defined by {@link #setJournalStripes}
+     * 
+     * @return comma-separated names of the additional directories across
+     *         which journal files are striped, or <code>null</code>
+     */
+    public String getJournalStripes() {
+        return journalStripes;
+    }
+
+    /**
+     * <p>
+     * Set additional directories across which journal files are striped,
+     * normally one on each of several devices. Each journal file is divided
+     * into units of {@value JournalManager#STRIPE_SIZE} bytes which are
+     * stored round-robin in the journal file itself and in a file of the same
+     * name in each of these directories. Each flush of the journal forces
+     * every file it wrote concurrently, so that large flushes complete in the
+     * time a single device needs for its share.
+     * </p>
+     * <p>
+     * Recovery reads the journal using the directories configured when it
+     * runs. Therefore this value must not be changed while journal files
+     * written with a different value remain.
+     * </p>
+     * <p>
+     * Default value is <code>null</code><br />
+     * Property name is {@value #JOURNAL_STRIPES_PROPERTY_NAME}
+     * </p>
+     * 
+     * @param journalStripes
+     *            comma-separated directory names, or <code>null</code> to
+     *            store each journal file in a single file
+     */
+    public void setJournalStripes(final String journalStripes) {
+        this.journalStripes = journalStripes;
+    }
+
+    /**
+     * Return the value defined by {@link #setRecoveryThreads}
+     * 
+     * @return the number of threads that apply recovered transactions
+     */
+    public int getRecoveryThreads() {
+        return recoveryThreads;
+    }
+
+    /**
+     * <p>
+     * Set the number of threads that apply transactions recovered from the
+     * journal after a crash. With more than one thread, transactions that
+     * update disjoint sets of trees are applied concurrently, while those
+     * updating a common tree are still applied in commit order. A custom
+     * recovery listener must then be thread-safe.
+     * </p>
+     * <p>
+     * Default value is {@value RecoveryManager#DEFAULT_REPLAY_THREADS}<br />
+     * Property name is {@value #RECOVERY_THREADS_PROPERTY_NAME}
+     * </p>
+     * 
+     * @param recoveryThreads
+     *            number of threads, between 1 and
+     *            {@value RecoveryManager#MAXIMUM_REPLAY_THREADS}
+     */
+    public void setRecoveryThreads(final int recoveryThreads) {
+        Util.rangeCheck(recoveryThreads, RecoveryManager.MINIMUM_REPLAY_THREADS,
+                RecoveryManager.MAXIMUM_REPLAY_THREADS);
+        this.recoveryThreads = recoveryThreads;
+    }
+
+    /**
+     * Return the value defined by {@link #setLazyRecoveryEnabled(boolean)}
+     * 
+     * @return whether recovered transactions are applied in the background
+     */
+    public boolean isLazyRecoveryEnabled() {
+        return lazyRecoveryEnabled;
+    }
+
+    /**
+     * <p>
+     * Control whether transactions recovered from the journal after a crash
+     * are applied before {@link Persistit#initialize()} returns or by a
+     * background thread afterward. With lazy recovery, a thread that looks up
+     * a tree still having recovered transactions to apply waits while the
+     * background thread applies them ahead of the others, so that the time
+     * taken to restart depends on the trees in use rather than on the entire
+     * journal. The {@link #setRecoveryThreads(int)} setting does not apply to
+     * lazy recovery.
+     * </p>
+     * <p>
+     * Default value is <code>false</code><br />
+     * Property name is {@value #LAZY_RECOVERY_PROPERTY_NAME}
+     * </p>
+     * 
+     * @param lazyRecoveryEnabled
+     *            <code>true</code> to apply recovered transactions in the
+     *            background
+     */
+    public void setLazyRecoveryEnabled(final boolean lazyRecoveryEnabled) {
+        this.lazyRecoveryEnabled = lazyRecoveryEnabled;
+    }
+
     /**
      * Return the value defined by {@link #setIgnoreMissingVolumes(boolean)}
      * 
@@ -27,6 +27,7 @@ import com.persistit.exception.CorruptVolumeException;
 import com.persistit.exception.InUseException;
 import com.persistit.exception.PersistitException;
 import com.persistit.exception.PersistitInterruptedException;
+import com.persistit.exception.ReadOnlyTransactionException;
 import com.persistit.exception.ReadOnlyVolumeException;
 import com.persistit.exception.RebalanceException;
 import com.persistit.exception.RetryException;
@@ -151,6 +152,7 @@ public class Exchange implements ReadOnlyExchange {
     private final TransactionIndex _ti;
     private final Exchange _exchange;
     private TransactionStatus _status;
+    private long _ts;
     private int _step;
     private int _foundOffset;
     private int _foundLength;
@@ -176,10 +178,27 @@ public class Exchange implements ReadOnlyExchange {
     public void initInternal(final TransactionStatus status, final int step, final Usage usage) {
       Debug.$assert0.t(status != null || usage != Usage.STORE);
       _status = status;
+      _ts = status != null ? status.getTs() : READ_COMMITTED_TS;
       _step = step;
       _usage = usage;
     }
 
+    /**
+     * Prepare to fetch on behalf of a read-only transaction, which has no
+     * TransactionStatus.
+     * 
+     * @param ts
+     *            Snapshot timestamp of the read-only transaction.
+     * @param step
+     *            Step with which to compute commit status.
+     */
+    public void initReadOnly(final long ts, final int step) {
+      _status = null;
+      _ts = ts;
+      _step = step;
+      _usage = Usage.FETCH;
+    }
+
     public int getOffset() {
       return _foundOffset;
     }
@@ -205,7 +224,7 @@ public class Exchange implements ReadOnlyExchange {
       try {
         switch (_usage) {
           case FETCH:
-            final long ts = _status != null ? _status.getTs() : READ_COMMITTED_TS;
+            final long ts = _ts;
             final long status = _ti.commitStatus(version, ts, _step);
             if (status >= 0 && status != TransactionStatus.UNCOMMITTED && status >= _foundVersion) {
               assert status <= ts;
@@ -259,6 +278,16 @@ public class Exchange implements ReadOnlyExchange {
 
   private final static int VERSIONS_OUT_OF_ORDER_RETRY_COUNT = 3;
 
+  /**
+   * Number of consecutive right-sibling steps that identify a sequential
+   * traversal.
+   */
+  private final static int READ_AHEAD_THRESHOLD = 2;
+  /**
+   * Size of the first read-ahead request of a sequential traversal.
+   */
+  private final static int READ_AHEAD_INITIAL_WINDOW = 4;
+
   private Persistit _persistit;
 
   private final Key _key;
@@ -543,6 +572,14 @@ public class Exchange implements ReadOnlyExchange {
     int _flags;
     long _deallocLeftPage;
     long _deallocRightPage;
+    //
+    // These fields detect sequential traversal through right-sibling
+    // links and are used only at the leaf level.
+    //
+    long _readAheadPage;
+    int _readAheadRun;
+    int _readAheadWindow;
+    int _readAheadCredit;
 
     private LevelCache(final int level) {
       _level = level;
@@ -1289,6 +1326,9 @@ public class Exchange implements ReadOnlyExchange {
 
         if (buffer == null) {
           buffer = _pool.get(_volume, pageAddress, writer, true, _timeoutMillis);
+          if (currentLevel > 0 || _isDirectoryExchange) {
+            _pool.retainIndexPage(buffer, _tree);
+          }
         }
         checkPageType(buffer, currentLevel + PAGE_TYPE_DATA, true);
 
@@ -1354,6 +1394,7 @@ public class Exchange implements ReadOnlyExchange {
     if (_volume.isReadOnly()) {
       throw new ReadOnlyVolumeException(_volume.toString());
     }
+    checkReadOnlyTransaction();
     key.testValidForStoreAndFetch(_volume.getPageSize());
     if (!isDirectoryExchange()) {
       _persistit.checkSuspended();
@@ -2064,6 +2105,38 @@ public class Exchange implements ReadOnlyExchange {
     return traverse(direction, deep, minimumBytes, 0, 0, null);
   }
 
+  /**
+   * Called when a forward traversal crosses from the leaf page
+   * <code>fromPage</code> to its right sibling <code>buffer</code>. After
+   * {@value #READ_AHEAD_THRESHOLD} consecutive crossings, asks the
+   * <code>BufferPool</code> to read ahead the pages that follow. The window
+   * starts at {@value #READ_AHEAD_INITIAL_WINDOW} pages and doubles with each
+   * request, up to {@link BufferPool#getReadAheadLimit()}. A new request is
+   * issued when the traversal has consumed half of the previous window.
+   */
+  private void readAhead(final LevelCache lc, final long fromPage, final Buffer buffer) {
+    final int limit = _pool.getReadAheadLimit();
+    if (limit <= 0) {
+      return;
+    }
+    if (lc._readAheadPage != fromPage) {
+      lc._readAheadRun = 0;
+      lc._readAheadWindow = 0;
+      lc._readAheadCredit = 0;
+    }
+    lc._readAheadPage = buffer.getPageAddress();
+    if (++lc._readAheadRun < READ_AHEAD_THRESHOLD || --lc._readAheadCredit > 0) {
+      return;
+    }
+    final long nextPage = buffer.getRightSibling();
+    final int window = Math.min(limit, lc._readAheadWindow == 0 ? READ_AHEAD_INITIAL_WINDOW
+      : lc._readAheadWindow * 2);
+    if (nextPage > 0 && _pool.readAhead(_volume, nextPage, window)) {
+      lc._readAheadWindow = window;
+      lc._readAheadCredit = Math.max(1, window / 2);
+    }
+  }
+
   /**
    * See {@link #traverse(com.persistit.Key.Direction, boolean, int)} for full
    * description
@@ -2184,6 +2257,7 @@ public class Exchange implements ReadOnlyExchange {
             if (rightSiblingPage > 0) {
               final Buffer rightSibling = _pool.get(_volume, rightSiblingPage, false, true,
                 _timeoutMillis);
+              readAhead(lc, buffer.getPageAddress(), rightSibling);
               buffer.releaseTouched();
               //
               // Reset foundAtNext to point to the first key block
@@ -2891,6 +2965,7 @@ public class Exchange implements ReadOnlyExchange {
     if (_volume.isReadOnly()) {
       throw new ReadOnlyVolumeException(_volume.toString());
     }
+    checkReadOnlyTransaction();
     _persistit.checkSuspended();
     _key.testValidForStoreAndFetch(_volume.getPageSize());
     int options = StoreOptions.WAIT | StoreOptions.FETCH;
@@ -2989,16 +3064,20 @@ public class Exchange implements ReadOnlyExchange {
    *             for any internal error
    */
   private boolean mvccFetch(final Value value, final int minimumBytes) throws PersistitException {
-    final TransactionStatus status;
-    final int step;
-    if (_transaction.isActive()) {
-      status = _transaction.getTransactionStatus();
-      step = _transaction.getStep();
+    if (_transaction.isReadOnly()) {
+      _mvvVisitor.initReadOnly(_transaction.getStartTimestamp(), _transaction.getReadStep());
     } else {
-      status = null;
-      step = 0;
+      final TransactionStatus status;
+      final int step;
+      if (_transaction.isActive()) {
+        status = _transaction.getTransactionStatus();
+        step = _transaction.getStep();
+      } else {
+        status = null;
+        step = 0;
+      }
+      _mvvVisitor.initInternal(status, step, MvvVisitor.Usage.FETCH);
     }
-    _mvvVisitor.initInternal(status, step, MvvVisitor.Usage.FETCH);
 
     final int valueSize = value.getEncodedSize();
     final byte[] valueBytes = value.getEncodedBytes();
@@ -3233,6 +3312,7 @@ public class Exchange implements ReadOnlyExchange {
     assertCorrectThread(true);
     _persistit.checkSuspended();
     _persistit.checkClosed();
+    checkReadOnlyTransaction();
 
     _volume.getStructure().removeTree(_tree);
     if (!_ignoreTransactions) {
@@ -3494,6 +3574,7 @@ public class Exchange implements ReadOnlyExchange {
     if (_volume.isReadOnly()) {
       throw new ReadOnlyVolumeException(_volume.toString());
     }
+    checkReadOnlyTransaction();
     if (Debug.ENABLED) {
       Debug.suspend();
     }
@@ -4440,6 +4521,12 @@ public class Exchange implements ReadOnlyExchange {
     }
   }
 
+  private void checkReadOnlyTransaction() throws ReadOnlyTransactionException {
+    if (!_ignoreTransactions && _transaction.isReadOnly()) {
+      throw new ReadOnlyTransactionException(_transaction.toString());
+    }
+  }
+
   private void throttle() throws PersistitInterruptedException {
     /*
      * Don't throttle operations on the directory tree since that makes some
@@ -73,8 +73,11 @@ class IOMeter implements IOMeterMXBean {
     private final static int EVICT_PAGE_FROM_POOL = 8;
     private final static int FLUSH_JOURNAL = 9;
     private final static int GET_PAGE = 10;
+    private final static int READ_AHEAD_PAGE = 11;
+    private final static int READ_AHEAD_HIT = 12;
+    private final static int READ_AHEAD_WASTED = 13;
 
-    private final static int ITEM_COUNT = 11;
+    private final static int ITEM_COUNT = 14;
 
     private long _quiescentIOthreshold = DEFAULT_QUIESCENT_IO_THRESHOLD_KBYTES_PER_SEC;
 
@@ -357,6 +360,27 @@ class IOMeter implements IOMeterMXBean {
         log(GET_PAGE, volume, pageAddress, size, 0, bufferIndex);
     }
 
+    /*
+     * Read-ahead events are counted but carry no byte charge: the read itself
+     * is already charged as READ_PAGE_FROM_VOLUME or READ_PAGE_FROM_JOURNAL.
+     */
+    public void chargeReadAheadPage(final Volume volume, final long pageAddress, final int size,
+            final int bufferIndex) {
+        log(READ_AHEAD_PAGE, volume, pageAddress, size, 0, bufferIndex);
+        charge(0, READ_AHEAD_PAGE);
+    }
+
+    public void chargeReadAheadHit(final Volume volume, final long pageAddress, final int size, final int bufferIndex) {
+        log(READ_AHEAD_HIT, volume, pageAddress, size, 0, bufferIndex);
+        charge(0, READ_AHEAD_HIT);
+    }
+
+    public void chargeReadAheadWasted(final Volume volume, final long pageAddress, final int size,
+            final int bufferIndex) {
+        log(READ_AHEAD_WASTED, volume, pageAddress, size, 0, bufferIndex);
+        charge(0, READ_AHEAD_WASTED);
+    }
+
     @Override
     public long totalOperations(final String opName) {
         return totalOperations(op(opName));
@@ -407,9 +431,22 @@ class IOMeter implements IOMeterMXBean {
      * how frequently to schedule its own activities without interfering
      * severely with current operational load.
      * 
-     * @return
+     * @return the recent rate in bytes per second, or -1 if no interval has
+     *         elapsed
      */
-    synchronized long recentCharge() {
+    long recentCharge() {
+        return recentCharge(false);
+    }
+
+    /**
+     * @return recent rate, in bytes per second, of I/O performed by the
+     *         JOURNAL_COPIER, or -1 if no interval has elapsed
+     */
+    long recentCopyCharge() {
+        return recentCharge(true);
+    }
+
+    private synchronized long recentCharge(final boolean copy) {
         final long now = System.nanoTime();
         long then = 0;
         final int current = _currentBucket;
@@ -420,7 +457,7 @@ class IOMeter implements IOMeterMXBean {
                 break;
             }
             for (int item = 0; item < ITEM_COUNT; item++) {
-                if (item != COPY_PAGE_TO_VOLUME) {
+                if ((item == COPY_PAGE_TO_VOLUME || item == COPY_PAGE_FROM_JOURNAL) == copy) {
                     charge += _counters[item][bucket].sum();
                 }
             }
@@ -21,11 +21,14 @@ import static com.persistit.util.SequencerConstants.PAGE_MAP_READ_INVALIDATE_A;
 import static com.persistit.util.SequencerConstants.RECOVERY_PRUNING_B;
 import static com.persistit.util.ThreadSequencer.sequence;
 import static com.persistit.util.Util.NS_PER_MS;
+import static com.persistit.util.Util.NS_PER_US;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -38,10 +41,21 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
 
 import com.persistit.AlertMonitor.AlertLevel;
 import com.persistit.AlertMonitor.Event;
@@ -52,7 +66,9 @@ import com.persistit.JournalRecord.IV;
 import com.persistit.JournalRecord.JE;
 import com.persistit.JournalRecord.JH;
 import com.persistit.JournalRecord.PA;
+import com.persistit.JournalRecord.PD;
 import com.persistit.JournalRecord.PM;
+import com.persistit.JournalRecord.PZ;
 import com.persistit.JournalRecord.TM;
 import com.persistit.JournalRecord.TX;
 import com.persistit.Persistit.FatalErrorException;
@@ -65,6 +81,7 @@ import com.persistit.exception.RebalanceException;
 import com.persistit.exception.VolumeNotFoundException;
 import com.persistit.mxbeans.JournalManagerMXBean;
 import com.persistit.util.Debug;
+import com.persistit.util.LatencyHistogram;
 import com.persistit.util.Util;
 
 /**
@@ -91,15 +108,38 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
      */
     final static Pattern PATH_PATTERN = Pattern.compile("(.+)\\.(\\d{12})");
 
+    /**
+     * REGEX expression that recognizes the name of a spare journal file. Such
+     * names never match {@link #PATH_PATTERN}, so recovery ignores spares.
+     */
+    final static Pattern SPARE_PATTERN = Pattern.compile("(.+)\\.spare\\.(\\d+)");
+
+    /**
+     * Size of the buffer of zeros written to clear a spare journal file
+     */
+    private final static int SPARE_CLEAR_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Length of the region at the start of a recycled spare journal file that
+     * is cleared before the spare is used: room for the largest JH record
+     */
+    private final static int SPARE_HEADER_SIZE = JH.MAX_LENGTH;
+
+    /**
+     * Size of the units in which a journal file is distributed among its
+     * stripe files
+     */
+    final static int STRIPE_SIZE = 64 * 1024;
+
     private long _journalCreatedTime;
 
-    private final Map<PageNode, PageNode> _pageMap = new HashMap<PageNode, PageNode>();
+    private final PageMap _pageMap = new PageMap();
 
     private final RangeRemovingArrayList<PageNode> _pageList = new RangeRemovingArrayList<PageNode>();
 
-    private final Map<PageNode, PageNode> _branchMap = new HashMap<PageNode, PageNode>();
+    private final PageMap _branchMap = new PageMap();
 
-    private final Map<Volume, Integer> _volumeToHandleMap = new HashMap<Volume, Integer>();
+    private final Map<Volume, Integer> _volumeToHandleMap = new ConcurrentHashMap<Volume, Integer>();
 
     private final Map<Integer, Volume> _handleToVolumeMap = new HashMap<Integer, Volume>();
 
@@ -114,10 +154,28 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
     private volatile int _writeBufferSize = DEFAULT_BUFFER_SIZE;
 
+    private volatile boolean _writeBufferDirect;
+
     private ByteBuffer _writeBuffer;
 
     private long _writeBufferAddress = Long.MAX_VALUE;
 
+    /**
+     * Count of regions of the write buffer that have been reserved for a
+     * record body but not yet filled. The bytes of the write buffer are
+     * complete up to its position only when this count is zero.
+     */
+    private final AtomicInteger _unfilledReservations = new AtomicInteger();
+
+    /**
+     * Count of regions reserved by the thread that currently holds the
+     * monitor. That thread fills them only after it releases the monitor, so
+     * it must not wait for fills until the count is reset on the way out.
+     */
+    private int _heldReservations;
+
+    private final AtomicLong _fillWaitCount = new AtomicLong();
+
     private JournalFlusher _flusher;
 
     private JournalCopier _copier;
@@ -152,6 +210,12 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
     private final Map<Long, FileChannel> _journalFileChannels = new HashMap<Long, FileChannel>();
 
+    /**
+     * Read-only mappings of sealed journal files, by generation. A
+     * <code>null</code> value records that the file cannot be mapped.
+     */
+    private final Map<Long, MappedByteBuffer> _journalFileMappings = new HashMap<Long, MappedByteBuffer>();
+
     /**
      * Counter used to assign internal handle values to Volume and Tree records.
      */
@@ -173,7 +237,75 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
     private volatile long _readPageCount = 0;
 
-    private volatile long _copiedPageCount = 0;
+    private final AtomicLong _copiedPageCount = new AtomicLong();
+
+    private final AtomicLong _copyWriteCount = new AtomicLong();
+
+    private volatile long _writePageBatchCount = 0;
+
+    private volatile long _compressedPageCount = 0;
+
+    private volatile long _compressedPageBytesSaved = 0;
+
+    private volatile boolean _pageCompressionEnabled;
+
+    private volatile long _deltaPageCount = 0;
+
+    private volatile long _deltaPageBytesSaved = 0;
+
+    private volatile boolean _pageDeltaEnabled;
+
+    private final PageDelta _pageDeltas = new PageDelta();
+
+    private volatile boolean _mappedReadsEnabled;
+
+    private final AtomicLong _mappedReadCount = new AtomicLong();
+
+    private volatile int _spareFileLimit = DEFAULT_SPARE_FILE_LIMIT;
+
+    /**
+     * Spare journal files that have been cleared and forced, ready to become
+     * the next journal file
+     */
+    private final List<File> _spareFiles = new ArrayList<File>();
+
+    /**
+     * Spare journal files that still hold stale content and must be cleared
+     * by the JOURNAL_COPIER before they can be used
+     */
+    private final List<File> _unclearedSpareFiles = new ArrayList<File>();
+
+    private long _spareFileCounter;
+
+    private volatile long _recycledFileCount;
+
+    private volatile long _preallocatedFileCount;
+
+    /**
+     * Number of nanoseconds to spin, yielding, while waiting for reserved
+     * regions of the write buffer to be filled before parking
+     */
+    private final static long FILL_SPIN_NANOS = 50000;
+
+    /**
+     * Upper bound on a single park in
+     * {@link JournalFlusher#waitForDurability(long, long, long)}. A waiter is
+     * normally unparked by the JOURNAL_FLUSHER; this bounds the delay if
+     * that thread stops.
+     */
+    private final static long MAXIMUM_DURABILITY_PARK_NANOS = 10 * NS_PER_MS;
+
+    /**
+     * Smallest percentage of I/O capacity the JOURNAL_COPIER may use while
+     * there are pages to copy
+     */
+    private final static int MINIMUM_COPIER_SHARE = 10;
+
+    /**
+     * The JOURNAL_COPIER's estimate of I/O capacity decays by
+     * 1/CAPACITY_DECAY_DIVISOR per cycle when not renewed by a measurement
+     */
+    private final static int CAPACITY_DECAY_DIVISOR = 64;
 
     private volatile long _droppedPageCount = 0;
 
@@ -181,6 +313,8 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
     private final AtomicLong _totalCommitWaitTime = new AtomicLong();
 
+    private final LatencyHistogram _commitWaitTimes = new LatencyHistogram();
+
     private final AtomicLong _totalFlushCycles = new AtomicLong();
 
     private final AtomicLong _totalFlushIoTime = new AtomicLong();
@@ -206,6 +340,15 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
     private volatile int _copiesPerCycle = DEFAULT_COPIES_PER_CYCLE;
 
+    private volatile int _copierThreadCount = DEFAULT_COPIER_THREADS;
+
+    /**
+     * Additional directories across which each journal file is striped
+     */
+    private File[] _stripeDirectories = new File[0];
+
+    private ExecutorService _stripeForcer;
+
     private volatile long _copierTimestampLimit = Long.MAX_VALUE;
 
     private volatile long _earliestCommittedTimestamp = Long.MAX_VALUE;
@@ -252,7 +395,7 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
      */
     public synchronized void init(final RecoveryManager rman, final String path, final long maximumSize)
             throws PersistitException {
-        _writeBuffer = ByteBuffer.allocate(_writeBufferSize);
+        _writeBuffer = allocateWriteBuffer(_writeBufferSize);
         if (rman != null && rman.getKeystoneAddress() != -1) {
             _journalFilePath = rman.getJournalFilePath();
             _blockSize = rman.getBlockSize();
@@ -290,6 +433,7 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
             _currentAddress = 0;
             _journalCreatedTime = System.currentTimeMillis();
         }
+        findSpareFiles();
         _closed.set(false);
     }
 
@@ -314,7 +458,7 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         if (_blockSize == 0) {
             return;
         }
-        info.copiedPageCount = _copiedPageCount;
+        info.copiedPageCount = _copiedPageCount.get();
         info.droppedPageCount = _droppedPageCount;
         info.copying = _copying.get();
         info.currentGeneration = _currentAddress;
@@ -431,6 +575,29 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         _writePagePruning.set(writePruning);
     }
 
+    @Override
+    public void setPageCompressionEnabled(final boolean pageCompression) {
+        _pageCompressionEnabled = pageCompression;
+    }
+
+    @Override
+    public void setPageDeltaEnabled(final boolean pageDelta) {
+        _pageDeltaEnabled = pageDelta;
+        if (!pageDelta) {
+            _pageDeltas.clear();
+        }
+    }
+
+    @Override
+    public void setMappedReadsEnabled(final boolean mappedReads) {
+        _mappedReadsEnabled = mappedReads;
+        if (!mappedReads) {
+            synchronized (this) {
+                _journalFileMappings.clear();
+            }
+        }
+    }
+
     public JournalManager(final Persistit persistit) {
         _persistit = persistit;
     }
@@ -455,6 +622,21 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         return _writePagePruning.get();
     }
 
+    @Override
+    public boolean isPageCompressionEnabled() {
+        return _pageCompressionEnabled;
+    }
+
+    @Override
+    public boolean isPageDeltaEnabled() {
+        return _pageDeltaEnabled;
+    }
+
+    @Override
+    public boolean isMappedReadsEnabled() {
+        return _mappedReadsEnabled;
+    }
+
     @Override
     public String getJournalFilePath() {
         return _journalFilePath;
@@ -465,6 +647,41 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         return _writePageCount;
     }
 
+    @Override
+    public long getJournaledPageBatchCount() {
+        return _writePageBatchCount;
+    }
+
+    @Override
+    public long getFillWaitCount() {
+        return _fillWaitCount.get();
+    }
+
+    @Override
+    public long getCompressedPageCount() {
+        return _compressedPageCount;
+    }
+
+    @Override
+    public long getCompressedPageBytesSaved() {
+        return _compressedPageBytesSaved;
+    }
+
+    @Override
+    public long getDeltaPageCount() {
+        return _deltaPageCount;
+    }
+
+    @Override
+    public long getDeltaPageBytesSaved() {
+        return _deltaPageBytesSaved;
+    }
+
+    @Override
+    public long getMappedReadCount() {
+        return _mappedReadCount.get();
+    }
+
     @Override
     public long getReadPageCount() {
         return _readPageCount;
@@ -472,7 +689,12 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
     @Override
     public long getCopiedPageCount() {
-        return _copiedPageCount;
+        return _copiedPageCount.get();
+    }
+
+    @Override
+    public long getCopyWriteCount() {
+        return _copyWriteCount.get();
     }
 
     @Override
@@ -532,6 +754,26 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         return _totalCommitWaitTime.get() / NS_PER_MS;
     }
 
+    @Override
+    public long getCommitWaitTimeP50() {
+        return _commitWaitTimes.getPercentile(50) / NS_PER_US;
+    }
+
+    @Override
+    public long getCommitWaitTimeP90() {
+        return _commitWaitTimes.getPercentile(90) / NS_PER_US;
+    }
+
+    @Override
+    public long getCommitWaitTimeP99() {
+        return _commitWaitTimes.getPercentile(99) / NS_PER_US;
+    }
+
+    @Override
+    public long getCommitWaitTimeP999() {
+        return _commitWaitTimes.getPercentile(99.9) / NS_PER_US;
+    }
+
     @Override
     public long getCurrentTimestamp() {
         return _persistit.getCurrentTimestamp();
@@ -555,6 +797,66 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
     }
 
+    @Override
+    public int getCopierThreadCount() {
+        return _copierThreadCount;
+    }
+
+    @Override
+    public void setCopierThreadCount(final int count) {
+        Util.rangeCheck(count, MINIMUM_COPIER_THREADS, MAXIMUM_COPIER_THREADS);
+        _copierThreadCount = count;
+    }
+
+    /**
+     * Set the additional directories across which each journal file is
+     * striped. Must be called before {@link #init(RecoveryManager, String, long)}.
+     * 
+     * @param paths
+     *            comma-separated directory names, or <code>null</code> for
+     *            none
+     */
+    void setStripeDirectories(final String paths) {
+        _stripeDirectories = stripeDirectories(paths);
+    }
+
+    @Override
+    public int getStripeCount() {
+        return _stripeDirectories.length + 1;
+    }
+
+    @Override
+    public int getCopierShare() {
+        final JournalCopier copier = _copier;
+        return copier == null ? 0 : copier.getShare();
+    }
+
+    @Override
+    public int getSpareFileLimit() {
+        return _spareFileLimit;
+    }
+
+    @Override
+    public void setSpareFileLimit(final int limit) {
+        Util.rangeCheck(limit, MINIMUM_SPARE_FILE_LIMIT, MAXIMUM_SPARE_FILE_LIMIT);
+        _spareFileLimit = limit;
+    }
+
+    @Override
+    public synchronized int getSpareFileCount() {
+        return _spareFiles.size();
+    }
+
+    @Override
+    public long getRecycledFileCount() {
+        return _recycledFileCount;
+    }
+
+    @Override
+    public long getPreallocatedFileCount() {
+        return _preallocatedFileCount;
+    }
+
     /**
      * Compute an "urgency" factor that determines how vigorously the
      * JOURNAL_COPIER thread should perform I/O. This number is computed on a
@@ -699,13 +1001,13 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
             CorruptJournalException {
         //
         // If necessary read the bytes out of the _writeBuffer
-        // before they have been written out to the file. This code
-        // requires the _writeBuffer to be a HeapByteBuffer.
+        // before they have been written out to the file.
         //
         final int position = bb.position();
         final int length = bb.remaining();
         synchronized (this) {
             if (address >= _writeBufferAddress && address + length <= _currentAddress) {
+                awaitFills();
                 assert _writeBufferAddress + _writeBuffer.position() == _currentAddress : String.format(
                         "writeBufferAddress=%,d position=%,d currentAddress=%,d", _writeBufferAddress,
                         _writeBuffer.position(), _currentAddress);
@@ -721,9 +1023,24 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
             }
         }
 
-        final FileChannel fc = getFileChannel(address);
-
         long fileAddr = addressToOffset(address);
+        final ByteBuffer mapping = _mappedReadsEnabled ? getFileMapping(address) : null;
+        if (mapping != null) {
+            if (fileAddr + length > mapping.capacity()) {
+                final File file = addressToFile(address);
+                throw new CorruptJournalException(String.format("End of file at %s:%d(%,d)", file, fileAddr, address));
+            }
+            final ByteBuffer source = mapping.duplicate();
+            source.limit((int) fileAddr + length);
+            source.position((int) fileAddr);
+            bb.put(source);
+            bb.limit(bb.position());
+            bb.position(position);
+            _mappedReadCount.incrementAndGet();
+            return;
+        }
+
+        final FileChannel fc = getFileChannel(address);
         while (bb.remaining() > 0) {
             int count;
             try {
@@ -770,14 +1087,14 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
     }
 
     PageNode lookupUpPageNode(final long pageAddress, final Volume volume) {
-        PageNode pnLookup = null;
-        synchronized (this) {
-            final Integer volumeHandle = _volumeToHandleMap.get(volume);
-            if (volumeHandle != null) {
-                pnLookup = _pageMap.get(new PageNode(volumeHandle, pageAddress, -1, -1));
-            }
+        /*
+         * Neither map lookup requires the monitor.
+         */
+        final Integer volumeHandle = _volumeToHandleMap.get(volume);
+        if (volumeHandle == null) {
+            return null;
         }
-
+        final PageNode pnLookup = _pageMap.get(volumeHandle.intValue(), pageAddress);
         if (pnLookup == null) {
             return null;
         }
@@ -808,16 +1125,21 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
             throw new CorruptJournalException("Record at " + pn.toStringJournalAddress(this) + " is incomplete");
         }
         final int type = JournalRecord.getType(bb);
-        final int payloadSize = JournalRecord.getLength(bb) - PA.OVERHEAD;
+        if (type == PD.TYPE) {
+            bb.position(at);
+            return readPageDeltaFromJournal(pn, bb);
+        }
+        final int recordSize = JournalRecord.getLength(bb);
+        int payloadSize = recordSize - PA.OVERHEAD;
         final int leftSize = PA.getLeftSize(bb);
         final int bufferSize = PA.getBufferSize(bb);
         final long pageAddress = PA.getPageAddress(bb);
 
-        if (type != PA.TYPE) {
+        if (type != PA.TYPE && type != PZ.TYPE) {
             throw new CorruptJournalException("Record at " + pn.toStringJournalAddress(this) + " is not a PAGE record");
         }
 
-        if (leftSize < 0 || payloadSize < leftSize || payloadSize > bufferSize) {
+        if (leftSize < 0 || payloadSize > bufferSize || type == PA.TYPE && payloadSize < leftSize) {
             throw new CorruptJournalException("Record at " + pn.toStringJournalAddress(this)
                     + " invalid sizes: recordSize= " + payloadSize + " leftSize=" + leftSize + " bufferSize="
                     + bufferSize);
@@ -828,8 +1150,16 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
                     + " mismatched page address: expected/actual=" + pn.getPageAddress() + "/" + pageAddress);
         }
 
-        bb.limit(at + payloadSize).position(at);
-        readFully(bb, pn.getJournalAddress() + PA.OVERHEAD);
+        if (type == PZ.TYPE) {
+            payloadSize = expandPageImage(pn.getJournalAddress(), recordSize, leftSize, bufferSize, bb.array(), at);
+            if (payloadSize < 0) {
+                throw new CorruptJournalException("Record at " + pn.toStringJournalAddress(this)
+                        + " has an invalid compressed page image");
+            }
+        } else {
+            bb.limit(at + payloadSize).position(at);
+            readFully(bb, pn.getJournalAddress() + PA.OVERHEAD);
+        }
 
         final int rightSize = payloadSize - leftSize;
         System.arraycopy(bb.array(), leftSize + at, bb.array(), bufferSize - rightSize + at, rightSize);
@@ -838,6 +1168,79 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         return pageAddress;
     }
 
+    /**
+     * Reconstruct a page image from a PD record by reading its base image and
+     * applying the patches held in the PD record.
+     */
+    private long readPageDeltaFromJournal(final PageNode pn, final ByteBuffer bb) throws PersistitIOException,
+            CorruptJournalException {
+        final int at = bb.position();
+        bb.limit(at + PD.OVERHEAD);
+        readFully(bb, pn.getJournalAddress());
+        final int deltaSize = JournalRecord.getLength(bb) - PD.OVERHEAD;
+        final int bufferSize = PD.getBufferSize(bb);
+        final long pageAddress = PD.getPageAddress(bb);
+        final long baseAddress = PD.getBaseAddress(bb);
+
+        if (deltaSize < 0 || deltaSize > bufferSize || baseAddress >= pn.getJournalAddress()) {
+            throw new CorruptJournalException("Record at " + pn.toStringJournalAddress(this)
+                    + " invalid sizes: deltaSize= " + deltaSize + " bufferSize=" + bufferSize + " baseAddress="
+                    + baseAddress);
+        }
+
+        if (pageAddress != pn.getPageAddress() && pn.getPageAddress() != -1) {
+            throw new CorruptJournalException("Record at " + pn.toStringJournalAddress(this)
+                    + " mismatched page address: expected/actual=" + pn.getPageAddress() + "/" + pageAddress);
+        }
+
+        bb.limit(bb.capacity()).position(at);
+        final PageNode base = new PageNode(pn.getVolumeHandle(), pageAddress, baseAddress, -1);
+        readPageBufferFromJournal(base, bb);
+        if (bb.limit() - at != bufferSize) {
+            throw new CorruptJournalException("Record at " + pn.toStringJournalAddress(this) + " bufferSize "
+                    + bufferSize + " does not match base image at " + base.toStringJournalAddress(this));
+        }
+
+        final ByteBuffer db = ByteBuffer.wrap(PageImageCodec.scratch(deltaSize), 0, deltaSize);
+        readFully(db, pn.getJournalAddress() + PD.OVERHEAD);
+        if (!PageDelta.apply(db.array(), 0, deltaSize, bb.array(), at, bufferSize)) {
+            throw new CorruptJournalException("Record at " + pn.toStringJournalAddress(this)
+                    + " has invalid page delta patches");
+        }
+        return pageAddress;
+    }
+
+    /**
+     * Read the compressed page image held in a PZ record and expand it.
+     * 
+     * @param address
+     *            journal address of the PZ record
+     * @param recordSize
+     *            length of the PZ record
+     * @param leftSize
+     *            leftSize field of the PZ record
+     * @param bufferSize
+     *            bufferSize field of the PZ record
+     * @param image
+     *            array to receive the expanded image
+     * @param offset
+     *            offset within <code>image</code> at which to expand it
+     * @return the length of the expanded image, or -1 if the compressed image
+     *         is invalid
+     */
+    private int expandPageImage(final long address, final int recordSize, final int leftSize, final int bufferSize,
+            final byte[] image, final int offset) throws PersistitIOException, CorruptJournalException {
+        final int compressedSize = recordSize - PZ.OVERHEAD;
+        final ByteBuffer cb = ByteBuffer.wrap(PageImageCodec.scratch(compressedSize), 0, compressedSize);
+        readFully(cb, address + PZ.OVERHEAD);
+        try {
+            final int imageSize = PageImageCodec.expand(cb.array(), 0, compressedSize, image, offset, bufferSize);
+            return imageSize < leftSize ? -1 : imageSize;
+        } catch (final DataFormatException e) {
+            return -1;
+        }
+    }
+
     /**
      * Method used by diagnostic tools to attempt to read a page from journal
      * 
@@ -850,35 +1253,41 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
      * @throws PersistitException
      */
     Buffer readPageBuffer(final long address) throws PersistitException {
-        ByteBuffer bb = ByteBuffer.allocate(PA.OVERHEAD);
+        final ByteBuffer bb = ByteBuffer.allocate(PD.OVERHEAD);
         readFully(bb, address);
-        if (bb.remaining() < PA.OVERHEAD) {
+        if (bb.remaining() < PD.OVERHEAD) {
             return null;
         }
         final int type = JournalRecord.getType(bb);
-        final int payloadSize = JournalRecord.getLength(bb) - PA.OVERHEAD;
-        final int leftSize = PA.getLeftSize(bb);
-        final int bufferSize = PA.getBufferSize(bb);
-        final long pageAddress = PA.getPageAddress(bb);
-        final int volumeHandle = PA.getVolumeHandle(bb);
-
-        if (type != PA.TYPE || leftSize < 0 || payloadSize < leftSize || payloadSize > bufferSize) {
+        final int bufferSize;
+        final long pageAddress;
+        final int volumeHandle;
+        if (type == PA.TYPE || type == PZ.TYPE) {
+            bufferSize = PA.getBufferSize(bb);
+            pageAddress = PA.getPageAddress(bb);
+            volumeHandle = PA.getVolumeHandle(bb);
+        } else if (type == PD.TYPE) {
+            bufferSize = PD.getBufferSize(bb);
+            pageAddress = PD.getPageAddress(bb);
+            volumeHandle = PD.getVolumeHandle(bb);
+        } else {
             return null;
         }
 
         final BufferPool pool = _persistit.getBufferPool(bufferSize);
+        if (pool == null) {
+            return null;
+        }
         final Buffer buffer = new Buffer(bufferSize, -1, pool, _persistit);
         buffer.setPageAddressAndVolume(pageAddress, volumeForHandle(volumeHandle));
-        bb = buffer.getByteBuffer();
-        bb.limit(payloadSize).position(0);
-        readFully(bb, address + PA.OVERHEAD);
-
-        if (leftSize > 0) {
-            final int rightSize = payloadSize - leftSize;
-            System.arraycopy(bb.array(), leftSize, bb.array(), bufferSize - rightSize, rightSize);
-            Arrays.fill(bb.array(), leftSize, bufferSize - rightSize, (byte) 0);
+        final ByteBuffer pageBuffer = buffer.getByteBuffer();
+        pageBuffer.limit(bufferSize).position(0);
+        try {
+            readPageBufferFromJournal(new PageNode(volumeHandle, pageAddress, address, -1), pageBuffer);
+        } catch (final CorruptJournalException e) {
+            return null;
         }
-        bb.limit(bufferSize).position(0);
+        pageBuffer.limit(bufferSize).position(0);
         final boolean acquired = buffer.claim(true, 0);
         assert acquired : "buffer in use";
         buffer.load();
@@ -1065,96 +1474,430 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
     }
 
     void writePageToJournal(final Buffer buffer) throws PersistitException {
-
-        final Volume volume;
-        final int recordSize;
-
-        synchronized (this) {
-
-            if (!buffer.isTemporary() && buffer.getTimestamp() < _lastValidCheckpoint.getTimestamp()) {
-                _persistit.getLogBase().lateWrite.log(_lastValidCheckpoint, buffer);
-            }
-
-            volume = buffer.getVolume();
-            final int handle = handleForVolume(volume);
-            int leftSize;
-            int rightSize;
-            if (buffer.isDataPage() || buffer.isIndexPage() || buffer.isGarbagePage()) {
-                leftSize = buffer.getKeyBlockEnd();
-                rightSize = buffer.getBufferSize() - buffer.getAlloc();
-            } else {
-                leftSize = 0;
-                rightSize = buffer.getBufferSize();
-            }
-
-            recordSize = PA.OVERHEAD + leftSize + rightSize;
-
-            prepareWriteBuffer(recordSize);
-            Debug.$assert1.t(_writeBuffer.remaining() >= recordSize);
-
-            final long address = _currentAddress;
-            final int position = _writeBuffer.position();
-
-            JournalRecord.putLength(_writeBuffer, recordSize);
-            PA.putVolumeHandle(_writeBuffer, handle);
-            PA.putType(_writeBuffer);
-            JournalRecord.putTimestamp(_writeBuffer, buffer.isTemporary() ? -1 : buffer.getTimestamp());
-            PA.putLeftSize(_writeBuffer, leftSize);
-            PA.putBufferSize(_writeBuffer, buffer.getBufferSize());
-            PA.putPageAddress(_writeBuffer, buffer.getPageAddress());
-            advance(PA.OVERHEAD);
-
-            if (leftSize > 0) {
-                _writeBuffer.put(buffer.getBytes(), 0, leftSize);
-                _writeBuffer.put(buffer.getBytes(), buffer.getBufferSize() - rightSize, rightSize);
-            } else {
-                _writeBuffer.put(buffer.getBytes());
-            }
-            Debug.$assert0.t(_writeBuffer.position() - position == recordSize);
-            _currentAddress += recordSize - PA.OVERHEAD;
-
-            final PageNode pageNode = new PageNode(handle, buffer.getPageAddress(), address, buffer.getTimestamp());
-            _pageList.add(pageNode);
-            PageNode oldPageNode = _pageMap.put(pageNode, pageNode);
-
-            if (oldPageNode != null) {
-                assert oldPageNode.getTimestamp() <= pageNode.getTimestamp();
+        final long address;
+        final PageRecord record = preparePageRecord(buffer);
+        final ByteBuffer[] fills = new ByteBuffer[1];
+        try {
+            synchronized (this) {
+                try {
+                    address = appendPageRecord(buffer, record, fills, 0);
+                } finally {
+                    _heldReservations = 0;
+                }
             }
-            final long checkpointTimestamp = _persistit.getTimestampAllocator().getProposedCheckpointTimestamp();
-            if (oldPageNode != null && oldPageNode.getTimestamp() > checkpointTimestamp
-                    && buffer.getTimestamp() > checkpointTimestamp) {
-                oldPageNode.invalidate();
-                oldPageNode = oldPageNode.getPrevious();
+        } finally {
+            if (fills[0] != null) {
+                fillPageRecord(buffer, record, fills[0]);
             }
-            pageNode.setPrevious(oldPageNode);
-            _writePageCount++;
         }
-        _persistit.getIOMeter().chargeWritePageToJournal(volume, buffer.getPageAddress(), buffer.getBufferSize(),
-                _currentAddress - recordSize, urgency(), buffer.getIndex());
+        pageRecordWritten(buffer, record, address);
+        _persistit.getIOMeter().chargeWritePageToJournal(buffer.getVolume(), buffer.getPageAddress(),
+                buffer.getBufferSize(), address, urgency(), buffer.getIndex());
     }
 
     /**
-     * package-private for unit tests only.
+     * Write the pages held by a batch of Buffers to the journal while holding
+     * the monitor once for the whole batch. When the batch fits in the write
+     * buffer, space for all of its page records is prepared up front so that
+     * no flush can occur between them, and the page images are copied into
+     * the write buffer after the monitor is released.
      * 
-     * @param volume
-     * @param handle
+     * @param buffers
+     *            Buffers to be written, each owned as writer by the current
+     *            thread
+     * @param from
+     *            Index of the first Buffer to write
+     * @param count
+     *            Number of Buffers to write
      * @throws PersistitException
      */
-    synchronized void writeVolumeHandleToJournal(final Volume volume, final int handle) throws PersistitException {
-        prepareWriteBuffer(IV.MAX_LENGTH);
-        IV.putType(_writeBuffer);
-        IV.putHandle(_writeBuffer, handle);
-        IV.putVolumeId(_writeBuffer, volume.getId());
-        JournalRecord.putTimestamp(_writeBuffer, epochalTimestamp());
-        if (_persistit.getConfiguration().isUseOldVSpec()) {
-            IV.putVolumeSpecification(_writeBuffer, volume.getName());
-        } else {
-            IV.putVolumeSpecification(_writeBuffer, volume.getSpecification().toString());
+    void writePagesToJournal(final Buffer[] buffers, final int from, final int count) throws PersistitException {
+        final long[] addresses = new long[count];
+        final PageRecord[] records = new PageRecord[count];
+        for (int index = 0; index < count; index++) {
+            records[index] = preparePageRecord(buffers[from + index]);
         }
-        final int recordSize = JournalRecord.getLength(_writeBuffer);
-        _persistit.getIOMeter().chargeWriteOtherToJournal(recordSize, _currentAddress);
-        advance(recordSize);
-    }
+        final ByteBuffer[] fills = new ByteBuffer[count];
+        try {
+            synchronized (this) {
+                try {
+                    /*
+                     * Write the IV record for any volume that does not have
+                     * a handle yet before reserving space: an IV record
+                     * written between the page records is not part of the
+                     * batch size and could force a flush, which would wait
+                     * forever for the regions this thread has reserved.
+                     */
+                    for (int index = 0; index < count; index++) {
+                        handleForVolume(buffers[from + index].getVolume());
+                    }
+                    boolean deferred;
+                    do {
+                        int batchSize = 0;
+                        for (int index = 0; index < count; index++) {
+                            batchSize += pageRecordSize(buffers[from + index], records[index]);
+                        }
+                        deferred = batchSize < _writeBuffer.capacity() - JE.OVERHEAD;
+                        if (deferred) {
+                            prepareWriteBuffer(batchSize);
+                        }
+                    } while (deferred && demoteDeltas(records));
+                    for (int index = 0; index < count; index++) {
+                        addresses[index] = appendPageRecord(buffers[from + index], records[index], deferred ? fills
+                                : null, index);
+                    }
+                    _writePageBatchCount++;
+                } finally {
+                    _heldReservations = 0;
+                }
+            }
+        } finally {
+            for (int index = 0; index < count; index++) {
+                if (fills[index] != null) {
+                    fillPageRecord(buffers[from + index], records[index], fills[index]);
+                }
+            }
+        }
+        for (int index = 0; index < count; index++) {
+            final Buffer buffer = buffers[from + index];
+            pageRecordWritten(buffer, records[index], addresses[index]);
+            _persistit.getIOMeter().chargeWritePageToJournal(buffer.getVolume(), buffer.getPageAddress(),
+                    buffer.getBufferSize(), addresses[index], urgency(), buffer.getIndex());
+        }
+    }
+
+    /**
+     * The body of the journal record that will hold a page image, prepared
+     * before the monitor is acquired. The record is a PD record if
+     * <code>_delta</code> is not null, otherwise a PZ record if
+     * <code>_compressed</code> is not null, otherwise a PA record.
+     */
+    private static class PageRecord {
+        /**
+         * Patches to the base image for a PD record
+         */
+        private byte[] _delta;
+        /**
+         * The base image patched by <code>_delta</code>
+         */
+        private PageDelta.Base _base;
+        /**
+         * Compressed image for a PZ record
+         */
+        private byte[] _compressed;
+        /**
+         * Normalized image to be remembered as the base for future PD records
+         * if the page is written in full
+         */
+        private byte[] _image;
+    }
+
+    /**
+     * package-private for unit tests only.
+     * 
+     * @return the size of the record that would hold the page image in a
+     *         Buffer, given its prepared record body or <code>null</code> for
+     *         a PA record
+     */
+    int pageRecordSize(final Buffer buffer, final PageRecord record) {
+        if (record != null && record._delta != null) {
+            return PD.OVERHEAD + record._delta.length;
+        } else if (record != null && record._compressed != null) {
+            return PZ.OVERHEAD + record._compressed.length;
+        } else if (buffer.isDataPage() || buffer.isIndexPage() || buffer.isGarbagePage()) {
+            return PA.OVERHEAD + buffer.getKeyBlockEnd() + buffer.getBufferSize() - buffer.getAlloc();
+        } else {
+            return PA.OVERHEAD + buffer.getBufferSize();
+        }
+    }
+
+    /**
+     * Prepare the body of the record for the page held in a Buffer. If page
+     * delta logging is enabled and the image last written in full for the
+     * page is known, the page is encoded as a PD record when the patches are
+     * small enough. Otherwise the page image is compressed if page compression
+     * is enabled. The caller holds a writer claim on the Buffer but not the
+     * monitor.
+     */
+    private PageRecord preparePageRecord(final Buffer buffer) {
+        final PageRecord record = new PageRecord();
+        if (_pageDeltaEnabled && !buffer.isTemporary() && (buffer.isDataPage() || buffer.isIndexPage())) {
+            record._image = PageDelta.normalize(buffer);
+            final PageDelta.Base base = _pageDeltas.get(buffer.getVolume(), buffer.getPageAddress());
+            if (base != null && base.getDeltaCount() < PageDelta.MAXIMUM_DELTAS) {
+                final int limit = (pageRecordSize(buffer, null) - PA.OVERHEAD) / PageDelta.DELTA_RATIO;
+                record._delta = PageDelta.encode(base.getImage(), record._image, limit);
+                if (record._delta != null) {
+                    record._base = base;
+                    return record;
+                }
+            }
+        }
+        record._compressed = compressPageImage(buffer);
+        return record;
+    }
+
+    /**
+     * Compress the page image held in a Buffer if page compression is enabled.
+     * The caller holds a writer claim on the Buffer but not the monitor.
+     * 
+     * @return the compressed image to be written in a PZ record, or
+     *         <code>null</code> if the page is to be written in a PA record
+     */
+    private byte[] compressPageImage(final Buffer buffer) {
+        if (!_pageCompressionEnabled) {
+            return null;
+        }
+        final int imageSize = pageRecordSize(buffer, null) - PA.OVERHEAD;
+        final byte[] image = PageImageCodec.scratch(imageSize);
+        putPageImage(buffer, null, ByteBuffer.wrap(image));
+        return PageImageCodec.compress(image, imageSize);
+    }
+
+    /**
+     * Convert a prepared PD record to a PA record if its base image is not in
+     * the current journal file. The base image must be in the same journal
+     * file as the PD record so that it cannot be deleted while the PD record
+     * is still needed. The caller holds the monitor.
+     * 
+     * @return <code>true</code> if the record was converted
+     */
+    private boolean demoteDelta(final PageRecord record) {
+        if (record._delta != null && record._base.getAddress() / _blockSize != _currentAddress / _blockSize) {
+            record._delta = null;
+            record._base = null;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean demoteDeltas(final PageRecord[] records) {
+        boolean demoted = false;
+        for (final PageRecord record : records) {
+            demoted |= demoteDelta(record);
+        }
+        return demoted;
+    }
+
+    /**
+     * Remember the image of a page written in full as the base for future PD
+     * records, or count the PD record written against its base. The caller
+     * holds a writer claim on the Buffer but not the monitor.
+     */
+    private void pageRecordWritten(final Buffer buffer, final PageRecord record, final long address) {
+        if (record._delta != null) {
+            record._base.deltaWritten();
+        } else if (record._image != null) {
+            _pageDeltas.put(buffer.getVolume(), buffer.getPageAddress(), new PageDelta.Base(address, record._image));
+        }
+    }
+
+    /**
+     * Append a PA, PZ or PD record holding the page image in a Buffer, as
+     * prepared by {@link #preparePageRecord(Buffer)}, and record it in the
+     * page map. The caller holds the monitor. If <code>fills</code> is
+     * <code>null</code> the record body is copied immediately; otherwise space
+     * for it is reserved and stored in <code>fills[index]</code>, and the
+     * caller must pass it to
+     * {@link #fillPageRecord(Buffer, PageRecord, ByteBuffer)} after releasing
+     * the monitor and before appending any other record.
+     * 
+     * @return the journal address of the record
+     */
+    private long appendPageRecord(final Buffer buffer, final PageRecord record, final ByteBuffer[] fills,
+            final int index) throws PersistitException {
+        if (!buffer.isTemporary() && buffer.getTimestamp() < _lastValidCheckpoint.getTimestamp()) {
+            _persistit.getLogBase().lateWrite.log(_lastValidCheckpoint, buffer);
+        }
+
+        final Volume volume = buffer.getVolume();
+        final int handle = handleForVolume(volume);
+        int leftSize;
+        int rightSize;
+        if (buffer.isDataPage() || buffer.isIndexPage() || buffer.isGarbagePage()) {
+            leftSize = buffer.getKeyBlockEnd();
+            rightSize = buffer.getBufferSize() - buffer.getAlloc();
+        } else {
+            leftSize = 0;
+            rightSize = buffer.getBufferSize();
+        }
+
+        int recordSize = pageRecordSize(buffer, record);
+
+        prepareWriteBuffer(recordSize);
+        if (demoteDelta(record)) {
+            /*
+             * Never happens for a deferred batch: demoteDeltas has already
+             * been applied after preparing space for the whole batch.
+             */
+            recordSize = pageRecordSize(buffer, record);
+            prepareWriteBuffer(recordSize);
+        }
+        Debug.$assert1.t(_writeBuffer.remaining() >= recordSize);
+
+        final long address = _currentAddress;
+        final int position = _writeBuffer.position();
+        final int overhead;
+
+        JournalRecord.putLength(_writeBuffer, recordSize);
+        JournalRecord.putTimestamp(_writeBuffer, buffer.isTemporary() ? -1 : buffer.getTimestamp());
+        if (record._delta != null) {
+            PD.putType(_writeBuffer);
+            PD.putVolumeHandle(_writeBuffer, handle);
+            PD.putPageAddress(_writeBuffer, buffer.getPageAddress());
+            PD.putBaseAddress(_writeBuffer, record._base.getAddress());
+            PD.putBufferSize(_writeBuffer, buffer.getBufferSize());
+            overhead = PD.OVERHEAD;
+            _deltaPageCount++;
+            _deltaPageBytesSaved += PA.OVERHEAD + leftSize + rightSize - recordSize;
+        } else {
+            if (record._compressed == null) {
+                PA.putType(_writeBuffer);
+            } else {
+                PZ.putType(_writeBuffer);
+                _compressedPageCount++;
+                _compressedPageBytesSaved += PA.OVERHEAD + leftSize + rightSize - recordSize;
+            }
+            PA.putVolumeHandle(_writeBuffer, handle);
+            PA.putLeftSize(_writeBuffer, leftSize);
+            PA.putBufferSize(_writeBuffer, buffer.getBufferSize());
+            PA.putPageAddress(_writeBuffer, buffer.getPageAddress());
+            overhead = PA.OVERHEAD;
+        }
+        advance(overhead);
+
+        if (fills == null) {
+            putPageImage(buffer, record, _writeBuffer);
+            _currentAddress += recordSize - overhead;
+        } else {
+            fills[index] = reserveFill(recordSize - overhead);
+        }
+        Debug.$assert0.t(_writeBuffer.position() - position == recordSize);
+
+        final PageNode pageNode = new PageNode(handle, buffer.getPageAddress(), address, buffer.getTimestamp());
+        _pageList.add(pageNode);
+        PageNode oldPageNode = _pageMap.put(pageNode, pageNode);
+
+        if (oldPageNode != null) {
+            assert oldPageNode.getTimestamp() <= pageNode.getTimestamp();
+        }
+        final long checkpointTimestamp = _persistit.getTimestampAllocator().getProposedCheckpointTimestamp();
+        if (oldPageNode != null && oldPageNode.getTimestamp() > checkpointTimestamp
+                && buffer.getTimestamp() > checkpointTimestamp) {
+            oldPageNode.invalidate();
+            oldPageNode = oldPageNode.getPrevious();
+        }
+        pageNode.setPrevious(oldPageNode);
+        _writePageCount++;
+        return address;
+    }
+
+    /**
+     * Copy the body of a page record into space reserved by
+     * {@link #appendPageRecord(Buffer, PageRecord, ByteBuffer[], int)}. The
+     * caller does not hold the monitor.
+     */
+    private void fillPageRecord(final Buffer buffer, final PageRecord record, final ByteBuffer fill) {
+        try {
+            putPageImage(buffer, record, fill);
+        } finally {
+            completeFill();
+        }
+    }
+
+    private void putPageImage(final Buffer buffer, final PageRecord record, final ByteBuffer bb) {
+        if (record != null && record._delta != null) {
+            bb.put(record._delta);
+        } else if (record != null && record._compressed != null) {
+            bb.put(record._compressed);
+        } else if (buffer.isDataPage() || buffer.isIndexPage() || buffer.isGarbagePage()) {
+            final int leftSize = buffer.getKeyBlockEnd();
+            final int rightSize = buffer.getBufferSize() - buffer.getAlloc();
+            bb.put(buffer.getBytes(), 0, leftSize);
+            bb.put(buffer.getBytes(), buffer.getBufferSize() - rightSize, rightSize);
+        } else {
+            bb.put(buffer.getBytes());
+        }
+    }
+
+    /**
+     * Reserve the next <code>length</code> bytes of the write buffer so that
+     * they can be filled by the calling thread after it releases the monitor.
+     * The caller holds the monitor and has already prepared the write buffer
+     * to hold the record. The reserved bytes are part of the journal from
+     * this point on, but {@link #flush()} and {@link #readFully(ByteBuffer,
+     * long)} will wait for them to be filled before using them.
+     * 
+     * @param length
+     *            number of bytes to reserve
+     * @return a view of the write buffer positioned at the reserved region and
+     *         limited to its end
+     */
+    private ByteBuffer reserveFill(final int length) {
+        final ByteBuffer fill = _writeBuffer.duplicate();
+        fill.limit(fill.position() + length);
+        _unfilledReservations.incrementAndGet();
+        _heldReservations++;
+        _writeBuffer.position(_writeBuffer.position() + length);
+        _currentAddress += length;
+        return fill;
+    }
+
+    /**
+     * Signify that a region reserved by {@link #reserveFill(int)} has been
+     * filled.
+     */
+    private void completeFill() {
+        _unfilledReservations.decrementAndGet();
+    }
+
+    /**
+     * Wait until every reserved region of the write buffer has been filled.
+     * The caller holds the monitor, which prevents new reservations, and the
+     * threads filling reserved regions do not need it, so the wait is short.
+     * The caller must not itself hold an unfilled reservation: in particular
+     * no record may be prepared between the reservations of a page batch
+     * unless its space was included when the batch was prepared.
+     */
+    private void awaitFills() {
+        assert _heldReservations == 0 : "Waiting for " + _heldReservations
+                + " regions reserved by the thread holding the monitor";
+        if (_unfilledReservations.get() == 0) {
+            return;
+        }
+        _fillWaitCount.incrementAndGet();
+        final long start = System.nanoTime();
+        while (_unfilledReservations.get() != 0) {
+            if (System.nanoTime() - start < FILL_SPIN_NANOS) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(1000);
+            }
+        }
+    }
+
+    /**
+     * package-private for unit tests only.
+     * 
+     * @param volume
+     * @param handle
+     * @throws PersistitException
+     */
+    synchronized void writeVolumeHandleToJournal(final Volume volume, final int handle) throws PersistitException {
+        prepareWriteBuffer(IV.MAX_LENGTH);
+        IV.putType(_writeBuffer);
+        IV.putHandle(_writeBuffer, handle);
+        IV.putVolumeId(_writeBuffer, volume.getId());
+        JournalRecord.putTimestamp(_writeBuffer, epochalTimestamp());
+        if (_persistit.getConfiguration().isUseOldVSpec()) {
+            IV.putVolumeSpecification(_writeBuffer, volume.getName());
+        } else {
+            IV.putVolumeSpecification(_writeBuffer, volume.getSpecification().toString());
+        }
+        final int recordSize = JournalRecord.getLength(_writeBuffer);
+        _persistit.getIOMeter().chargeWriteOtherToJournal(recordSize, _currentAddress);
+        advance(recordSize);
+    }
 
     synchronized void writeTreeHandleToJournal(final TreeDescriptor td, final int handle) throws PersistitException {
         prepareWriteBuffer(IT.MAX_LENGTH);
@@ -1199,25 +1942,51 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
      * @return
      * @throws PersistitException
      */
-    synchronized long writeTransactionToJournal(final ByteBuffer buffer, final long startTimestamp,
-            final long commitTimestamp, final long backchainAddress) throws PersistitException {
-        final int recordSize = TX.OVERHEAD + buffer.position();
-        prepareWriteBuffer(recordSize);
-        final long address = _currentAddress;
-        TX.putLength(_writeBuffer, recordSize);
-        TX.putType(_writeBuffer);
-        TX.putTimestamp(_writeBuffer, startTimestamp);
-        TX.putCommitTimestamp(_writeBuffer, commitTimestamp);
-        TX.putBackchainAddress(_writeBuffer, backchainAddress);
-        _persistit.getIOMeter().chargeWriteTXtoJournal(recordSize, _currentAddress);
-        advance(TX.OVERHEAD);
+    long writeTransactionToJournal(final ByteBuffer buffer, final long startTimestamp, final long commitTimestamp,
+            final long backchainAddress) throws PersistitException {
+        final long address;
+        final ByteBuffer fill;
+        synchronized (this) {
+            final int recordSize = TX.OVERHEAD + buffer.position();
+            prepareWriteBuffer(recordSize);
+            address = _currentAddress;
+            TX.putLength(_writeBuffer, recordSize);
+            TX.putType(_writeBuffer);
+            TX.putTimestamp(_writeBuffer, startTimestamp);
+            TX.putCommitTimestamp(_writeBuffer, commitTimestamp);
+            TX.putBackchainAddress(_writeBuffer, backchainAddress);
+            _persistit.getIOMeter().chargeWriteTXtoJournal(recordSize, _currentAddress);
+            advance(TX.OVERHEAD);
+            fill = reserveFill(recordSize - TX.OVERHEAD);
+            try {
+                recordTransaction(address, startTimestamp, commitTimestamp, backchainAddress);
+            } catch (final RuntimeException e) {
+                fillTransactionRecord(buffer, fill);
+                throw e;
+            } finally {
+                _heldReservations = 0;
+            }
+        }
+        /*
+         * Copy the update records outside of the monitor so that other
+         * threads can append records concurrently.
+         */
+        fillTransactionRecord(buffer, fill);
+        return address;
+    }
+
+    private void fillTransactionRecord(final ByteBuffer buffer, final ByteBuffer fill) {
         try {
             buffer.flip();
-            _writeBuffer.put(buffer);
+            fill.put(buffer);
         } finally {
             buffer.clear();
+            completeFill();
         }
-        _currentAddress += recordSize - TX.OVERHEAD;
+    }
+
+    private void recordTransaction(final long address, final long startTimestamp, final long commitTimestamp,
+            final long backchainAddress) {
         if (commitTimestamp != ABORTED) {
             final long key = Long.valueOf(startTimestamp);
             TransactionMapItem item = _liveTransactionMap.get(key);
@@ -1239,7 +2008,6 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
             }
             item.setCommitTimestamp(commitTimestamp);
         }
-        return address;
     }
 
     static File journalPath(final String path) {
@@ -1273,6 +2041,36 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         return new File(String.format(PATH_FORMAT, path, generation));
     }
 
+    static File[] stripeDirectories(final String paths) {
+        final List<File> directories = new ArrayList<File>();
+        if (paths != null) {
+            for (final String path : paths.split(",")) {
+                if (!path.trim().isEmpty()) {
+                    directories.add(new File(path.trim()).getAbsoluteFile());
+                }
+            }
+        }
+        return directories.toArray(new File[directories.size()]);
+    }
+
+    /**
+     * @return the files holding the stripes of a journal file: the journal
+     *         file itself followed by a file of the same name in each stripe
+     *         directory
+     */
+    static File[] stripeFiles(final File file, final File[] stripeDirectories) {
+        final File[] files = new File[stripeDirectories.length + 1];
+        files[0] = file;
+        for (int index = 0; index < stripeDirectories.length; index++) {
+            files[index + 1] = new File(stripeDirectories[index], file.getName());
+        }
+        return files;
+    }
+
+    File[] stripeFiles(final File file) {
+        return stripeFiles(file, _stripeDirectories);
+    }
+
     File addressToFile(final long address) {
         return generationToFile(_journalFilePath, address / _blockSize);
     }
@@ -1281,6 +2079,16 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         return address % _blockSize;
     }
 
+    /**
+     * package-private for unit tests only.
+     * 
+     * @return the number of bytes that can be appended to the write buffer
+     *         before it must be flushed
+     */
+    synchronized int getWriteBufferRemaining() {
+        return _writeBuffer.remaining();
+    }
+
     void setWriteBufferSize(final int size) {
         if (size < MINIMUM_BUFFER_SIZE || size > MAXIMUM_BUFFER_SIZE) {
             throw new IllegalArgumentException("Invalid write buffer size: " + size);
@@ -1288,6 +2096,28 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         _writeBufferSize = size;
     }
 
+    /**
+     * Control whether the write buffer is allocated as a direct
+     * <code>ByteBuffer</code>. A direct buffer is passed to
+     * {@link FileChannel#write(ByteBuffer, long)} without the intermediate copy
+     * the JDK makes for a heap buffer. The setting takes effect the next time
+     * the write buffer is allocated.
+     * 
+     * @param direct
+     *            <code>true</code> to allocate the write buffer off-heap
+     */
+    void setWriteBufferDirect(final boolean direct) {
+        _writeBufferDirect = direct;
+    }
+
+    boolean isWriteBufferDirect() {
+        return _writeBufferDirect;
+    }
+
+    private ByteBuffer allocateWriteBuffer(final int size) {
+        return _writeBufferDirect ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
+
     public void close() throws PersistitException {
         _closed.set(true);
         rollover();
@@ -1296,6 +2126,7 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         _copier = null;
         if (copier != null) {
             _persistit.waitForIOTaskStop(copier);
+            copier.stopWorkers();
         }
 
         final JournalFlusher flusher = _flusher;
@@ -1332,6 +2163,11 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
             } finally {
                 _journalFileChannels.clear();
+                _journalFileMappings.clear();
+                if (_stripeForcer != null) {
+                    _stripeForcer.shutdown();
+                    _stripeForcer = null;
+                }
             }
         }
     }
@@ -1343,6 +2179,9 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
     void crash() throws IOException {
         IOTaskRunnable.crash(_flusher);
         IOTaskRunnable.crash(_copier);
+        if (_copier != null) {
+            _copier.stopWorkers();
+        }
         //
         // Even when simulating a crash do this to release
         // channels and therefore allow disk space to be returned to
@@ -1360,6 +2199,7 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         _persistit.checkFatal();
         final long address = _writeBufferAddress;
         if (address != Long.MAX_VALUE && _writeBuffer != null) {
+            awaitFills();
 
             assert _writeBufferAddress + _writeBuffer.position() == _currentAddress : String.format(
                     "writeBufferAddress=%,d position=%,d currentAddress=%,d", _writeBufferAddress,
@@ -1375,7 +2215,22 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
                                 size, address));
                     }
 
+                    /*
+                     * If the file already extends beyond the bytes about to
+                     * be written, as a recycled journal file does, follow
+                     * them with zeros. The space is always available because
+                     * every record leaves room in the buffer for a JE record.
+                     * Zeros end a recovery scan, so it never reads on into
+                     * records left from the file's previous life.
+                     */
+                    final int end = _writeBuffer.position();
+                    final int trailer = (int) Math.max(0, Math.min(Math.min(_writeBuffer.remaining(),
+                            JournalRecord.OVERHEAD), size - addressToOffset(address) - end));
+                    for (int index = 0; index < trailer; index++) {
+                        _writeBuffer.put(end + index, (byte) 0);
+                    }
                     _writeBuffer.flip();
+                    _writeBuffer.limit(end + trailer);
                     boolean writeComplete = false;
                     final int written;
                     try {
@@ -1393,13 +2248,14 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
                          * then encounters a disk full condition. (Found this
                          * out empirically.)
                          */
-                        writeComplete = _writeBuffer.remaining() == 0;
+                        writeComplete = _writeBuffer.position() >= end;
                     } finally {
-                        written = _writeBuffer.position();
+                        written = Math.min(_writeBuffer.position(), end);
                         _writeBufferAddress += written;
                         if (writeComplete) {
-                            if (_writeBuffer.capacity() != _writeBufferSize) {
-                                _writeBuffer = ByteBuffer.allocate(_writeBufferSize);
+                            if (_writeBuffer.capacity() != _writeBufferSize
+                                    || _writeBuffer.isDirect() != _writeBufferDirect) {
+                                _writeBuffer = allocateWriteBuffer(_writeBufferSize);
                             } else {
                                 _writeBuffer.clear();
                             }
@@ -1410,6 +2266,8 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
                              * to remove any bytes from the buffer that actually
                              * did get written and reset other measurements.
                              */
+                            _writeBuffer.limit(end);
+                            _writeBuffer.position(written);
                             _writeBuffer.compact();
                         }
                         final long remaining = _blockSize - (_writeBufferAddress % _blockSize);
@@ -1531,7 +2389,12 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
                 final boolean matches = length == (_writeBuffer.position() + _writeBufferAddress) % _blockSize;
                 final FileChannel channel = getFileChannel(_currentAddress);
                 Debug.$assert1.t(matches);
-                if (matches) {
+                /*
+                 * When spare files are kept the file retains its full size so
+                 * that its extents can be reused. The JE record just written
+                 * marks the end of its content.
+                 */
+                if (matches && _spareFileLimit == 0) {
                     channel.truncate(length);
                 }
                 channel.force(true);
@@ -1628,7 +2491,11 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         FileChannel channel = _journalFileChannels.get(generation);
         if (channel == null) {
             try {
-                channel = new MediatedFileChannel(addressToFile(address), "rw");
+                final File file = addressToFile(address);
+                if (generation >= _currentAddress / _blockSize && !_spareFiles.isEmpty() && !file.exists()) {
+                    useSpareFile(file);
+                }
+                channel = openJournalFile(file);
                 _journalFileChannels.put(generation, channel);
             } catch (final IOException ioe) {
                 throw new PersistitIOException(ioe);
@@ -1637,6 +2504,76 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         return channel;
     }
 
+    /**
+     * Open a journal file, or a spare, together with its stripe files if the
+     * journal is striped.
+     */
+    private FileChannel openJournalFile(final File file) throws IOException {
+        if (_stripeDirectories.length > 0) {
+            return new StripedFileChannel(stripeFiles(file), "rw", STRIPE_SIZE, stripeForcer());
+        } else {
+            return new MediatedFileChannel(file, "rw");
+        }
+    }
+
+    /**
+     * @return the ExecutorService whose threads force stripe files
+     *         concurrently, creating it if necessary
+     */
+    private synchronized ExecutorService stripeForcer() {
+        if (_stripeForcer == null) {
+            final AtomicInteger counter = new AtomicInteger();
+            _stripeForcer = Executors.newFixedThreadPool(_stripeDirectories.length, new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "JOURNAL_STRIPE:" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return _stripeForcer;
+    }
+
+    /**
+     * Return a read-only mapping of the journal file containing the supplied
+     * <code>address</code>, creating it if necessary. Only sealed files, i.e.,
+     * those preceding the file currently being written, are mapped, since the
+     * size of a sealed file no longer changes. Striped files are not mapped.
+     * 
+     * @param address
+     *            the journal address of a record in the journal
+     * @return the mapping of the entire file, or <code>null</code> if the
+     *         file is still being written or cannot be mapped
+     * @throws PersistitIOException
+     *             if the file cannot be opened
+     */
+    synchronized ByteBuffer getFileMapping(final long address) throws PersistitIOException {
+        final long generation = address / _blockSize;
+        if (generation >= _currentAddress / _blockSize || _stripeDirectories.length > 0) {
+            return null;
+        }
+        MappedByteBuffer mapping = _journalFileMappings.get(generation);
+        if (mapping == null && !_journalFileMappings.containsKey(generation)) {
+            final FileChannel channel = getFileChannel(address);
+            try {
+                final long size = channel.size();
+                if (size > 0 && size <= Integer.MAX_VALUE) {
+                    mapping = channel.map(MapMode.READ_ONLY, 0, size);
+                }
+            } catch (final IOException ioe) {
+                /*
+                 * Mapping is an optimization only; for example, the
+                 * platform may have run out of address space. Fall back to
+                 * reading the file through its channel.
+                 */
+                _persistit.getLogBase().journalMappingError.log(addressToFile(address), ioe);
+            }
+            _journalFileMappings.put(generation, mapping);
+        }
+        return mapping;
+    }
+
     /**
      * Set the copyFast flag and then wait until all checkpointed pages have
      * been copied to their respective volumes, allowing the journal files to be
@@ -1817,6 +2754,53 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         }
     }
 
+    /**
+     * Return a {@link CommitFuture} that completes once every record written
+     * to the journal before <code>flushedTimestamp</code> is durable. The
+     * JOURNAL_FLUSHER is asked to start a cycle immediately.
+     * 
+     * @param flushedTimestamp
+     *            timestamp allocated after the records were written, or zero
+     *            if nothing was written
+     * @return the CommitFuture
+     */
+    CommitFuture durabilityFuture(final long flushedTimestamp) {
+        final CommitFuture future = new CommitFuture(flushedTimestamp);
+        if (flushedTimestamp == 0) {
+            future.complete(null);
+            return future;
+        }
+        final JournalFlusher flusher = _flusher;
+        if (flusher != null) {
+            flusher.addFuture(future);
+        } else {
+            throw new IllegalStateException("JOURNAL_FLUSHER is not running");
+        }
+        return future;
+    }
+
+    /**
+     * A thread waiting in
+     * {@link JournalFlusher#waitForDurability(long, long, long)} for the
+     * journal to be forced past a timestamp
+     */
+    private static class DurabilityWaiter {
+
+        private final Thread _thread = Thread.currentThread();
+
+        private final long _flushedTimestamp;
+
+        private volatile boolean _wantsNextCycle;
+
+        private volatile boolean _woken;
+
+        private volatile boolean _done;
+
+        private DurabilityWaiter(final long flushedTimestamp) {
+            _flushedTimestamp = flushedTimestamp;
+        }
+    }
+
     public static class TreeDescriptor {
 
         final int _volumeHandle;
@@ -1881,7 +2865,7 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
         final long _timestamp;
 
-        long _journalAddress;
+        volatile long _journalAddress;
 
         int _offset;
 
@@ -2147,8 +3131,23 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
         private volatile boolean _shouldStop = false;
         private final ByteBuffer _bb = ByteBuffer.allocate(DEFAULT_COPY_BUFFER_SIZE);
+        private ByteBuffer[] _runBuffers = new ByteBuffer[] { ByteBuffer.allocate(MAXIMUM_COPY_RUN_SIZE) };
         private final List<PageNode> _copyList = new ArrayList<PageNode>(_copiesPerCycle);
+        private ExecutorService _workers;
         int _lastCyclePagesWritten;
+        /**
+         * Duration of the most recent cycle in nanoseconds
+         */
+        private long _cycleTime;
+        /**
+         * Highest recent I/O rate, in bytes per second, taken as the capacity
+         * of the storage shared by the copier and all other I/O
+         */
+        private long _capacity;
+        /**
+         * Percentage of the capacity the copier may currently use
+         */
+        private volatile int _share = 100;
 
         JournalCopier() {
             super(JournalManager.this._persistit);
@@ -2158,9 +3157,53 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
             start("JOURNAL_COPIER", _copierInterval);
         }
 
+        int getShare() {
+            return _share;
+        }
+
+        /**
+         * Adjust the pool of worker threads and run buffers to the current
+         * {@link #getCopierThreadCount()}.
+         * 
+         * @return the executor for worker threads, or <code>null</code> if
+         *         pages are written only by the JOURNAL_COPIER thread
+         */
+        private ExecutorService workers() {
+            final int count = _copierThreadCount;
+            if (count != _runBuffers.length) {
+                stopWorkers();
+                final ByteBuffer[] runBuffers = Arrays.copyOf(_runBuffers, count);
+                for (int index = _runBuffers.length; index < count; index++) {
+                    runBuffers[index] = ByteBuffer.allocate(MAXIMUM_COPY_RUN_SIZE);
+                }
+                _runBuffers = runBuffers;
+                if (count > 1) {
+                    final AtomicInteger counter = new AtomicInteger();
+                    _workers = Executors.newFixedThreadPool(count - 1, new ThreadFactory() {
+                        @Override
+                        public Thread newThread(final Runnable runnable) {
+                            final Thread thread = new Thread(runnable, "JOURNAL_COPIER:" + counter.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                }
+            }
+            return _workers;
+        }
+
+        void stopWorkers() {
+            final ExecutorService workers = _workers;
+            _workers = null;
+            if (workers != null) {
+                workers.shutdown();
+            }
+        }
+
         @Override
         public void runTask() throws Exception {
 
+            final long start = System.nanoTime();
             _copying.set(true);
             try {
                 _copyList.clear();
@@ -2170,10 +3213,14 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
                         readForCopy(_copyList, _bb);
                     }
                     if (!_copyList.isEmpty()) {
-                        writeForCopy(_copyList, _bb);
+                        final ExecutorService workers = workers();
+                        writeForCopy(_copyList, _bb, _runBuffers, workers);
                     }
                 }
                 cleanupForCopy(_copyList);
+                if (urgency() < ALMOST_URGENT) {
+                    prepareSpareFile();
+                }
                 _lastCyclePagesWritten = _copyList.size();
                 if (_copyList.isEmpty()) {
                     _copyFast.set(false);
@@ -2194,7 +3241,30 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
             if (throttleInterval != _throttleSleepInterval) {
                 _throttleSleepInterval = throttleInterval;
             }
+            _cycleTime = System.nanoTime() - start;
+            if (_lastCyclePagesWritten > 0) {
+                _share = computeShare();
+            }
+        }
 
+        /**
+         * Compute the percentage of I/O capacity the copier may use. The
+         * capacity is estimated as the highest combined rate of copier and
+         * other I/O recently measured by the {@link IOMeter}, decaying slowly
+         * so that it tracks changes in the storage. The copier may use the
+         * headroom left by other I/O, but always at least a share that grows
+         * with {@link #urgency()}, and all of it when other I/O is quiescent.
+         */
+        private int computeShare() {
+            final IOMeter iom = _persistit.getIOMeter();
+            final long other = Math.max(0, iom.recentCharge());
+            final long total = other + Math.max(0, iom.recentCopyCharge());
+            _capacity = Math.max(total, _capacity - _capacity / CAPACITY_DECAY_DIVISOR);
+            if (other < iom.getQuiescentIOthreshold() * KILO || _capacity == 0) {
+                return 100;
+            }
+            final int headroom = (int) ((_capacity - Math.min(other, _capacity)) * 100 / _capacity);
+            return Math.max(MINIMUM_COPIER_SHARE, Math.max(headroom, urgency() * 100 / URGENT));
         }
 
         @Override
@@ -2204,34 +3274,26 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
         /**
          * Return a nice interval, in milliseconds, to wait between copierCycle
-         * invocations. The interval decreases as interval goes up, and becomes
-         * zero when the urgency is greater than or equal to 8. The interval is
-         * also zero if there has be no recent I/O activity invoked by other
-         * activities.
+         * invocations. While there are pages to copy the copier runs a duty
+         * cycle: it waits long enough after each cycle that the fraction of
+         * time spent copying matches its current share of I/O capacity. The
+         * interval is zero when the urgency is greater than or equal to 8, and
+         * never exceeds the configured copier interval.
          */
         @Override
         public long pollInterval() {
-            final IOMeter iom = _persistit.getIOMeter();
             final long pollInterval = super.getPollInterval();
-            final int urgency = urgency();
 
             if (_lastCyclePagesWritten == 0) {
                 return pollInterval;
             }
 
-            if (urgency >= ALMOST_URGENT) {
+            if (urgency() >= ALMOST_URGENT) {
                 return 0;
             }
-
-            int divisor = 1;
-
-            if (iom.recentCharge() < iom.getQuiescentIOthreshold() * KILO) {
-                divisor = HALF_URGENT;
-            } else if (urgency > HALF_URGENT) {
-                divisor = urgency - HALF_URGENT;
-            }
-
-            return super.getPollInterval() / divisor;
+            final int share = _share;
+            final long wait = _cycleTime * (100 - share) / share / NS_PER_MS;
+            return Math.min(pollInterval, wait);
         }
     }
 
@@ -2248,6 +3310,17 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         volatile long _startTimestamp;
         volatile long _endTimestamp;
 
+        /**
+         * Threads parked in {@link #waitForDurability(long, long, long)}
+         * waiting for a flush cycle to complete
+         */
+        private final ConcurrentLinkedQueue<DurabilityWaiter> _waiters = new ConcurrentLinkedQueue<DurabilityWaiter>();
+
+        /**
+         * Incomplete handles returned by {@link Transaction#commitAsync()}
+         */
+        private final ConcurrentLinkedQueue<CommitFuture> _futures = new ConcurrentLinkedQueue<CommitFuture>();
+
         JournalFlusher() {
             super(JournalManager.this._persistit);
         }
@@ -2270,84 +3343,113 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
              */
             final long now = System.nanoTime();
             long remainingStallTime = stallTime;
+            DurabilityWaiter waiter = null;
 
-            while (true) {
-                /*
-                 * Detect whether an I/O cycle is in progress; if so estimate
-                 * how much more time (in nanoseconds) it will require to
-                 * complete.
-                 */
-                long estimatedRemainingIoNanos = -1;
-                long startTime;
-                long endTime;
-                long startTimestamp;
-                long endTimestamp;
-
-                /*
-                 * Spin until values are stable
-                 */
+            try {
                 while (true) {
-                    startTimestamp = _startTimestamp;
-                    endTimestamp = _endTimestamp;
-                    startTime = _startTime;
-                    endTime = _endTime;
-                    if (startTimestamp == _startTimestamp && endTimestamp == _endTimestamp) {
-                        if (flushedTimestamp > startTimestamp && startTimestamp > endTimestamp) {
-                            estimatedRemainingIoNanos = Math.max(startTime + _expectedIoTime - now, 0);
-                        }
-                        break;
-                    }
-                    Util.spinSleep();
-                }
+                    /*
+                     * Detect whether an I/O cycle is in progress; if so
+                     * estimate how much more time (in nanoseconds) it will
+                     * require to complete.
+                     */
+                    long estimatedRemainingIoNanos = -1;
+                    long startTime;
+                    long endTime;
+                    long startTimestamp;
+                    long endTimestamp;
 
-                if (endTimestamp > flushedTimestamp && startTimestamp > flushedTimestamp) {
                     /*
-                     * Done - commit is durable
+                     * Spin until values are stable
                      */
-                    break;
-                }
+                    while (true) {
+                        startTimestamp = _startTimestamp;
+                        endTimestamp = _endTimestamp;
+                        startTime = _startTime;
+                        endTime = _endTime;
+                        if (startTimestamp == _startTimestamp && endTimestamp == _endTimestamp) {
+                            if (flushedTimestamp > startTimestamp && startTimestamp > endTimestamp) {
+                                estimatedRemainingIoNanos = Math.max(startTime + _expectedIoTime - now, 0);
+                            }
+                            break;
+                        }
+                        Thread.yield();
+                    }
 
-                long remainingSleepNanos;
-                if (estimatedRemainingIoNanos == -1) {
-                    remainingSleepNanos = Math.max(0, _flushInterval - (now - endTime));
-                } else {
-                    remainingSleepNanos = _flushInterval;
-                }
+                    if (endTimestamp > flushedTimestamp && startTimestamp > flushedTimestamp) {
+                        /*
+                         * Done - commit is durable
+                         */
+                        break;
+                    }
 
-                long estimatedNanosToFinish;
-                if (startTimestamp < flushedTimestamp) {
-                    estimatedNanosToFinish = remainingSleepNanos + _expectedIoTime;
-                } else {
-                    estimatedNanosToFinish = estimatedRemainingIoNanos;
-                }
+                    long remainingSleepNanos;
+                    if (estimatedRemainingIoNanos == -1) {
+                        remainingSleepNanos = Math.max(0, _flushInterval - (now - endTime));
+                    } else {
+                        remainingSleepNanos = _flushInterval;
+                    }
 
-                if (leadTime > 0 && leadTime * NS_PER_MS >= estimatedNanosToFinish) {
-                    /*
-                     * If the caller specified an leadTime interval larger than
-                     * the estimated time remaining in the cycle, then return
-                     * immediately. This handles the "soft" commit case.
-                     */
-                    break;
-                } else if (estimatedRemainingIoNanos == -1) {
-                    /*
-                     * If there is no I/O in progress, then wait as long as
-                     * possible (determined by stallTime) before kicking the
-                     * JOURNAL_FLUSHER to write the caller's transaction.
-                     */
-                    if (remainingStallTime > 0) {
+                    long estimatedNanosToFinish;
+                    if (startTimestamp < flushedTimestamp) {
+                        estimatedNanosToFinish = remainingSleepNanos + _expectedIoTime;
+                    } else {
+                        estimatedNanosToFinish = estimatedRemainingIoNanos;
+                    }
+
+                    if (leadTime > 0 && leadTime * NS_PER_MS >= estimatedNanosToFinish) {
+                        /*
+                         * If the caller specified an leadTime interval larger
+                         * than the estimated time remaining in the cycle, then
+                         * return immediately. This handles the "soft" commit
+                         * case.
+                         */
+                        break;
+                    } else if (estimatedRemainingIoNanos == -1 && remainingStallTime > 0) {
+                        /*
+                         * If there is no I/O in progress, then wait as long as
+                         * possible (determined by stallTime) before kicking
+                         * the JOURNAL_FLUSHER to write the caller's
+                         * transaction.
+                         */
                         Util.sleep(remainingStallTime);
                         remainingStallTime = 0;
                     } else {
-                        kick();
-                        Util.spinSleep();
+                        /*
+                         * Otherwise park until the JOURNAL_FLUSHER finishes a
+                         * cycle. The waiter is enqueued and the state above
+                         * rechecked before the first park, so a cycle that
+                         * ends in between is not missed. A waiter that needs
+                         * the next cycle to start immediately says so, and
+                         * the JOURNAL_FLUSHER then starts it without waking
+                         * this thread.
+                         */
+                        final boolean wantsNextCycle = estimatedRemainingIoNanos == -1 || remainingStallTime == 0;
+                        if (waiter == null) {
+                            waiter = new DurabilityWaiter(flushedTimestamp);
+                            waiter._wantsNextCycle = wantsNextCycle;
+                            _waiters.add(waiter);
+                            if (estimatedRemainingIoNanos == -1) {
+                                kick();
+                            }
+                            continue;
+                        }
+                        waiter._wantsNextCycle = wantsNextCycle;
+                        if (estimatedRemainingIoNanos == -1) {
+                            kick();
+                        }
+                        LockSupport.parkNanos(this, MAXIMUM_DURABILITY_PARK_NANOS);
+                        if (Thread.interrupted()) {
+                            throw new PersistitInterruptedException(new InterruptedException());
+                        }
+                        if (waiter._woken) {
+                            waiter._woken = false;
+                            _waiters.add(waiter);
+                        }
                     }
-                } else {
-                    /*
-                     * Otherwise wait for concurrent I/O operation to finish. Do
-                     * this by polling because our experiments with using locks
-                     * here showed significant excess CPU consumption.
-                     */
-                    Util.spinSleep();
+                }
+            } finally {
+                if (waiter != null) {
+                    waiter._done = true;
                 }
             }
             if (_lastExceptionTimestamp > flushedTimestamp) {
@@ -2358,8 +3460,88 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
                     throw new PersistitException(e);
                 }
             }
+            final long elapsed = System.nanoTime() - now;
             _totalCommits.incrementAndGet();
-            _totalCommitWaitTime.addAndGet(System.nanoTime() - now);
+            _totalCommitWaitTime.addAndGet(elapsed);
+            _commitWaitTimes.record(elapsed);
+        }
+
+        /**
+         * Enqueue a CommitFuture to be completed by a flush cycle and kick
+         * this thread. The future is completed here if the cycle that makes
+         * it durable has already finished.
+         */
+        private void addFuture(final CommitFuture future) {
+            _futures.add(future);
+            long startTimestamp;
+            long endTimestamp;
+            do {
+                startTimestamp = _startTimestamp;
+                endTimestamp = _endTimestamp;
+            } while (startTimestamp != _startTimestamp);
+            if (endTimestamp > future.getFlushedTimestamp() && startTimestamp > future.getFlushedTimestamp()) {
+                completeFuture(future);
+            } else {
+                kick();
+            }
+        }
+
+        private void completeFuture(final CommitFuture future) {
+            final PersistitException exception;
+            if (_lastExceptionTimestamp > future.getFlushedTimestamp()) {
+                final Exception e = _lastException;
+                exception = e instanceof PersistitException ? (PersistitException) e : new PersistitException(e);
+            } else {
+                exception = null;
+            }
+            try {
+                if (future.complete(exception) && exception == null) {
+                    final long elapsed = System.nanoTime() - future.getCreatedNanos();
+                    _totalCommits.incrementAndGet();
+                    _totalCommitWaitTime.addAndGet(elapsed);
+                    _commitWaitTimes.record(elapsed);
+                }
+            } catch (final RuntimeException e) {
+                _persistit.getLogBase().exception.log(e);
+            }
+        }
+
+        /**
+         * Called by the JOURNAL_FLUSHER thread after each flush cycle. Unpark
+         * every waiter whose commit is now durable. A waiter whose commit is
+         * not durable is left parked if it wants the next cycle to start
+         * immediately, in which case that cycle is started now, and is
+         * otherwise unparked so that it can apply its stall time.
+         */
+        private void wakeWaiters() {
+            final long startTimestamp = _startTimestamp;
+            boolean nextCycle = false;
+            for (final Iterator<DurabilityWaiter> iterator = _waiters.iterator(); iterator.hasNext();) {
+                final DurabilityWaiter waiter = iterator.next();
+                if (waiter._done) {
+                    iterator.remove();
+                } else if (waiter._flushedTimestamp < startTimestamp || !waiter._wantsNextCycle) {
+                    iterator.remove();
+                    waiter._woken = true;
+                    LockSupport.unpark(waiter._thread);
+                } else {
+                    nextCycle = true;
+                }
+            }
+            for (final Iterator<CommitFuture> iterator = _futures.iterator(); iterator.hasNext();) {
+                final CommitFuture future = iterator.next();
+                if (future.isDone()) {
+                    iterator.remove();
+                } else if (future.getFlushedTimestamp() < startTimestamp) {
+                    iterator.remove();
+                    completeFuture(future);
+                } else {
+                    nextCycle = true;
+                }
+            }
+            if (nextCycle) {
+                kick();
+            }
         }
 
         @Override
@@ -2380,9 +3562,19 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
                          */
                         force();
 
+                    } catch (final Exception e) {
+                        /*
+                         * Recorded before waking waiters so that those
+                         * whose records were to be written by this cycle
+                         * receive the Exception.
+                         */
+                        _lastException = e;
+                        _lastExceptionTimestamp = _persistit.getTimestampAllocator().updateTimestamp();
+                        throw e;
                     } finally {
                         _endTime = System.nanoTime();
                         _endTimestamp = _persistit.getTimestampAllocator().updateTimestamp();
+                        wakeWaiters();
                     }
 
                     final long elapsed = _endTime - _startTime;
@@ -2509,11 +3701,44 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         }
     }
 
-    void writeForCopy(final List<PageNode> list, final ByteBuffer bb) throws PersistitException {
+    /**
+     * Pages of one volume selected for copying, in page address order
+     */
+    private static class VolumeCopy {
+        private final Volume _volume;
+        private final List<PageNode> _pageNodes = new ArrayList<PageNode>();
+
+        private VolumeCopy(final Volume volume) {
+            _volume = volume;
+        }
+    }
+
+    /**
+     * Write the pages read by {@link #readForCopy(List, ByteBuffer)} to their
+     * volumes in (volume, page address) order. Runs of adjacent pages are
+     * gathered into a run buffer and written with a single I/O. When
+     * <code>workers</code> is supplied and the pages belong to more than one
+     * volume, the volumes are divided among the calling thread and the
+     * workers so that they are written and forced concurrently; the pages of
+     * any one volume are always written by a single thread.
+     * 
+     * @param list
+     *            pages read by {@link #readForCopy(List, ByteBuffer)}
+     * @param bb
+     *            buffer holding the page images
+     * @param runBuffers
+     *            one run buffer for each thread that may write pages
+     * @param workers
+     *            executor for additional writing threads, or
+     *            <code>null</code> to write all pages in the calling thread
+     */
+    void writeForCopy(final List<PageNode> list, final ByteBuffer bb, final ByteBuffer[] runBuffers,
+            final ExecutorService workers) throws PersistitException {
         Collections.sort(list, PageNode.WRITE_COMPARATOR);
         Volume volume = null;
         int handle = -1;
-        final Set<Volume> volumes = new HashSet<Volume>();
+        final List<VolumeCopy> copies = new ArrayList<VolumeCopy>();
+        VolumeCopy copy = null;
 
         for (final Iterator<PageNode> iterator = list.iterator(); iterator.hasNext();) {
             final PageNode pageNode = iterator.next();
@@ -2552,30 +3777,138 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
                 continue;
             }
 
-            final long pageAddress = pageNode.getPageAddress();
-            volume.getStorage().extend(pageAddress);
-            final int pageSize = volume.getPageSize();
-            final int at = pageNode.getOffset();
-            bb.limit(bb.capacity()).position(at).limit(at + pageSize);
+            volume.getStorage().extend(pageNode.getPageAddress());
+            if (copy == null || copy._volume != volume) {
+                copy = new VolumeCopy(volume);
+                copies.add(copy);
+            }
+            copy._pageNodes.add(pageNode);
+        }
 
+        final int threads = workers == null ? 1 : Math.min(runBuffers.length, copies.size());
+        if (threads <= 1) {
+            writeVolumesForCopy(copies, bb, runBuffers[0]);
+            return;
+        }
+        /*
+         * Assign each volume to the thread with the fewest pages so far,
+         * largest volumes first.
+         */
+        Collections.sort(copies, new Comparator<VolumeCopy>() {
+            @Override
+            public int compare(final VolumeCopy a, final VolumeCopy b) {
+                return b._pageNodes.size() - a._pageNodes.size();
+            }
+        });
+        final List<List<VolumeCopy>> partitions = new ArrayList<List<VolumeCopy>>(threads);
+        final int[] loads = new int[threads];
+        for (int index = 0; index < threads; index++) {
+            partitions.add(new ArrayList<VolumeCopy>());
+        }
+        for (final VolumeCopy vc : copies) {
+            int least = 0;
+            for (int index = 1; index < threads; index++) {
+                if (loads[index] < loads[least]) {
+                    least = index;
+                }
+            }
+            partitions.get(least).add(vc);
+            loads[least] += vc._pageNodes.size();
+        }
+
+        final List<Future<Void>> futures = new ArrayList<Future<Void>>(threads - 1);
+        for (int index = 1; index < threads; index++) {
+            final List<VolumeCopy> partition = partitions.get(index);
+            final ByteBuffer runBuffer = runBuffers[index];
+            futures.add(workers.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws PersistitException {
+                    writeVolumesForCopy(partition, bb.duplicate(), runBuffer);
+                    return null;
+                }
+            }));
+        }
+        PersistitException failure = null;
+        try {
+            writeVolumesForCopy(partitions.get(0), bb, runBuffers[0]);
+        } catch (final PersistitException e) {
+            failure = e;
+        }
+        for (final Future<Void> future : futures) {
             try {
-                volume.getStorage().writePage(bb, pageAddress);
-                volumes.add(volume);
-            } catch (final PersistitException ioe) {
-                _persistit.getLogBase().copyException.log(ioe, volume, pageNode.getPageAddress(),
-                        pageNode.getJournalAddress());
-                throw ioe;
+                future.get();
+            } catch (final InterruptedException e) {
+                throw new PersistitInterruptedException(e);
+            } catch (final ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof PersistitException ? (PersistitException) e.getCause()
+                            : new PersistitException(e.getCause());
+                }
             }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
 
-            _copiedPageCount++;
-            _persistit.getIOMeter().chargeCopyPageToVolume(volume, pageAddress, volume.getPageSize(),
-                    pageNode.getJournalAddress(), urgency());
+    /**
+     * Write and then force the pages of one or more volumes.
+     */
+    private void writeVolumesForCopy(final List<VolumeCopy> copies, final ByteBuffer bb, final ByteBuffer runBuffer)
+            throws PersistitException {
+        final List<PageNode> run = new ArrayList<PageNode>();
+        for (final VolumeCopy copy : copies) {
+            final Volume volume = copy._volume;
+            final int pageSize = volume.getPageSize();
+            for (final PageNode pageNode : copy._pageNodes) {
+                if (!run.isEmpty()
+                        && (pageNode.getPageAddress() != run.get(0).getPageAddress() + run.size() || (run.size() + 1)
+                                * pageSize > runBuffer.capacity())) {
+                    writeRunForCopy(volume, run, bb, runBuffer);
+                }
+                run.add(pageNode);
+            }
+            if (!run.isEmpty()) {
+                writeRunForCopy(volume, run, bb, runBuffer);
+            }
+            volume.getStorage().force();
+        }
+    }
+
+    private void writeRunForCopy(final Volume volume, final List<PageNode> run, final ByteBuffer bb,
+            final ByteBuffer runBuffer) throws PersistitException {
+        final int pageSize = volume.getPageSize();
+        final PageNode first = run.get(0);
+        final ByteBuffer source;
+        if (run.size() == 1) {
+            final int at = first.getOffset();
+            bb.limit(bb.capacity()).position(at).limit(at + pageSize);
+            source = bb;
+        } else {
+            runBuffer.clear();
+            for (final PageNode pageNode : run) {
+                final int at = pageNode.getOffset();
+                bb.limit(bb.capacity()).position(at).limit(at + pageSize);
+                runBuffer.put(bb);
+            }
+            runBuffer.flip();
+            source = runBuffer;
         }
 
-        for (final Volume vol : volumes) {
-            vol.getStorage().force();
+        try {
+            volume.getStorage().writePage(source, first.getPageAddress());
+        } catch (final PersistitException ioe) {
+            _persistit.getLogBase().copyException.log(ioe, volume, first.getPageAddress(), first.getJournalAddress());
+            throw ioe;
         }
 
+        _copiedPageCount.addAndGet(run.size());
+        _copyWriteCount.incrementAndGet();
+        for (final PageNode pageNode : run) {
+            _persistit.getIOMeter().chargeCopyPageToVolume(volume, pageNode.getPageAddress(), pageSize,
+                    pageNode.getJournalAddress(), urgency());
+        }
+        run.clear();
     }
 
     private void cleanupForCopy(final List<PageNode> list) throws PersistitException {
@@ -2658,6 +3991,12 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
                 if (channel != null) {
                     obsoleteFileChannels.add(channel);
                 }
+                /*
+                 * Java provides no way to unmap a file explicitly. Dropping
+                 * the mapping here lets the JVM unmap it once readers that
+                 * obtained it before this point have finished.
+                 */
+                _journalFileMappings.remove(generation);
                 obsoleteFiles.add(addressToFile(deleteBoundary));
             }
             //
@@ -2694,7 +4033,7 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
         boolean deleted = true;
         for (final File file : obsoleteFiles) {
-            if (!file.delete()) {
+            if (!recycleOrDelete(file)) {
                 deleted = false;
                 // TODO - log this.
                 // Ignored for now - this simply means we can't delete
@@ -2707,6 +4046,201 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         reportJournalFileCount();
     }
 
+    /**
+     * Dispose of a journal file that is no longer needed for recovery. If
+     * fewer than {@link #getSpareFileLimit()} spare files exist, the file and
+     * its stripe files, if any, are renamed to become a spare; otherwise they
+     * are deleted.
+     * 
+     * @param file
+     *            the obsolete journal file
+     * @return <code>true</code> if the file was renamed or deleted
+     */
+    private boolean recycleOrDelete(final File file) {
+        File spare = null;
+        synchronized (this) {
+            if (file.exists() && _spareFiles.size() + _unclearedSpareFiles.size() < _spareFileLimit) {
+                spare = new File(String.format(SPARE_FORMAT, _journalFilePath, _spareFileCounter++));
+            }
+        }
+        if (spare != null) {
+            if (renameWithStripes(file, spare)) {
+                synchronized (this) {
+                    _unclearedSpareFiles.add(spare);
+                    _recycledFileCount++;
+                }
+                return true;
+            }
+            deleteWithStripes(spare);
+        }
+        return deleteWithStripes(file);
+    }
+
+    /**
+     * Rename a spare file to become the journal file about to be created.
+     * Called only when creating a file for the current or a later
+     * generation, so a spare can never take the place of a journal file that
+     * might still be read.
+     * 
+     * @param file
+     *            the journal file to be created
+     */
+    private void useSpareFile(final File file) {
+        final File spare = _spareFiles.remove(0);
+        if (!renameWithStripes(spare, file)) {
+            deleteWithStripes(spare);
+            deleteWithStripes(file);
+        }
+    }
+
+    /**
+     * Rename a journal or spare file and each of its stripe files.
+     * 
+     * @return <code>true</code> if every file was renamed
+     */
+    private boolean renameWithStripes(final File from, final File to) {
+        final File[] sources = stripeFiles(from);
+        final File[] targets = stripeFiles(to);
+        boolean renamed = true;
+        for (int index = 0; index < sources.length; index++) {
+            if (!sources[index].renameTo(targets[index])) {
+                renamed = false;
+            }
+        }
+        return renamed;
+    }
+
+    /**
+     * Delete a journal or spare file and each of its stripe files.
+     * 
+     * @return <code>true</code> if the file no longer exists
+     */
+    private boolean deleteWithStripes(final File file) {
+        final File[] files = stripeFiles(file);
+        for (int index = files.length; --index >= 0;) {
+            files[index].delete();
+        }
+        return !file.exists();
+    }
+
+    /**
+     * Find spare files left by a previous instance. Their content is unknown
+     * since a spare may have been only partially cleared, so every one of them
+     * is cleared again before use.
+     */
+    private synchronized void findSpareFiles() {
+        final File path = new File(_journalFilePath).getAbsoluteFile();
+        final File directory = path.getParentFile();
+        final File[] files = directory == null ? null : directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (final File file : files) {
+            final Matcher matcher = SPARE_PATTERN.matcher(file.getPath());
+            if (matcher.matches() && new File(matcher.group(1)).equals(path)
+                    && !_unclearedSpareFiles.contains(file) && !_spareFiles.contains(file)) {
+                _unclearedSpareFiles.add(file);
+                _spareFileCounter = Math.max(_spareFileCounter, Long.parseLong(matcher.group(2)) + 1);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Maintain the set of spare journal files. Each call deletes spares in
+     * excess of {@link #getSpareFileLimit()} and then either clears one spare
+     * that still holds stale content or, if no spare is ready, creates and
+     * clears a new one. Spares beyond the first come only from recycled
+     * journal files. Normally called by the JOURNAL_COPIER thread.
+     * </p>
+     * <p>
+     * A new spare is preallocated by writing zeros over its full length. A
+     * recycled spare already has its full length, so only the region that
+     * held its JH record is cleared; a spare renamed to a new generation but
+     * never written then fails the JH validation of the keystone search and
+     * is rejected like any incomplete journal file. Records carry no journal
+     * address, so stale records after the JH record could not be told apart
+     * from valid ones by a recovery scan. Instead, each write to a file that
+     * extends beyond the bytes written is followed by zeros (see
+     * {@link #flush()}), and zeros end the scan just as the end of a journal
+     * file does.
+     * </p>
+     * <p>
+     * When the journal is striped each spare has a stripe file in every
+     * stripe directory, which is recycled, cleared and renamed along with it.
+     * </p>
+     * 
+     * @throws PersistitIOException
+     */
+    void prepareSpareFile() throws PersistitIOException {
+        final List<File> surplus = new ArrayList<File>();
+        File spare = null;
+        synchronized (this) {
+            if (_blockSize == 0) {
+                return;
+            }
+            while (_spareFiles.size() + _unclearedSpareFiles.size() > _spareFileLimit) {
+                surplus.add(_unclearedSpareFiles.isEmpty() ? _spareFiles.remove(_spareFiles.size() - 1)
+                        : _unclearedSpareFiles.remove(_unclearedSpareFiles.size() - 1));
+            }
+            if (_unclearedSpareFiles.isEmpty() && _spareFiles.isEmpty() && _spareFileLimit > 0) {
+                _unclearedSpareFiles.add(new File(String.format(SPARE_FORMAT, _journalFilePath, _spareFileCounter++)));
+                _preallocatedFileCount++;
+            }
+            if (!_unclearedSpareFiles.isEmpty()) {
+                spare = _unclearedSpareFiles.get(0);
+            }
+        }
+        for (final File file : surplus) {
+            deleteWithStripes(file);
+        }
+        if (spare != null && clearSpareFile(spare)) {
+            synchronized (this) {
+                if (_unclearedSpareFiles.remove(spare)) {
+                    _spareFiles.add(spare);
+                }
+            }
+        }
+    }
+
+    /**
+     * Clear a spare file and force it to disk. A spare shorter than a full
+     * journal file is new, or was left partially cleared, and is filled with
+     * zeros over its full length. Otherwise only its header region is
+     * overwritten.
+     * 
+     * @return <code>true</code> if the file was cleared, or
+     *         <code>false</code> if clearing was abandoned because the journal
+     *         is closing
+     * @throws PersistitIOException
+     */
+    private boolean clearSpareFile(final File file) throws PersistitIOException {
+        final ByteBuffer zeros = ByteBuffer.allocate(SPARE_CLEAR_BUFFER_SIZE);
+        try {
+            final FileChannel channel = openJournalFile(file);
+            try {
+                final long length = channel.size() < _blockSize ? _blockSize : Math.min(SPARE_HEADER_SIZE,
+                        _blockSize);
+                for (long position = 0; position < length;) {
+                    if (_closed.get()) {
+                        return false;
+                    }
+                    zeros.clear();
+                    zeros.limit((int) Math.min(zeros.capacity(), length - position));
+                    position += channel.write(zeros, position);
+                }
+                channel.truncate(_blockSize);
+                channel.force(true);
+                return true;
+            } finally {
+                channel.close();
+            }
+        } catch (final IOException e) {
+            throw new PersistitIOException("Clearing spare journal file " + file, e);
+        }
+    }
+
     /**
      * Remove obsolete PageNodes from the page list.
      * 
@@ -2959,7 +4493,7 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
     }
 
     public PageNode queryPageNode(final int volumeHandle, final long pageAddress) {
-        final PageNode pn = _pageMap.get(new PageNode(volumeHandle, pageAddress, -1, -1));
+        final PageNode pn = _pageMap.get(volumeHandle, pageAddress);
         if (pn != null) {
             return new PageNode(pn);
         } else {
@@ -2968,7 +4502,7 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
     }
 
     public PageNode queryBranchNode(final int volumeHandle, final long pageAddress) {
-        final PageNode pn = _branchMap.get(new PageNode(volumeHandle, pageAddress, -1, -1));
+        final PageNode pn = _branchMap.get(volumeHandle, pageAddress);
         if (pn != null) {
             return new PageNode(pn);
         } else {
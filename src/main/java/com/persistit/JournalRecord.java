@@ -194,6 +194,74 @@ import com.persistit.util.Util;
  * </tr>
  * 
  * <tr valign="top">
+ * <td>PZ</td>
+ * <td>Compressed Page Image: has the same header as PA. The bytes that a PA
+ * record would hold (the leftSize bytes at the start of the page followed by
+ * the bytes at the end of the page) are compressed as a
+ * {@link java.util.zip.Deflater} stream. Written in place of a PA record only
+ * when journal page compression is enabled and compression makes the record
+ * substantially smaller.
+ * <table>
+ * <tr valign="top">
+ * <td>+16</td>
+ * <td>Volume handle (int) - refers to a volume defined in a preceding IV record
+ * </td>
+ * </tr>
+ * <tr valign="top">
+ * <td>+20</td>
+ * <td>page address (long)</td>
+ * </tr>
+ * <tr valign="top">
+ * <td>+28</td>
+ * <td>leftSize (int)</td>
+ * </tr>
+ * <tr valign="top">
+ * <td>+32</td>
+ * <td>bufferSize (int)</td>
+ * </tr>
+ * <tr valign="top">
+ * <td>+36</td>
+ * <td>compressed bytes</td>
+ * </tr>
+ * </table>
+ * </td>
+ * </tr>
+ * 
+ * <tr valign="top">
+ * <td>PD</td>
+ * <td>Page Delta: describes a page image as a set of patches applied to an
+ * earlier image of the same page. The earlier image is held in a PA or PZ
+ * record in the same journal file. Each patch replaces a range of bytes of the
+ * base image, in which the region between the key block end and alloc of the
+ * page has been cleared as it is when the image is read from a PA record.
+ * <table>
+ * <tr valign="top">
+ * <td>+16</td>
+ * <td>Volume handle (int) - refers to a volume defined in a preceding IV record
+ * </td>
+ * </tr>
+ * <tr valign="top">
+ * <td>+20</td>
+ * <td>page address (long)</td>
+ * </tr>
+ * <tr valign="top">
+ * <td>+28</td>
+ * <td>journal address of the base PA or PZ record (long)</td>
+ * </tr>
+ * <tr valign="top">
+ * <td>+36</td>
+ * <td>bufferSize (int)</td>
+ * </tr>
+ * <tr valign="top">
+ * <td>+40</td>
+ * <td>patches, each consisting of an offset (char), a length (char) and
+ * length bytes to be copied into the page at that offset</td>
+ * </tr>
+ * </table>
+ * </td>
+ * </tr>
+ * 
+ * <tr valign="top">
  * <td>PM</td>
  * <td>Page Map: written once near the top of each journal file. Represents the
  * state of the page map at the time the journal rolled over.
@@ -441,7 +509,7 @@ public class JournalRecord {
 
     private final static Charset UTF8 = Charset.forName("UTF-8");
 
-    public final static int[] TYPES = new int[] { JE.TYPE, JH.TYPE, PA.TYPE, PM.TYPE, SR.TYPE, DR.TYPE, DT.TYPE,
+    public final static int[] TYPES = new int[] { JE.TYPE, JH.TYPE, PA.TYPE, PZ.TYPE, PD.TYPE, PM.TYPE, SR.TYPE, DR.TYPE, DT.TYPE,
             TM.TYPE, CP.TYPE, IV.TYPE, IT.TYPE, D1.TYPE, D0.TYPE, TX.TYPE };
 
     public static boolean isValidType(final int t) {
@@ -461,36 +529,98 @@ public class JournalRecord {
         }
     }
 
+    /*
+     * The accessors below read and write the heap array directly when the
+     * ByteBuffer has one, and otherwise fall back to absolute ByteBuffer
+     * operations so that records can be assembled in a direct buffer.
+     */
+
     private static void putByte(final ByteBuffer bb, final int offset, final int value) {
-        Util.putByte(bb.array(), bb.position() + offset, value);
+        if (bb.hasArray()) {
+            Util.putByte(bb.array(), bb.position() + offset, value);
+        } else {
+            bb.put(bb.position() + offset, (byte) value);
+        }
     }
 
     static int getByte(final ByteBuffer bb, final int offset) {
-        return Util.getByte(bb.array(), bb.position() + offset);
+        if (bb.hasArray()) {
+            return Util.getByte(bb.array(), bb.position() + offset);
+        } else {
+            return bb.get(bb.position() + offset) & 0xFF;
+        }
     }
 
     static void putChar(final ByteBuffer bb, final int offset, final int value) {
-        Util.putChar(bb.array(), bb.position() + offset, value);
+        if (bb.hasArray()) {
+            Util.putChar(bb.array(), bb.position() + offset, value);
+        } else {
+            bb.putChar(bb.position() + offset, (char) value);
+        }
     }
 
     static int getChar(final ByteBuffer bb, final int offset) {
-        return Util.getChar(bb.array(), bb.position() + offset);
+        if (bb.hasArray()) {
+            return Util.getChar(bb.array(), bb.position() + offset);
+        } else {
+            return bb.getChar(bb.position() + offset);
+        }
     }
 
     static void putInt(final ByteBuffer bb, final int offset, final int value) {
-        Util.putInt(bb.array(), bb.position() + offset, value);
+        if (bb.hasArray()) {
+            Util.putInt(bb.array(), bb.position() + offset, value);
+        } else {
+            bb.putInt(bb.position() + offset, value);
+        }
     }
 
     static int getInt(final ByteBuffer bb, final int offset) {
-        return Util.getInt(bb.array(), bb.position() + offset);
+        if (bb.hasArray()) {
+            return Util.getInt(bb.array(), bb.position() + offset);
+        } else {
+            return bb.getInt(bb.position() + offset);
+        }
     }
 
     static void putLong(final ByteBuffer bb, final int offset, final long value) {
-        Util.putLong(bb.array(), bb.position() + offset, value);
+        if (bb.hasArray()) {
+            Util.putLong(bb.array(), bb.position() + offset, value);
+        } else {
+            bb.putLong(bb.position() + offset, value);
+        }
     }
 
     static long getLong(final ByteBuffer bb, final int offset) {
-        return Util.getLong(bb.array(), bb.position() + offset);
+        if (bb.hasArray()) {
+            return Util.getLong(bb.array(), bb.position() + offset);
+        } else {
+            return bb.getLong(bb.position() + offset);
+        }
+    }
+
+    private static String getString(final ByteBuffer bb, final int offset, final int length) {
+        if (bb.hasArray()) {
+            return new String(bb.array(), bb.position() + offset, length, UTF8);
+        } else {
+            final byte[] bytes = new byte[length];
+            final ByteBuffer source = bb.duplicate();
+            source.position(bb.position() + offset);
+            source.get(bytes);
+            return new String(bytes, UTF8);
+        }
+    }
+
+    private static int putString(final ByteBuffer bb, final int offset, final String string) {
+        final byte[] stringBytes = string.getBytes(UTF8);
+        if (bb.hasArray()) {
+            System.arraycopy(stringBytes, 0, bb.array(), bb.position() + offset, stringBytes.length);
+        } else {
+            final ByteBuffer target = bb.duplicate();
+            target.position(bb.position() + offset);
+            target.put(stringBytes);
+        }
+        return stringBytes.length;
     }
 
     static int getLength(final ByteBuffer bb) {
@@ -620,13 +750,12 @@ public class JournalRecord {
 
         public static String getPath(final ByteBuffer bb) {
             final int length = getLength(bb) - OVERHEAD;
-            return new String(bb.array(), bb.position() + OVERHEAD, length, UTF8);
+            return getString(bb, OVERHEAD, length);
         }
 
         public static void putPath(final ByteBuffer bb, final String path) {
-            final byte[] stringBytes = path.getBytes(UTF8);
-            System.arraycopy(stringBytes, 0, bb.array(), bb.position() + OVERHEAD, stringBytes.length);
-            putLength(bb, OVERHEAD + stringBytes.length);
+            final int length = putString(bb, OVERHEAD, path);
+            putLength(bb, OVERHEAD + length);
         }
     }
 
@@ -754,13 +883,12 @@ public class JournalRecord {
 
         public static String getVolumeSpecification(final ByteBuffer bb) {
             final int length = getLength(bb) - OVERHEAD;
-            return new String(bb.array(), bb.position() + OVERHEAD, length, UTF8);
+            return getString(bb, OVERHEAD, length);
         }
 
         public static void putVolumeSpecification(final ByteBuffer bb, final String volumeSpec) {
-            final byte[] stringBytes = volumeSpec.getBytes(UTF8);
-            System.arraycopy(stringBytes, 0, bb.array(), bb.position() + OVERHEAD, stringBytes.length);
-            putLength(bb, OVERHEAD + stringBytes.length);
+            final int length = putString(bb, OVERHEAD, volumeSpec);
+            putLength(bb, OVERHEAD + length);
         }
     }
 
@@ -797,13 +925,12 @@ public class JournalRecord {
 
         public static String getTreeName(final ByteBuffer bb) {
             final int length = getLength(bb) - OVERHEAD;
-            return new String(bb.array(), bb.position() + OVERHEAD, length, UTF8);
+            return getString(bb, OVERHEAD, length);
         }
 
         public static void putTreeName(final ByteBuffer bb, final String treeName) {
-            final byte[] stringBytes = treeName.getBytes(UTF8);
-            System.arraycopy(stringBytes, 0, bb.array(), bb.position() + OVERHEAD, stringBytes.length);
-            putLength(bb, OVERHEAD + stringBytes.length);
+            final int length = putString(bb, OVERHEAD, treeName);
+            putLength(bb, OVERHEAD + length);
         }
     }
 
@@ -854,6 +981,100 @@ public class JournalRecord {
 
     }
 
+    /**
+     * Compressed page image
+     */
+    static class PZ extends JournalRecord {
+
+        public final static int TYPE = ('P' << 8) | 'Z';
+
+        public final static int OVERHEAD = PA.OVERHEAD;
+
+        public static void putType(final ByteBuffer bb) {
+            putType(bb, TYPE);
+        }
+
+        public static int getVolumeHandle(final ByteBuffer bb) {
+            return getInt(bb, 16);
+        }
+
+        public static void putVolumeHandle(final ByteBuffer bb, final int volumeHandle) {
+            putInt(bb, 16, volumeHandle);
+        }
+
+        public static long getPageAddress(final ByteBuffer bb) {
+            return getLong(bb, 20);
+        }
+
+        public static void putPageAddress(final ByteBuffer bb, final long pageAddress) {
+            putLong(bb, 20, pageAddress);
+        }
+
+        public static int getLeftSize(final ByteBuffer bb) {
+            return getInt(bb, 28);
+        }
+
+        public static void putLeftSize(final ByteBuffer bb, final int leftSize) {
+            putInt(bb, 28, leftSize);
+        }
+
+        public static int getBufferSize(final ByteBuffer bb) {
+            return getInt(bb, 32);
+        }
+
+        public static void putBufferSize(final ByteBuffer bb, final int bufferSize) {
+            putInt(bb, 32, (char) bufferSize);
+        }
+
+    }
+
+    /**
+     * Page delta
+     */
+    static class PD extends JournalRecord {
+
+        public final static int TYPE = ('P' << 8) | 'D';
+
+        public final static int OVERHEAD = 40;
+
+        public static void putType(final ByteBuffer bb) {
+            putType(bb, TYPE);
+        }
+
+        public static int getVolumeHandle(final ByteBuffer bb) {
+            return getInt(bb, 16);
+        }
+
+        public static void putVolumeHandle(final ByteBuffer bb, final int volumeHandle) {
+            putInt(bb, 16, volumeHandle);
+        }
+
+        public static long getPageAddress(final ByteBuffer bb) {
+            return getLong(bb, 20);
+        }
+
+        public static void putPageAddress(final ByteBuffer bb, final long pageAddress) {
+            putLong(bb, 20, pageAddress);
+        }
+
+        public static long getBaseAddress(final ByteBuffer bb) {
+            return getLong(bb, 28);
+        }
+
+        public static void putBaseAddress(final ByteBuffer bb, final long baseAddress) {
+            putLong(bb, 28, baseAddress);
+        }
+
+        public static int getBufferSize(final ByteBuffer bb) {
+            return getInt(bb, 36);
+        }
+
+        public static void putBufferSize(final ByteBuffer bb, final int bufferSize) {
+            putInt(bb, 36, (char) bufferSize);
+        }
+
+    }
+
     /**
      * Checkpoint
      */
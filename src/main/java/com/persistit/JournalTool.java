@@ -47,7 +47,9 @@ import com.persistit.JournalRecord.IV;
 import com.persistit.JournalRecord.JE;
 import com.persistit.JournalRecord.JH;
 import com.persistit.JournalRecord.PA;
+import com.persistit.JournalRecord.PD;
 import com.persistit.JournalRecord.PM;
+import com.persistit.JournalRecord.PZ;
 import com.persistit.JournalRecord.SR;
 import com.persistit.JournalRecord.TM;
 import com.persistit.JournalRecord.TX;
@@ -56,6 +58,7 @@ import com.persistit.exception.PersistitException;
 import com.persistit.exception.PersistitIOException;
 import com.persistit.mxbeans.JournalManagerMXBean;
 import com.persistit.util.ArgParser;
+import com.persistit.util.Util;
 
 /**
  * @author Peter Beaman
@@ -489,6 +492,8 @@ class JournalTool {
             break;
 
         case PA.TYPE:
+        case PZ.TYPE:
+        case PD.TYPE:
             if (_selectedTypes.get(type) && _selectedTimestamps.isSelected(timestamp)) {
                 _action.pa(address, timestamp, recordSize);
             }
@@ -840,10 +845,30 @@ class JournalTool {
             if (!_selectedPages.isSelected(pageAddress)) {
                 return;
             }
-            start(address, timestamp, "PA", recordSize);
-            final int type = JournalRecord.getByte(_readBuffer, PA.OVERHEAD + Buffer.TYPE_OFFSET);
+            if (getType(_readBuffer) == PD.TYPE) {
+                start(address, timestamp, "PD", recordSize);
+                appendf(" page %5d:%,12d base %,18d patches %,5d", volumeHandle, pageAddress,
+                        PD.getBaseAddress(_readBuffer), PageDelta.patchCount(_readBuffer.array(), _readBuffer
+                                .position() + PD.OVERHEAD, recordSize - PD.OVERHEAD));
+                flush();
+                return;
+            }
+            final byte[] image;
+            final int imageOffset;
+            if (getType(_readBuffer) == PZ.TYPE) {
+                start(address, timestamp, "PZ", recordSize);
+                image = new byte[PZ.getBufferSize(_readBuffer)];
+                imageOffset = 0;
+                PageImageCodec.expand(_readBuffer.array(), _readBuffer.position() + PZ.OVERHEAD, recordSize
+                        - PZ.OVERHEAD, image, 0, image.length);
+            } else {
+                start(address, timestamp, "PA", recordSize);
+                image = _readBuffer.array();
+                imageOffset = _readBuffer.position() + PA.OVERHEAD;
+            }
+            final int type = Util.getByte(image, imageOffset + Buffer.TYPE_OFFSET);
             final String typeString = Buffer.getPageTypeName(pageAddress, type);
-            final long rightSibling = pageAddress == 0 ? 0 : JournalRecord.getLong(_readBuffer, PA.OVERHEAD
+            final long rightSibling = pageAddress == 0 ? 0 : Util.getLong(image, imageOffset
                     + Buffer.RIGHT_SIBLING_OFFSET);
             appendf(" page %5d:%,12d type %10s right %,12d", volumeHandle, pageAddress, typeString, rightSibling);
             flush();
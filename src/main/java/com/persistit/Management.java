@@ -943,6 +943,18 @@ public interface Management extends Remote, ManagementMXBean {
         int readerClaimedPageCount;
         int writerClaimedPageCount;
         long earliestDirtyTimestamp;
+        String replacementPolicy;
+        long ghostHitCount;
+        int protectedPageCount;
+        int freeBufferCount;
+        long reserveDepletedCount;
+        int resizeTargetCount;
+        int resizeRemainingCount;
+        long victimCacheHitCount;
+        long victimCacheMissCount;
+        int victimCachePageCount;
+        long victimCacheBytesUsed;
+        int retainedIndexPageCount;
 
         public BufferPoolInfo() {
 
@@ -1124,6 +1136,127 @@ public interface Management extends Remote, ManagementMXBean {
         public long getEarliestDirtyTimestamp() {
             return earliestDirtyTimestamp;
         }
+
+        /**
+         * @return Name of the page replacement policy used by this pool
+         */
+        public String getReplacementPolicy() {
+            return replacementPolicy;
+        }
+
+        /**
+         * Return the count of pages read into this pool that the replacement
+         * policy recognized as having been recently evicted. A high value
+         * relative to the miss count indicates the pool is too small for its
+         * working set.
+         * 
+         * @return The ghost hit count
+         */
+        public long getGhostHitCount() {
+            return ghostHitCount;
+        }
+
+        /**
+         * Get the count of buffers the replacement policy currently protects
+         * from eviction by one-time accesses such as large scans.
+         * 
+         * @return The count of protected pages
+         */
+        public int getProtectedPageCount() {
+            return protectedPageCount;
+        }
+
+        /**
+         * Get the count of clean, detached buffers the PAGE_WRITER thread has
+         * made ready for allocation.
+         * 
+         * @return The count of buffers in the free buffer reserve
+         */
+        public int getFreeBufferCount() {
+            return freeBufferCount;
+        }
+
+        /**
+         * Return the count of buffer allocations that found the free buffer
+         * reserve empty and had to evict a page, and possibly write it, in the
+         * requesting thread.
+         * 
+         * @return The reserve depleted count
+         */
+        public long getReserveDepletedCount() {
+            return reserveDepletedCount;
+        }
+
+        /**
+         * Return the buffer count requested by a resize operation in progress,
+         * or the current buffer count if there is none.
+         * 
+         * @return The resize target count
+         */
+        public int getResizeTargetCount() {
+            return resizeTargetCount;
+        }
+
+        /**
+         * Return the number of buffers still to be added or removed plus the
+         * number of hash table lock stripes still to be migrated by a resize
+         * operation in progress, or zero if there is none.
+         * 
+         * @return The remaining resize step count
+         */
+        public int getResizeRemainingCount() {
+            return resizeRemainingCount;
+        }
+
+        /**
+         * Return the number of pool misses satisfied by the victim cache
+         * without reading the volume or journal.
+         * 
+         * @return The victim cache hit count
+         */
+        public long getVictimCacheHitCount() {
+            return victimCacheHitCount;
+        }
+
+        /**
+         * Return the number of pool misses that were not found in the victim
+         * cache. Zero if the victim cache is disabled.
+         * 
+         * @return The victim cache miss count
+         */
+        public long getVictimCacheMissCount() {
+            return victimCacheMissCount;
+        }
+
+        /**
+         * Return the number of page images held in the victim cache.
+         * 
+         * @return The victim cache page count
+         */
+        public int getVictimCachePageCount() {
+            return victimCachePageCount;
+        }
+
+        /**
+         * Return the number of bytes of the victim cache occupied by page
+         * images. The ratio of this value to the page count times the buffer
+         * size indicates how well pages compress.
+         * 
+         * @return The victim cache bytes used
+         */
+        public long getVictimCacheBytesUsed() {
+            return victimCacheBytesUsed;
+        }
+
+        /**
+         * Return the number of buffers holding index pages that are retained
+         * in preference to data pages.
+         * 
+         * @return The retained index page count
+         */
+        public int getRetainedIndexPageCount() {
+            return retainedIndexPageCount;
+        }
     }
 
     /**
@@ -1811,6 +1944,7 @@ public interface Management extends Remote, ManagementMXBean {
         long _traverseCounter;
         long _storeCounter;
         long _removeCounter;
+        int residentIndexPageCount;
 
         TreeInfo(final Tree tree) {
             super();
@@ -1826,6 +1960,7 @@ public interface Management extends Remote, ManagementMXBean {
             this._traverseCounter = stats.getTraverseCounter();
             this._storeCounter = stats.getStoreCounter();
             this._removeCounter = stats.getRemoveCounter();
+            this.residentIndexPageCount = tree.getResidentIndexPageCount();
         }
 
         @ConstructorProperties({ "name", "index", "rootPageAddress", "depth", "volumePathName", "status",
@@ -1916,6 +2051,15 @@ public interface Management extends Remote, ManagementMXBean {
             return _removeCounter;
         }
 
+        /**
+         * @return the number of index pages of this <code>Tree</code> retained
+         *         in the buffer pool, or zero if index page retention is not
+         *         enabled
+         */
+        public int getResidentIndexPageCount() {
+            return residentIndexPageCount;
+        }
+
         /**
          * Return the status code for this Tree.
          * 
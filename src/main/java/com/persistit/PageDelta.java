@@ -0,0 +1,285 @@
+/**
+ * Copyright 2012 Akiban Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.persistit.util.Util;
+
+/**
+ * <p>
+ * Support for PD (page delta) journal records. A PD record describes a page
+ * image as a list of patches to be applied to a base image of the same page
+ * that was written earlier in full by a PA or PZ record.
+ * </p>
+ * <p>
+ * Computing a delta requires the base image, so the {@link JournalManager}
+ * remembers the most recent full image it wrote for each page in an instance
+ * of this class. The remembered images are bounded in total size; the least
+ * recently used ones are discarded first. A page whose base image is no longer
+ * remembered is simply written in full again.
+ * </p>
+ * <p>
+ * Images are compared in <i>normalized</i> form, in which the unused space
+ * between the key block end and alloc of a data or index page is cleared. This
+ * is the form in which the image is reconstructed from a PA or PZ record.
+ * </p>
+ *
+ * @author peter
+ */
+class PageDelta {
+
+    /**
+     * Maximum number of PD records written against one base image before the
+     * page is written in full again
+     */
+    final static int MAXIMUM_DELTAS = 16;
+
+    /**
+     * A PD record is written only if its patches are no larger than
+     * 1/DELTA_RATIO of the page image a PA record would hold
+     */
+    final static int DELTA_RATIO = 4;
+
+    /**
+     * Runs of unchanged bytes no longer than this are included in the
+     * surrounding patch rather than ending it, since each patch costs four
+     * bytes of offset and length.
+     */
+    private final static int MERGE_GAP = 8;
+
+    private final static int PATCH_OVERHEAD = 4;
+
+    private final static long DEFAULT_MAXIMUM_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * The most recent full image written for a page
+     */
+    static class Base {
+        private final long _address;
+        private final byte[] _image;
+        private int _deltaCount;
+
+        Base(final long address, final byte[] image) {
+            _address = address;
+            _image = image;
+        }
+
+        long getAddress() {
+            return _address;
+        }
+
+        byte[] getImage() {
+            return _image;
+        }
+
+        int getDeltaCount() {
+            return _deltaCount;
+        }
+
+        void deltaWritten() {
+            _deltaCount++;
+        }
+    }
+
+    private static class Key {
+        private final Volume _volume;
+        private final long _page;
+
+        private Key(final Volume volume, final long page) {
+            _volume = volume;
+            _page = page;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(_volume) ^ (int) _page ^ (int) (_page >>> 32);
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            final Key key = (Key) object;
+            return key._volume == _volume && key._page == _page;
+        }
+    }
+
+    private final Map<Key, Base> _bases = new LinkedHashMap<Key, Base>(16, 0.75f, true);
+
+    private final long _maximumBytes;
+
+    private long _bytes;
+
+    PageDelta() {
+        this(DEFAULT_MAXIMUM_BYTES);
+    }
+
+    PageDelta(final long maximumBytes) {
+        _maximumBytes = maximumBytes;
+    }
+
+    /**
+     * @return the remembered base image of a page, or <code>null</code>
+     */
+    synchronized Base get(final Volume volume, final long page) {
+        return _bases.get(new Key(volume, page));
+    }
+
+    /**
+     * Remember the image most recently written in full for a page, replacing
+     * any previous one.
+     */
+    synchronized void put(final Volume volume, final long page, final Base base) {
+        final Base previous = _bases.put(new Key(volume, page), base);
+        if (previous != null) {
+            _bytes -= previous._image.length;
+        }
+        _bytes += base._image.length;
+        for (final Iterator<Base> iterator = _bases.values().iterator(); _bytes > _maximumBytes
+                && iterator.hasNext();) {
+            _bytes -= iterator.next()._image.length;
+            iterator.remove();
+        }
+    }
+
+    synchronized void clear() {
+        _bases.clear();
+        _bytes = 0;
+    }
+
+    synchronized int size() {
+        return _bases.size();
+    }
+
+    /**
+     * Copy the page held by a Buffer into a new array in normalized form.
+     *
+     * @param buffer
+     *            a Buffer holding a data or index page
+     * @return the normalized image
+     */
+    static byte[] normalize(final Buffer buffer) {
+        final int bufferSize = buffer.getBufferSize();
+        final byte[] image = new byte[bufferSize];
+        final int keyBlockEnd = buffer.getKeyBlockEnd();
+        final int alloc = buffer.getAlloc();
+        System.arraycopy(buffer.getBytes(), 0, image, 0, keyBlockEnd);
+        System.arraycopy(buffer.getBytes(), alloc, image, alloc, bufferSize - alloc);
+        return image;
+    }
+
+    /**
+     * Compute the patches that transform a base image into a new image of
+     * the same size.
+     *
+     * @param base
+     *            the base image
+     * @param image
+     *            the new image
+     * @param limit
+     *            maximum permissible size of the encoded patches
+     * @return the encoded patches, or <code>null</code> if they would be
+     *         larger than <code>limit</code>
+     */
+    static byte[] encode(final byte[] base, final byte[] image, final int limit) {
+        final byte[] out = new byte[limit];
+        final int length = image.length;
+        int size = 0;
+        int index = 0;
+        while (index < length) {
+            if (base[index] == image[index]) {
+                index++;
+                continue;
+            }
+            final int start = index;
+            int end = index + 1;
+            for (int scan = end; scan < length && scan - end < MERGE_GAP; scan++) {
+                if (base[scan] != image[scan]) {
+                    end = scan + 1;
+                }
+            }
+            final int patchLength = end - start;
+            if (size + PATCH_OVERHEAD + patchLength > limit) {
+                return null;
+            }
+            Util.putChar(out, size, start);
+            Util.putChar(out, size + 2, patchLength);
+            System.arraycopy(image, start, out, size + PATCH_OVERHEAD, patchLength);
+            size += PATCH_OVERHEAD + patchLength;
+            index = end;
+        }
+        return Arrays.copyOf(out, size);
+    }
+
+    /**
+     * Apply encoded patches to a base image.
+     *
+     * @param patches
+     *            array holding the encoded patches
+     * @param offset
+     *            offset of the first patch
+     * @param length
+     *            total length of the encoded patches
+     * @param image
+     *            array holding the base image, which is modified in place
+     * @param imageOffset
+     *            offset of the base image within <code>image</code>
+     * @param bufferSize
+     *            size of the image
+     * @return <code>true</code> if the patches were valid and were applied
+     */
+    static boolean apply(final byte[] patches, final int offset, final int length, final byte[] image,
+            final int imageOffset, final int bufferSize) {
+        final int end = offset + length;
+        int index = offset;
+        while (index < end) {
+            if (index + PATCH_OVERHEAD > end) {
+                return false;
+            }
+            final int start = Util.getChar(patches, index);
+            final int patchLength = Util.getChar(patches, index + 2);
+            index += PATCH_OVERHEAD;
+            if (index + patchLength > end || start + patchLength > bufferSize) {
+                return false;
+            }
+            System.arraycopy(patches, index, image, imageOffset + start, patchLength);
+            index += patchLength;
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of patches in an encoded list, or -1 if the list is
+     *         invalid
+     */
+    static int patchCount(final byte[] patches, final int offset, final int length) {
+        final int end = offset + length;
+        int count = 0;
+        for (int index = offset; index < end; count++) {
+            if (index + PATCH_OVERHEAD > end) {
+                return -1;
+            }
+            index += PATCH_OVERHEAD + Util.getChar(patches, index + 2);
+            if (index > end) {
+                return -1;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright 2012 Akiban Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses and expands the page images held in PZ journal records. Images
+ * are encoded as {@link Deflater} streams at the fastest setting. Each
+ * thread uses its own Deflater and Inflater, so these methods may be called
+ * concurrently without locking.
+ *
+ * @author peter
+ */
+class PageImageCodec {
+
+    /**
+     * Page images shorter than this are always written uncompressed
+     */
+    final static int MINIMUM_COMPRESSIBLE_SIZE = 512;
+
+    /**
+     * A compressed image is used only if it saves at least 1/2^SAVINGS_SHIFT
+     * of the uncompressed image
+     */
+    private final static int SAVINGS_SHIFT = 3;
+
+    private final static ThreadLocal<Deflater> DEFLATER = new ThreadLocal<Deflater>() {
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater(Deflater.BEST_SPEED);
+        }
+    };
+
+    private final static ThreadLocal<Inflater> INFLATER = new ThreadLocal<Inflater>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater();
+        }
+    };
+
+    private final static ThreadLocal<byte[]> SCRATCH = new ThreadLocal<byte[]>();
+
+    /**
+     * Return a per-thread scratch array of at least <code>size</code> bytes.
+     * The array is reused by subsequent calls in the same thread.
+     */
+    static byte[] scratch(final int size) {
+        byte[] bytes = SCRATCH.get();
+        if (bytes == null || bytes.length < size) {
+            bytes = new byte[size];
+            SCRATCH.set(bytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * Compress a page image.
+     *
+     * @param image
+     *            the page image
+     * @param length
+     *            number of bytes of <code>image</code> to compress
+     * @return the compressed image, or <code>null</code> if the image is too
+     *         short or does not compress well enough to be worth storing
+     *         compressed
+     */
+    static byte[] compress(final byte[] image, final int length) {
+        if (length < MINIMUM_COMPRESSIBLE_SIZE) {
+            return null;
+        }
+        final int limit = length - (length >>> SAVINGS_SHIFT);
+        final byte[] out = new byte[limit];
+        final Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(image, 0, length);
+        deflater.finish();
+        final int compressedLength = deflater.deflate(out, 0, limit);
+        if (!deflater.finished()) {
+            return null;
+        }
+        final byte[] compressed = new byte[compressedLength];
+        System.arraycopy(out, 0, compressed, 0, compressedLength);
+        return compressed;
+    }
+
+    /**
+     * Expand a compressed page image.
+     *
+     * @param compressed
+     *            array holding the compressed image
+     * @param offset
+     *            offset of the compressed image
+     * @param length
+     *            length of the compressed image
+     * @param image
+     *            array to receive the expanded image
+     * @param imageOffset
+     *            offset in <code>image</code> at which to expand it
+     * @param maximumLength
+     *            maximum permissible length of the expanded image
+     * @return the length of the expanded image
+     * @throws DataFormatException
+     *             if the compressed image is invalid or expands to more than
+     *             <code>maximumLength</code> bytes
+     */
+    static int expand(final byte[] compressed, final int offset, final int length, final byte[] image,
+            final int imageOffset, final int maximumLength) throws DataFormatException {
+        final Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(compressed, offset, length);
+        final int imageLength = inflater.inflate(image, imageOffset, maximumLength);
+        if (!inflater.finished()) {
+            throw new DataFormatException("Compressed page image is truncated or longer than " + maximumLength);
+        }
+        return imageLength;
+    }
+}
@@ -0,0 +1,354 @@
+/**
+ * Copyright 2012 Akiban Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.persistit.JournalManager.PageNode;
+
+/**
+ * <p>
+ * A map from (volume handle, page address) to the most recent {@link PageNode}
+ * for that page. Each PageNode serves as its own key, so the map is stored as
+ * a single open-addressing table of PageNode references with linear probing.
+ * There is no per-entry object, and a lookup by handle and page address does
+ * not allocate a probe PageNode.
+ * </p>
+ * <p>
+ * The map removes the HashMap entry overhead and gives a lock-free lookup; it
+ * does not remove the PageNodes themselves. The journal address and timestamp
+ * stay in PageNode rather than in primitive arrays because the same PageNode
+ * is also held by the JournalManager's page list, which the copier walks in
+ * journal address order, and by the version chain of its page. Invalidating a
+ * PageNode must be seen through all three, so primitive copies held here
+ * would add to the heap rather than reduce it.
+ * </p>
+ * <p>
+ * Methods that modify the map must be called while holding a lock that
+ * excludes all other modifications; the {@link JournalManager} and
+ * {@link RecoveryManager} use their monitors. {@link #get(int, long)} may be
+ * called concurrently with modifications without any lock. A concurrent
+ * reader sees either the old or the new PageNode for the page being changed,
+ * and sees every other page correctly. This is safe because no slot ever
+ * becomes empty once filled. Removal leaves a tombstone, and a resized
+ * table is built completely before it is published.
+ * </p>
+ *
+ * @author peter
+ */
+class PageMap extends AbstractMap<PageNode, PageNode> {
+
+    private final static int MINIMUM_CAPACITY = 64;
+
+    /**
+     * Marks a slot whose PageNode has been removed
+     */
+    private final static PageNode REMOVED = new PageNode(-1, -1);
+
+    private volatile AtomicReferenceArray<PageNode> _table = new AtomicReferenceArray<PageNode>(MINIMUM_CAPACITY);
+
+    private volatile int _size;
+
+    /**
+     * Count of slots that are not empty, including tombstones
+     */
+    private int _used;
+
+    private static int index(final int volumeHandle, final long pageAddress, final int mask) {
+        long h = pageAddress * 0x9E3779B97F4A7C15L + volumeHandle;
+        h ^= h >>> 29;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Look up the PageNode for a page without holding any lock.
+     *
+     * @param volumeHandle
+     *            the volume handle
+     * @param pageAddress
+     *            the page address
+     * @return the PageNode, or <code>null</code> if there is none
+     */
+    PageNode get(final int volumeHandle, final long pageAddress) {
+        final AtomicReferenceArray<PageNode> table = _table;
+        final int mask = table.length() - 1;
+        for (int index = index(volumeHandle, pageAddress, mask), probes = 0; probes <= mask; index = (index + 1)
+                & mask, probes++) {
+            final PageNode pn = table.get(index);
+            if (pn == null) {
+                return null;
+            }
+            if (pn != REMOVED && pn._pageAddress == pageAddress && pn._volumeHandle == volumeHandle) {
+                return pn;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public PageNode get(final Object key) {
+        if (key instanceof PageNode) {
+            final PageNode pn = (PageNode) key;
+            return get(pn._volumeHandle, pn._pageAddress);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Add or replace the PageNode for a page. The key and value must identify
+     * the same page; this method is normally called as
+     * <code>put(pageNode, pageNode)</code>.
+     */
+    @Override
+    public PageNode put(final PageNode key, final PageNode value) {
+        assert key.equals(value);
+        AtomicReferenceArray<PageNode> table = _table;
+        int mask = table.length() - 1;
+        int free = -1;
+        for (int index = index(value._volumeHandle, value._pageAddress, mask), probes = 0; probes <= mask; index = (index + 1)
+                & mask, probes++) {
+            final PageNode pn = table.get(index);
+            if (pn == null) {
+                if (free < 0) {
+                    free = index;
+                }
+                break;
+            }
+            if (pn == REMOVED) {
+                if (free < 0) {
+                    free = index;
+                }
+            } else if (pn._pageAddress == value._pageAddress && pn._volumeHandle == value._volumeHandle) {
+                table.set(index, value);
+                return pn;
+            }
+        }
+        if (free >= 0 && table.get(free) == REMOVED) {
+            table.set(free, value);
+            _size++;
+            return null;
+        }
+        if (free < 0 || (_used + 1) * 4 > table.length() * 3) {
+            table = resize(_size + 1);
+            mask = table.length() - 1;
+            free = index(value._volumeHandle, value._pageAddress, mask);
+            while (table.get(free) != null) {
+                free = (free + 1) & mask;
+            }
+        }
+        table.set(free, value);
+        _used++;
+        _size++;
+        return null;
+    }
+
+    @Override
+    public PageNode remove(final Object key) {
+        if (!(key instanceof PageNode)) {
+            return null;
+        }
+        final PageNode target = (PageNode) key;
+        final AtomicReferenceArray<PageNode> table = _table;
+        final int mask = table.length() - 1;
+        for (int index = index(target._volumeHandle, target._pageAddress, mask), probes = 0; probes <= mask; index = (index + 1)
+                & mask, probes++) {
+            final PageNode pn = table.get(index);
+            if (pn == null) {
+                return null;
+            }
+            if (pn != REMOVED && pn._pageAddress == target._pageAddress && pn._volumeHandle == target._volumeHandle) {
+                removeAt(table, index);
+                return pn;
+            }
+        }
+        return null;
+    }
+
+    private void removeAt(final AtomicReferenceArray<PageNode> table, final int index) {
+        table.set(index, REMOVED);
+        _size--;
+        if (_size * 8 < table.length() && table.length() > MINIMUM_CAPACITY) {
+            resize(_size);
+        }
+    }
+
+    /**
+     * Replace the table with one sized for <code>count</code> PageNodes and
+     * without tombstones. The new table is published only after it has been
+     * filled.
+     */
+    private AtomicReferenceArray<PageNode> resize(final int count) {
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < count * 2) {
+            capacity *= 2;
+        }
+        final AtomicReferenceArray<PageNode> oldTable = _table;
+        final AtomicReferenceArray<PageNode> newTable = new AtomicReferenceArray<PageNode>(capacity);
+        final int mask = capacity - 1;
+        int used = 0;
+        for (int i = 0; i < oldTable.length(); i++) {
+            final PageNode pn = oldTable.get(i);
+            if (pn != null && pn != REMOVED) {
+                int index = index(pn._volumeHandle, pn._pageAddress, mask);
+                while (newTable.get(index) != null) {
+                    index = (index + 1) & mask;
+                }
+                newTable.set(index, pn);
+                used++;
+            }
+        }
+        _used = used;
+        _table = newTable;
+        return newTable;
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    @Override
+    public void clear() {
+        _table = new AtomicReferenceArray<PageNode>(MINIMUM_CAPACITY);
+        _size = 0;
+        _used = 0;
+    }
+
+    @Override
+    public Collection<PageNode> values() {
+        return new AbstractCollection<PageNode>() {
+            @Override
+            public Iterator<PageNode> iterator() {
+                return new PageNodeIterator();
+            }
+
+            @Override
+            public int size() {
+                return _size;
+            }
+        };
+    }
+
+    @Override
+    public Set<PageNode> keySet() {
+        return new AbstractSet<PageNode>() {
+            @Override
+            public Iterator<PageNode> iterator() {
+                return new PageNodeIterator();
+            }
+
+            @Override
+            public int size() {
+                return _size;
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<PageNode, PageNode>> entrySet() {
+        return new AbstractSet<Entry<PageNode, PageNode>>() {
+            @Override
+            public Iterator<Entry<PageNode, PageNode>> iterator() {
+                final PageNodeIterator iterator = new PageNodeIterator();
+                return new Iterator<Entry<PageNode, PageNode>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<PageNode, PageNode> next() {
+                        final PageNode pn = iterator.next();
+                        return new SimpleImmutableEntry<PageNode, PageNode>(pn, pn);
+                    }
+
+                    @Override
+                    public void remove() {
+                        iterator.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return _size;
+            }
+        };
+    }
+
+    /**
+     * Iterates over the PageNodes in the table current when the iterator was
+     * created. {@link #remove()} leaves a tombstone and never resizes the
+     * table, so iteration may continue after it.
+     */
+    private class PageNodeIterator implements Iterator<PageNode> {
+        private final AtomicReferenceArray<PageNode> _iterTable = _table;
+        private int _next = -1;
+        private int _current = -1;
+
+        private PageNodeIterator() {
+            advance();
+        }
+
+        private void advance() {
+            do {
+                _next++;
+            } while (_next < _iterTable.length() && (_iterTable.get(_next) == null || _iterTable.get(_next) == REMOVED));
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _next < _iterTable.length();
+        }
+
+        @Override
+        public PageNode next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            _current = _next;
+            advance();
+            return _iterTable.get(_current);
+        }
+
+        @Override
+        public void remove() {
+            if (_current < 0 || _iterTable.get(_current) == REMOVED) {
+                throw new IllegalStateException();
+            }
+            _iterTable.set(_current, REMOVED);
+            _size--;
+        }
+    }
+}
@@ -604,6 +604,10 @@ public class Persistit {
 
   private void initializeRecovery() throws PersistitException {
     final String journalPath = _configuration.getJournalPath();
+    _recoveryManager.setMappedReadsEnabled(_configuration.isJournalMappedReadsEnabled());
+    _recoveryManager.setStripeDirectories(_configuration.getJournalStripes());
+    _recoveryManager.setReplayThreadCount(_configuration.getRecoveryThreads());
+    _recoveryManager.setLazyRecoveryEnabled(_configuration.isLazyRecoveryEnabled());
     _recoveryManager.init(journalPath);
     _recoveryManager.buildRecoveryPlan();
   }
@@ -612,9 +616,16 @@ public class Persistit {
     final String journalPath = _configuration.getJournalPath();
     final long journalSize = _configuration.getJournalSize();
 
+    _journalManager.setWriteBufferDirect(_configuration.isJournalDirectBufferEnabled());
+    _journalManager.setStripeDirectories(_configuration.getJournalStripes());
     _journalManager.init(_recoveryManager, journalPath, journalSize);
     _journalManager.setAppendOnly(_configuration.isAppendOnly());
     _journalManager.setIgnoreMissingVolumes(_configuration.isIgnoreMissingVolumes());
+    _journalManager.setPageCompressionEnabled(_configuration.isJournalCompressionEnabled());
+    _journalManager.setPageDeltaEnabled(_configuration.isJournalDeltaEnabled());
+    _journalManager.setSpareFileLimit(_configuration.getJournalSpareFiles());
+    _journalManager.setCopierThreadCount(_configuration.getJournalCopierThreads());
+    _journalManager.setMappedReadsEnabled(_configuration.isJournalMappedReadsEnabled());
   }
 
   private void initializeBufferPools() {
@@ -623,7 +634,7 @@ public class Persistit {
       if (poolSize > 0) {
         final int bufferSize = config.getBufferSize();
         _logBase.allocateBuffers.log(poolSize, bufferSize);
-        final BufferPool pool = new BufferPool(poolSize, bufferSize, this);
+        final BufferPool pool = new BufferPool(poolSize, config, this);
         _bufferPoolTable.put(bufferSize, pool);
         if (_configuration.isJmxEnabled()) {
           registerBufferPoolMXBean(bufferSize);
@@ -715,7 +726,8 @@ public class Persistit {
   void preloadBufferPools() throws PersistitException {
     if (_configuration.isBufferPreloadEnabled()) {
       for (final BufferPool pool : _bufferPoolTable.values()) {
-        pool.preloadBufferInventory();
+        pool.preloadBufferInventory(_configuration.getBufferPreloadThreads(),
+          _configuration.isBufferPreloadBackground());
       }
     }
   }
@@ -725,8 +737,21 @@ public class Persistit {
   }
 
   void finishRecovery() throws PersistitException, TestException {
+    if (_recoveryManager.isLazyRecoveryEnabled()
+      && _recoveryManager.startLazyReplay(_recoveryManager.getDefaultCommitListener(),
+        _recoveryManager.getDefaultRollbackListener())) {
+      return;
+    }
     _recoveryManager.applyAllRecoveredTransactions(_recoveryManager.getDefaultCommitListener(),
       _recoveryManager.getDefaultRollbackListener());
+    recoveryFinished();
+  }
+
+  /**
+   * Called once every recovered transaction has been applied, either by
+   * {@link #finishRecovery()} or by the lazy recovery thread.
+   */
+  void recoveryFinished() throws PersistitException {
     _recoveryManager.close();
     flush();
     _logBase.recoveryDone.log(_journalManager.getPageMapSize(), _recoveryManager.getAppliedTransactionCount(),
@@ -1645,6 +1670,7 @@ public class Persistit {
           }
         }
       }
+      _recoveryManager.stopLazyReplay();
       recordBufferPoolInventory();
       _cleanupManager.close(flush);
       waitForIOTaskStop(_cleanupManager);
@@ -1751,6 +1777,7 @@ public class Persistit {
    * processes. This method should be used only by tests.
    */
   public void crash() {
+    _recoveryManager.stopLazyReplay();
     final JournalManager journalManager = _journalManager;
     if (journalManager != null) {
       try {
@@ -1809,6 +1836,7 @@ public class Persistit {
   }
 
   private void releaseAllResources() {
+    _recoveryManager.stopLazyReplay();
 
     unregisterMXBeans();
     try {
@@ -24,6 +24,7 @@ import static com.persistit.JournalRecord.isValidType;
 import static com.persistit.TransactionStatus.ABORTED;
 import static com.persistit.util.SequencerConstants.RECOVERY_PRUNING_A;
 import static com.persistit.util.ThreadSequencer.sequence;
+import static com.persistit.util.Util.NS_PER_S;
 import static com.persistit.util.Util.println;
 
 import java.io.File;
@@ -31,15 +32,34 @@ import java.io.FileFilter;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
 
 import com.persistit.CheckpointManager.Checkpoint;
 import com.persistit.JournalManager.PageNode;
@@ -55,11 +75,14 @@ import com.persistit.JournalRecord.IV;
 import com.persistit.JournalRecord.JE;
 import com.persistit.JournalRecord.JH;
 import com.persistit.JournalRecord.PA;
+import com.persistit.JournalRecord.PD;
 import com.persistit.JournalRecord.PM;
+import com.persistit.JournalRecord.PZ;
 import com.persistit.JournalRecord.SR;
 import com.persistit.JournalRecord.TM;
 import com.persistit.JournalRecord.TX;
 import com.persistit.TransactionPlayer.TransactionPlayerListener;
+import com.persistit.TransactionPlayer.TransactionRecords;
 import com.persistit.exception.CorruptJournalException;
 import com.persistit.exception.PersistitException;
 import com.persistit.exception.PersistitIOException;
@@ -113,6 +136,12 @@ import com.persistit.util.Util;
  * within the journal since doing so would require a significant amount of
  * additional I/O.
  * </p>
+ * <p>
+ * Phase 1 reads the journal sequentially. While the records in one chunk of
+ * {@value #READ_AHEAD_SIZE} bytes are being parsed, a background thread reads
+ * the next chunk, which at the end of a journal file is the beginning of the
+ * next one.
+ * </p>
  * </dd>
  * 
  * <dt>Phase 2:</dt>
@@ -146,6 +175,12 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
 
     final static int DEFAULT_BUFFER_SIZE = 1 * 1024 * 1024;
 
+    /**
+     * Size of the chunks in which the journal is read while it is being read
+     * sequentially
+     */
+    final static int READ_AHEAD_SIZE = 4 * 1024 * 1024;
+
     /**
      * Number of transactions to apply per progress log message
      */
@@ -162,9 +197,9 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
 
     private final Map<Long, TransactionMapItem> _abortedTransactionMap = new HashMap<Long, TransactionMapItem>();
 
-    private final Map<PageNode, PageNode> _pageMap = new HashMap<PageNode, PageNode>();
+    private final Map<PageNode, PageNode> _pageMap = new PageMap();
 
-    private final Map<PageNode, PageNode> _branchMap = new HashMap<PageNode, PageNode>();
+    private final Map<PageNode, PageNode> _branchMap = new PageMap();
 
     private final Map<Volume, Integer> _volumeToHandleMap = new HashMap<Volume, Integer>();
 
@@ -180,6 +215,12 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
 
     private final Map<Long, FileChannel> _journalFileChannels = new HashMap<Long, FileChannel>();
 
+    private final Map<Long, MappedByteBuffer> _journalFileMappings = new HashMap<Long, MappedByteBuffer>();
+
+    private volatile boolean _mappedReadsEnabled;
+
+    private File[] _stripeDirectories = new File[0];
+
     private volatile int _committedTransactionCount;
 
     private volatile int _uncommittedTransactionCount;
@@ -190,8 +231,18 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
 
     private volatile int _errorCount;
 
+    private volatile int _replayThreadCount = DEFAULT_REPLAY_THREADS;
+
+    private volatile long _replayStartTime;
+
+    private volatile boolean _lazyRecoveryEnabled;
+
+    private volatile LazyReplay _lazyReplay;
+
     private volatile boolean _recoveryDisabledForTestMode;
 
+    private volatile CountDownLatch _lazyReplayGateForTestMode;
+
     private String _journalFilePath;
 
     private File _keystoneFile;
@@ -206,10 +257,33 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
 
     private ByteBuffer _readBuffer;
 
-    private final int _readBufferSize = DEFAULT_BUFFER_SIZE;
+    private ByteBuffer _spareReadBuffer;
+
+    private ReadAhead _readAhead;
+
+    /**
+     * True while {@link #buildRecoveryPlan()} scans the journal from start to
+     * end. Chunks are read ahead only then; replay reads the records of each
+     * transaction wherever they are.
+     */
+    private boolean _sequentialScan;
+
+    private final int _readBufferSize = READ_AHEAD_SIZE;
 
     private long _readBufferAddress;
 
+    private final AtomicLong _bytesRead = new AtomicLong();
+
+    private volatile long _scanBytes;
+
+    private volatile long _scanNanos;
+
+    private volatile long _replayStartBytes;
+
+    private volatile long _replayBytes;
+
+    private volatile long _replayNanos;
+
     private long _currentAddress;
 
     private final long _recoveryStatus = Long.MIN_VALUE;
@@ -468,6 +542,7 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
     public void init(final String path) throws PersistitException {
         _journalFilePath = JournalManager.journalPath(path).getAbsolutePath();
         _readBuffer = ByteBuffer.allocate(_readBufferSize);
+        _lazyReplay = null;
     }
 
     @Override
@@ -670,8 +745,11 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
         _handleToVolumeMap.clear();
         _treeToHandleMap.clear();
         _handleToTreeMap.clear();
+        closeReadAhead();
         _readBuffer = null;
+        _spareReadBuffer = null;
         _journalFileChannels.clear();
+        _journalFileMappings.clear();
     }
 
     /**
@@ -693,6 +771,106 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
         _recoveryDisabledForTestMode = recoveryDisabledForTestMode;
     }
 
+    /**
+     * @param gate
+     *            If not <code>null</code>, the lazy replay thread indexes the
+     *            recovered transactions and then waits for this latch to be
+     *            released, or for replay to be stopped, before applying any
+     *            of them. (Lets unit tests observe pending transactions.)
+     */
+    void setLazyReplayGateForTestMode(final CountDownLatch gate) {
+        _lazyReplayGateForTestMode = gate;
+    }
+
+    /**
+     * @return whether a background thread is reading the journal ahead of the
+     *         recovery thread (package-private for unit tests only.)
+     */
+    boolean isReadingAhead() {
+        return _readAhead != null;
+    }
+
+    boolean isMappedReadsEnabled() {
+        return _mappedReadsEnabled;
+    }
+
+    /**
+     * @param mappedReadsEnabled
+     *            <code>true</code> to read journal files through read-only
+     *            memory mappings rather than through their channels
+     */
+    void setMappedReadsEnabled(final boolean mappedReadsEnabled) {
+        _mappedReadsEnabled = mappedReadsEnabled;
+    }
+
+    @Override
+    public int getReplayThreadCount() {
+        return _replayThreadCount;
+    }
+
+    /**
+     * @param count
+     *            number of threads that apply recovered transactions
+     */
+    void setReplayThreadCount(final int count) {
+        Util.rangeCheck(count, MINIMUM_REPLAY_THREADS, MAXIMUM_REPLAY_THREADS);
+        _replayThreadCount = count;
+    }
+
+    @Override
+    public boolean isLazyRecoveryEnabled() {
+        return _lazyRecoveryEnabled;
+    }
+
+    /**
+     * @param lazyRecoveryEnabled
+     *            <code>true</code> to apply recovered transactions in a
+     *            background thread after initialization has completed
+     */
+    void setLazyRecoveryEnabled(final boolean lazyRecoveryEnabled) {
+        _lazyRecoveryEnabled = lazyRecoveryEnabled;
+    }
+
+    @Override
+    public int getPendingTransactionCount() {
+        final LazyReplay replay = _lazyReplay;
+        return replay == null ? 0 : replay.getPendingCount();
+    }
+
+    @Override
+    public long getScanBytesRead() {
+        return _scanBytes;
+    }
+
+    @Override
+    public long getScanBytesPerSecond() {
+        return bytesPerSecond(_scanBytes, _scanNanos);
+    }
+
+    @Override
+    public long getReplayBytesRead() {
+        return _replayBytes;
+    }
+
+    @Override
+    public long getReplayBytesPerSecond() {
+        return bytesPerSecond(_replayBytes, _replayNanos);
+    }
+
+    private static long bytesPerSecond(final long bytes, final long nanos) {
+        return nanos > 0 ? (long) (bytes * (double) NS_PER_S / nanos) : 0;
+    }
+
+    /**
+     * @param paths
+     *            comma-separated names of the additional directories across
+     *            which each journal file is striped, or <code>null</code> for
+     *            none
+     */
+    void setStripeDirectories(final String paths) {
+        _stripeDirectories = JournalManager.stripeDirectories(paths);
+    }
+
     /**
      * Return the <code>FileChannel</code> for the journal file containing the
      * supplied <code>address</code>. If necessary, create a new
@@ -709,7 +887,13 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
         FileChannel channel = _journalFileChannels.get(generation);
         if (channel == null) {
             try {
-                channel = new MediatedFileChannel(addressToFile(address), "r");
+                final File file = addressToFile(address);
+                if (_stripeDirectories.length > 0) {
+                    channel = new StripedFileChannel(JournalManager.stripeFiles(file, _stripeDirectories), "r",
+                            JournalManager.STRIPE_SIZE, null);
+                } else {
+                    channel = new MediatedFileChannel(file, "r");
+                }
                 _journalFileChannels.put(generation, channel);
             } catch (final IOException ioe) {
                 throw new PersistitIOException(ioe);
@@ -718,6 +902,40 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
         return channel;
     }
 
+    /**
+     * Return a read-only mapping of the journal file containing the supplied
+     * <code>address</code>, creating it if necessary. No journal file is
+     * written while recovery reads it, so every file may be mapped, except
+     * that striped files are never mapped.
+     * 
+     * @param address
+     *            the journal address of a record in the journal
+     * @return the mapping of the entire file, or <code>null</code> if the
+     *         file is striped or too large to be mapped
+     * @throws PersistitIOException
+     *             if the file cannot be opened
+     */
+    synchronized MappedByteBuffer getFileMapping(final long address) throws PersistitIOException {
+        if (_stripeDirectories.length > 0) {
+            return null;
+        }
+        final long generation = address / _blockSize;
+        MappedByteBuffer mapping = _journalFileMappings.get(generation);
+        if (mapping == null && !_journalFileMappings.containsKey(generation)) {
+            final FileChannel channel = getFileChannel(address);
+            try {
+                final long size = channel.size();
+                if (size <= Integer.MAX_VALUE) {
+                    mapping = channel.map(MapMode.READ_ONLY, 0, size);
+                }
+            } catch (final IOException ioe) {
+                _persistit.getLogBase().journalMappingError.log(addressToFile(address), ioe);
+            }
+            _journalFileMappings.put(generation, mapping);
+        }
+        return mapping;
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder();
@@ -878,26 +1096,27 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
             _readBuffer.position((int) (address - _readBufferAddress));
         } else {
             try {
-                final FileChannel fc = getFileChannel(address);
-                _readBuffer.clear();
-
                 int maxSize = _readBuffer.capacity();
                 final long remainingInBlock = addressUp(address) - address;
                 if (remainingInBlock < maxSize) {
                     maxSize = (int) remainingInBlock;
                 }
 
-                _readBuffer.limit(maxSize);
-                int offset = 0;
-                while (_readBuffer.remaining() > 0) {
-                    final int readSize = fc.read(_readBuffer, offset + address % _blockSize);
-                    if (readSize < 0) {
-                        break;
-                    }
-                    offset += readSize;
+                final MappedByteBuffer mapping = _mappedReadsEnabled ? getFileMapping(address) : null;
+                if (mapping != null) {
+                    _readBuffer.clear();
+                    _readBuffer.limit(maxSize);
+                    final ByteBuffer source = mapping.duplicate();
+                    final int start = (int) Math.min(address % _blockSize, source.capacity());
+                    source.limit((int) Math.min(start + (long) maxSize, source.capacity()));
+                    source.position(start);
+                    _bytesRead.addAndGet(source.remaining());
+                    _readBuffer.put(source);
+                    _readBufferAddress = address;
+                    _readBuffer.flip();
+                } else {
+                    fill(address, size, maxSize);
                 }
-                _readBufferAddress = address;
-                _readBuffer.flip();
                 if (_readBuffer.remaining() < size) {
                     throw new CorruptJournalException("End of file at " + addressToString(address));
                 }
@@ -907,6 +1126,197 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
         }
     }
 
+    /**
+     * Load the read buffer with the journal bytes starting at
+     * <code>address</code>. If the address lies within or immediately after
+     * the bytes already loaded, the journal is being read sequentially: the
+     * bytes are taken from the current read buffer and from the chunk read
+     * ahead in the background as far as possible, the remainder is read from
+     * the journal file and, during the recovery scan, reading of the following
+     * chunk begins. Otherwise no more than {@link #DEFAULT_BUFFER_SIZE} bytes
+     * are read.
+     */
+    private void fill(final long address, final int size, final int maxSize) throws IOException,
+            PersistitIOException {
+        final long loadedEnd = _readBufferAddress + _readBuffer.limit();
+        final boolean sequential = address >= _readBufferAddress && address <= loadedEnd;
+        ByteBuffer target = _spareReadBuffer;
+        if (target == null) {
+            target = ByteBuffer.allocate(_readBufferSize);
+        }
+        target.clear();
+        target.limit(sequential ? maxSize : Math.min(maxSize, Math.max(size, DEFAULT_BUFFER_SIZE)));
+        if (sequential) {
+            transfer(_readBuffer, _readBufferAddress, target, address);
+            if (_readAhead != null) {
+                transfer(_readAhead.await(), _readAhead.getAddress(), target, address);
+            }
+        }
+        final FileChannel fc = getFileChannel(address);
+        while (target.remaining() > 0) {
+            final int readSize = fc.read(target, address % _blockSize + target.position());
+            if (readSize < 0) {
+                break;
+            }
+            _bytesRead.addAndGet(readSize);
+        }
+        target.flip();
+        _spareReadBuffer = _readBuffer;
+        _readBuffer = target;
+        _readBufferAddress = address;
+        if (sequential && _sequentialScan) {
+            if (_readAhead == null) {
+                _readAhead = new ReadAhead();
+            }
+            _readAhead.start(target.limit() < maxSize ? addressUp(address) : address + target.limit());
+        }
+    }
+
+    private void closeReadAhead() {
+        if (_readAhead != null) {
+            _readAhead.close();
+            _readAhead = null;
+        }
+    }
+
+    /**
+     * Copy bytes from a source buffer holding the journal bytes starting at
+     * <code>sourceAddress</code> to the target buffer, which is being loaded
+     * with the bytes starting at <code>targetAddress</code>, if the source
+     * holds the next byte the target requires.
+     */
+    private static void transfer(final ByteBuffer source, final long sourceAddress, final ByteBuffer target,
+            final long targetAddress) {
+        if (source == null) {
+            return;
+        }
+        final long next = targetAddress + target.position();
+        if (next >= sourceAddress && next < sourceAddress + source.limit()) {
+            final int offset = (int) (next - sourceAddress);
+            final int length = Math.min(target.remaining(), source.limit() - offset);
+            target.put(source.array(), offset, length);
+        }
+    }
+
+    /**
+     * <p>
+     * Reads the chunk of the journal that follows the one most recently
+     * loaded into the read buffer in a background thread, the
+     * RECOVERY_READ_AHEAD thread, while the recovery thread parses the records
+     * in the read buffer. At the end of a journal file, the chunk read is the
+     * beginning of the next one.
+     * </p>
+     * <p>
+     * Errors are ignored: bytes that could not be read ahead are read again
+     * by the recovery thread, which reports the error if it recurs.
+     * </p>
+     */
+    private class ReadAhead {
+
+        private final ExecutorService _executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "RECOVERY_READ_AHEAD");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        private ByteBuffer _buffer = ByteBuffer.allocate(_readBufferSize);
+
+        private long _address = -1;
+
+        private Future<Void> _future;
+
+        /**
+         * Begin reading the chunk starting at the supplied address after the
+         * chunk currently being read, if any, has been read.
+         */
+        private void start(final long address) {
+            await();
+            final ByteBuffer buffer = _buffer;
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), addressUp(address) - address));
+            _address = address;
+            _future = _executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    read(buffer, address);
+                    return null;
+                }
+            });
+        }
+
+        private void read(final ByteBuffer buffer, final long address) throws IOException, PersistitIOException {
+            if (!addressToFile(address).exists()) {
+                buffer.limit(0);
+                return;
+            }
+            final FileChannel fc = getFileChannel(address);
+            while (buffer.remaining() > 0) {
+                final int readSize = fc.read(buffer, address % _blockSize + buffer.position());
+                if (readSize < 0) {
+                    break;
+                }
+                _bytesRead.addAndGet(readSize);
+            }
+            buffer.flip();
+        }
+
+        /**
+         * Wait until the chunk being read, if any, has been read.
+         * 
+         * @return the buffer holding the chunk starting at
+         *         {@link #getAddress()}, or <code>null</code> if it could
+         *         not be read
+         */
+        private ByteBuffer await() {
+            if (_future == null) {
+                return _address < 0 ? null : _buffer;
+            }
+            try {
+                _future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abandon();
+            } catch (final ExecutionException e) {
+                abandon();
+            } finally {
+                _future = null;
+            }
+            return _address < 0 ? null : _buffer;
+        }
+
+        /**
+         * Give up the chunk being read. If interrupted the read may still be
+         * in progress, so the next chunk is read into a new buffer rather than
+         * racing it.
+         */
+        private void abandon() {
+            _address = -1;
+            _buffer = ByteBuffer.allocate(_readBufferSize);
+        }
+
+        private long getAddress() {
+            return _address;
+        }
+
+        private void close() {
+            _executor.shutdown();
+            boolean interrupted = false;
+            while (!_executor.isTerminated()) {
+                try {
+                    _executor.awaitTermination(1, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     /**
      * Attempts to read and apply the record at _currentAddress. If it finds
      * valid record contained in the current journal file, it advances the
@@ -959,6 +1369,8 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
             break;
 
         case PA.TYPE:
+        case PZ.TYPE:
+        case PD.TYPE:
             scanLoadPage(from, timestamp, recordSize);
             break;
 
@@ -1365,9 +1777,12 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
         if (lastRequiredJournalAddress > startingAddress) {
             read(lastRequiredJournalAddress, PA.OVERHEAD);
             type = getType(_readBuffer);
-            validate(type, file, startingAddress, PA.TYPE, "Invalid record type %3$,d at %1$s:%2$d");
+            if (type != PZ.TYPE && type != PD.TYPE) {
+                validate(type, file, startingAddress, PA.TYPE, "Invalid record type %3$,d at %1$s:%2$d");
+            }
             recordSize = getLength(_readBuffer);
-            validate(recordSize, file, startingAddress, PA.OVERHEAD + Buffer.HEADER_SIZE, PA.OVERHEAD
+            validate(recordSize, file, startingAddress, type == PZ.TYPE ? PZ.OVERHEAD + 1
+                    : type == PD.TYPE ? PD.OVERHEAD : PA.OVERHEAD + Buffer.HEADER_SIZE, PA.OVERHEAD
                     + Buffer.MAX_BUFFER_SIZE, "PA record size %3$,d not in valid range "
                     + "[%4$,d:%5$,d] at %1$s:%2$,d");
             final long pageAddress = PA.getPageAddress(_readBuffer);
@@ -1381,6 +1796,9 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
     }
 
     public void buildRecoveryPlan() throws PersistitIOException, PersistitInterruptedException {
+        final long startBytes = _bytesRead.get();
+        final long startTime = System.nanoTime();
+        _sequentialScan = true;
         try {
             //
             // Find the keystone (last) journal file and validate it.
@@ -1426,6 +1844,11 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
         } catch (final PersistitIOException pe) {
             _persistit.getLogBase().recoveryFailure.log(pe);
             throw pe;
+        } finally {
+            _sequentialScan = false;
+            closeReadAhead();
+            _scanNanos = System.nanoTime() - startTime;
+            _scanBytes = _bytesRead.get() - startBytes;
         }
 
     }
@@ -1493,13 +1916,599 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
 
     // ---------------------------- Phase 3 ------------------------------------
 
-    public void applyAllRecoveredTransactions(final TransactionPlayerListener commitListener,
-            final TransactionPlayerListener rollbackListener) throws TestException {
+    private synchronized void transactionApplied(final TransactionMapItem item) {
+        if (item.isCommitted()) {
+            _appliedTransactionCount++;
+        } else {
+            _abortedTransactionCount++;
+        }
+        final int count = _appliedTransactionCount + _abortedTransactionCount;
+        if (count % APPLY_TRANSACTION_LOG_COUNT == 0) {
+            final long elapsed = Math.max(1, System.nanoTime() - _replayStartTime);
+            _persistit.getLogBase().recoveryProgress.log(_appliedTransactionCount, _abortedTransactionCount,
+                    _recoveredTransactionMap.size() - count, count * NS_PER_S / elapsed);
+        }
+    }
 
-        if (_recoveryDisabledForTestMode) {
-            return;
+    private synchronized void transactionFailed(final TransactionMapItem item, final Exception exception) {
+        _persistit.getLogBase().recoveryException.log(exception, item);
+        _errorCount++;
+    }
+
+    /**
+     * <p>
+     * Applies recovered transactions using a pool of threads. The recovery
+     * thread reads each transaction's records from the journal in commit
+     * order and submits it to the pool once every earlier transaction that
+     * updates any of the same trees has been applied. Transactions that update
+     * disjoint sets of trees are therefore applied concurrently, while those
+     * updating a common tree are applied in commit timestamp order.
+     * </p>
+     * <p>
+     * A transaction that removes a tree, updates the directory tree or a tree
+     * that does not exist yet, holds a long record, or is too large to hold
+     * in memory is applied by the recovery thread itself after all previously
+     * submitted transactions have finished.
+     * </p>
+     */
+    private class ParallelReplay {
+
+        /**
+         * Limit on the total size of records held by submitted
+         * transactions that have not yet been applied
+         */
+        private final static int BACKLOG_BYTES = 32 * 1024 * 1024;
+
+        /**
+         * Transactions larger than this are applied exclusively, reading
+         * their records from the journal as they are applied
+         */
+        private final static int MAXIMUM_TRANSACTION_BYTES = 1024 * 1024;
+
+        private final ExecutorService _executor;
+
+        private final Semaphore _backlog = new Semaphore(BACKLOG_BYTES);
+
+        private final Map<Integer, Task> _lastTaskForTree = new HashMap<Integer, Task>();
+
+        private volatile TestException _testException;
+
+        private class Task implements Runnable {
+            private final TransactionMapItem _item;
+            private final int _size;
+            private TransactionRecords _records;
+            private final TransactionPlayerListener _listener;
+            private final AtomicInteger _predecessors = new AtomicInteger(1);
+            private List<Task> _successors = new ArrayList<Task>();
+
+            private Task(final TransactionMapItem item, final TransactionRecords records,
+                    final TransactionPlayerListener listener) {
+                _item = item;
+                _size = records.getSize();
+                _records = records;
+                _listener = listener;
+            }
+
+            /**
+             * Arrange for a later task to be submitted when this one
+             * finishes.
+             * 
+             * @return <code>false</code> if this task has already finished
+             */
+            private synchronized boolean addSuccessor(final Task successor) {
+                if (_successors == null) {
+                    return false;
+                }
+                successor._predecessors.incrementAndGet();
+                _successors.add(successor);
+                return true;
+            }
+
+            private void predecessorDone() {
+                if (_predecessors.decrementAndGet() == 0) {
+                    _executor.execute(this);
+                }
+            }
+
+            @Override
+            public void run() {
+                try {
+                    _player.applyTransaction(_records, _listener);
+                    transactionApplied(_item);
+                } catch (final TestException te) {
+                    _persistit.getLogBase().recoveryException.log(te, _item);
+                    _testException = te;
+                } catch (final Exception e) {
+                    transactionFailed(_item, e);
+                } finally {
+                    final List<Task> successors;
+                    synchronized (this) {
+                        successors = _successors;
+                        _successors = null;
+                    }
+                    for (final Task successor : successors) {
+                        successor.predecessorDone();
+                    }
+                    /*
+                     * The task may remain referenced as the last one for its
+                     * trees; don't retain the records.
+                     */
+                    _records = null;
+                    _backlog.release(_size);
+                }
+            }
         }
-        boolean started = false;
+
+        private ParallelReplay(final int threadCount) {
+            final AtomicInteger counter = new AtomicInteger();
+            _executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "RECOVERY_REPLAY:" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        private void run(final SortedSet<TransactionMapItem> sorted, final TransactionPlayerListener commitListener,
+                final TransactionPlayerListener rollbackListener) {
+            boolean started = false;
+            try {
+                for (final TransactionMapItem item : sorted) {
+                    final TransactionPlayerListener listener = item.isCommitted() ? commitListener
+                            : rollbackListener;
+                    if (_testException != null) {
+                        break;
+                    }
+                    try {
+                        if (!started) {
+                            commitListener.startRecovery(item.getStartAddress(), item.getCommitTimestamp());
+                            started = true;
+                        }
+                        final TransactionRecords records = _player.loadTransaction(item, MAXIMUM_TRANSACTION_BYTES);
+                        if (records == null || records.isExclusive() || !isConcurrent(records)) {
+                            awaitAll();
+                            _lastTaskForTree.clear();
+                            if (records == null) {
+                                _player.applyTransaction(item, listener);
+                            } else {
+                                _player.applyTransaction(records, listener);
+                            }
+                            transactionApplied(item);
+                        } else {
+                            submit(new Task(item, records, listener));
+                        }
+                    } catch (final TestException te) {
+                        _persistit.getLogBase().recoveryException.log(te, item);
+                        _testException = te;
+                    } catch (final Exception e) {
+                        transactionFailed(item, e);
+                    }
+                }
+                awaitAll();
+            } finally {
+                _executor.shutdown();
+            }
+            if (_testException != null) {
+                throw _testException;
+            }
+        }
+
+        private void submit(final Task task) {
+            _backlog.acquireUninterruptibly(task._size);
+            for (final Integer treeHandle : task._records.getTreeHandles()) {
+                final Task predecessor = _lastTaskForTree.put(treeHandle, task);
+                if (predecessor != null) {
+                    predecessor.addSuccessor(task);
+                }
+            }
+            task.predecessorDone();
+        }
+
+        /**
+         * Wait until every submitted transaction has been applied.
+         */
+        private void awaitAll() {
+            _backlog.acquireUninterruptibly(BACKLOG_BYTES);
+            _backlog.release(BACKLOG_BYTES);
+        }
+
+        /**
+         * @return <code>true</code> if every tree updated by the transaction
+         *         already exists and none of them is a directory tree
+         */
+        private boolean isConcurrent(final TransactionRecords records) {
+            final JournalManager journalManager = _persistit.getJournalManager();
+            for (final Integer treeHandle : records.getTreeHandles()) {
+                final TreeDescriptor td = journalManager.lookupTreeHandle(treeHandle);
+                if (td == null || VolumeStructure.DIRECTORY_TREE_NAME.equals(td.getTreeName())) {
+                    return false;
+                }
+                try {
+                    final Volume volume = journalManager.volumeForHandle(td.getVolumeHandle());
+                    if (volume == null || volume.getStructure().getTreeInternal(td.getTreeName()) == null) {
+                        return false;
+                    }
+                } catch (final PersistitException e) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * <p>
+     * Applies recovered transactions in a background thread, the
+     * RECOVERY_REPLAY thread, after {@link Persistit#initialize()} has
+     * returned. The thread first reads the records of each transaction to
+     * learn which trees it updates and then applies the transactions in
+     * commit timestamp order.
+     * </p>
+     * <p>
+     * A thread that looks up a tree while transactions updating it remain
+     * to be applied waits in {@link #await(Volume, String)}. The
+     * RECOVERY_REPLAY thread then applies those transactions ahead of the
+     * others, together with every earlier transaction that updates a tree
+     * any of them updates, so that the updates to each tree are still applied
+     * in commit timestamp order. A transaction containing a record that may
+     * affect any tree is applied, along with every earlier transaction,
+     * before any waiting thread is released.
+     * </p>
+     * <p>
+     * A checkpoint certifies that the page images written before it reflect
+     * every transaction committed before it, so the {@link CheckpointManager}
+     * creates none while transactions remain to be applied. If Persistit is
+     * closed or crashes before then, the same transactions are recovered
+     * again when it is next initialized.
+     * </p>
+     */
+    private class LazyReplay implements Runnable {
+
+        private class Entry {
+            private final TransactionMapItem _item;
+            /*
+             * null if the transaction may affect any tree
+             */
+            private Set<Integer> _treeHandles;
+            private boolean _applied;
+
+            private Entry(final TransactionMapItem item) {
+                _item = item;
+            }
+        }
+
+        private final List<Entry> _entries = new ArrayList<Entry>();
+
+        private final TransactionPlayerListener _commitListener;
+
+        private final TransactionPlayerListener _rollbackListener;
+
+        private final Thread _thread;
+
+        /*
+         * Count of unapplied transactions updating each tree, by tree handle
+         */
+        private final Map<Integer, Integer> _pendingCounts = new HashMap<Integer, Integer>();
+
+        private final Map<Volume, Map<String, Integer>> _treeHandles = new HashMap<Volume, Map<String, Integer>>();
+
+        private final Set<Integer> _demandedTrees = new HashSet<Integer>();
+
+        private boolean _demanded;
+
+        private int _unknownCount;
+
+        private int _appliedCount;
+
+        private int _cursor;
+
+        private boolean _indexed;
+
+        private boolean _done;
+
+        private volatile boolean _stopped;
+
+        private LazyReplay(final SortedSet<TransactionMapItem> sorted, final TransactionPlayerListener commitListener,
+                final TransactionPlayerListener rollbackListener) {
+            for (final TransactionMapItem item : sorted) {
+                _entries.add(new Entry(item));
+            }
+            _commitListener = commitListener;
+            _rollbackListener = rollbackListener;
+            _thread = new Thread(this, "RECOVERY_REPLAY");
+            _thread.setDaemon(true);
+        }
+
+        private void start() {
+            _thread.start();
+        }
+
+        private boolean isReplayThread() {
+            return Thread.currentThread() == _thread;
+        }
+
+        private synchronized int getPendingCount() {
+            return _entries.size() - _appliedCount;
+        }
+
+        private synchronized void await(final Volume volume, final String treeName)
+                throws PersistitInterruptedException {
+            while (!_done && !isReady(volume, treeName)) {
+                try {
+                    wait();
+                } catch (final InterruptedException e) {
+                    throw new PersistitInterruptedException(e);
+                }
+            }
+        }
+
+        private synchronized void awaitDone() throws PersistitInterruptedException {
+            while (!_done) {
+                try {
+                    wait();
+                } catch (final InterruptedException e) {
+                    throw new PersistitInterruptedException(e);
+                }
+            }
+        }
+
+        /**
+         * @return <code>true</code> if every transaction updating the tree
+         *         has been applied; otherwise ask for them to be applied next
+         */
+        private boolean isReady(final Volume volume, final String treeName) {
+            if (!_indexed) {
+                return false;
+            }
+            final Map<String, Integer> handles = _treeHandles.get(volume);
+            final Integer treeHandle = handles == null ? null : handles.get(treeName);
+            if (_unknownCount == 0 && (treeHandle == null || !_pendingCounts.containsKey(treeHandle))) {
+                return true;
+            }
+            if (treeHandle != null) {
+                _demandedTrees.add(treeHandle);
+            }
+            _demanded = true;
+            return false;
+        }
+
+        private void stop() {
+            _stopped = true;
+            if (!isReplayThread()) {
+                boolean interrupted = false;
+                while (_thread.isAlive()) {
+                    try {
+                        _thread.join();
+                    } catch (final InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            boolean completed = false;
+            try {
+                index();
+                if (!awaitGate()) {
+                    return;
+                }
+                for (;;) {
+                    final List<Entry> batch = nextBatch();
+                    if (batch.isEmpty()) {
+                        completed = true;
+                        break;
+                    }
+                    for (final Entry entry : batch) {
+                        if (_stopped) {
+                            return;
+                        }
+                        apply(entry);
+                    }
+                }
+            } catch (final TestException te) {
+                // Exception thrown by a unit test to interrupt recovery
+            } finally {
+                finish(completed);
+            }
+        }
+
+        /**
+         * Wait for the gate set by
+         * {@link RecoveryManager#setLazyReplayGateForTestMode(CountDownLatch)},
+         * if any, to be released.
+         * 
+         * @return <code>false</code> if replay was stopped while waiting
+         */
+        private boolean awaitGate() {
+            final CountDownLatch gate = _lazyReplayGateForTestMode;
+            if (gate != null) {
+                try {
+                    while (!gate.await(10, TimeUnit.MILLISECONDS)) {
+                        if (_stopped) {
+                            return false;
+                        }
+                    }
+                } catch (final InterruptedException e) {
+                    return false;
+                }
+            }
+            return !_stopped;
+        }
+
+        /**
+         * Determine the trees updated by each transaction.
+         */
+        private void index() {
+            final JournalManager journalManager = _persistit.getJournalManager();
+            final Map<Integer, Integer> pendingCounts = new HashMap<Integer, Integer>();
+            final Map<Volume, Map<String, Integer>> treeHandles = new HashMap<Volume, Map<String, Integer>>();
+            int unknownCount = 0;
+            for (final Entry entry : _entries) {
+                if (_stopped) {
+                    return;
+                }
+                try {
+                    entry._treeHandles = _player.getTreeHandles(entry._item);
+                } catch (final PersistitException e) {
+                    // Reported when the transaction is applied
+                    entry._treeHandles = null;
+                }
+                if (entry._treeHandles == null) {
+                    unknownCount++;
+                    continue;
+                }
+                for (final Integer treeHandle : entry._treeHandles) {
+                    final Integer count = pendingCounts.get(treeHandle);
+                    if (count != null) {
+                        pendingCounts.put(treeHandle, count + 1);
+                        continue;
+                    }
+                    pendingCounts.put(treeHandle, 1);
+                    final TreeDescriptor td = journalManager.lookupTreeHandle(treeHandle);
+                    if (td == null) {
+                        continue;
+                    }
+                    try {
+                        final Volume volume = journalManager.volumeForHandle(td.getVolumeHandle());
+                        if (volume != null) {
+                            Map<String, Integer> handles = treeHandles.get(volume);
+                            if (handles == null) {
+                                handles = new HashMap<String, Integer>();
+                                treeHandles.put(volume, handles);
+                            }
+                            handles.put(td.getTreeName(), treeHandle);
+                        }
+                    } catch (final PersistitException e) {
+                        // Volume is no longer available; nothing to wait for
+                    }
+                }
+            }
+            synchronized (this) {
+                _pendingCounts.putAll(pendingCounts);
+                _treeHandles.putAll(treeHandles);
+                _unknownCount = unknownCount;
+                _indexed = true;
+                notifyAll();
+            }
+            _persistit.getLogBase().recoveryLazy.log(_entries.size(), pendingCounts.size());
+        }
+
+        /**
+         * @return the transactions to apply next: those required by waiting
+         *         threads if there are any, otherwise the earliest one not yet
+         *         applied
+         */
+        private synchronized List<Entry> nextBatch() {
+            if (_demanded) {
+                final List<Entry> batch = demandedEntries();
+                _demandedTrees.clear();
+                _demanded = false;
+                if (!batch.isEmpty()) {
+                    return batch;
+                }
+            }
+            while (_cursor < _entries.size() && _entries.get(_cursor)._applied) {
+                _cursor++;
+            }
+            if (_cursor < _entries.size()) {
+                return Collections.singletonList(_entries.get(_cursor));
+            }
+            return Collections.emptyList();
+        }
+
+        /**
+         * Scan the unapplied transactions backward from the latest, selecting
+         * each one that updates a demanded tree or a tree updated by a
+         * transaction already selected. A transaction that may affect any tree
+         * is always selected, as are all transactions before it.
+         * 
+         * @return the selected transactions in commit timestamp order
+         */
+        private List<Entry> demandedEntries() {
+            final Set<Integer> needed = new HashSet<Integer>(_demandedTrees);
+            final List<Entry> batch = new ArrayList<Entry>();
+            boolean all = false;
+            for (int index = _entries.size() - 1; index >= _cursor; index--) {
+                final Entry entry = _entries.get(index);
+                if (entry._applied) {
+                    continue;
+                }
+                if (all || entry._treeHandles == null || !Collections.disjoint(entry._treeHandles, needed)) {
+                    batch.add(entry);
+                    if (entry._treeHandles == null) {
+                        all = true;
+                    } else {
+                        needed.addAll(entry._treeHandles);
+                    }
+                }
+            }
+            Collections.reverse(batch);
+            return batch;
+        }
+
+        private void apply(final Entry entry) throws TestException {
+            final TransactionMapItem item = entry._item;
+            final TransactionPlayerListener listener = item.isCommitted() ? _commitListener : _rollbackListener;
+            try {
+                _player.applyTransaction(item, listener);
+                transactionApplied(item);
+            } catch (final TestException te) {
+                _persistit.getLogBase().recoveryException.log(te, item);
+                throw te;
+            } catch (final Exception e) {
+                transactionFailed(item, e);
+            }
+            synchronized (this) {
+                entry._applied = true;
+                _appliedCount++;
+                if (entry._treeHandles == null) {
+                    _unknownCount--;
+                } else {
+                    for (final Integer treeHandle : entry._treeHandles) {
+                        final int count = _pendingCounts.remove(treeHandle) - 1;
+                        if (count > 0) {
+                            _pendingCounts.put(treeHandle, count);
+                        }
+                    }
+                }
+                notifyAll();
+            }
+        }
+
+        private void finish(final boolean completed) {
+            replayFinished();
+            if (completed) {
+                _branchMap.clear();
+                try {
+                    _persistit.recoveryFinished();
+                } catch (final PersistitException e) {
+                    _persistit.getLogBase().exception.log(e);
+                }
+            } else {
+                close();
+            }
+            synchronized (this) {
+                _done = true;
+                notifyAll();
+            }
+            if (completed) {
+                _lazyReplay = null;
+            }
+        }
+    }
+
+    /**
+     * @return the recovered transactions in the order in which they should
+     *         be applied
+     */
+    private SortedSet<TransactionMapItem> sortRecoveredTransactions() {
         /*
          * If there is a checkpoint Transaction record, reset its commit
          * timestamp to the checkpoint timestamp to ensure it gets applied
@@ -1519,36 +2528,145 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
             final TransactionMapItem last = sorted.last();
             assert last.getCommitTimestamp() <= _persistit.getTimestampAllocator().getCurrentTimestamp();
         }
+        return sorted;
+    }
 
-        for (final TransactionMapItem item : sorted) {
-            final TransactionPlayerListener listener = item.isCommitted() ? commitListener : rollbackListener;
-            try {
-                if (!started) {
-                    commitListener.startRecovery(item.getStartAddress(), item.getCommitTimestamp());
-                    started = true;
-                }
+    public void applyAllRecoveredTransactions(final TransactionPlayerListener commitListener,
+            final TransactionPlayerListener rollbackListener) throws TestException {
 
-                _player.applyTransaction(item, listener);
-                if (item.isCommitted()) {
-                    _appliedTransactionCount++;
-                } else {
-                    _abortedTransactionCount++;
-                }
+        if (_recoveryDisabledForTestMode) {
+            return;
+        }
+        boolean started = false;
+        final SortedSet<TransactionMapItem> sorted = sortRecoveredTransactions();
 
-                if ((_appliedTransactionCount + _abortedTransactionCount) % APPLY_TRANSACTION_LOG_COUNT == 0) {
-                    _persistit.getLogBase().recoveryProgress.log(_appliedTransactionCount, _abortedTransactionCount,
-                            _recoveredTransactionMap.size() - _appliedTransactionCount - _abortedTransactionCount);
+        _replayStartTime = System.nanoTime();
+        _replayStartBytes = _bytesRead.get();
+        if (_replayThreadCount > 1) {
+            new ParallelReplay(_replayThreadCount).run(sorted, commitListener, rollbackListener);
+        } else {
+            for (final TransactionMapItem item : sorted) {
+                final TransactionPlayerListener listener = item.isCommitted() ? commitListener : rollbackListener;
+                try {
+                    if (!started) {
+                        commitListener.startRecovery(item.getStartAddress(), item.getCommitTimestamp());
+                        started = true;
+                    }
+                    _player.applyTransaction(item, listener);
+                    transactionApplied(item);
+                } catch (final TestException te) {
+                    // Exception thrown by a unit test to interrupt recovery
+                    _persistit.getLogBase().recoveryException.log(te, item);
+                    throw te;
+                } catch (final Exception pe) {
+                    transactionFailed(item, pe);
                 }
+            }
+        }
+        replayFinished();
+        _branchMap.clear();
+    }
+
+    /**
+     * Record the number of bytes read and the time taken by the replay phase.
+     */
+    private void replayFinished() {
+        _replayNanos = System.nanoTime() - _replayStartTime;
+        _replayBytes = _bytesRead.get() - _replayStartBytes;
+    }
+
+    /**
+     * Begin lazy recovery. The transaction holding the Accumulator snapshot
+     * of the keystone checkpoint, if any, is applied immediately; the others
+     * are applied by a background thread. Until that thread has applied
+     * every recovered transaction updating a tree, {@link Volume#getTree}
+     * waits for it to do so.
+     * 
+     * @return <code>true</code> if the background thread was started, or
+     *         <code>false</code> if there are no transactions for it to apply
+     * @throws TestException
+     */
+    boolean startLazyReplay(final TransactionPlayerListener commitListener,
+            final TransactionPlayerListener rollbackListener) throws TestException {
+        if (_recoveryDisabledForTestMode) {
+            return false;
+        }
+        final SortedSet<TransactionMapItem> sorted = sortRecoveredTransactions();
+        _replayStartTime = System.nanoTime();
+        _replayStartBytes = _bytesRead.get();
+        if (!sorted.isEmpty()) {
+            final TransactionMapItem first = sorted.first();
+            try {
+                commitListener.startRecovery(first.getStartAddress(), first.getCommitTimestamp());
+            } catch (final PersistitException e) {
+                transactionFailed(first, e);
+            }
+        }
+        final TransactionMapItem checkpointTransactionItem = _recoveredTransactionMap.get(_lastValidCheckpoint
+                .getTimestamp());
+        if (checkpointTransactionItem != null) {
+            sorted.remove(checkpointTransactionItem);
+            try {
+                _player.applyTransaction(checkpointTransactionItem, commitListener);
+                transactionApplied(checkpointTransactionItem);
             } catch (final TestException te) {
-                // Exception thrown by a unit test to interrupt recovery
-                _persistit.getLogBase().recoveryException.log(te, item);
+                _persistit.getLogBase().recoveryException.log(te, checkpointTransactionItem);
                 throw te;
-            } catch (final Exception pe) {
-                _persistit.getLogBase().recoveryException.log(pe, item);
-                _errorCount++;
+            } catch (final Exception e) {
+                transactionFailed(checkpointTransactionItem, e);
             }
         }
-        _branchMap.clear();
+        if (sorted.isEmpty()) {
+            replayFinished();
+            _branchMap.clear();
+            return false;
+        }
+        final LazyReplay replay = new LazyReplay(sorted, commitListener, rollbackListener);
+        _lazyReplay = replay;
+        replay.start();
+        return true;
+    }
+
+    /**
+     * Wait until lazy recovery has applied every recovered transaction that
+     * updates the specified tree. Returns immediately if lazy recovery is not
+     * in progress or if called by the thread applying the transactions.
+     * 
+     * @param volume
+     *            the Volume containing the tree
+     * @param treeName
+     *            name of the tree
+     * @throws PersistitInterruptedException
+     */
+    void awaitTree(final Volume volume, final String treeName) throws PersistitInterruptedException {
+        final LazyReplay replay = _lazyReplay;
+        if (replay != null && !replay.isReplayThread()) {
+            replay.await(volume, treeName);
+        }
+    }
+
+    /**
+     * Wait until lazy recovery, if in progress, has finished.
+     * 
+     * @throws PersistitInterruptedException
+     */
+    void awaitLazyReplay() throws PersistitInterruptedException {
+        final LazyReplay replay = _lazyReplay;
+        if (replay != null) {
+            replay.awaitDone();
+        }
+    }
+
+    /**
+     * Stop lazy recovery, if in progress, after the transaction currently
+     * being applied. Transactions that have not been applied remain in the
+     * journal and are recovered the next time Persistit is initialized.
+     */
+    void stopLazyReplay() {
+        final LazyReplay replay = _lazyReplay;
+        if (replay != null) {
+            replay.stop();
+        }
     }
 
     /**
@@ -1624,19 +2742,19 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
             read(_currentAddress, PA.OVERHEAD);
             final int type = PA.getType(_readBuffer);
             final int recordSize = PA.getLength(_readBuffer);
-            final int payloadSize = recordSize - PA.OVERHEAD;
+            int payloadSize = recordSize - PA.OVERHEAD;
             final int leftSize = PA.getLeftSize(_readBuffer);
             final int bufferSize = PA.getBufferSize(_readBuffer);
             final long pageAddress = PA.getPageAddress(_readBuffer);
             //
             // Verify that this is the valid and appropriate PA record
             //
-            if (type != PA.TYPE) {
+            if (type != PA.TYPE && type != PZ.TYPE) {
                 throw new CorruptJournalException("Record at " + pn.toStringJournalAddress(this)
                         + " is not a PAGE record");
             }
 
-            if (leftSize < 0 || payloadSize < leftSize || payloadSize > bufferSize) {
+            if (leftSize < 0 || payloadSize > bufferSize || type == PA.TYPE && payloadSize < leftSize) {
                 throw new CorruptJournalException("Record at " + pn.toStringJournalAddress(this)
                         + " invalid sizes: recordSize= " + payloadSize + " leftSize=" + leftSize + " bufferSize="
                         + bufferSize);
@@ -1651,7 +2769,23 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
             // Verify that this is a PAGE_TYPE_LONG_RECORD
             //
             read(_currentAddress, recordSize);
-            final int pageType = JournalRecord.getByte(_readBuffer, PA.OVERHEAD + Buffer.TYPE_OFFSET);
+            final byte[] image;
+            final int imageOffset;
+            if (type == PZ.TYPE) {
+                image = new byte[bufferSize];
+                imageOffset = 0;
+                try {
+                    payloadSize = PageImageCodec.expand(_readBuffer.array(), _readBuffer.position() + PZ.OVERHEAD,
+                            recordSize - PZ.OVERHEAD, image, 0, bufferSize);
+                } catch (final DataFormatException e) {
+                    throw new CorruptJournalException("Record at " + pn.toStringJournalAddress(this)
+                            + " has an invalid compressed page image: " + e);
+                }
+            } else {
+                image = _readBuffer.array();
+                imageOffset = _readBuffer.position() + PA.OVERHEAD;
+            }
+            final int pageType = Util.getByte(image, imageOffset + Buffer.TYPE_OFFSET);
 
             if (pageType != Buffer.PAGE_TYPE_LONG_RECORD) {
                 throw new CorruptJournalException("Long record chain contains invalid page type " + pageType
@@ -1661,13 +2795,12 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
 
             final int segmentSize = Math.min(remainingSize, payloadSize - Buffer.HEADER_SIZE);
 
-            System.arraycopy(_readBuffer.array(), _readBuffer.position() + PA.OVERHEAD + Buffer.HEADER_SIZE,
-                    value.getEncodedBytes(), offset, segmentSize);
+            System.arraycopy(image, imageOffset + Buffer.HEADER_SIZE, value.getEncodedBytes(), offset, segmentSize);
             offset += segmentSize;
             remainingSize -= segmentSize;
 
             // Next page in chain
-            page = JournalRecord.getLong(_readBuffer, PA.OVERHEAD + Buffer.RIGHT_SIBLING_OFFSET);
+            page = Util.getLong(image, imageOffset + Buffer.RIGHT_SIBLING_OFFSET);
 
             if (count > Buffer.MAX_LONG_RECORD_CHAIN) {
                 throw new CorruptJournalException("Long record chain has more than " + Buffer.MAX_LONG_RECORD_CHAIN
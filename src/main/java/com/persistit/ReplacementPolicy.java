@@ -0,0 +1,343 @@
+/**
+ * Copyright 2012 Akiban Technologies, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.persistit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * Strategy used by a {@link BufferPool} to choose which valid page to evict
+ * when no invalid buffer is available. The <code>BufferPool</code> owns the
+ * clock hand and performs all claiming, writing and detaching of buffers; the
+ * policy only decides whether the buffer currently under the clock hand should
+ * be passed over, and is notified when pages enter and leave the pool.
+ * </p>
+ * <p>
+ * Two policies are available:
+ * <dl>
+ * <dt>{@value #CLOCK_NAME}</dt>
+ * <dd>The classic single-hand clock with a touched bit. This is the default.</dd>
+ * <dt>{@value #TWO_QUEUE_NAME}</dt>
+ * <dd>A clock approximation of the 2Q algorithm. Newly loaded pages enter a
+ * <i>probation</i> segment and are evicted in clock order regardless of how
+ * often they were touched while resident. A page evicted from probation leaves
+ * a <i>ghost</i> entry behind; if the same page is loaded again while its ghost
+ * is remembered it is admitted to the <i>protected</i> segment, where the
+ * ordinary touched-bit clock applies. A single large traversal therefore
+ * cycles through the probation segment without displacing the protected
+ * working set.</dd>
+ * </dl>
+ * </p>
+ * 
+ * @author peter
+ */
+abstract class ReplacementPolicy {
+
+    /**
+     * Name of the classic clock replacement policy
+     */
+    final static String CLOCK_NAME = "CLOCK";
+
+    /**
+     * Name of the scan-resistant 2Q replacement policy
+     */
+    final static String TWO_QUEUE_NAME = "2Q";
+
+    /**
+     * Name of the policy used when none is specified
+     */
+    final static String DEFAULT_NAME = CLOCK_NAME;
+
+    private final static String[] NAMES = { CLOCK_NAME, TWO_QUEUE_NAME };
+
+    /**
+     * Number of full clock cycles after which a policy should stop passing
+     * over buffers for any reason other than the touched bit.
+     */
+    final static int DESPERATE_PASS = 2;
+
+    private final AtomicLong _ghostHitCounter = new AtomicLong();
+
+    /**
+     * Return the canonical form of a policy name.
+     * 
+     * @param name
+     *            the name, case-insensitive
+     * @return the canonical name
+     * @throws IllegalArgumentException
+     *             if there is no such policy
+     */
+    static String canonicalName(final String name) {
+        for (final String candidate : NAMES) {
+            if (candidate.equalsIgnoreCase(name)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("No such ReplacementPolicy " + name);
+    }
+
+    /**
+     * Construct a new policy instance for a pool of the specified size.
+     * 
+     * @param name
+     *            the policy name, case-insensitive
+     * @param bufferCount
+     *            number of buffers in the pool
+     * @return the policy
+     */
+    static ReplacementPolicy forName(final String name, final int bufferCount) {
+        final String canonical = canonicalName(name);
+        if (TWO_QUEUE_NAME.equals(canonical)) {
+            return new TwoQueue(bufferCount);
+        } else {
+            return new Clock();
+        }
+    }
+
+    /**
+     * Determine whether the buffer under the clock hand should be passed over
+     * rather than evicted. This method is called without a claim on the
+     * buffer.
+     * 
+     * @param buffer
+     *            the candidate buffer
+     * @param pass
+     *            the number of complete clock cycles already made during this
+     *            allocation
+     * @return <code>true</code> if the buffer should not be evicted now
+     */
+    abstract boolean skip(Buffer buffer, int pass);
+
+    /**
+     * Called when a buffer has been assigned a new page address and volume, by
+     * either reading an existing page or creating a new one.
+     * 
+     * @param buffer
+     *            the buffer
+     */
+    void admitted(final Buffer buffer) {
+    }
+
+    /**
+     * Called when the page in a buffer leaves the pool. The buffer still
+     * identifies the departing page.
+     * 
+     * @param buffer
+     *            the buffer
+     * @param replaced
+     *            <code>true</code> if the page was evicted to make room for
+     *            another page, <code>false</code> if it was invalidated
+     */
+    void removed(final Buffer buffer, final boolean replaced) {
+    }
+
+    /**
+     * Return the policy to be used after the pool has been resized. The
+     * <code>BufferPool</code> calls this method before buffers with new
+     * indexes become eligible for allocation, and after buffers with indexes
+     * beyond the new count have been removed.
+     * 
+     * @param bufferCount
+     *            the new number of buffers in the pool
+     * @return a policy for the resized pool, possibly this one
+     */
+    ReplacementPolicy resized(final int bufferCount) {
+        return this;
+    }
+
+    /**
+     * @return the number of buffers currently in the protected segment
+     */
+    int getProtectedCount() {
+        return 0;
+    }
+
+    /**
+     * @return the number of pages admitted because they were still remembered
+     *         from a recent eviction
+     */
+    long getGhostHitCounter() {
+        return _ghostHitCounter.get();
+    }
+
+    void bumpGhostHitCounter() {
+        _ghostHitCounter.incrementAndGet();
+    }
+
+    void resetCounters() {
+        _ghostHitCounter.set(0);
+    }
+
+    void copyCounters(final ReplacementPolicy policy) {
+        _ghostHitCounter.set(policy.getGhostHitCounter());
+    }
+
+    /**
+     * Classic clock: pass over a touched buffer once, clearing its touched bit.
+     */
+    static class Clock extends ReplacementPolicy {
+
+        @Override
+        boolean skip(final Buffer buffer, final int pass) {
+            if (buffer.isTouched()) {
+                buffer.clearTouched();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return CLOCK_NAME;
+        }
+    }
+
+    /**
+     * Clock-based approximation of 2Q with a fixed-size table of ghost entries.
+     */
+    static class TwoQueue extends ReplacementPolicy {
+
+        /**
+         * Minimum share of the pool reserved for the probation segment
+         */
+        private final static int PROBATION_RATIO = 4;
+
+        /**
+         * Number of ghost entries per buffer, expressed as a divisor
+         */
+        private final static int GHOST_RATIO = 2;
+
+        private final int _bufferCount;
+
+        private final int _probationMinimum;
+
+        private final AtomicIntegerArray _protected;
+
+        private final AtomicInteger _protectedCount = new AtomicInteger();
+
+        private final AtomicLongArray _ghosts;
+
+        TwoQueue(final int bufferCount) {
+            _bufferCount = bufferCount;
+            _probationMinimum = bufferCount / PROBATION_RATIO;
+            _protected = new AtomicIntegerArray(bufferCount);
+            _ghosts = new AtomicLongArray(Math.max(1, bufferCount / GHOST_RATIO));
+        }
+
+        /**
+         * Construct a policy for a resized pool, carrying over the protected
+         * segment membership of buffers that remain in the pool and the
+         * remembered ghost entries.
+         */
+        private TwoQueue(final int bufferCount, final TwoQueue policy) {
+            this(bufferCount);
+            copyCounters(policy);
+            final int limit = Math.min(bufferCount, policy._protected.length());
+            int protectedCount = 0;
+            for (int index = 0; index < limit; index++) {
+                if (policy._protected.get(index) != 0) {
+                    _protected.set(index, 1);
+                    protectedCount++;
+                }
+            }
+            _protectedCount.set(protectedCount);
+            for (int index = 0; index < policy._ghosts.length(); index++) {
+                final long fingerprint = policy._ghosts.get(index);
+                if (fingerprint != 0) {
+                    _ghosts.set(slot(fingerprint), fingerprint);
+                }
+            }
+        }
+
+        @Override
+        ReplacementPolicy resized(final int bufferCount) {
+            return new TwoQueue(bufferCount, this);
+        }
+
+        @Override
+        boolean skip(final Buffer buffer, final int pass) {
+            if (!buffer.isValid()) {
+                return false;
+            }
+            final boolean probationFull = _bufferCount - _protectedCount.get() > _probationMinimum;
+            if (_protected.get(buffer.getIndex()) != 0) {
+                if (buffer.isTouched()) {
+                    buffer.clearTouched();
+                    return true;
+                }
+                return probationFull && pass < DESPERATE_PASS;
+            } else {
+                buffer.clearTouched();
+                return !probationFull && pass == 0;
+            }
+        }
+
+        @Override
+        void admitted(final Buffer buffer) {
+            final long fingerprint = fingerprint(buffer);
+            final int slot = slot(fingerprint);
+            final boolean ghost = _ghosts.get(slot) == fingerprint && _ghosts.compareAndSet(slot, fingerprint, 0);
+            if (ghost) {
+                bumpGhostHitCounter();
+                if (_protected.compareAndSet(buffer.getIndex(), 0, 1)) {
+                    _protectedCount.incrementAndGet();
+                }
+            } else {
+                unprotect(buffer);
+            }
+        }
+
+        @Override
+        void removed(final Buffer buffer, final boolean replaced) {
+            if (!unprotect(buffer) && replaced) {
+                final long fingerprint = fingerprint(buffer);
+                _ghosts.set(slot(fingerprint), fingerprint);
+            }
+        }
+
+        @Override
+        int getProtectedCount() {
+            return _protectedCount.get();
+        }
+
+        private boolean unprotect(final Buffer buffer) {
+            if (_protected.compareAndSet(buffer.getIndex(), 1, 0)) {
+                _protectedCount.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        private long fingerprint(final Buffer buffer) {
+            final long fingerprint = buffer.getVolumeId() * 0x9E3779B97F4A7C15L ^ buffer.getPageAddress();
+            return fingerprint == 0 ? 1 : fingerprint;
+        }
+
+        private int slot(final long fingerprint) {
+            return (int) ((fingerprint ^ (fingerprint >>> 32)) & Integer.MAX_VALUE) % _ghosts.length();
+        }
+
+        @Override
+        public String toString() {
+            return TWO_QUEUE_NAME;
+        }
+    }
+}
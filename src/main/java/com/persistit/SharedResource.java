@@ -78,6 +78,18 @@ abstract class SharedResource {
      */
     final static int TOUCHED_MASK = 0x08000000;
 
+    /**
+     * Status field mask indicating a resource (a Buffer) was loaded by
+     * read-ahead and has not yet been requested by an application thread.
+     */
+    final static int PREFETCHED_MASK = 0x10000000;
+
+    /**
+     * Status field mask indicating a resource (a Buffer) is held in the free
+     * buffer reserve of its pool.
+     */
+    final static int RESERVED_MASK = 0x20000000;
+
     /**
      * Mask for bit field indicating that resource (a Buffer) should not be
      * replaced. The buffer houses a Volume's head page.
@@ -375,6 +387,30 @@ abstract class SharedResource {
         return _sync.testBitsInState(TOUCHED_MASK);
     }
 
+    void setPrefetched() {
+        _sync.setBitsInState(PREFETCHED_MASK);
+    }
+
+    boolean clearPrefetched() {
+        return _sync.clearBitsInState(PREFETCHED_MASK);
+    }
+
+    boolean isPrefetched() {
+        return _sync.testBitsInState(PREFETCHED_MASK);
+    }
+
+    boolean setReserved() {
+        return _sync.setBitsInState(RESERVED_MASK);
+    }
+
+    boolean clearReserved() {
+        return _sync.clearBitsInState(RESERVED_MASK);
+    }
+
+    boolean isReserved() {
+        return _sync.testBitsInState(RESERVED_MASK);
+    }
+
     public long getGeneration() {
         return _generation.get();
     }
@@ -0,0 +1,340 @@
+/**
+ * Copyright 2012 Akiban Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * A {@link FileChannel} that stripes one logical file across several physical
+ * files, normally residing on different devices. The logical file is divided
+ * into units of <code>stripeSize</code> bytes which are assigned to the
+ * physical files round-robin: unit <i>n</i> is stored in file <i>n</i> modulo
+ * the number of files. Each physical file is accessed through a
+ * {@link MediatedFileChannel}.
+ * </p>
+ * <p>
+ * The channel remembers which physical files have been written since they
+ * were last forced. {@link #force(boolean)} forces only those files, and when
+ * there is more than one it forces them concurrently using the supplied
+ * <code>ExecutorService</code>, so that the time required is that of the
+ * slowest device rather than the sum of all of them.
+ * </p>
+ * <p>
+ * As with <code>MediatedFileChannel</code>, methods that depend on the
+ * channel's file position are unsupported, as are memory mapping and
+ * locking.
+ * </p>
+ *
+ * @author peter
+ */
+class StripedFileChannel extends FileChannel {
+
+    private final FileChannel[] _stripes;
+
+    private final int _stripeSize;
+
+    private final ExecutorService _forcer;
+
+    private final AtomicLongArray _writeCounts;
+
+    private final AtomicLongArray _forcedCounts;
+
+    /**
+     * @param files
+     *            the physical files, in stripe order
+     * @param mode
+     *            the {@link java.io.RandomAccessFile} access mode
+     * @param stripeSize
+     *            size of each stripe unit in bytes
+     * @param forcer
+     *            ExecutorService used to force files concurrently, or
+     *            <code>null</code> to force them one at a time
+     * @throws IOException
+     *             if any physical file cannot be opened
+     */
+    StripedFileChannel(final File[] files, final String mode, final int stripeSize, final ExecutorService forcer)
+            throws IOException {
+        _stripes = new FileChannel[files.length];
+        _stripeSize = stripeSize;
+        _forcer = forcer;
+        _writeCounts = new AtomicLongArray(files.length);
+        _forcedCounts = new AtomicLongArray(files.length);
+        try {
+            for (int stripe = 0; stripe < files.length; stripe++) {
+                _stripes[stripe] = new MediatedFileChannel(files[stripe], mode);
+            }
+        } catch (final IOException e) {
+            for (final FileChannel channel : _stripes) {
+                if (channel != null) {
+                    channel.close();
+                }
+            }
+            throw e;
+        }
+    }
+
+    int getStripeCount() {
+        return _stripes.length;
+    }
+
+    private int stripe(final long position) {
+        return (int) ((position / _stripeSize) % _stripes.length);
+    }
+
+    private long physicalPosition(final long position) {
+        return (position / _stripeSize / _stripes.length) * _stripeSize + position % _stripeSize;
+    }
+
+    /**
+     * @return the number of bytes of a logical file of the supplied size that
+     *         are stored in the specified stripe
+     */
+    long physicalSize(final int stripe, final long size) {
+        final long units = size / _stripeSize;
+        final long fullRounds = units / _stripes.length;
+        final int partial = (int) (units % _stripes.length);
+        long physical = fullRounds * _stripeSize;
+        if (stripe < partial) {
+            physical += _stripeSize;
+        } else if (stripe == partial) {
+            physical += size % _stripeSize;
+        }
+        return physical;
+    }
+
+    @Override
+    public int read(final ByteBuffer byteBuffer, final long position) throws IOException {
+        final int limit = byteBuffer.limit();
+        int total = 0;
+        try {
+            while (byteBuffer.position() < limit) {
+                final long logical = position + total;
+                final int length = (int) Math.min(limit - byteBuffer.position(), _stripeSize - logical % _stripeSize);
+                byteBuffer.limit(byteBuffer.position() + length);
+                final int count = _stripes[stripe(logical)].read(byteBuffer, physicalPosition(logical));
+                if (count < 0) {
+                    return total == 0 ? -1 : total;
+                }
+                total += count;
+                if (count < length) {
+                    break;
+                }
+            }
+        } finally {
+            byteBuffer.limit(limit);
+        }
+        return total;
+    }
+
+    @Override
+    public int write(final ByteBuffer byteBuffer, final long position) throws IOException {
+        final int limit = byteBuffer.limit();
+        int total = 0;
+        try {
+            while (byteBuffer.position() < limit) {
+                final long logical = position + total;
+                final int stripe = stripe(logical);
+                final int length = (int) Math.min(limit - byteBuffer.position(), _stripeSize - logical % _stripeSize);
+                byteBuffer.limit(byteBuffer.position() + length);
+                int written = 0;
+                while (written < length) {
+                    written += _stripes[stripe].write(byteBuffer, physicalPosition(logical) + written);
+                }
+                _writeCounts.incrementAndGet(stripe);
+                total += written;
+            }
+        } finally {
+            byteBuffer.limit(limit);
+        }
+        return total;
+    }
+
+    @Override
+    public void force(final boolean metaData) throws IOException {
+        final List<Integer> dirty = new ArrayList<Integer>(_stripes.length);
+        final long[] counts = new long[_stripes.length];
+        for (int stripe = 0; stripe < _stripes.length; stripe++) {
+            counts[stripe] = _writeCounts.get(stripe);
+            if (metaData || counts[stripe] != _forcedCounts.get(stripe)) {
+                dirty.add(stripe);
+            }
+        }
+        if (dirty.isEmpty()) {
+            return;
+        }
+        /*
+         * Force the first file in this thread and the others concurrently in
+         * the forcer's threads.
+         */
+        final int inline = _forcer == null ? dirty.size() : 1;
+        final List<Future<Void>> futures = new ArrayList<Future<Void>>(dirty.size() - inline);
+        for (final Integer stripe : dirty.subList(inline, dirty.size())) {
+            futures.add(_forcer.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    _stripes[stripe].force(metaData);
+                    return null;
+                }
+            }));
+        }
+        IOException exception = null;
+        for (final Integer stripe : dirty.subList(0, inline)) {
+            try {
+                _stripes[stripe].force(metaData);
+            } catch (final IOException e) {
+                exception = e;
+            }
+        }
+        for (final Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                exception = new InterruptedIOException();
+            } catch (final ExecutionException e) {
+                exception = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e
+                        .getCause());
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+        for (final Integer stripe : dirty) {
+            _forcedCounts.set(stripe, counts[stripe]);
+        }
+    }
+
+    /**
+     * @return the size of the logical file, i.e., one more than the position
+     *         of the last byte stored in any stripe
+     */
+    @Override
+    public long size() throws IOException {
+        long size = 0;
+        for (int stripe = 0; stripe < _stripes.length; stripe++) {
+            final long physical = _stripes[stripe].size();
+            if (physical > 0) {
+                final long last = physical - 1;
+                final long unit = (last / _stripeSize) * _stripes.length + stripe;
+                size = Math.max(size, unit * _stripeSize + last % _stripeSize + 1);
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public FileChannel truncate(final long size) throws IOException {
+        for (int stripe = 0; stripe < _stripes.length; stripe++) {
+            _stripes[stripe].truncate(physicalSize(stripe, size));
+        }
+        return this;
+    }
+
+    @Override
+    protected void implCloseChannel() throws IOException {
+        IOException exception = null;
+        for (final FileChannel channel : _stripes) {
+            try {
+                channel.close();
+            } catch (final IOException e) {
+                exception = e;
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    /*
+     * --------------------------------
+     *
+     * Persistit does not use these methods on striped files and so they are
+     * Unsupported.
+     *
+     * --------------------------------
+     */
+    @Override
+    public MappedByteBuffer map(final MapMode arg0, final long arg1, final long arg2) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public FileLock lock(final long position, final long size, final boolean shared) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public FileLock tryLock(final long position, final long size, final boolean shared) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public FileChannel position(final long arg0) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int read(final ByteBuffer arg0) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long read(final ByteBuffer[] arg0, final int arg1, final int arg2) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long transferFrom(final ReadableByteChannel arg0, final long arg1, final long arg2) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long transferTo(final long arg0, final long arg1, final WritableByteChannel arg2) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int write(final ByteBuffer arg0) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long write(final ByteBuffer[] arg0, final int arg1, final int arg2) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+}
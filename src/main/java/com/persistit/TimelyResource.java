@@ -83,7 +83,7 @@ public class TimelyResource<V extends Version> {
         if (txn == null || !txn.isActive()) {
             return tss2vh(_persistit.getTimestampAllocator().updateTimestamp(), 0);
         } else {
-            return tss2vh(txn.getStartTimestamp(), txn.getStep());
+            return tss2vh(txn.getStartTimestamp(), txn.getReadStep());
         }
     }
 
@@ -414,6 +414,12 @@ public class Transaction {
 
     final static int TRANSACTION_BUFFER_SIZE = 65536;
 
+    /**
+     * Step used to compute commit status on behalf of a read-only
+     * transaction. See {@link TransactionIndex#beginReadOnly}.
+     */
+    final static int READ_ONLY_STEP = -1;
+
     private static long _idCounter = 100000000;
 
     private final Persistit _persistit;
@@ -424,6 +430,7 @@ public class Transaction {
     private volatile boolean _rollbackPending;
     private volatile boolean _rollbackCompleted;
     private volatile boolean _commitCompleted;
+    private volatile boolean _readOnly;
 
     private volatile long _rollbackCount = 0;
     private volatile long _commitCount = 0;
@@ -439,6 +446,8 @@ public class Transaction {
 
     private int _step;
 
+    private TransactionIndex.ReadOnlySnapshot _readOnlySnapshot;
+
     private String _threadName;
 
     private final Set<CleanupAction> _lockCleanupActions = new HashSet<CleanupAction>();
@@ -521,6 +530,10 @@ public class Transaction {
                 _persistit.getLogBase().txnAbandoned.log(this);
             }
         }
+        if (_readOnlySnapshot != null) {
+            _persistit.getTransactionIndex().releaseReadOnlySnapshot(_readOnlySnapshot);
+            _readOnlySnapshot = null;
+        }
         /*
          * The background rollback cleanup should be stopped before calling this
          * method so the following check is deterministic.
@@ -554,6 +567,16 @@ public class Transaction {
         return _nestedDepth > 0;
     }
 
+    /**
+     * Indicates whether the current transaction scope was begun by
+     * {@link #beginReadOnly()}.
+     * 
+     * @return <code>true</code> if a read-only transaction is active
+     */
+    public boolean isReadOnly() {
+        return _nestedDepth > 0 && _readOnly;
+    }
+
     /**
      * Indicates whether the {@link #commit} method has run to successful
      * completion at the current nested level. If that level is 1, then
@@ -607,6 +630,7 @@ public class Transaction {
                 _rollbackCompleted = true;
                 throw new PersistitInterruptedException(e);
             }
+            _readOnly = false;
             _rollbackPending = false;
             _rollbackCompleted = false;
             _startTimestamp = _transactionStatus.getTs();
@@ -619,6 +643,60 @@ public class Transaction {
         _nestedDepth++;
     }
 
+    /**
+     * <p>
+     * Start a read-only transaction. A read-only transaction reads a snapshot
+     * of the database containing the updates of every transaction that
+     * committed before it began, exactly as a transaction started by
+     * {@link #begin()} does, but it is much less expensive. It allocates no
+     * timestamp, does not register in the transaction index and writes
+     * nothing to the journal when it commits.
+     * </p>
+     * <p>
+     * Any attempt to update the database within a read-only transaction fails:
+     * an attempt to store or remove data throws a
+     * {@link com.persistit.exception.ReadOnlyTransactionException}, and an
+     * attempt to update an {@link Accumulator} throws an
+     * <code>IllegalStateException</code>.
+     * </p>
+     * <p>
+     * As with <code>begin</code>, if there already is an active transaction
+     * this method merely increments the nesting counter; the transaction
+     * remains read-only or not according to how its outermost scope began.
+     * Application code should end a read-only transaction with
+     * <code>commit</code> and <code>end</code> in the usual way.
+     * </p>
+     * 
+     * @throws IllegalStateException
+     *             if the current transaction scope has already been committed.
+     */
+    public void beginReadOnly() throws PersistitException {
+        if (_commitCompleted) {
+            throw new IllegalStateException("Attempt to begin a committed transaction " + this);
+        }
+        if (_rollbackPending) {
+            throw new IllegalStateException("Attempt to begin a transaction with pending rollback" + this);
+        }
+        if (_nestedDepth == 0) {
+            flushTransactionBuffer(false);
+            final TransactionIndex transactionIndex = _persistit.getTransactionIndex();
+            if (_readOnlySnapshot == null) {
+                _readOnlySnapshot = transactionIndex.newReadOnlySnapshot();
+            }
+            _transactionStatus = null;
+            _readOnly = true;
+            _rollbackPending = false;
+            _rollbackCompleted = false;
+            _startTimestamp = transactionIndex.beginReadOnly(_readOnlySnapshot);
+            _commitTimestamp = 0;
+            _step = 0;
+            _threadName = Thread.currentThread().getName();
+        } else {
+            checkPendingRollback();
+        }
+        _nestedDepth++;
+    }
+
     void beginCheckpoint() throws PersistitException {
         if (_commitCompleted) {
             throw new IllegalStateException("Attempt to begin a committed transaction " + this);
@@ -634,6 +712,7 @@ public class Transaction {
                 _rollbackCompleted = true;
                 throw new PersistitInterruptedException(e);
             }
+            _readOnly = false;
             _rollbackPending = false;
             _rollbackCompleted = false;
             _startTimestamp = _transactionStatus.getTs();
@@ -725,7 +804,12 @@ public class Transaction {
 
         _rollbackPending = true;
 
-        if (!_rollbackCompleted) {
+        if (!_rollbackCompleted && _readOnly) {
+            _rollbackCount++;
+            _rollbacksSinceLastCommit++;
+            _persistit.getTransactionIndex().endReadOnly(_readOnlySnapshot);
+            _rollbackCompleted = true;
+        } else if (!_rollbackCompleted) {
             _rollbackCount++;
             _rollbacksSinceLastCommit++;
             _transactionStatus.abort();
@@ -850,6 +934,65 @@ public class Transaction {
      * 
      */
     public void commit(final CommitPolicy policy) throws PersistitException {
+        final long flushedTimestamp = doCommit();
+        if (flushedTimestamp != 0) {
+            _persistit.getJournalManager().waitForDurability(flushedTimestamp,
+                    policy == CommitPolicy.SOFT ? _persistit.getTransactionCommitLeadTime() : 0,
+                    policy == CommitPolicy.GROUP ? _persistit.getTransactionCommitStallTime() : 0);
+        }
+    }
+
+    /**
+     * <p>
+     * Commit this transaction without waiting for its updates to become
+     * durable. Like {@link #commit(CommitPolicy)} with
+     * {@link CommitPolicy#SOFT}, this method makes the effects of the
+     * transaction visible to other transactions before returning. Unlike it,
+     * this method returns a {@link CommitFuture} that completes once the
+     * JOURNAL_FLUSHER thread has written the transaction durably to disk, so
+     * that a server can acknowledge the commit to its client at that time
+     * without dedicating a thread to waiting for it.
+     * </p>
+     * <p>
+     * If executed within the scope of an outer transaction this method, like
+     * {@link #commit(CommitPolicy)}, only marks the current transaction level
+     * as committed and returns a CommitFuture that has already completed; the
+     * handle returned by the commit of the outermost scope represents the
+     * durability of the changes.
+     * </p>
+     * <p>
+     * As with <code>commit</code>, no further Persistit database operations
+     * are permitted in this transaction until the <code>end</code> method has
+     * been called. The CommitFuture remains valid after <code>end</code>.
+     * </p>
+     * 
+     * @return a CommitFuture that completes when the transaction is durable,
+     *         or completes exceptionally if the JOURNAL_FLUSHER fails to write
+     *         the journal
+     * 
+     * @throws PersistitIOException
+     *             if the transaction could not be written to the journal due to
+     *             an IOException. This exception also causes the transaction to
+     *             be rolled back.
+     * 
+     * @throws RollbackException
+     *             if the {@link #rollback()} was previously called
+     * 
+     * @throws IllegalStateException
+     *             if no transaction scope is active or this transaction scope
+     *             has already called <code>commit</code>
+     */
+    public CommitFuture commitAsync() throws PersistitException {
+        return _persistit.getJournalManager().durabilityFuture(doCommit());
+    }
+
+    /**
+     * Perform the commit without waiting for durability.
+     * 
+     * @return the timestamp the JOURNAL_FLUSHER must pass for the commit to be
+     *         durable, or zero if there is nothing to wait for
+     */
+    private long doCommit() throws PersistitException {
         checkActive();
 
         if (_commitCompleted) {
@@ -861,6 +1004,14 @@ public class Transaction {
             if (_rollbackCompleted) {
                 throw new IllegalStateException("Already rolled back " + this);
             }
+            if (_readOnly) {
+                /*
+                 * Nothing to write or to make visible
+                 */
+                _persistit.getTransactionIndex().endReadOnly(_readOnlySnapshot);
+                _commitCompleted = true;
+                return 0;
+            }
             for (Delta delta = _transactionStatus.getDelta(); delta != null; delta = delta.getNext()) {
                 writeDeltaToJournal(delta);
             }
@@ -890,12 +1041,9 @@ public class Transaction {
             }
 
             _persistit.getJournalManager().throttle();
-            if (flushedTimetimestamp != 0) {
-                _persistit.getJournalManager().waitForDurability(flushedTimetimestamp,
-                        policy == CommitPolicy.SOFT ? _persistit.getTransactionCommitLeadTime() : 0,
-                        policy == CommitPolicy.GROUP ? _persistit.getTransactionCommitStallTime() : 0);
-            }
+            return flushedTimetimestamp;
         }
+        return 0;
     }
 
     /**
@@ -1036,6 +1184,8 @@ public class Transaction {
         final long ts = getStartTimestamp();
         if (status != null && status.getTs() == ts) {
             return status.toString();
+        } else if (isReadOnly()) {
+            return String.format("<read-only snapshot %,d>", ts);
         } else {
             return "<not running>";
         }
@@ -1256,6 +1406,9 @@ public class Transaction {
     }
 
     TransactionStatus getTransactionStatus() {
+        if (isReadOnly()) {
+            throw new IllegalStateException("Read-only transaction cannot update the database " + this);
+        }
         final TransactionStatus ts = _transactionStatus;
         if (_nestedDepth > 0 && ts != null && ts.getTs() == _startTimestamp) {
             return ts;
@@ -1271,6 +1424,14 @@ public class Transaction {
         return _step;
     }
 
+    /**
+     * @return the step with which to compute the commit status of versions
+     *         read by this transaction
+     */
+    int getReadStep() {
+        return _readOnly ? READ_ONLY_STEP : _step;
+    }
+
     /**
      * Set the current step index. Must be in the range [0, 99].
      * <p>
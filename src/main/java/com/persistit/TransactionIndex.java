@@ -25,6 +25,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
@@ -139,6 +140,20 @@ class TransactionIndex implements TransactionIndexMXBean {
      */
     private volatile ActiveTransactionCache _atCache;
 
+    /**
+     * Snapshots of the read-only transactions of all sessions that have begun
+     * one
+     */
+    private final List<ReadOnlySnapshot> _readOnlySnapshots = new CopyOnWriteArrayList<ReadOnlySnapshot>();
+
+    /**
+     * Count of ActiveTransactionCache recomputations, incremented after each
+     * has allocated its timestamp. Used by
+     * {@link #beginReadOnly(ReadOnlySnapshot)} to detect a race with
+     * {@link ActiveTransactionCache#recompute()}.
+     */
+    private volatile long _recomputeCount;
+
     private final AtomicLong _deadlockCounter = new AtomicLong();
 
     private final AtomicLong _accumulatorSnapshotRetryCounter = new AtomicLong();
@@ -173,6 +188,27 @@ class TransactionIndex implements TransactionIndexMXBean {
         }
     }
 
+    /**
+     * <p>
+     * Snapshot timestamp of a read-only transaction. A read-only transaction
+     * has no TransactionStatus and does not register in a
+     * TransactionIndexBucket. Instead each session that begins one owns an
+     * instance of this class holding the snapshot timestamp of its current
+     * read-only transaction, or zero if there is none. The
+     * {@link ActiveTransactionCache} treats each snapshot like the start
+     * timestamp of an active transaction, so that neither the versions nor the
+     * TransactionStatus instances the read-only transaction may need are
+     * discarded while it runs.
+     * </p>
+     */
+    static class ReadOnlySnapshot {
+        private volatile long _timestamp;
+
+        long getTimestamp() {
+            return _timestamp;
+        }
+    }
+
     /**
      * <p>
      * Cached copy of currently active transactions. Instances of this class
@@ -236,6 +272,7 @@ class TransactionIndex implements TransactionIndexMXBean {
         void recompute() {
             _count = 0;
             final long timestampAtStart = _timestampAllocator.updateTimestamp();
+            _recomputeCount++;
             long floor = timestampAtStart;
             for (final TransactionIndexBucket bucket : _hashTable) {
                 if (bucket.getCurrent() != null || bucket.getLongRunning() != null) {
@@ -266,6 +303,15 @@ class TransactionIndex implements TransactionIndexMXBean {
                     }
                 }
             }
+            for (final ReadOnlySnapshot snapshot : _readOnlySnapshots) {
+                final long ts = snapshot.getTimestamp();
+                if (ts != 0 && ts <= timestampAtStart) {
+                    add(ts);
+                    if (ts < floor) {
+                        floor = ts;
+                    }
+                }
+            }
             Arrays.sort(_tsArray, 0, _count);
             _ceiling = timestampAtStart;
             _floor = floor;
@@ -597,6 +643,72 @@ class TransactionIndex implements TransactionIndexMXBean {
         return status;
     }
 
+    /**
+     * @return a new ReadOnlySnapshot for a session that begins read-only
+     *         transactions
+     */
+    ReadOnlySnapshot newReadOnlySnapshot() {
+        final ReadOnlySnapshot snapshot = new ReadOnlySnapshot();
+        _readOnlySnapshots.add(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Discard a ReadOnlySnapshot when its session is closed.
+     * 
+     * @param snapshot
+     *            the ReadOnlySnapshot
+     */
+    void releaseReadOnlySnapshot(final ReadOnlySnapshot snapshot) {
+        _readOnlySnapshots.remove(snapshot);
+    }
+
+    /**
+     * <p>
+     * Begin a read-only transaction. Its snapshot timestamp is one greater
+     * than the current timestamp, so that it sees the updates of every
+     * transaction that committed before this method was called. No timestamp
+     * is allocated and no bucket is locked; the snapshot is merely published
+     * in the supplied ReadOnlySnapshot.
+     * </p>
+     * <p>
+     * Because no timestamp is allocated, a transaction that begins later may
+     * have a start timestamp equal to the snapshot. Commit status for the
+     * read-only transaction must therefore be computed with a step of -1 so
+     * that versions written by that transaction are not mistaken for its own.
+     * </p>
+     * <p>
+     * The snapshot is published before it is used. If an
+     * ActiveTransactionCache recomputation allocated its timestamp while the
+     * snapshot was being published, it may have missed it, and the snapshot is
+     * taken again.
+     * </p>
+     * 
+     * @param snapshot
+     *            the session's ReadOnlySnapshot
+     * @return the snapshot timestamp
+     */
+    long beginReadOnly(final ReadOnlySnapshot snapshot) {
+        long count;
+        long timestamp;
+        do {
+            count = _recomputeCount;
+            timestamp = _timestampAllocator.getCurrentTimestamp() + 1;
+            snapshot._timestamp = timestamp;
+        } while (count != _recomputeCount);
+        return timestamp;
+    }
+
+    /**
+     * End a read-only transaction.
+     * 
+     * @param snapshot
+     *            the session's ReadOnlySnapshot
+     */
+    void endReadOnly(final ReadOnlySnapshot snapshot) {
+        snapshot._timestamp = 0;
+    }
+
     /**
      * Notify the TransactionIndex that the specified Transaction has committed
      * or aborted. This method allows the TransactionIndex to awaken any threads
@@ -146,9 +146,13 @@ class TransactionIndexBucket {
     long _activeTransactionFloor;
     /**
      * Lock used to prevent multi-threaded access to the lists in this
-     * structure. Fair to prevent barging.
+     * structure. The lock is held only briefly, so it is not fair: a fair lock
+     * hands itself to the longest waiting thread, which must then be scheduled
+     * before any other thread can proceed, and short transactions hashing to
+     * the same bucket form a convoy behind it. Barging threads acquire and
+     * release it in far less time.
      */
-    ReentrantLock _lock = new ReentrantLock(true);
+    final ReentrantLock _lock = new ReentrantLock();
     /**
      * Singly-linked list of Delta objects available for reuse
      */
@@ -20,7 +20,10 @@ import static com.persistit.TransactionIndex.ts2vh;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.persistit.AlertMonitor.AlertLevel;
@@ -73,6 +76,121 @@ class TransactionPlayer {
         boolean createTree(long timestamp) throws PersistitException;
     }
 
+    /**
+     * The TX records of one transaction, copied out of the journal so that the
+     * transaction can be applied by a thread other than the one reading the
+     * journal. Construction also determines which trees the transaction
+     * updates and whether it must be applied while no other transaction is
+     * being applied.
+     */
+    static class TransactionRecords {
+        private final ByteBuffer _bytes;
+        private final long[] _addresses;
+        private final int[] _offsets;
+        private final long _startTimestamp;
+        private final long _commitTimestamp;
+        private final Set<Integer> _treeHandles = new HashSet<Integer>();
+        private boolean _exclusive;
+        private boolean _unknownTrees;
+
+        private TransactionRecords(final List<byte[]> records, final List<Long> addresses, final int size,
+                final long startTimestamp, final long commitTimestamp) {
+            _bytes = ByteBuffer.allocate(size);
+            _addresses = new long[records.size()];
+            _offsets = new int[records.size()];
+            _startTimestamp = startTimestamp;
+            _commitTimestamp = commitTimestamp;
+            for (int index = 0; index < _offsets.length; index++) {
+                _addresses[index] = addresses.get(index);
+                _offsets[index] = _bytes.position();
+                _bytes.put(records.get(index));
+            }
+            for (int index = 0; index < _offsets.length; index++) {
+                classify(_offsets[index]);
+            }
+        }
+
+        private void classify(final int offset) {
+            final ByteBuffer bb = _bytes;
+            bb.position(offset);
+            final int end = offset + TX.getLength(bb);
+            int position = offset + TX.OVERHEAD;
+            while (position < end) {
+                bb.position(position);
+                final int innerSize = JournalRecord.getLength(bb);
+                final int type = JournalRecord.getType(bb);
+                if (innerSize <= 0) {
+                    _exclusive = true;
+                    _unknownTrees = true;
+                    return;
+                }
+                switch (type) {
+                case SR.TYPE: {
+                    _treeHandles.add(SR.getTreeHandle(bb));
+                    final int valueOffset = position + SR.OVERHEAD + SR.getKeySize(bb);
+                    if (position + innerSize - valueOffset >= Buffer.LONGREC_SIZE
+                            && (bb.array()[valueOffset] & 0xFF) == Buffer.LONGREC_TYPE) {
+                        /*
+                         * Converting a long record reads the journal
+                         */
+                        _exclusive = true;
+                    }
+                    break;
+                }
+                case DR.TYPE:
+                    _treeHandles.add(DR.getTreeHandle(bb));
+                    break;
+                case D0.TYPE:
+                    _treeHandles.add(D0.getTreeHandle(bb));
+                    break;
+                case D1.TYPE:
+                    _treeHandles.add(D1.getTreeHandle(bb));
+                    break;
+                case DT.TYPE:
+                    _treeHandles.add(DT.getTreeHandle(bb));
+                    _exclusive = true;
+                    break;
+                default:
+                    _exclusive = true;
+                    _unknownTrees = true;
+                }
+                position += innerSize;
+            }
+        }
+
+        /**
+         * @return handles of the trees updated by the transaction
+         */
+        Set<Integer> getTreeHandles() {
+            return _treeHandles;
+        }
+
+        /**
+         * @return <code>true</code> if the transaction removes a tree,
+         *         contains a long record or is otherwise unsuitable for being
+         *         applied concurrently with other transactions
+         */
+        boolean isExclusive() {
+            return _exclusive;
+        }
+
+        /**
+         * @return <code>true</code> if the transaction contains a record that
+         *         may affect trees other than those returned by
+         *         {@link #getTreeHandles()}
+         */
+        boolean hasUnknownTrees() {
+            return _unknownTrees;
+        }
+
+        /**
+         * @return total size of the TX records in bytes
+         */
+        int getSize() {
+            return _bytes.capacity();
+        }
+    }
+
     final TransactionPlayerSupport _support;
 
     TransactionPlayer(final TransactionPlayerSupport support) {
@@ -140,6 +258,128 @@ class TransactionPlayer {
 
     }
 
+    /**
+     * Read the TX records of a transaction from the journal and copy them into
+     * a new {@link TransactionRecords}.
+     * 
+     * @param item
+     *            the transaction
+     * @param maximumSize
+     *            maximum total size of the records to copy
+     * @return the records, or <code>null</code> if their total size exceeds
+     *         <code>maximumSize</code>
+     * @throws PersistitException
+     */
+    TransactionRecords loadTransaction(final TransactionMapItem item, final int maximumSize)
+            throws PersistitException {
+        final List<byte[]> records = new ArrayList<byte[]>();
+        final List<Long> addresses = new ArrayList<Long>();
+        long address = item.getLastRecordAddress();
+        long commitTimestamp = 0;
+        int size = 0;
+        for (;;) {
+            _support.read(address, TX.OVERHEAD);
+            final int recordSize = TX.getLength(_support.getReadBuffer());
+            if (recordSize < TX.OVERHEAD || recordSize > Transaction.TRANSACTION_BUFFER_SIZE + TX.OVERHEAD) {
+                throw new CorruptJournalException("Transaction record at " + addressToString(address)
+                        + " has invalid length " + recordSize);
+            }
+            size += recordSize;
+            if (size > maximumSize) {
+                return null;
+            }
+            _support.read(address, recordSize);
+            final ByteBuffer bb = _support.getReadBuffer();
+            final int type = TX.getType(bb);
+            final long startTimestamp = TX.getTimestamp(bb);
+            final long backchainAddress = TX.getBackchainAddress(bb);
+            commitTimestamp = TX.getCommitTimestamp(bb);
+            if (type != TX.TYPE) {
+                throw new CorruptJournalException("Transaction record at " + addressToString(address)
+                        + " has invalid type " + type);
+            }
+            if (startTimestamp != item.getStartTimestamp()) {
+                throw new CorruptJournalException("Transaction record at " + addressToString(address)
+                        + " has an invalid start timestamp: " + startTimestamp);
+            }
+            final byte[] record = new byte[recordSize];
+            System.arraycopy(bb.array(), bb.position(), record, 0, recordSize);
+            records.add(0, record);
+            addresses.add(0, address);
+            if (backchainAddress == 0) {
+                if (address != item.getStartAddress()) {
+                    throw new CorruptJournalException("Transaction record at " + addressToString(address)
+                            + " has an invalid start " + addressToString(item.getStartAddress()));
+                }
+                break;
+            }
+            address = backchainAddress;
+        }
+        return new TransactionRecords(records, addresses, size, item.getStartTimestamp(), commitTimestamp);
+    }
+
+    /**
+     * Read the TX records of a transaction from the journal, one at a time,
+     * to determine which trees it updates.
+     * 
+     * @param item
+     *            the transaction
+     * @return handles of the trees updated by the transaction, or
+     *         <code>null</code> if it contains a record that may affect any
+     *         tree
+     * @throws PersistitException
+     */
+    Set<Integer> getTreeHandles(final TransactionMapItem item) throws PersistitException {
+        final Set<Integer> treeHandles = new HashSet<Integer>();
+        long address = item.getLastRecordAddress();
+        while (address != 0) {
+            _support.read(address, TX.OVERHEAD);
+            final int recordSize = TX.getLength(_support.getReadBuffer());
+            if (recordSize < TX.OVERHEAD || recordSize > Transaction.TRANSACTION_BUFFER_SIZE + TX.OVERHEAD) {
+                throw new CorruptJournalException("Transaction record at " + addressToString(address)
+                        + " has invalid length " + recordSize);
+            }
+            _support.read(address, recordSize);
+            final ByteBuffer bb = _support.getReadBuffer();
+            if (TX.getType(bb) != TX.TYPE || TX.getTimestamp(bb) != item.getStartTimestamp()) {
+                throw new CorruptJournalException("Transaction record at " + addressToString(address)
+                        + " does not belong to " + item);
+            }
+            final long backchainAddress = TX.getBackchainAddress(bb);
+            final byte[] record = new byte[recordSize];
+            System.arraycopy(bb.array(), bb.position(), record, 0, recordSize);
+            final TransactionRecords records = new TransactionRecords(Collections.singletonList(record),
+                    Collections.singletonList(address), recordSize, item.getStartTimestamp(),
+                    item.getCommitTimestamp());
+            if (records.hasUnknownTrees()) {
+                return null;
+            }
+            treeHandles.addAll(records.getTreeHandles());
+            address = backchainAddress;
+        }
+        return treeHandles;
+    }
+
+    /**
+     * Apply a transaction previously copied by
+     * {@link #loadTransaction(TransactionMapItem, int)}. Unless the
+     * transaction is {@link TransactionRecords#isExclusive() exclusive}, this
+     * method does not read the journal and may be called concurrently for
+     * transactions that update disjoint sets of trees.
+     */
+    void applyTransaction(final TransactionRecords records, final TransactionPlayerListener listener)
+            throws PersistitException {
+        final ByteBuffer bb = records._bytes;
+        final int count = records._offsets.length;
+        listener.startTransaction(records._addresses[0], records._startTimestamp, records._commitTimestamp);
+        for (int index = 0; index < count; index++) {
+            bb.position(records._offsets[index]);
+            applyTransactionUpdates(bb, records._addresses[index], TX.getLength(bb), records._startTimestamp,
+                    records._commitTimestamp, listener);
+        }
+        listener.endTransaction(records._addresses[count - 1], records._startTimestamp);
+    }
+
     void applyTransactionUpdates(final ByteBuffer byteBuffer, final long address, final int recordSize,
             final long startTimestamp, final long commitTimestamp, final TransactionPlayerListener listener)
             throws PersistitException {
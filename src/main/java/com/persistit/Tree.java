@@ -89,6 +89,7 @@ public class Tree extends SharedResource {
     private final Volume _volume;
     private final AtomicReference<Object> _appCache = new AtomicReference<Object>();
     private final AtomicInteger _handle = new AtomicInteger();
+    private final AtomicInteger _residentIndexPageCount = new AtomicInteger();
 
     private final TimelyResource<TreeVersion> _timelyResource;
 
@@ -372,6 +373,20 @@ public class Tree extends SharedResource {
         return version()._treeStatistics;
     }
 
+    /**
+     * @return the number of index pages of this <code>Tree</code> currently
+     *         retained in the buffer pool. Pages are counted only when the
+     *         pool has index page retention enabled; see
+     *         {@link com.persistit.Configuration.BufferPoolConfiguration#setIndexRetention(int)}
+     */
+    public int getResidentIndexPageCount() {
+        return _residentIndexPageCount.get();
+    }
+
+    void adjustResidentIndexPageCount(final int delta) {
+        _residentIndexPageCount.addAndGet(delta);
+    }
+
     /**
      * @return a displayable description of the <code>Tree</code>, including its
      *         name, its internal tree index, its root page address, and its
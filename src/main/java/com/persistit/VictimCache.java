@@ -0,0 +1,361 @@
+/**
+ * Copyright 2012 Akiban Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * <p>
+ * A second-tier cache holding images of clean pages recently evicted from a
+ * {@link BufferPool}. When a page that is not in the pool is requested, the
+ * pool looks here before reading the page from the volume or the journal.
+ * </p>
+ * <p>
+ * Page images are optionally compressed and are stored in a fixed-size arena
+ * allocated outside the Java heap. The arena is filled as a circular log: each
+ * new image is written at the head and overwrites the oldest images. Because a
+ * page leaves the cache as soon as it is loaded back into the pool, no entry is
+ * ever referenced twice, so the circular order is also least-recently-used
+ * order.
+ * </p>
+ * <p>
+ * The cache is exclusive of the pool: an image is removed when its page is
+ * loaded into the pool by any path, and is replaced only when the page is
+ * evicted again. A cached image is therefore never older than the copy on
+ * disk.
+ * </p>
+ *
+ * @author peter
+ */
+class VictimCache {
+
+    /**
+     * Name of the codec that stores page images uncompressed
+     */
+    final static String NONE_CODEC = "NONE";
+
+    /**
+     * Name of the codec that compresses page images with
+     * {@link java.util.zip.Deflater} at its fastest setting
+     */
+    final static String DEFLATE_CODEC = "DEFLATE";
+
+    /**
+     * Name of the codec used when none is specified
+     */
+    final static String DEFAULT_CODEC = DEFLATE_CODEC;
+
+    private final static String[] CODECS = { NONE_CODEC, DEFLATE_CODEC };
+
+    private final static ThreadLocal<Deflater> DEFLATER = new ThreadLocal<Deflater>() {
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater(Deflater.BEST_SPEED);
+        }
+    };
+
+    private final static ThreadLocal<Inflater> INFLATER = new ThreadLocal<Inflater>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater();
+        }
+    };
+
+    private final static ThreadLocal<byte[]> SCRATCH = new ThreadLocal<byte[]>();
+
+    private static class Entry {
+        private final Volume _volume;
+        private final long _page;
+        private int _offset;
+        private int _length;
+        private long _lap;
+        private boolean _live;
+
+        private Entry(final Volume volume, final long page) {
+            _volume = volume;
+            _page = page;
+        }
+
+        @Override
+        public int hashCode() {
+            return _volume.hashCode() ^ (int) _page ^ (int) (_page >>> 32);
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            final Entry entry = (Entry) object;
+            return entry._volume == _volume && entry._page == _page;
+        }
+    }
+
+    private final ByteBuffer _arena;
+
+    private final int _pageSize;
+
+    private final boolean _compressed;
+
+    private final String _codec;
+
+    private final Map<Entry, Entry> _map = new HashMap<Entry, Entry>();
+
+    private final ArrayDeque<Entry> _queue = new ArrayDeque<Entry>();
+
+    private int _head;
+
+    private long _lap;
+
+    private long _usedBytes;
+
+    private final AtomicLong _hitCounter = new AtomicLong();
+
+    private final AtomicLong _missCounter = new AtomicLong();
+
+    private final AtomicLong _storeCounter = new AtomicLong();
+
+    private final AtomicLong _rejectCounter = new AtomicLong();
+
+    /**
+     * Return the canonical form of a codec name.
+     *
+     * @param name
+     *            the name, case-insensitive
+     * @return the canonical name
+     * @throws IllegalArgumentException
+     *             if there is no such codec
+     */
+    static String canonicalCodecName(final String name) {
+        for (final String candidate : CODECS) {
+            if (candidate.equalsIgnoreCase(name)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("No such VictimCache codec " + name);
+    }
+
+    VictimCache(final long size, final String codec, final int pageSize) {
+        if (size < pageSize || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid VictimCache size " + size);
+        }
+        _arena = ByteBuffer.allocateDirect((int) size);
+        _pageSize = pageSize;
+        _codec = canonicalCodecName(codec);
+        _compressed = DEFLATE_CODEC.equals(_codec);
+    }
+
+    String getCodec() {
+        return _codec;
+    }
+
+    long getSize() {
+        return _arena.capacity();
+    }
+
+    long getHitCounter() {
+        return _hitCounter.get();
+    }
+
+    long getMissCounter() {
+        return _missCounter.get();
+    }
+
+    long getStoreCounter() {
+        return _storeCounter.get();
+    }
+
+    long getRejectCounter() {
+        return _rejectCounter.get();
+    }
+
+    synchronized int getPageCount() {
+        return _map.size();
+    }
+
+    synchronized long getUsedBytes() {
+        return _usedBytes;
+    }
+
+    void resetCounters() {
+        _hitCounter.set(0);
+        _missCounter.set(0);
+        _storeCounter.set(0);
+        _rejectCounter.set(0);
+    }
+
+    /**
+     * Store the image of a clean page that is being evicted. The caller holds
+     * a writer claim on the buffer.
+     *
+     * @param buffer
+     *            the Buffer being evicted
+     */
+    void put(final Buffer buffer) {
+        final byte[] bytes = buffer.getBytes();
+        final byte[] image;
+        final int length;
+        if (_compressed) {
+            image = scratch();
+            final Deflater deflater = DEFLATER.get();
+            deflater.reset();
+            deflater.setInput(bytes, 0, _pageSize);
+            deflater.finish();
+            length = deflater.deflate(image, 0, image.length);
+            if (!deflater.finished()) {
+                /*
+                 * Larger than the uncompressed page - not worth keeping
+                 */
+                _rejectCounter.incrementAndGet();
+                remove(buffer.getVolume(), buffer.getPageAddress());
+                return;
+            }
+        } else {
+            image = bytes;
+            length = _pageSize;
+        }
+        final Entry entry = new Entry(buffer.getVolume(), buffer.getPageAddress());
+        synchronized (this) {
+            final Entry previous = _map.remove(entry);
+            if (previous != null) {
+                kill(previous);
+            }
+            if (_head + length > _arena.capacity()) {
+                /*
+                 * Wrap: images remaining beyond the head are the oldest ones
+                 */
+                while (!_queue.isEmpty() && _queue.peek()._lap < _lap) {
+                    discard(_queue.poll());
+                }
+                _lap++;
+                _head = 0;
+            }
+            while (!_queue.isEmpty() && _queue.peek()._lap < _lap && _queue.peek()._offset < _head + length) {
+                discard(_queue.poll());
+            }
+            _arena.limit(_head + length).position(_head);
+            _arena.put(image, 0, length);
+            entry._offset = _head;
+            entry._length = length;
+            entry._lap = _lap;
+            entry._live = true;
+            _head += length;
+            _usedBytes += length;
+            _queue.add(entry);
+            _map.put(entry, entry);
+        }
+        _storeCounter.incrementAndGet();
+    }
+
+    /**
+     * Load the image of a page into a Buffer, removing it from this cache. The
+     * caller holds a writer claim on the buffer, which must already be
+     * assigned to the page.
+     *
+     * @param buffer
+     *            the Buffer to load
+     * @return <code>true</code> if the page image was found and loaded
+     */
+    boolean load(final Buffer buffer) {
+        final Entry probe = new Entry(buffer.getVolume(), buffer.getPageAddress());
+        final byte[] bytes = buffer.getBytes();
+        final byte[] image = _compressed ? scratch() : bytes;
+        final int length;
+        synchronized (this) {
+            final Entry entry = _map.remove(probe);
+            if (entry == null) {
+                _missCounter.incrementAndGet();
+                return false;
+            }
+            kill(entry);
+            length = entry._length;
+            _arena.limit(entry._offset + length).position(entry._offset);
+            _arena.get(image, 0, length);
+        }
+        if (_compressed) {
+            final Inflater inflater = INFLATER.get();
+            inflater.reset();
+            inflater.setInput(image, 0, length);
+            try {
+                if (inflater.inflate(bytes, 0, _pageSize) != _pageSize) {
+                    _missCounter.incrementAndGet();
+                    return false;
+                }
+            } catch (final DataFormatException e) {
+                _missCounter.incrementAndGet();
+                return false;
+            }
+        }
+        _hitCounter.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Remove the image of a page, if present.
+     */
+    synchronized void remove(final Volume volume, final long page) {
+        final Entry entry = _map.remove(new Entry(volume, page));
+        if (entry != null) {
+            kill(entry);
+        }
+    }
+
+    /**
+     * Remove all images of pages belonging to a Volume, or all images if
+     * <code>volume</code> is <code>null</code>.
+     */
+    synchronized void invalidate(final Volume volume) {
+        for (final Iterator<Entry> iterator = _map.keySet().iterator(); iterator.hasNext();) {
+            final Entry entry = iterator.next();
+            if (entry._volume == volume || volume == null) {
+                iterator.remove();
+                kill(entry);
+            }
+        }
+    }
+
+    private void kill(final Entry entry) {
+        entry._live = false;
+        _usedBytes -= entry._length;
+    }
+
+    private void discard(final Entry entry) {
+        if (entry._live) {
+            _map.remove(entry);
+            kill(entry);
+        }
+    }
+
+    private byte[] scratch() {
+        byte[] bytes = SCRATCH.get();
+        if (bytes == null || bytes.length < _pageSize) {
+            bytes = new byte[_pageSize];
+            SCRATCH.set(bytes);
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("VictimCache[%s,%,d bytes,%,d pages]", _codec, getSize(), getPageCount());
+    }
+}
@@ -370,7 +370,9 @@ public class Volume {
      * Looks up by name and returns a <code>NewTree</code> within this
      * <code>Volume</code>. If no such tree exists, this method either creates a
      * new tree or returns null depending on whether the
-     * <code>createIfNecessary</code> parameter is <code>true</code>.
+     * <code>createIfNecessary</code> parameter is <code>true</code>. While
+     * lazy recovery is in progress this method first waits until every
+     * recovered transaction updating the tree has been applied.
      * 
      * @param name
      *            The tree name
@@ -387,7 +389,9 @@ public class Volume {
      */
     public Tree getTree(final String name, final boolean createIfNecessary) throws PersistitException {
         checkClosing();
-        return getStructure().getTree(name, createIfNecessary);
+        final VolumeStructure structure = getStructure();
+        structure.awaitRecovery(name);
+        return structure.getTree(name, createIfNecessary);
     }
 
     /**
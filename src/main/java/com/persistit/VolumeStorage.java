@@ -152,10 +152,53 @@ abstract class VolumeStorage extends SharedResource {
     abstract void readPage(Buffer buffer) throws PersistitIOException, InvalidPageAddressException,
             VolumeClosedException, InUseException, PersistitInterruptedException;
 
+    /**
+     * Read the pages designated by the first <code>count</code> elements of
+     * <code>buffers</code>. Each Buffer must already be assigned its page
+     * address and be owned as writer by the current thread. Implementations
+     * may coalesce runs of adjacent page addresses into a single read using
+     * <code>scratch</code> as an intermediate buffer; this default
+     * implementation simply reads each page individually.
+     *
+     * @param buffers
+     *            Buffers to be read, in ascending page address order
+     * @param count
+     *            Number of Buffers to read
+     * @param scratch
+     *            Intermediate buffer available for coalesced reads
+     */
+    void readPages(final Buffer[] buffers, final int count, final ByteBuffer scratch) throws PersistitIOException,
+            InvalidPageAddressException, VolumeClosedException, InUseException, PersistitInterruptedException {
+        for (int index = 0; index < count; index++) {
+            readPage(buffers[index]);
+        }
+    }
+
     abstract void writePage(final Buffer buffer) throws PersistitException;
 
     abstract void writePage(final ByteBuffer bb, final long page) throws PersistitException;
 
+    /**
+     * Write the pages held by <code>count</code> Buffers starting at
+     * <code>from</code>, each of which has been prepared by
+     * {@link Buffer#prepareWrite(boolean)} and is owned as writer by the
+     * current thread. Implementations may write the whole batch in a single
+     * operation; this default implementation simply writes each page
+     * individually.
+     * 
+     * @param buffers
+     *            Buffers to be written, in ascending page address order
+     * @param from
+     *            Index of the first Buffer to write
+     * @param count
+     *            Number of Buffers to write
+     */
+    void writePages(final Buffer[] buffers, final int from, final int count) throws PersistitException {
+        for (int index = from; index < from + count; index++) {
+            writePage(buffers[index]);
+        }
+    }
+
     abstract long allocNewPage() throws PersistitException;
 
     abstract void extend(final long pageAddr) throws PersistitException;
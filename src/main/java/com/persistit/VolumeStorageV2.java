@@ -477,6 +477,84 @@ class VolumeStorageV2 extends VolumeStorage {
         }
     }
 
+    @Override
+    void readPages(final Buffer[] buffers, final int count, final ByteBuffer scratch) throws PersistitIOException,
+            InvalidPageAddressException, VolumeClosedException, InUseException, PersistitInterruptedException {
+        // non-exclusive claim here intended to conflict with exclusive claim in
+        // close and truncate
+        if (!claim(false)) {
+            throw new InUseException("Unable to acquire claim on " + this);
+        }
+        try {
+            final int maxRun = Math.max(1, scratch.capacity() / _volume.getStructure().getPageSize());
+            int from = -1;
+            for (int index = 0; index <= count; index++) {
+                Buffer buffer = index < count ? buffers[index] : null;
+                if (buffer != null) {
+                    final long page = buffer.getPageAddress();
+                    if (page < 0 || page >= _nextAvailablePage) {
+                        throw new InvalidPageAddressException("Page " + page + " out of bounds [0-"
+                                + _nextAvailablePage + "]");
+                    }
+                    /*
+                     * A page that has a newer version in the journal is read
+                     * individually from there and breaks the run.
+                     */
+                    if (_persistit.getJournalManager().readPageFromJournal(buffer)) {
+                        buffer = null;
+                    }
+                }
+                if (from >= 0
+                        && (buffer == null || index - from >= maxRun || buffer.getPageAddress() != buffers[index - 1]
+                                .getPageAddress() + 1)) {
+                    readRun(buffers, from, index - from, scratch);
+                    from = -1;
+                }
+                if (buffer != null && from < 0) {
+                    from = index;
+                }
+            }
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Read <code>count</code> pages having adjacent addresses with a single
+     * read into <code>scratch</code> and then distribute the page images to
+     * their Buffers.
+     */
+    private void readRun(final Buffer[] buffers, final int from, final int count, final ByteBuffer scratch)
+            throws PersistitIOException {
+        final int pageSize = _volume.getStructure().getPageSize();
+        final long page = buffers[from].getPageAddress();
+        try {
+            scratch.position(0).limit(count * pageSize);
+            while (scratch.hasRemaining()) {
+                final long position = page * pageSize + scratch.position();
+                final int bytesRead = _channel.read(scratch, position);
+                if (bytesRead <= 0) {
+                    throw new PersistitIOException("Unable to read bytes at position " + position + " in " + this);
+                }
+            }
+            for (int index = 0; index < count; index++) {
+                final Buffer buffer = buffers[from + index];
+                final ByteBuffer bb = buffer.getByteBuffer();
+                bb.position(0).limit(buffer.getBufferSize());
+                scratch.limit((index + 1) * pageSize).position(index * pageSize);
+                bb.put(scratch);
+                _persistit.getIOMeter().chargeReadPageFromVolume(this._volume, buffer.getPageAddress(),
+                        buffer.getBufferSize(), buffer.getIndex());
+                _volume.getStatistics().bumpReadCounter();
+            }
+        } catch (final IOException ioe) {
+            _persistit.getAlertMonitor().post(
+                    new Event(AlertLevel.ERROR, _persistit.getLogBase().readException, ioe, _volume, page,
+                            buffers[from].getIndex()), AlertMonitor.READ_PAGE_CATEGORY);
+            throw new PersistitIOException(ioe);
+        }
+    }
+
     @Override
     void writePage(final Buffer buffer) throws PersistitException {
         /*
@@ -494,11 +572,26 @@ class VolumeStorageV2 extends VolumeStorage {
 
     }
 
+    @Override
+    void writePages(final Buffer[] buffers, final int from, final int count) throws PersistitException {
+        if (!claim(false)) {
+            throw new InUseException("Unable to acquire claim on " + this);
+        }
+        try {
+            _persistit.getJournalManager().writePagesToJournal(buffers, from, count);
+        } finally {
+            release();
+        }
+    }
+
     @Override
     void writePage(final ByteBuffer bb, final long page) throws PersistitIOException, InvalidPageAddressException,
             ReadOnlyVolumeException, VolumeClosedException {
-        if (page < 0 || page >= _nextAvailablePage) {
-            throw new InvalidPageAddressException("Page " + page + " out of bounds [0-" + _nextAvailablePage + "]");
+        final int pageSize = _volume.getStructure().getPageSize();
+        final long lastPage = page + Math.max(0, bb.remaining() - 1) / pageSize;
+        if (page < 0 || lastPage >= _nextAvailablePage) {
+            throw new InvalidPageAddressException("Page " + lastPage + " out of bounds [0-" + _nextAvailablePage
+                    + "]");
         }
 
         if (isReadOnly()) {
@@ -506,7 +599,13 @@ class VolumeStorageV2 extends VolumeStorage {
         }
 
         try {
-            _channel.write(bb, page * _volume.getStructure().getPageSize());
+            /*
+             * The buffer may hold a run of adjacent pages
+             */
+            long position = page * pageSize;
+            while (bb.hasRemaining()) {
+                position += _channel.write(bb, position);
+            }
         } catch (final IOException ioe) {
             _persistit.getAlertMonitor().post(
                     new Event(AlertLevel.ERROR, _persistit.getLogBase().writeException, ioe, _volume, page),
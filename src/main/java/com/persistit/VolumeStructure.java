@@ -27,6 +27,7 @@ import com.persistit.exception.CorruptVolumeException;
 import com.persistit.exception.InUseException;
 import com.persistit.exception.PersistitException;
 import com.persistit.exception.PersistitInterruptedException;
+import com.persistit.exception.ReadOnlyTransactionException;
 import com.persistit.util.Debug;
 
 class VolumeStructure {
@@ -163,6 +164,39 @@ class VolumeStructure {
         return rootPage;
     }
 
+    /**
+     * Wait until lazy recovery, if in progress, has applied every recovered
+     * transaction that updates the named tree.
+     * 
+     * @param name
+     *            The tree name
+     * @throws PersistitInterruptedException
+     */
+    void awaitRecovery(final String name) throws PersistitInterruptedException {
+        if (!_volume.isTemporary()) {
+            _persistit.getRecoveryManager().awaitTree(_volume, name);
+        }
+    }
+
+    /**
+     * Throw a <code>ReadOnlyTransactionException</code> if the current thread
+     * is executing a read-only transaction and is about to create the named
+     * tree. Trees in temporary volumes are exempt since updates to them are
+     * not transactional.
+     * 
+     * @param name
+     *            The tree name
+     * @throws ReadOnlyTransactionException
+     */
+    private void checkReadOnlyTransaction(final String name) throws ReadOnlyTransactionException {
+        if (!_volume.isTemporary()) {
+            final Transaction txn = _persistit.getTransaction();
+            if (txn.isReadOnly()) {
+                throw new ReadOnlyTransactionException("Cannot create tree " + name + " in " + txn);
+            }
+        }
+    }
+
     /**
      * Look up by name and returns a <code>Tree</code> within this
      * <code>Volume</code>. If no such tree exists, this method either creates a
@@ -197,6 +231,7 @@ class VolumeStructure {
                     if (!createIfNecessary) {
                         return null;
                     }
+                    checkReadOnlyTransaction(name);
                 }
             }
         }
@@ -212,6 +247,7 @@ class VolumeStructure {
             tree.setPrimordial();
             tree.setValid();
         } else if (createIfNecessary) {
+            checkReadOnlyTransaction(name);
             final long rootPageAddr = createTreeRoot(tree);
             tree.setRootPageAddress(rootPageAddr);
             updateDirectoryTree(tree);
@@ -0,0 +1,36 @@
+/**
+ * Copyright 2012 Akiban Technologies, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit.exception;
+
+/**
+ * Thrown when an application attempts to modify data within the scope of a
+ * {@link com.persistit.Transaction} begun by
+ * {@link com.persistit.Transaction#beginReadOnly()}.
+ * 
+ * @version 1.0
+ */
+public class ReadOnlyTransactionException extends PersistitException {
+    private static final long serialVersionUID = -2807326592338542151L;
+
+    public ReadOnlyTransactionException() {
+        super();
+    }
+
+    public ReadOnlyTransactionException(final String msg) {
+        super(msg);
+    }
+}
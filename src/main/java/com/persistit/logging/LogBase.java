@@ -80,6 +80,9 @@ public class LogBase {
     @Message("ERROR|Journal write failure %s in %s at offset %,d")
     public final LogItem journalWriteError = PersistitLogMessage.empty();
 
+    @Message("WARNING|Journal file %s will be read without a mapping: %s")
+    public final LogItem journalMappingError = PersistitLogMessage.empty();
+
     @Message("INFO|Recovery done: %,d retained pages, %,d committed transactions, %,d errors")
     public final LogItem recoveryDone = PersistitLogMessage.empty();
 
@@ -98,9 +101,12 @@ public class LogBase {
     @Message("INFO|Recovery plan: will recover %,d pages and %,d committed transactions; will discard %,d uncommitted transactions")
     public final LogItem recoveryPlan = PersistitLogMessage.empty();
 
-    @Message("INFO|Recovery progress: %,d committed transactions applied, %,d uncommitted transactions rolled back, %,d remaining ")
+    @Message("INFO|Recovery progress: %,d committed transactions applied, %,d uncommitted transactions rolled back, %,d remaining, %,d transactions/sec")
     public final LogItem recoveryProgress = PersistitLogMessage.empty();
 
+    @Message("INFO|Lazy recovery: %,d transactions updating %,d trees will be applied in the background")
+    public final LogItem recoveryLazy = PersistitLogMessage.empty();
+
     @Message("WARNING|Recovery exception %s at transaction %s")
     public final LogItem recoveryException = PersistitLogMessage.empty();
 
@@ -251,7 +257,7 @@ public class LogBase {
     @Message("INFO|Preloading buffer pool inventory recorded at %tc")
     public final LogItem bufferInventoryLoad = PersistitLogMessage.empty();
 
-    @Message("INFO|Preloaded %,d of %,d buffers in %,d seconds")
+    @Message("INFO|Preloaded %,d of %,d buffers in %,d seconds (%,d pages/sec)")
     public final LogItem bufferInventoryProgress = PersistitLogMessage.empty();
 
     @Message("WARNING|Exception while writing buffer pool inventory %s")
@@ -149,4 +149,117 @@ public interface BufferPoolMXBean {
     @Description("Earliest timestamp of any dirty page in this BufferPool.")
     public long getEarliestDirtyTimestamp();
 
+    /**
+     * @return Name of the page replacement policy used by this
+     *         <code>BufferPool</code>: either CLOCK or 2Q
+     */
+    @Description("Name of the page replacement policy used by this BufferPool: either CLOCK or 2Q")
+    public String getReplacementPolicy();
+
+    /**
+     * Return the number of pages read into this <code>BufferPool</code> that
+     * the replacement policy recognized as having been recently evicted. This
+     * number, compared with the miss count, indicates how often a larger pool
+     * would have avoided a disk read. Always zero for the CLOCK policy.
+     * 
+     * @return The ghost hit count
+     */
+    @Description("The number of pages read into this BufferPool that were recently evicted")
+    public long getGhostHitCount();
+
+    /**
+     * @return The count of pages the replacement policy currently protects
+     *         from eviction by one-time accesses
+     */
+    @Description("The count of pages protected from eviction by one-time accesses")
+    public int getProtectedPageCount();
+
+    /**
+     * @return The count of clean, detached buffers the PAGE_WRITER thread has
+     *         made ready for allocation
+     */
+    @Description("The count of clean buffers held in reserve for allocation")
+    public int getFreeBufferCount();
+
+    /**
+     * Return the number of buffer allocations that found the free buffer
+     * reserve empty. Each such allocation evicts a page in the requesting
+     * thread and may have to write it first. A growing value indicates the
+     * reserve is too small or the PAGE_WRITER thread is falling behind.
+     * 
+     * @return The reserve depleted count
+     */
+    @Description("The number of buffer allocations that found the free buffer reserve empty")
+    public long getReserveDepletedCount();
+
+    /**
+     * @return The buffer count requested by a resize operation in progress, or
+     *         the current buffer count if there is none
+     */
+    @Description("The buffer count requested by a resize operation in progress")
+    public int getResizeTargetCount();
+
+    /**
+     * @return The number of buffers still to be added or removed plus the
+     *         number of hash table lock stripes still to be migrated by a
+     *         resize operation in progress, or zero if there is none
+     */
+    @Description("The number of steps remaining in a resize operation in progress")
+    public int getResizeRemainingCount();
+
+    /**
+     * Return the number of pages not found in this pool that were loaded from
+     * the compressed victim cache instead of being read from the volume or
+     * journal. Together with {@link #getVictimCacheMissCount()} this gives the
+     * hit ratio of the victim cache.
+     * 
+     * @return The victim cache hit count
+     */
+    @Description("The number of pool misses satisfied by the victim cache")
+    public long getVictimCacheHitCount();
+
+    /**
+     * @return The number of pages not found in either this pool or its victim
+     *         cache, or zero if the victim cache is disabled
+     */
+    @Description("The number of pool misses not found in the victim cache")
+    public long getVictimCacheMissCount();
+
+    /**
+     * @return The number of page images held in the victim cache
+     */
+    @Description("The number of page images held in the victim cache")
+    public int getVictimCachePageCount();
+
+    /**
+     * @return The number of bytes of the victim cache occupied by page images
+     */
+    @Description("The number of bytes of the victim cache occupied by page images")
+    public long getVictimCacheBytesUsed();
+
+    /**
+     * Return the number of buffers holding index pages that the eviction clock
+     * passes over in preference to data pages. The count is bounded by the
+     * index retention percentage configured for the pool. The number of
+     * retained pages belonging to each tree is available from
+     * {@link com.persistit.Management.TreeInfo#getResidentIndexPageCount()}.
+     * 
+     * @return The retained index page count
+     */
+    @Description("The number of buffers holding retained index pages")
+    public int getRetainedIndexPageCount();
+
+    /**
+     * Start a background task that changes the number of buffers in this pool
+     * without restarting Persistit. Progress can be monitored through
+     * {@link #getResizeTargetCount()} and {@link #getResizeRemainingCount()}
+     * or by querying the task status.
+     * 
+     * @param bufferCount
+     *            The new buffer count
+     * @return The taskId, as a String
+     */
+    @Description("Start a task to change the number of buffers in this pool")
+    public String resize(int bufferCount);
+
 }
@@ -56,14 +56,22 @@ public interface IOMeterMXBean {
      * <dd>Flush journal</dd>
      * <dt>GP</dt>
      * <dd>Get Page</dd>
+     * <dt>RA</dt>
+     * <dd>Read-ahead page loaded</dd>
+     * <dt>RH</dt>
+     * <dd>Read-ahead page subsequently requested (hit)</dd>
+     * <dt>RW</dt>
+     * <dd>Read-ahead page evicted without being requested (wasted)</dd>
      * </dl>
      * 
      */
     public final static String[] OPERATION_NAMES = { "Unknown", "Read page from Volume", "Read page from Journal",
             "Copy page from journal", "Copy page to volume", "Write page from Journal", "Write Transaction to Journal",
-            "Other", "Evict page from pool", "Flush journal", "Get page" };
+            "Other", "Evict page from pool", "Flush journal", "Get page", "Read-ahead page", "Read-ahead hit",
+            "Read-ahead wasted" };
 
-    public final static String[] OPERATIONS = { "??", "RV", "RJ", "CJ", "CV", "WJ", "TJ", "XX", "EV", "FJ", "GP" };
+    public final static String[] OPERATIONS = { "??", "RV", "RJ", "CJ", "CV", "WJ", "TJ", "XX", "EV", "FJ", "GP", "RA",
+            "RH", "RW" };
 
     public final static String[] SUMMARY_ITEMS = { "CJ", "CV", "RV", "RJ", "WJ", "EV", "FJ" };
 
@@ -73,6 +73,12 @@ public interface JournalManagerMXBean {
      */
     final static int DEFAULT_COPY_BUFFER_SIZE = 16 * 1024 * 1024;
 
+    /**
+     * Size of the buffer in which the copier gathers a run of adjacent pages
+     * to be written to a volume with a single I/O.
+     */
+    final static int MAXIMUM_COPY_RUN_SIZE = 1024 * 1024;
+
     /**
      * Default time interval (in milliseconds) between calls to the
      * FileChannel.force() method.
@@ -91,11 +97,25 @@ public interface JournalManagerMXBean {
     final static int DEFAULT_URGENT_FILE_COUNT_THRESHOLD = 15;
     final static int MINIMUM_URGENT_FILE_COUNT_THRESHOLD = 5;
     final static int MAXIMUM_URGENT_FILE_COUNT_THRESHOLD = 100;
+    /**
+     * Default number of spare journal files kept ready for reuse. Zero means
+     * obsolete journal files are deleted and new ones created on demand.
+     */
+    final static int DEFAULT_SPARE_FILE_LIMIT = 0;
+    final static int MINIMUM_SPARE_FILE_LIMIT = 0;
+    final static int MAXIMUM_SPARE_FILE_LIMIT = 100;
     /**
      * Default value for maximum pages to be copied per cycle.
      */
     final static int DEFAULT_COPIES_PER_CYCLE = 1000;
 
+    /**
+     * Default number of threads that write copied pages to their volumes.
+     */
+    final static int DEFAULT_COPIER_THREADS = 1;
+    final static int MINIMUM_COPIER_THREADS = 1;
+    final static int MAXIMUM_COPIER_THREADS = 16;
+
     /**
      * Default time interval (in milliseconds) for logging repetitive I/O
      * exceptions on attempts to write to the journal. Prevents excessively
@@ -121,6 +141,10 @@ public interface JournalManagerMXBean {
      * Format expression defining the name of a journal file.
      */
     final static String PATH_FORMAT = "%s.%012d";
+    /**
+     * Format expression defining the name of a spare journal file.
+     */
+    final static String SPARE_FORMAT = "%s.spare.%d";
 
     final static int MAXIMUM_CONCURRENT_TRANSACTIONS = 10000;
 
@@ -190,6 +214,27 @@ public interface JournalManagerMXBean {
     @Description("Total number of page images copied from the journal to their destination volumes")
     long getCopiedPageCount();
 
+    @Description("Total number of volume write operations used to copy page images, each covering a run of adjacent pages")
+    long getCopyWriteCount();
+
+    @Description("Total number of batches of page images written to the journal by the page writer")
+    long getJournaledPageBatchCount();
+
+    @Description("Total number of times the journal write buffer was flushed or read only after waiting for concurrently appended records to be copied into it")
+    long getFillWaitCount();
+
+    @Description("Total number of page images written to the journal in compressed PZ records")
+    long getCompressedPageCount();
+
+    @Description("Total number of journal bytes saved by writing page images in compressed PZ records")
+    long getCompressedPageBytesSaved();
+
+    @Description("Total number of page images written to the journal as PD records holding changes to an earlier image")
+    long getDeltaPageCount();
+
+    @Description("Total number of journal bytes saved by writing page images as PD records")
+    long getDeltaPageBytesSaved();
+
     @Description("Total number of page images pages dropped from the journal due the existence of newer versions")
     long getDroppedPageCount();
 
@@ -214,6 +259,27 @@ public interface JournalManagerMXBean {
     @Description("True to enable pruning when writing pages to journal")
     boolean isWritePagePruningEnabled();
 
+    @Description("True to compress page images written to the journal when doing so saves space")
+    void setPageCompressionEnabled(boolean pageCompression);
+
+    @Description("True to compress page images written to the journal when doing so saves space")
+    boolean isPageCompressionEnabled();
+
+    @Description("True to write changes to a recently journaled page image rather than the full image when doing so saves space")
+    void setPageDeltaEnabled(boolean pageDelta);
+
+    @Description("True to write changes to a recently journaled page image rather than the full image when doing so saves space")
+    boolean isPageDeltaEnabled();
+
+    @Description("True to read journal files that are no longer being written through read-only memory mappings")
+    void setMappedReadsEnabled(boolean mappedReads);
+
+    @Description("True to read journal files that are no longer being written through read-only memory mappings")
+    boolean isMappedReadsEnabled();
+
+    @Description("Total number of journal reads served from a memory mapping")
+    long getMappedReadCount();
+
     @Description("Degree of urgency for copying pages: 0-10")
     int urgency();
 
@@ -238,6 +304,18 @@ public interface JournalManagerMXBean {
     @Description("Total aggregate time spent waiting for durable commits in milliseconds")
     long getCommitCompletionWaitTime();
 
+    @Description("Median time spent waiting for a durable commit in microseconds")
+    long getCommitWaitTimeP50();
+
+    @Description("90th percentile of time spent waiting for a durable commit in microseconds")
+    long getCommitWaitTimeP90();
+
+    @Description("99th percentile of time spent waiting for a durable commit in microseconds")
+    long getCommitWaitTimeP99();
+
+    @Description("99.9th percentile of time spent waiting for a durable commit in microseconds")
+    long getCommitWaitTimeP999();
+
     @Description("Threshold in  milliseconds for warnings of long duration flush cycles")
     long getSlowIoAlertThreshold();
 
@@ -249,4 +327,31 @@ public interface JournalManagerMXBean {
 
     @Description("Journal file count threshold for throttling transactions")
     void setUrgentFileCountThreshold(int threshold);
+
+    @Description("Number of threads that write pages copied from the journal to their volumes")
+    int getCopierThreadCount();
+
+    @Description("Number of threads that write pages copied from the journal to their volumes")
+    void setCopierThreadCount(int count);
+
+    @Description("Fraction of measured I/O capacity the journal copier may currently use, in percent")
+    int getCopierShare();
+
+    @Description("Number of files across which each journal file is striped, including the journal file itself")
+    int getStripeCount();
+
+    @Description("Maximum number of spare journal files kept ready for reuse; 0 to delete obsolete journal files")
+    int getSpareFileLimit();
+
+    @Description("Maximum number of spare journal files kept ready for reuse; 0 to delete obsolete journal files")
+    void setSpareFileLimit(int limit);
+
+    @Description("Number of spare journal files currently ready for reuse")
+    int getSpareFileCount();
+
+    @Description("Total number of obsolete journal files kept as spares rather than deleted")
+    long getRecycledFileCount();
+
+    @Description("Total number of spare journal files created ahead of need")
+    long getPreallocatedFileCount();
 }
@@ -38,6 +38,12 @@ public interface RecoveryManagerMXBean {
      */
     final static int APPLY_TRANSACTION_LOG_COUNT = 1000;
 
+    public final static int DEFAULT_REPLAY_THREADS = 1;
+
+    public final static int MINIMUM_REPLAY_THREADS = 1;
+
+    public final static int MAXIMUM_REPLAY_THREADS = 64;
+
     public String getJournalFilePath();
 
     public int getCommittedCount();
@@ -68,4 +74,18 @@ public interface RecoveryManagerMXBean {
 
     public int getPageMapSize();
 
+    public int getReplayThreadCount();
+
+    public boolean isLazyRecoveryEnabled();
+
+    public int getPendingTransactionCount();
+
+    public long getScanBytesRead();
+
+    public long getScanBytesPerSecond();
+
+    public long getReplayBytesRead();
+
+    public long getReplayBytesPerSecond();
+
 }
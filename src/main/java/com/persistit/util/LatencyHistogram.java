@@ -0,0 +1,119 @@
+/**
+ * Copyright 2012 Akiban Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size, thread-safe histogram of elapsed times used to report
+ * approximate percentiles. Each power-of-two range of nanoseconds is divided
+ * into {@value #SUB_BUCKETS} equal buckets, so a reported percentile is the
+ * upper bound of the bucket containing it and exceeds the true value by at
+ * most 1/{@value #SUB_BUCKETS} of that value. Recording a value costs one
+ * atomic increment.
+ *
+ * @author peter
+ */
+public class LatencyHistogram {
+
+    private final static int SUB_BUCKET_BITS = 2;
+
+    private final static int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final static int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray _counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Record an elapsed time.
+     *
+     * @param nanos
+     *            elapsed time in nanoseconds; negative values are recorded as
+     *            zero
+     */
+    public void record(final long nanos) {
+        _counts.incrementAndGet(bucket(Math.max(0, nanos)));
+    }
+
+    /**
+     * @return the total number of recorded values
+     */
+    public long getCount() {
+        long count = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            count += _counts.get(index);
+        }
+        return count;
+    }
+
+    /**
+     * Compute an approximate percentile of the recorded values.
+     *
+     * @param percentile
+     *            a value between 0 and 100, e.g. 99.9
+     * @return an upper bound of the requested percentile in nanoseconds, or
+     *         zero if no values have been recorded
+     */
+    public long getPercentile(final double percentile) {
+        final long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            counts[index] = _counts.get(index);
+            total += counts[index];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+        long seen = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            seen += counts[index];
+            if (seen >= rank) {
+                return upperBound(index);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Discard all recorded values.
+     */
+    public void reset() {
+        for (int index = 0; index < BUCKETS; index++) {
+            _counts.set(index, 0);
+        }
+    }
+
+    static int bucket(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int magnitude = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        final int sub = (int) (value >>> magnitude) & (SUB_BUCKETS - 1);
+        return (magnitude + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int magnitude = bucket / SUB_BUCKETS - 1;
+        final long sub = bucket % SUB_BUCKETS;
+        final long lower = (SUB_BUCKETS + sub) << magnitude;
+        return lower + (1L << magnitude) - 1;
+    }
+}
@@ -42,6 +42,7 @@ public class Util {
     public final static long NS_PER_S = 1000000000L;
     public final static long MS_PER_S = 1000L;
     public final static long NS_PER_MS = 1000000L;
+    public final static long NS_PER_US = 1000L;
 
     public final static char[] HEX_DIGITS = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D',
             'E', 'F' };
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2012 Akiban Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/**
+ * Measures throughput of {@link BufferPool#get(Volume, long, boolean, boolean)}
+ * when many threads repeatedly claim and release the same small set of
+ * resident pages, as they do for the root and upper index pages of a busy
+ * tree.
+ */
+public class BufferPoolContentionBenchmark extends PersistitUnitTestCase {
+
+    private final static long SECOND = 1000000000;
+
+    private final static int HOT_PAGES = 8;
+
+    private final static int GETS_PER_THREAD = 2000000;
+
+    @Test
+    public void testHotPageContention() throws Exception {
+        final Volume volume = _persistit.getVolume("persistit");
+        final BufferPool pool = volume.getPool();
+        final Exchange ex = _persistit.getExchange(volume, "BufferPoolContentionBenchmark", true);
+        ex.getValue().put(RED_FOX);
+        for (int i = 0; i < 10000; i++) {
+            ex.to(i).store();
+        }
+        _persistit.checkpoint();
+        _persistit.copyBackPages();
+
+        final long[] pages = new long[HOT_PAGES];
+        for (int i = 0; i < HOT_PAGES; i++) {
+            pages[i] = i + 1;
+            pool.get(volume, pages[i], false, true).release();
+        }
+
+        for (int threadCount = 1; threadCount <= 16; threadCount *= 2) {
+            final long lockedBefore = pool.getLockedLookupCounter();
+            final AtomicLong failures = new AtomicLong();
+            final Thread[] threads = new Thread[threadCount];
+            for (int t = 0; t < threadCount; t++) {
+                final int offset = t;
+                threads[t] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            for (int count = 0; count < GETS_PER_THREAD; count++) {
+                                final long page = pages[(count + offset) % HOT_PAGES];
+                                pool.get(volume, page, false, true).release();
+                            }
+                        } catch (final Exception e) {
+                            e.printStackTrace();
+                            failures.incrementAndGet();
+                        }
+                    }
+                }, "BufferPoolContention_" + t);
+            }
+            final long start = System.nanoTime();
+            for (final Thread thread : threads) {
+                thread.start();
+            }
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+            final long elapsed = System.nanoTime() - start;
+            final long gets = (long) threadCount * GETS_PER_THREAD;
+            final long locked = pool.getLockedLookupCounter() - lockedBefore;
+            System.out.printf("%2d threads: %,12d gets/sec  %,d locked lookups\n", threadCount, gets * SECOND
+                    / elapsed, locked);
+            assertEquals(0, failures.get());
+            /*
+             * A background thread may briefly hold a writer claim on one of
+             * the hot pages; otherwise every get is an optimistic hit.
+             */
+            assertTrue("Too many locked lookups: " + locked, locked < gets / 1000);
+        }
+    }
+
+    @Override
+    public void runAllTests() throws Exception {
+
+    }
+
+}
@@ -17,15 +17,25 @@
 package com.persistit;
 
 import com.persistit.BufferPool.BufferHolder;
+import com.persistit.Configuration.BufferPoolConfiguration;
+import com.persistit.unit.ConcurrentUtil.ThrowingRunnable;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Random;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static com.persistit.unit.ConcurrentUtil.assertSuccess;
+import static com.persistit.unit.ConcurrentUtil.createThread;
+import static com.persistit.unit.ConcurrentUtil.join;
+import static com.persistit.unit.ConcurrentUtil.start;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class BufferPoolTest extends PersistitUnitTestCase {
 
@@ -94,6 +104,54 @@ public class BufferPoolTest extends PersistitUnitTestCase {
         }
     }
 
+    @Test
+    public void testWriteDirtyBuffersAcrossVolumes() throws Exception {
+        final VolumeSpecification vspec = new VolumeSpecification(DATA_PATH + "/BufferPoolTest2", null, 16384, 1,
+                1000, 1, true, false, false);
+        final Volume volume1 = _persistit.getVolume("persistit");
+        final Volume volume2 = _persistit.loadVolume(vspec);
+        final BufferPool pool = volume1.getPool();
+        assertTrue("Volumes should share a pool", pool == volume2.getPool());
+        /*
+         * The tranche is sorted by volume, so the pages of volume2, which has
+         * never been written to the journal, follow those of volume1.
+         */
+        for (final Volume volume : new Volume[] { volume1, volume2 }) {
+            final Exchange ex = _persistit.getExchange(volume, "BufferPoolTest", true);
+            ex.getValue().put(RED_FOX);
+            for (int i = 0; i < 1000; i++) {
+                ex.to(i).store();
+            }
+        }
+        final JournalManager jman = _persistit.getJournalManager();
+        final long batches = jman.getJournaledPageBatchCount();
+        final int[] priorities = new int[pool.getBufferCount()];
+        final BufferHolder[] holders = new BufferHolder[pool.getBufferCount()];
+        for (int i = 0; i < holders.length; i++) {
+            holders[i] = new BufferHolder();
+        }
+        pool.setFlushTimestamp(_persistit.getCurrentTimestamp());
+        pool.writeDirtyBuffers(priorities, holders);
+        assertTrue("Pages of both volumes should have been written in batches",
+                jman.getJournaledPageBatchCount() >= batches + 2);
+        assertTrue("Volume should have a journal handle", volume2.getHandle() != 0);
+
+        /*
+         * Recovery may open BufferPoolTest2, so the system volume must be
+         * named explicitly
+         */
+        _config.setSysVolume("persistit");
+        _persistit.checkpoint();
+        safeCrashAndRestoreProperties();
+        _persistit.loadVolume(vspec);
+        for (final String volumeName : new String[] { "persistit", "BufferPoolTest2" }) {
+            final Exchange ex = _persistit.getExchange(volumeName, "BufferPoolTest", false);
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(RED_FOX, ex.to(i).fetch().getValue().getString());
+            }
+        }
+    }
+
     @Test
     public void testAddSelectedBuffer() throws Exception {
         final Volume volume = _persistit.getVolume("persistit");
@@ -163,6 +221,258 @@ public class BufferPoolTest extends PersistitUnitTestCase {
         }
     }
 
+    @Test
+    public void testScanResistantReplacement() throws Exception {
+        final Volume volume = _persistit.getVolume("persistit");
+        final BufferPoolConfiguration config = new BufferPoolConfiguration(volume.getPageSize());
+        config.setReplacementPolicy("2q");
+        final BufferPool pool = new BufferPool(40, config, _persistit);
+        assertEquals("2Q", pool.getReplacementPolicy());
+        /*
+         * Pages far beyond the end of the volume; they are created rather than
+         * read, so no I/O occurs.
+         */
+        final long hot = 1000000;
+        final long cold = 2000000;
+        createPages(pool, volume, hot, 8);
+        createPages(pool, volume, cold, 40);
+        assertEquals("Nothing is protected before a re-reference", 0, pool.getProtectedPageCount());
+        createPages(pool, volume, hot, 8);
+        final int protectedCount = pool.getProtectedPageCount();
+        assertTrue("Re-referenced pages should be protected", protectedCount > 0);
+        assertEquals(protectedCount, pool.getGhostHitCounter());
+
+        createPages(pool, volume, cold + 1000, 200);
+        assertEquals("A scan should not displace protected pages", protectedCount, pool.getProtectedPageCount());
+        final long hits = pool.getHitCounter();
+        for (long page = hot; page < hot + 8; page++) {
+            pool.get(volume, page, false, false).release();
+        }
+        assertTrue("Protected pages should still be resident", pool.getHitCounter() - hits >= protectedCount);
+    }
+
+    @Test
+    public void testFreeBufferReserve() throws Exception {
+        final Volume volume = _persistit.getVolume("persistit");
+        final BufferPoolConfiguration config = new BufferPoolConfiguration(volume.getPageSize());
+        config.setReserveCount(8);
+        final BufferPool pool = new BufferPool(40, config, _persistit);
+        createPages(pool, volume, 1000000, 40);
+        assertEquals("Reserve should be filled", 8, pool.refillFreeBuffers());
+        assertEquals(8, pool.getFreeBufferCount());
+        assertEquals("Reserve is already full", 0, pool.refillFreeBuffers());
+
+        final long depleted = pool.getReserveDepletedCounter();
+        createPages(pool, volume, 2000000, 8);
+        assertEquals("Allocations should be served from the reserve", 0, pool.getFreeBufferCount());
+        assertEquals(depleted, pool.getReserveDepletedCounter());
+
+        createPages(pool, volume, 3000000, 1);
+        assertEquals("Empty reserve should be reported", depleted + 1, pool.getReserveDepletedCounter());
+    }
+
+    @Test
+    public void testReserveEntriesReusedByEviction() throws Exception {
+        final Volume volume = _persistit.getVolume("persistit");
+        final BufferPoolConfiguration config = new BufferPoolConfiguration(volume.getPageSize());
+        config.setReserveCount(8);
+        final BufferPool pool = new BufferPool(40, config, _persistit);
+        createPages(pool, volume, 1000000, 40);
+        assertEquals(8, pool.refillFreeBuffers());
+        /*
+         * With the reserve disabled allocations evict through the clock, which
+         * also reaches the reserved buffers
+         */
+        pool.setReserveCount(0);
+        createPages(pool, volume, 2000000, 40);
+        final int remaining = pool.getFreeBufferCount();
+        assertTrue("Reused buffers should leave the reserve", remaining < 8);
+
+        pool.setReserveCount(8);
+        assertEquals("Reserve should be refilled in full", 8 - remaining, pool.refillFreeBuffers());
+        final long depleted = pool.getReserveDepletedCounter();
+        createPages(pool, volume, 3000000, 8);
+        assertEquals("Allocations should be served from the reserve", depleted, pool.getReserveDepletedCounter());
+        assertEquals(0, pool.getFreeBufferCount());
+    }
+
+    @Test
+    public void testResize() throws Exception {
+        final BufferPool pool = _persistit.getBufferPool(16384);
+        final int initialCount = pool.getBufferCount();
+        final Exchange ex = _persistit.getExchange("persistit", "BufferPoolTest", true);
+        for (int i = 0; i < 2000; i++) {
+            ex.to(i).getValue().put(RED_FOX + i);
+            ex.store();
+        }
+        pool.resize(initialCount + 2000);
+        assertEquals(initialCount + 2000, pool.getBufferCount());
+        assertEquals(0, pool.getResizeRemainingCount());
+        for (int i = 2000; i < 4000; i++) {
+            ex.to(i).getValue().put(RED_FOX + i);
+            ex.store();
+        }
+        pool.resize(initialCount);
+        assertEquals(initialCount, pool.getBufferCount());
+        assertEquals(initialCount, pool.getResizeTargetCount());
+        for (int i = 0; i < 4000; i++) {
+            ex.to(i).fetch();
+            assertEquals(RED_FOX + i, ex.getValue().getString());
+        }
+        try {
+            pool.resize(BufferPool.MINIMUM_POOL_COUNT - 1);
+            fail("Pool count below minimum should be rejected");
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testLookupsDuringResize() throws Exception {
+        final BufferPool pool = _persistit.getBufferPool(16384);
+        final int initialCount = pool.getBufferCount();
+        final Exchange ex = _persistit.getExchange("persistit", "BufferPoolTest", true);
+        for (int i = 0; i < 2000; i++) {
+            ex.to(i).getValue().put(RED_FOX + i);
+            ex.store();
+        }
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicLong fetched = new AtomicLong();
+        final Thread[] readers = new Thread[4];
+        for (int t = 0; t < readers.length; t++) {
+            final int seed = t;
+            readers[t] = createThread("BufferPoolTest_reader" + t, new ThrowingRunnable() {
+                @Override
+                public void run() throws Exception {
+                    final Exchange rex = _persistit.getExchange("persistit", "BufferPoolTest", false);
+                    final Random random = new Random(seed);
+                    while (!done.get()) {
+                        final int i = random.nextInt(2000);
+                        rex.to(i).fetch();
+                        assertEquals(RED_FOX + i, rex.getValue().getString());
+                        fetched.incrementAndGet();
+                    }
+                }
+            });
+        }
+        final Map<Thread, Throwable> errors = start(readers);
+        try {
+            for (int cycle = 0; cycle < 10; cycle++) {
+                pool.resize(initialCount + 1000 * (cycle % 3 + 1));
+                pool.resize(initialCount);
+            }
+        } finally {
+            done.set(true);
+            join(60000, errors, readers);
+        }
+        assertSuccess(errors);
+        assertTrue("Readers should have run during the resizes", fetched.get() > 0);
+        assertEquals(initialCount, pool.getBufferCount());
+    }
+
+    @Test
+    public void testReadAhead() throws Exception {
+        final BufferPool pool = _persistit.getBufferPool(16384);
+        assertTrue("Read-ahead should be enabled", pool.getReadAheadLimit() > 0);
+        final Exchange ex = _persistit.getExchange("persistit", "BufferPoolTest", true);
+        final int count = pool.getBufferCount() * 1000;
+        for (int i = 0; i < count; i++) {
+            ex.to(i).getValue().put(RED_FOX + i);
+            ex.store();
+        }
+        final IOMeter ioMeter = _persistit.getIOMeter();
+        final long before = ioMeter.totalOperations("RA");
+        ex.to(Key.BEFORE);
+        int i = 0;
+        while (ex.next()) {
+            assertEquals(RED_FOX + i, ex.getValue().getString());
+            i++;
+        }
+        assertEquals(count, i);
+        for (int wait = 0; wait < 100 && ioMeter.totalOperations("RA") == before; wait++) {
+            Thread.sleep(100);
+        }
+        assertTrue("Sequential scan should have read pages ahead", ioMeter.totalOperations("RA") > before);
+
+        pool.setReadAheadLimit(0);
+        assertEquals(0, pool.getReadAheadLimit());
+    }
+
+    @Test
+    public void testResidentRightSibling() throws Exception {
+        final BufferPool pool = _persistit.getBufferPool(16384);
+        final Volume volume = _persistit.getVolume("persistit");
+        final Exchange ex = _persistit.getExchange("persistit", "BufferPoolTest", true);
+        for (int i = 0; i < 2000; i++) {
+            ex.to(i).getValue().put(RED_FOX + i);
+            ex.store();
+        }
+        final long first = ex.to(Key.BEFORE).fetchBufferCopy(0).getPageAddress();
+        long page = first;
+        int pages = 0;
+        while (page > 0) {
+            page = pool.residentRightSibling(volume, page);
+            assertTrue("Page just written should be resident", page >= 0);
+            pages++;
+        }
+        assertTrue("Tree should span several data pages", pages > 1);
+        assertEquals(-1, pool.residentRightSibling(volume, volume.getStorage().getNextAvailablePage() + 1));
+
+        final Buffer buffer = pool.get(volume, first, true, true);
+        try {
+            assertEquals("Page claimed by a writer is not settled", -1, pool.residentRightSibling(volume, first));
+        } finally {
+            buffer.release();
+        }
+        assertTrue(pool.residentRightSibling(volume, first) > 0);
+    }
+
+    @Test
+    public void testIndexRetention() throws Exception {
+        final BufferPool pool = _persistit.getBufferPool(16384);
+        assertEquals(0, pool.getIndexRetention());
+        pool.setIndexRetention(25);
+        final Exchange ex = _persistit.getExchange("persistit", "BufferPoolTest", true);
+        final int count = pool.getBufferCount() * 1000;
+        for (int i = 0; i < count; i++) {
+            ex.to(i).getValue().put(RED_FOX + i);
+            ex.store();
+        }
+        assertTrue("Tree should have index pages", ex.getTree().getDepth() > 1);
+        final Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            final int k = random.nextInt(count);
+            ex.to(k).fetch();
+            assertEquals(RED_FOX + k, ex.getValue().getString());
+        }
+        final int retained = pool.getRetainedIndexPageCount();
+        assertTrue("Index pages should be retained", ex.getTree().getResidentIndexPageCount() > 0);
+        assertTrue(ex.getTree().getResidentIndexPageCount() <= retained);
+        assertTrue(retained <= pool.getBufferCount() * 25 / 100);
+
+        pool.setIndexRetention(0);
+        final Exchange other = _persistit.getExchange("persistit", "BufferPoolTest2", true);
+        for (int i = 0; i < count; i++) {
+            other.to(i).getValue().put(RED_FOX + i);
+            other.store();
+        }
+        assertEquals(0, ex.getTree().getResidentIndexPageCount());
+        assertEquals(0, pool.getRetainedIndexPageCount());
+        try {
+            pool.setIndexRetention(BufferPool.MAXIMUM_INDEX_RETENTION + 1);
+            fail("Exception not thrown");
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private void createPages(final BufferPool pool, final Volume volume, final long from, final int count)
+            throws Exception {
+        for (long page = from; page < from + count; page++) {
+            pool.get(volume, page, true, false).release();
+        }
+    }
+
     @Test
     public void testEvictVoume() throws Exception {
         final Volume vol = _persistit.createTemporaryVolume();
@@ -238,6 +238,54 @@ public class ConfigurationTest extends PersistitUnitTestCase {
 
     }
 
+    @Test
+    public void setBufferPoolOptions() throws Exception {
+        final String example = "1024,count=1000;16384,count=2000,policy=2Q,reserve=100,readahead=0,victimcache=64M,victimcodec=NONE,indexretention=10";
+        final Configuration configuration = new Configuration();
+        configuration.setBufferPoolConfiguration(example);
+        assertEquals("CLOCK", configuration.getBufferPoolMap().get(1024).getReplacementPolicy());
+        assertEquals("2Q", configuration.getBufferPoolMap().get(16384).getReplacementPolicy());
+        assertEquals(100, configuration.getBufferPoolMap().get(16384).getReserveCount());
+        assertEquals(0, configuration.getBufferPoolMap().get(16384).getReadAheadLimit());
+        assertEquals(64 * 1024 * 1024, configuration.getBufferPoolMap().get(16384).getVictimCacheSize());
+        assertEquals("NONE", configuration.getBufferPoolMap().get(16384).getVictimCodec());
+        assertEquals(10, configuration.getBufferPoolMap().get(16384).getIndexRetention());
+        assertEquals("toString() of parsed version should be equal", example,
+                configuration.getBufferPoolConfiguration());
+
+        final Properties properties = new Properties();
+        properties.put("buffer.count.8192", "500");
+        properties.put("buffer.policy.8192", "2q");
+        properties.put("buffer.reserve.8192", "50");
+        properties.put("buffer.readahead.8192", "8");
+        properties.put("buffer.victimcache.8192", "16M");
+        properties.put("buffer.victimcodec.8192", "deflate");
+        properties.put("buffer.indexretention.8192", "20");
+        final BufferPoolConfiguration bpc = testLoadPropertiesBufferSpecificationsHelper(properties)
+                .getBufferPoolMap().get(8192);
+        assertEquals(500, bpc.getMaximumCount());
+        assertEquals("2Q", bpc.getReplacementPolicy());
+        assertEquals(50, bpc.getReserveCount());
+        assertEquals(8, bpc.getReadAheadLimit());
+        assertEquals(16 * 1024 * 1024, bpc.getVictimCacheSize());
+        assertEquals("DEFLATE", bpc.getVictimCodec());
+        assertEquals(20, bpc.getIndexRetention());
+        assertEquals(8192, bufferSizeFromPropertyName("buffer.policy.8192"));
+
+        try {
+            bpc.setReplacementPolicy("LRU-K");
+            fail("Exception not thrown");
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            bpc.setVictimCodec("LZ4");
+            fail("Exception not thrown");
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
     private Configuration testLoadPropertiesBufferSpecificationsHelper(final Properties properties) throws Exception {
         final Configuration configuration = new Configuration();
         configuration.merge(properties);
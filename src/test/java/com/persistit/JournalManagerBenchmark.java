@@ -0,0 +1,91 @@
+/**
+ * Copyright 2012 Akiban Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static com.persistit.TransactionStatus.ABORTED;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/**
+ * Measures how the rate at which TX records can be appended to the journal
+ * scales with the number of appending threads.
+ */
+public class JournalManagerBenchmark extends PersistitUnitTestCase {
+
+    private final static long SECOND = 1000000000;
+
+    private final static int RECORDS = 200000;
+
+    private final static int RECORD_SIZE = 512;
+
+    @Test
+    public void testTransactionAppendScaling() throws Exception {
+        final JournalManager jman = _persistit.getJournalManager();
+        for (int threadCount = 1; threadCount <= 64; threadCount *= 2) {
+            final int recordsPerThread = RECORDS / threadCount;
+            final AtomicLong failures = new AtomicLong();
+            final long fillWaitsBefore = jman.getFillWaitCount();
+            final Thread[] threads = new Thread[threadCount];
+            for (int t = 0; t < threadCount; t++) {
+                threads[t] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        final ByteBuffer bb = ByteBuffer.allocate(RECORD_SIZE);
+                        try {
+                            for (int count = 0; count < recordsPerThread; count++) {
+                                bb.position(RECORD_SIZE);
+                                /*
+                                 * ABORTED records exercise the append path
+                                 * without growing the live transaction map.
+                                 */
+                                final long ts = _persistit.getTimestampAllocator().updateTimestamp();
+                                jman.writeTransactionToJournal(bb, ts, ABORTED, 0);
+                            }
+                        } catch (final Exception e) {
+                            e.printStackTrace();
+                            failures.incrementAndGet();
+                        }
+                    }
+                }, "JournalAppend_" + t);
+            }
+            final long start = System.nanoTime();
+            for (final Thread thread : threads) {
+                thread.start();
+            }
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+            jman.force();
+            final long elapsed = System.nanoTime() - start;
+            final long records = (long) threadCount * recordsPerThread;
+            System.out.printf("%2d threads: %,10d records/sec %,8d MB/sec %,6d fill waits\n", threadCount, records
+                    * SECOND / elapsed, records * (RECORD_SIZE + JournalRecord.TX.OVERHEAD) * SECOND / elapsed
+                    / 1000000, jman.getFillWaitCount() - fillWaitsBefore);
+            assertEquals(0, failures.get());
+        }
+    }
+
+    @Override
+    public void runAllTests() throws Exception {
+
+    }
+
+}
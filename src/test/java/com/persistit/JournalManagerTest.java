@@ -19,6 +19,8 @@ package com.persistit;
 import com.persistit.Accumulator.SumAccumulator;
 import com.persistit.CheckpointManager.Checkpoint;
 import com.persistit.JournalManager.PageNode;
+import com.persistit.JournalRecord.JE;
+import com.persistit.JournalRecord.TX;
 import com.persistit.TransactionPlayer.TransactionPlayerListener;
 import com.persistit.exception.PersistitException;
 import com.persistit.unit.ConcurrentUtil.ThrowingRunnable;
@@ -26,6 +28,7 @@ import com.persistit.util.Util;
 import org.junit.Test;
 
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -35,7 +38,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static com.persistit.TransactionStatus.ABORTED;
 import static com.persistit.unit.ConcurrentUtil.createThread;
 import static com.persistit.unit.ConcurrentUtil.startAndJoinAssertSuccess;
 import static com.persistit.util.SequencerConstants.PAGE_MAP_READ_INVALIDATE_B;
@@ -664,6 +670,378 @@ public class JournalManagerTest extends PersistitUnitTestCase {
         disableSequencer();
     }
 
+    @Test
+    public void testDirectWriteBuffer() throws Exception {
+        _config.setJournalDirectBufferEnabled(true);
+        safeCrashAndRestoreProperties();
+        final JournalManager jman = _persistit.getJournalManager();
+        assertTrue("Write buffer should be direct", jman.isWriteBufferDirect());
+        store1();
+        _persistit.flush();
+        _persistit.checkpoint();
+        assertEquals(50000, countKeys(false));
+
+        _config.setJournalDirectBufferEnabled(false);
+        safeCrashAndRestoreProperties();
+        assertTrue("Write buffer should not be direct", !_persistit.getJournalManager().isWriteBufferDirect());
+        assertEquals(50000, countKeys(false));
+    }
+
+    @Test
+    public void compressedPageImagesAreRecovered() throws Exception {
+        _config.setJournalCompressionEnabled(true);
+        safeCrashAndRestoreProperties();
+        final JournalManager jman = _persistit.getJournalManager();
+        assertTrue("Page compression should be enabled", jman.isPageCompressionEnabled());
+        store1();
+        _persistit.flush();
+        _persistit.checkpoint();
+        assertTrue("Pages should have been compressed", jman.getCompressedPageCount() > 0);
+        assertTrue("Compression should save journal space", jman.getCompressedPageBytesSaved() > 0);
+        assertEquals(50000, countKeys(false));
+
+        _config.setJournalCompressionEnabled(false);
+        safeCrashAndRestoreProperties();
+        assertEquals(50000, countKeys(false));
+        _persistit.copyBackPages();
+        safeCrashAndRestoreProperties();
+        assertEquals(50000, countKeys(false));
+    }
+
+    @Test
+    public void deltaPageImagesAreRecovered() throws Exception {
+        _config.setJournalDeltaEnabled(true);
+        safeCrashAndRestoreProperties();
+        final JournalManager jman = _persistit.getJournalManager();
+        assertTrue("Page delta logging should be enabled", jman.isPageDeltaEnabled());
+        store1();
+        _persistit.flush();
+        _persistit.checkpoint();
+        final Exchange exchange = _persistit.getExchange(_volumeName, "JournalManagerTest1", false);
+        final Random random = new Random(1);
+        final Map<String, String> updated = new HashMap<String, String>();
+        for (int round = 0; round < 10; round++) {
+            for (int count = 0; count < 100; count++) {
+                final int i = random.nextInt(50000) + 1;
+                final String key = new String(new char[] { (char) (i / 20 + 64), (char) (i % 20 + 64) });
+                final String value = "Update #" + round;
+                exchange.clear().append(key).getValue().put(value);
+                exchange.store();
+                updated.put(key, value);
+            }
+            _persistit.flush();
+            _persistit.checkpoint();
+        }
+        assertTrue("Pages should have been written as deltas", jman.getDeltaPageCount() > 0);
+        assertTrue("Deltas should save journal space", jman.getDeltaPageBytesSaved() > 0);
+
+        _config.setJournalDeltaEnabled(false);
+        safeCrashAndRestoreProperties();
+        assertEquals(50000, countKeys(false));
+        assertUpdated(updated);
+        _persistit.copyBackPages();
+        safeCrashAndRestoreProperties();
+        assertEquals(50000, countKeys(false));
+        assertUpdated(updated);
+    }
+
+    private void assertUpdated(final Map<String, String> updated) throws PersistitException {
+        final Exchange exchange = _persistit.getExchange(_volumeName, "JournalManagerTest1", false);
+        for (final Map.Entry<String, String> entry : updated.entrySet()) {
+            assertEquals(entry.getValue(), exchange.clear().append(entry.getKey()).fetch().getValue().getString());
+        }
+    }
+
+    @Test
+    public void copyBackCoalescesAdjacentPages() throws Exception {
+        final JournalManager jman = _persistit.getJournalManager();
+        store1();
+        _persistit.flush();
+        _persistit.checkpoint();
+        final long copiedBefore = jman.getCopiedPageCount();
+        final long writesBefore = jman.getCopyWriteCount();
+        _persistit.copyBackPages();
+        final long copied = jman.getCopiedPageCount() - copiedBefore;
+        final long writes = jman.getCopyWriteCount() - writesBefore;
+        assertTrue("Pages should have been copied", copied > 0);
+        assertTrue("Adjacent pages should be written together: " + copied + " pages in " + writes + " writes",
+                writes < copied);
+        safeCrashAndRestoreProperties();
+        assertEquals(50000, countKeys(false));
+    }
+
+    @Test
+    public void writePageBatchSpanningNewVolume() throws Exception {
+        store1();
+        final Volume volume1 = _persistit.getVolume(_volumeName);
+        final Volume volume2 = _persistit.loadVolume(copierVolume("batch"));
+        final Exchange exchange = _persistit.getExchange(volume2, "JournalManagerTest1", true);
+        exchange.clear().append(1).getValue().put(RED_FOX);
+        exchange.store();
+        _persistit.flush();
+        volume1.resetHandle();
+        volume2.resetHandle();
+
+        final JournalManager jman = new JournalManager(_persistit);
+        jman.setWriteBufferSize(JournalManager.MINIMUM_BUFFER_SIZE);
+        jman.init(null, DATA_PATH + "/JournalManagerTest_journal_", 100 * 1000 * 1000);
+        final BufferPool pool = _persistit.getBufferPool(16384);
+        final Buffer[] batch = new Buffer[] {
+                pool.get(volume1, volume1.getTree("JournalManagerTest1", false).getRootPageAddr(), true, true),
+                pool.get(volume2, exchange.getTree().getRootPageAddr(), true, true) };
+        try {
+            jman.writePageToJournal(batch[0]);
+            jman.flush();
+            /*
+             * Fill the write buffer until the batch barely fits, so that the
+             * IV record for volume2 cannot also fit unless it is written
+             * before space for the batch is reserved.
+             */
+            final int batchSize = jman.pageRecordSize(batch[0], null) + jman.pageRecordSize(batch[1], null);
+            final ByteBuffer empty = ByteBuffer.allocate(0);
+            while (jman.getWriteBufferRemaining() > batchSize + JE.OVERHEAD + TX.OVERHEAD) {
+                jman.writeTransactionToJournal(empty, _persistit.getTimestampAllocator().updateTimestamp(), ABORTED, 0);
+            }
+            assertEquals(0, volume2.getHandle());
+            jman.writePagesToJournal(batch, 0, batch.length);
+
+            assertEquals(1, jman.getJournaledPageBatchCount());
+            assertTrue("New volume should have a handle", volume2.getHandle() != 0);
+            for (final Buffer buffer : batch) {
+                assertTrue("Page should be in the page map",
+                        jman.queryPageNode(buffer.getVolume().getHandle(), buffer.getPageAddress()) != null);
+            }
+        } finally {
+            for (final Buffer buffer : batch) {
+                buffer.releaseTouched();
+            }
+            jman.close();
+            volume1.resetHandle();
+            volume2.resetHandle();
+        }
+    }
+
+    @Test
+    public void copierThreadsWriteVolumesConcurrently() throws Exception {
+        _config.setJournalCopierThreads(3);
+        safeCrashAndRestoreProperties();
+        final JournalManager jman = _persistit.getJournalManager();
+        assertEquals(3, jman.getCopierThreadCount());
+        final String[] names = { "copier1", "copier2" };
+        for (final String name : names) {
+            _persistit.loadVolume(copierVolume(name));
+        }
+        for (final String name : names) {
+            final Exchange exchange = _persistit.getExchange(name, "JournalManagerTest1", true);
+            for (int i = 0; i < 5000; i++) {
+                exchange.clear().append(i).getValue().put(RED_FOX + name);
+                exchange.store();
+            }
+        }
+        store1();
+        _persistit.flush();
+        _persistit.checkpoint();
+        _persistit.copyBackPages();
+        assertTrue("Pages should have been copied", jman.getCopiedPageCount() > 0);
+        boolean workerFound = false;
+        for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+            workerFound |= thread.getName().startsWith("JOURNAL_COPIER:");
+        }
+        assertTrue("Copier worker threads should have been started", workerFound);
+
+        safeCrashAndRestoreProperties();
+        assertEquals(50000, countKeys(false));
+        for (final String name : names) {
+            _persistit.loadVolume(copierVolume(name));
+            final Exchange exchange = _persistit.getExchange(name, "JournalManagerTest1", false);
+            for (int i = 0; i < 5000; i++) {
+                assertEquals(RED_FOX + name, exchange.clear().append(i).fetch().getValue().getString());
+            }
+        }
+    }
+
+    @Test
+    public void mappedReadsServeSealedJournalFiles() throws Exception {
+        _config.setJournalMappedReadsEnabled(true);
+        safeCrashAndRestoreProperties();
+        final JournalManager jman = _persistit.getJournalManager();
+        assertTrue(jman.isMappedReadsEnabled());
+        jman.setAppendOnly(true);
+        store1();
+        _persistit.flush();
+        _persistit.checkpoint();
+        jman.rolloverWithNewFile();
+        final Volume volume = _persistit.getVolume(_volumeName);
+        volume.getPool().invalidate(volume);
+        assertEquals(50000, countKeys(false));
+        assertTrue("Pages should have been read through a mapping", jman.getMappedReadCount() > 0);
+
+        safeCrashAndRestoreProperties();
+        assertEquals(50000, countKeys(false));
+        _persistit.copyBackPages();
+        assertEquals(50000, countKeys(false));
+    }
+
+    @Test
+    public void stripedJournalIsRecovered() throws Exception {
+        final File[] directories = { new File(DATA_PATH, "stripe1"), new File(DATA_PATH, "stripe2") };
+        for (final File directory : directories) {
+            directory.mkdirs();
+        }
+        _config.setJournalStripes(directories[0] + "," + directories[1]);
+        safeCrashAndRestoreProperties();
+        final JournalManager jman = _persistit.getJournalManager();
+        assertEquals(3, jman.getStripeCount());
+        jman.setAppendOnly(true);
+        store1();
+        _persistit.flush();
+        _persistit.checkpoint();
+        final String name = jman.addressToFile(jman.getCurrentAddress()).getName();
+        for (final File directory : directories) {
+            assertTrue("Stripe file should hold journal records", new File(directory, name).length() > 0);
+        }
+
+        safeCrashAndRestoreProperties();
+        assertEquals(50000, countKeys(false));
+        _persistit.copyBackPages();
+        assertEquals(50000, countKeys(false));
+    }
+
+    private VolumeSpecification copierVolume(final String name) {
+        return new VolumeSpecification(DATA_PATH + "/" + name, null, 16384, 1, 1000, 1, true, false, false);
+    }
+
+    @Test
+    public void concurrentTransactionAppendsAreRecovered() throws Exception {
+        final int threadCount = 8;
+        final int transactions = 500;
+        final Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final int id = t;
+            threads[t] = createThread("Appender_" + t, new ThrowingRunnable() {
+                @Override
+                public void run() throws Exception {
+                    final Exchange exchange = _persistit.getExchange(_volumeName, "JournalManagerTest2", true);
+                    final Transaction txn = _persistit.getTransaction();
+                    for (int i = 0; i < transactions; i++) {
+                        txn.begin();
+                        try {
+                            exchange.clear().append(id).append(i).getValue().put("Record " + id + ":" + i);
+                            exchange.store();
+                            txn.commit();
+                        } finally {
+                            txn.end();
+                        }
+                    }
+                }
+            });
+        }
+        startAndJoinAssertSuccess(60000, threads);
+        safeCrashAndRestoreProperties();
+        final Exchange exchange = _persistit.getExchange(_volumeName, "JournalManagerTest2", false);
+        for (int t = 0; t < threadCount; t++) {
+            for (int i = 0; i < transactions; i++) {
+                exchange.clear().append(t).append(i).fetch();
+                assertEquals("Record " + t + ":" + i, exchange.getValue().getString());
+            }
+        }
+    }
+
+    @Test
+    public void concurrentHardCommitsReportWaitTimes() throws Exception {
+        final JournalManager jman = _persistit.getJournalManager();
+        final long commitsBefore = jman.getTotalCompletedCommits();
+        final int threadCount = 16;
+        final int transactions = 50;
+        final Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final int id = t;
+            threads[t] = createThread("Committer_" + t, new ThrowingRunnable() {
+                @Override
+                public void run() throws Exception {
+                    final Exchange exchange = _persistit.getExchange(_volumeName, "JournalManagerTest3", true);
+                    final Transaction txn = _persistit.getTransaction();
+                    for (int i = 0; i < transactions; i++) {
+                        txn.begin();
+                        try {
+                            exchange.clear().append(id).append(i).getValue().put(RED_FOX);
+                            exchange.store();
+                            txn.commit(Transaction.CommitPolicy.HARD);
+                        } finally {
+                            txn.end();
+                        }
+                    }
+                }
+            });
+        }
+        startAndJoinAssertSuccess(60000, threads);
+        assertEquals(threadCount * transactions, jman.getTotalCompletedCommits() - commitsBefore);
+        assertTrue(jman.getCommitWaitTimeP50() <= jman.getCommitWaitTimeP90());
+        assertTrue(jman.getCommitWaitTimeP90() <= jman.getCommitWaitTimeP99());
+        assertTrue(jman.getCommitWaitTimeP99() <= jman.getCommitWaitTimeP999());
+        assertTrue(jman.getCommitWaitTimeP999() > 0);
+    }
+
+    @Test
+    public void asyncCommitsCompleteAndAreRecovered() throws Exception {
+        final int transactions = 200;
+        final Exchange exchange = _persistit.getExchange(_volumeName, "JournalManagerTest4", true);
+        final Transaction txn = _persistit.getTransaction();
+        final List<CommitFuture> futures = new ArrayList<CommitFuture>();
+        final AtomicInteger notified = new AtomicInteger();
+        for (int i = 0; i < transactions; i++) {
+            txn.begin();
+            try {
+                exchange.clear().append(i).getValue().put(RED_FOX);
+                exchange.store();
+                final CommitFuture future = txn.commitAsync();
+                future.addListener(new Runnable() {
+                    @Override
+                    public void run() {
+                        /*
+                         * Listeners run before waiting threads are released
+                         * and already see the handle as done
+                         */
+                        if (future.isDone()) {
+                            notified.incrementAndGet();
+                        }
+                    }
+                });
+                futures.add(future);
+            } finally {
+                txn.end();
+            }
+            /*
+             * Committed updates are visible before they are durable
+             */
+            assertTrue(exchange.clear().append(i).isValueDefined());
+        }
+        for (final CommitFuture future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+            assertTrue(future.isDone());
+        }
+        assertEquals(transactions, notified.get());
+
+        txn.begin();
+        try {
+            txn.begin();
+            try {
+                assertTrue("Nested commit is complete", txn.commitAsync().isDone());
+            } finally {
+                txn.end();
+            }
+            txn.commit();
+        } finally {
+            txn.end();
+        }
+
+        safeCrashAndRestoreProperties();
+        final Exchange recovered = _persistit.getExchange(_volumeName, "JournalManagerTest4", false);
+        for (int i = 0; i < transactions; i++) {
+            assertEquals(RED_FOX, recovered.clear().append(i).fetch().getValue().getString());
+        }
+    }
+
     private int countKeys(final boolean mvcc) throws PersistitException {
         final Exchange exchange = _persistit.getExchange(_volumeName, "JournalManagerTest1", false);
         exchange.ignoreMVCCFetch(!mvcc);
@@ -0,0 +1,215 @@
+/**
+ * Copyright 2012 Akiban Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import com.persistit.exception.PersistitException;
+
+public class JournalSpareFileTest extends PersistitUnitTestCase {
+
+    private final static int BLOCKSIZE = 10000000;
+
+    private final static int SPARES = 2;
+
+    private final String _volumeName = "persistit";
+
+    @Override
+    protected Properties doGetProperties(final boolean cleanup) {
+        final Properties p = getProperties(cleanup);
+        p.setProperty("journalsize", Integer.toString(BLOCKSIZE));
+        p.setProperty("journalsparefiles", Integer.toString(SPARES));
+        return p;
+    }
+
+    @Test
+    public void newJournalFileUsesSpare() throws Exception {
+        final JournalManager jman = _persistit.getJournalManager();
+        assertEquals(SPARES, jman.getSpareFileLimit());
+        jman.prepareSpareFile();
+        assertEquals(1, jman.getSpareFileCount());
+        assertEquals(1, jman.getPreallocatedFileCount());
+
+        jman.rolloverWithNewFile();
+        store(0, 1000);
+        _persistit.flush();
+        _persistit.checkpoint();
+        assertEquals(0, jman.getSpareFileCount());
+        final File file = jman.addressToFile(jman.getCurrentAddress());
+        assertEquals("Journal file should have the length of the spare", BLOCKSIZE, file.length());
+        /*
+         * Recovery must stop at the cleared remainder of the file
+         */
+        safeCrashAndRestoreProperties();
+        verify(0, 1000);
+    }
+
+    @Test
+    public void obsoleteJournalFilesAreRecycled() throws Exception {
+        final JournalManager jman = _persistit.getJournalManager();
+        for (int cycle = 0; cycle < 5; cycle++) {
+            store(cycle * 1000, 1000);
+            _persistit.flush();
+            _persistit.checkpoint();
+            jman.rolloverWithNewFile();
+            _persistit.checkpoint();
+            _persistit.copyBackPages();
+            jman.prepareSpareFile();
+        }
+        assertTrue("Obsolete journal files should have been recycled", jman.getRecycledFileCount() > 0);
+        assertTrue(jman.getSpareFileCount() <= SPARES);
+        safeCrashAndRestoreProperties();
+        verify(0, 5000);
+        assertTrue(spareFileCount() <= SPARES);
+
+        _persistit.getJournalManager().setSpareFileLimit(0);
+        _persistit.getJournalManager().prepareSpareFile();
+        assertEquals(0, spareFileCount());
+    }
+
+    @Test
+    public void recycledSpareIsClearedOnlyAtItsHeader() throws Exception {
+        final JournalManager jman = _persistit.getJournalManager();
+        /*
+         * The first file recycled was written from scratch and is shorter
+         * than a spare, so it is cleared in full. Later ones were spares.
+         */
+        recycle(jman, 2);
+        for (int count = 0; count < SPARES; count++) {
+            jman.prepareSpareFile();
+        }
+        boolean staleContentFound = false;
+        for (final File file : spareFiles()) {
+            final byte[] bytes = new byte[BLOCKSIZE];
+            final RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                raf.readFully(bytes);
+            } finally {
+                raf.close();
+            }
+            for (int index = 0; index < BLOCKSIZE; index++) {
+                if (bytes[index] != 0) {
+                    assertTrue("Spare header should be cleared", index >= JournalRecord.JH.MAX_LENGTH);
+                    staleContentFound = true;
+                    break;
+                }
+            }
+        }
+        assertTrue("Recycled spare should retain its stale content", staleContentFound);
+        /*
+         * Recovery must stop at the end of the records written to the spare
+         * rather than reading on into its stale content
+         */
+        jman.rolloverWithNewFile();
+        store(5000, 10);
+        _persistit.checkpoint();
+        safeCrashAndRestoreProperties();
+        verify(0, 5010);
+    }
+
+    @Test
+    public void stripedSparesIncludeStripeFiles() throws Exception {
+        final File[] directories = { new File(DATA_PATH, "stripe1"), new File(DATA_PATH, "stripe2") };
+        /*
+         * Start again with an empty journal since one written without stripes
+         * cannot be recovered with them
+         */
+        _persistit.close();
+        cleanUpDirectory(new File(DATA_PATH));
+        for (final File directory : directories) {
+            directory.mkdirs();
+        }
+        _config.setJournalStripes(directories[0] + "," + directories[1]);
+        _persistit = new Persistit(_config);
+        final JournalManager jman = _persistit.getJournalManager();
+        assertEquals(3, jman.getStripeCount());
+        recycle(jman, 1);
+        jman.prepareSpareFile();
+        assertTrue(jman.getSpareFileCount() > 0);
+        for (final File file : spareFiles()) {
+            for (final File directory : directories) {
+                assertEquals("Stripe file should be recycled with its spare", file.length() > 0, new File(
+                        directory, file.getName()).length() > 0);
+            }
+        }
+        jman.rolloverWithNewFile();
+        store(5000, 10);
+        _persistit.checkpoint();
+        final String name = jman.addressToFile(jman.getCurrentAddress()).getName();
+        for (final File directory : directories) {
+            assertTrue(new File(directory, name).exists());
+        }
+        safeCrashAndRestoreProperties();
+        verify(0, 5010);
+    }
+
+    /**
+     * Store records, then make the journal files holding them obsolete until
+     * the specified number of them have been recycled as spares.
+     */
+    private void recycle(final JournalManager jman, final int count) throws Exception {
+        for (int cycle = 0; cycle < 10 && jman.getRecycledFileCount() < count; cycle++) {
+            store(cycle * 1000, 1000);
+            _persistit.flush();
+            _persistit.checkpoint();
+            jman.rolloverWithNewFile();
+            _persistit.checkpoint();
+            _persistit.copyBackPages();
+        }
+        assertTrue("Obsolete journal files should have been recycled", jman.getRecycledFileCount() >= count);
+        store(0, 5000);
+    }
+
+    private void store(final int from, final int count) throws PersistitException {
+        final Exchange exchange = _persistit.getExchange(_volumeName, "JournalSpareFileTest", true);
+        for (int i = from; i < from + count; i++) {
+            exchange.clear().append(i).getValue().put(RED_FOX + i);
+            exchange.store();
+        }
+    }
+
+    private void verify(final int from, final int count) throws PersistitException {
+        final Exchange exchange = _persistit.getExchange(_volumeName, "JournalSpareFileTest", false);
+        for (int i = from; i < from + count; i++) {
+            assertEquals(RED_FOX + i, exchange.clear().append(i).fetch().getValue().getString());
+        }
+    }
+
+    private int spareFileCount() {
+        return spareFiles().size();
+    }
+
+    private List<File> spareFiles() {
+        final File path = new File(_persistit.getJournalManager().getJournalFilePath());
+        final List<File> files = new ArrayList<File>();
+        for (final File file : path.getParentFile().listFiles()) {
+            if (JournalManager.SPARE_PATTERN.matcher(file.getPath()).matches()) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+}
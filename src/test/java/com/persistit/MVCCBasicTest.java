@@ -17,6 +17,7 @@
 package com.persistit;
 
 import com.persistit.exception.PersistitException;
+import com.persistit.exception.ReadOnlyTransactionException;
 import org.junit.Test;
 
 import java.util.Collections;
@@ -25,7 +26,9 @@ import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class MVCCBasicTest extends MVCCTestBase {
     private static final String KEY1 = "k1";
@@ -1055,6 +1058,117 @@ public class MVCCBasicTest extends MVCCTestBase {
         }
     }
 
+    @Test
+    public void testReadOnlyTrxReadsSnapshot() throws Exception {
+        trx1.begin();
+        try {
+            store(ex1, KEY1, VALUE1);
+            trx1.commit();
+        } finally {
+            trx1.end();
+        }
+
+        trx2.beginReadOnly();
+        try {
+            assertTrue("read-only", trx2.isReadOnly());
+            assertEquals("sees committed value", VALUE1, fetch(ex2, KEY1));
+
+            for (final long value : new long[] { VALUE2, VALUE1 + VALUE2 }) {
+                trx1.begin();
+                try {
+                    store(ex1, KEY1, value);
+                    trx1.commit();
+                } finally {
+                    trx1.end();
+                }
+            }
+            _persistit.getTransactionIndex().updateActiveTransactionCache();
+            ex1.prune(ex1.getKey());
+            assertEquals("snapshot survives pruning", VALUE1, fetch(ex2, KEY1));
+            trx2.commit();
+        } finally {
+            trx2.end();
+        }
+        assertFalse("ended", trx2.isReadOnly());
+
+        trx2.beginReadOnly();
+        try {
+            assertEquals("sees later commits", VALUE1 + VALUE2, fetch(ex2, KEY1));
+            trx2.commit();
+        } finally {
+            trx2.end();
+        }
+    }
+
+    @Test
+    public void testReadOnlyTrxCannotWrite() throws Exception {
+        trx1.beginReadOnly();
+        try {
+            store(ex1, KEY1, VALUE1);
+            fail("Expected ReadOnlyTransactionException");
+        } catch (final ReadOnlyTransactionException e) {
+            // expected
+        } finally {
+            trx1.end();
+        }
+
+        trx1.begin();
+        try {
+            fetch(ex1, KEY1, false);
+            assertFalse("nothing stored", ex1.getValue().isDefined());
+            trx1.commit();
+        } finally {
+            trx1.end();
+        }
+    }
+
+    @Test
+    public void testReadOnlyTrxIgnoresWriterAtSnapshotTimestamp() throws Exception {
+        final String newTreeName = TEST_TREE_NAME + "_new";
+        final Volume volume = _persistit.getVolume(TEST_VOLUME_NAME);
+        /*
+         * A writer that begins right after the read-only transaction is
+         * allocated the snapshot timestamp as its start timestamp unless some
+         * background thread allocated a timestamp in between; retry until that
+         * happens.
+         */
+        for (int attempt = 0;; attempt++) {
+            trx2.beginReadOnly();
+            trx1.begin();
+            if (trx1.getStartTimestamp() == trx2.getStartTimestamp()) {
+                break;
+            }
+            trx1.end();
+            trx2.end();
+            assertTrue("writer never started at the snapshot timestamp", attempt < 100);
+        }
+        try {
+            store(ex1, KEY1, VALUE1);
+            _persistit.setSessionId(trx1.getSessionId());
+            final Exchange ex = _persistit.getExchange(TEST_VOLUME_NAME, newTreeName, true);
+            store(ex, KEY2, VALUE2);
+
+            _persistit.setSessionId(trx2.getSessionId());
+            fetch(ex2, KEY1, false);
+            assertFalse("uncommitted value is not visible", ex2.getValue().isDefined());
+            assertNull("uncommitted tree is not visible", volume.getTree(newTreeName, false));
+
+            for (final String treeName : new String[] { newTreeName, newTreeName + "_other" }) {
+                try {
+                    _persistit.getExchange(TEST_VOLUME_NAME, treeName, true);
+                    fail("Expected ReadOnlyTransactionException");
+                } catch (final ReadOnlyTransactionException e) {
+                    // expected
+                }
+            }
+        } finally {
+            trx2.end();
+            _persistit.setSessionId(trx1.getSessionId());
+            trx1.rollback();
+            trx1.end();
+        }
+    }
+
     //
     // Test Helpers
     //
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2012 Akiban Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PageDeltaTest {
+
+    private final static int SIZE = 16384;
+
+    @Test
+    public void encodeAndApply() {
+        final Random random = new Random(1);
+        for (int iteration = 0; iteration < 1000; iteration++) {
+            final byte[] base = new byte[SIZE];
+            random.nextBytes(base);
+            final byte[] image = base.clone();
+            final int changes = random.nextInt(20);
+            for (int change = 0; change < changes; change++) {
+                final int at = random.nextInt(SIZE);
+                final int length = Math.min(SIZE - at, random.nextInt(64) + 1);
+                for (int i = at; i < at + length; i++) {
+                    image[i] = (byte) random.nextInt();
+                }
+            }
+            final byte[] patches = PageDelta.encode(base, image, SIZE);
+            final byte[] result = base.clone();
+            assertTrue(PageDelta.apply(patches, 0, patches.length, result, 0, SIZE));
+            assertArrayEquals(image, result);
+            assertTrue(PageDelta.patchCount(patches, 0, patches.length) <= changes);
+        }
+    }
+
+    @Test
+    public void unchangedAndOversized() {
+        final byte[] base = new byte[SIZE];
+        new Random(2).nextBytes(base);
+        final byte[] patches = PageDelta.encode(base, base.clone(), 16);
+        assertEquals(0, patches.length);
+
+        final byte[] image = new byte[SIZE];
+        assertNull(PageDelta.encode(base, image, SIZE / 4));
+    }
+
+    @Test
+    public void invalidPatches() {
+        final byte[] image = new byte[SIZE];
+        final byte[] patches = new byte[] { 0x7F, (byte) 0xF0, 0, 0x20 };
+        assertFalse(PageDelta.apply(patches, 0, patches.length, image, 0, SIZE));
+        assertEquals(-1, PageDelta.patchCount(patches, 0, patches.length));
+    }
+
+    @Test
+    public void boundedBaseImages() {
+        final PageDelta deltas = new PageDelta(SIZE * 4);
+        for (int page = 0; page < 10; page++) {
+            deltas.put(null, page, new PageDelta.Base(page, new byte[SIZE]));
+        }
+        assertEquals(4, deltas.size());
+        assertNull(deltas.get(null, 0));
+        assertEquals(9, deltas.get(null, 9).getAddress());
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright 2012 Akiban Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.persistit.JournalManager.PageNode;
+
+public class PageMapTest {
+
+    @Test
+    public void matchesHashMap() {
+        final PageMap pageMap = new PageMap();
+        final Map<PageNode, PageNode> reference = new HashMap<PageNode, PageNode>();
+        final Random random = new Random(1);
+        for (int i = 0; i < 200000; i++) {
+            final PageNode pn = new PageNode(random.nextInt(4) + 1, random.nextInt(20000), i, i);
+            if (random.nextInt(3) == 0) {
+                assertSame(reference.remove(pn), pageMap.remove(pn));
+            } else {
+                assertSame(reference.put(pn, pn), pageMap.put(pn, pn));
+            }
+            assertEquals(reference.size(), pageMap.size());
+        }
+        for (final PageNode pn : reference.values()) {
+            assertSame(pn, pageMap.get(pn.getVolumeHandle(), pn.getPageAddress()));
+        }
+        int count = 0;
+        for (final PageNode pn : pageMap.values()) {
+            assertSame(pn, reference.get(pn));
+            count++;
+        }
+        assertEquals(reference.size(), count);
+        assertNull(pageMap.get(5, 1));
+    }
+
+    @Test
+    public void iteratorRemove() {
+        final PageMap pageMap = new PageMap();
+        for (int page = 0; page < 1000; page++) {
+            final PageNode pn = new PageNode(1, page, page, page);
+            pageMap.put(pn, pn);
+        }
+        for (final Iterator<PageNode> iterator = pageMap.values().iterator(); iterator.hasNext();) {
+            if (iterator.next().getPageAddress() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(500, pageMap.size());
+        for (int page = 0; page < 1000; page++) {
+            assertEquals(page % 2 == 1, pageMap.get(1, page) != null);
+        }
+        pageMap.clear();
+        assertEquals(0, pageMap.size());
+        assertTrue(pageMap.isEmpty());
+    }
+
+    @Test
+    public void concurrentReaders() throws Exception {
+        final PageMap pageMap = new PageMap();
+        final int pages = 10000;
+        for (int page = 0; page < pages; page++) {
+            final PageNode pn = new PageNode(1, page, page, page);
+            pageMap.put(pn, pn);
+        }
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicLong errors = new AtomicLong();
+        final Thread[] readers = new Thread[4];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    final Random random = new Random();
+                    while (!done.get()) {
+                        /*
+                         * Pages below the limit are never removed
+                         */
+                        final int page = random.nextInt(pages);
+                        final PageNode pn = pageMap.get(1, page);
+                        if (pn == null || pn.getPageAddress() != page) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            readers[i].start();
+        }
+        final Random random = new Random(1);
+        for (int i = 0; i < 500000; i++) {
+            final long page = pages + random.nextInt(pages * 10);
+            final PageNode pn = new PageNode(1, page, i, i);
+            if (random.nextBoolean()) {
+                pageMap.put(pn, pn);
+            } else {
+                pageMap.remove(pn);
+            }
+            final PageNode replacement = new PageNode(1, random.nextInt(pages), i, i);
+            pageMap.put(replacement, replacement);
+        }
+        done.set(true);
+        for (final Thread reader : readers) {
+            reader.join();
+        }
+        assertEquals(0, errors.get());
+    }
+}
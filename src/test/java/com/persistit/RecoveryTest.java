@@ -23,6 +23,7 @@ import com.persistit.TransactionPlayer.TransactionPlayerListener;
 import com.persistit.exception.PersistitException;
 import com.persistit.exception.RollbackException;
 import com.persistit.exception.TransactionFailedException;
+import com.persistit.unit.ConcurrentUtil.ThrowingRunnable;
 import org.junit.Test;
 
 import java.io.File;
@@ -35,8 +36,16 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
 
+import static com.persistit.unit.ConcurrentUtil.assertSuccess;
+import static com.persistit.unit.ConcurrentUtil.createThread;
+import static com.persistit.unit.ConcurrentUtil.join;
+import static com.persistit.unit.ConcurrentUtil.start;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class RecoveryTest extends PersistitUnitTestCase {
@@ -313,6 +322,158 @@ public class RecoveryTest extends PersistitUnitTestCase {
     assertTrue(keys.isEmpty());
   }
 
+  @Test
+  public void testParallelReplayIsCorrect() throws Exception {
+    _config.setRecoveryThreads(4);
+    final Map<String, Integer> expected = storeMultiTreeTransactions();
+    _persistit.crash();
+    _persistit = new Persistit(_config);
+    final RecoveryManager rman = _persistit.getRecoveryManager();
+    assertEquals(4, rman.getReplayThreadCount());
+    assertEquals(0, rman.getErrorCount());
+    assertTrue(rman.getAppliedTransactionCount() > 0);
+    assertEquals(expected, readMultiTreeTransactions());
+  }
+
+  @Test
+  public void testRecoveryReportsBytesRead() throws Exception {
+    final Map<String, Integer> expected = storeMultiTreeTransactions();
+    _persistit.crash();
+    _persistit = new Persistit(_config);
+    final RecoveryManager rman = _persistit.getRecoveryManager();
+    assertTrue(rman.getScanBytesRead() > 0);
+    assertTrue(rman.getScanBytesPerSecond() > 0);
+    assertTrue(rman.getReplayBytesRead() > 0);
+    // Read-ahead stops at the end of the scan; replay reads are not sequential
+    assertFalse(rman.isReadingAhead());
+    assertEquals(expected, readMultiTreeTransactions());
+  }
+
+  @Test
+  public void testLazyRecovery() throws Exception {
+    final Map<String, Integer> expected = storeMultiTreeTransactions();
+    _persistit.crash();
+    _config.setLazyRecoveryEnabled(true);
+    final CountDownLatch gate = new CountDownLatch(1);
+    _persistit = new Persistit();
+    final RecoveryManager rman = _persistit.getRecoveryManager();
+    rman.setLazyReplayGateForTestMode(gate);
+    _persistit.setConfiguration(_config);
+    _persistit.initialize();
+    assertTrue(rman.isLazyRecoveryEnabled());
+    final int pending = rman.getPendingTransactionCount();
+    assertTrue(pending > 0);
+    /*
+     * Looking up a tree updated by a pending transaction must wait until
+     * replay has applied every such transaction
+     */
+    final Map<String, Integer> tree0 = new TreeMap<String, Integer>();
+    final Thread reader = createThread("RecoveryTest_reader", new ThrowingRunnable() {
+      @Override
+      public void run() throws Exception {
+        final Exchange ex = _persistit.getExchange(_volumeName, "RecoveryTest_0", false);
+        ex.clear();
+        while (ex.next()) {
+          tree0.put("0:" + ex.getKey().decodeInt(), ex.getValue().getInt());
+        }
+      }
+    });
+    final Map<Thread, Throwable> errors = start(reader);
+    final long until = System.currentTimeMillis() + 10000;
+    while (reader.getState() != Thread.State.TIMED_WAITING && reader.getState() != Thread.State.WAITING
+        && System.currentTimeMillis() < until) {
+      Thread.sleep(10);
+    }
+    assertTrue("Reader should be blocked by lazy replay", reader.isAlive());
+    assertTrue(tree0.isEmpty());
+    assertEquals(pending, rman.getPendingTransactionCount());
+
+    gate.countDown();
+    join(10000, errors, reader);
+    assertSuccess(errors);
+    for (final Map.Entry<String, Integer> entry : expected.entrySet()) {
+      if (entry.getKey().startsWith("0:")) {
+        assertEquals(entry.getValue(), tree0.remove(entry.getKey()));
+      }
+    }
+    assertTrue(tree0.isEmpty());
+    /*
+     * Each tree is looked up only after all transactions updating it have
+     * been applied
+     */
+    assertEquals(expected, readMultiTreeTransactions());
+    rman.awaitLazyReplay();
+    assertEquals(0, rman.getPendingTransactionCount());
+    assertEquals(0, rman.getErrorCount());
+    assertNotNull(_persistit.checkpoint());
+  }
+
+  @Test
+  public void testLazyRecoveryInterruptedByCrash() throws Exception {
+    final Map<String, Integer> expected = storeMultiTreeTransactions();
+    _persistit.crash();
+    _config.setLazyRecoveryEnabled(true);
+    /*
+     * The gate is never released, so none of the recovered transactions is
+     * applied before the next crash
+     */
+    _persistit = new Persistit();
+    _persistit.getRecoveryManager().setLazyReplayGateForTestMode(new CountDownLatch(1));
+    _persistit.setConfiguration(_config);
+    _persistit.initialize();
+    assertTrue(_persistit.getRecoveryManager().getPendingTransactionCount() > 0);
+    /*
+     * Checkpoints are deferred until the recovered transactions have been
+     * applied, so that they are recovered again after another crash.
+     */
+    assertNull(_persistit.checkpoint());
+    _persistit.crash();
+    _config.setLazyRecoveryEnabled(false);
+    _persistit = new Persistit(_config);
+    assertEquals(expected, readMultiTreeTransactions());
+  }
+
+  private Map<String, Integer> storeMultiTreeTransactions() throws PersistitException {
+    _persistit.getJournalManager().setAppendOnly(true);
+    final Map<String, Integer> expected = new TreeMap<String, Integer>();
+    final Transaction txn = _persistit.getTransaction();
+    for (int i = 0; i < 2000; i++) {
+      txn.begin();
+      try {
+        // Every tenth transaction updates two trees
+        for (int t = i % 4; t <= i % 4 + (i % 10 == 0 ? 1 : 0); t++) {
+          final Exchange ex = _persistit.getExchange(_volumeName, "RecoveryTest_" + t, true);
+          final int key = (i * 7) % 100;
+          if (i % 9 == 0) {
+            ex.clear().append(key).remove();
+            expected.remove(t + ":" + key);
+          } else {
+            ex.clear().append(key).getValue().put(i);
+            ex.store();
+            expected.put(t + ":" + key, i);
+          }
+        }
+        txn.commit();
+      } finally {
+        txn.end();
+      }
+    }
+    _persistit.getJournalManager().flush();
+    return expected;
+  }
+
+  private Map<String, Integer> readMultiTreeTransactions() throws PersistitException {
+    final Map<String, Integer> actual = new TreeMap<String, Integer>();
+    for (int t = 0; t < 5; t++) {
+      final Exchange ex = _persistit.getExchange(_volumeName, "RecoveryTest_" + t, true);
+      ex.clear();
+      while (ex.next()) {
+        actual.put(t + ":" + ex.getKey().decodeInt(), ex.getValue().getInt());
+      }
+    }
+    return actual;
+  }
+
   @Test
   public void testLargePageMap() throws Exception {
     final Volume vd = new Volume("foo", 123);
@@ -0,0 +1,95 @@
+/**
+ * Copyright 2012 Akiban Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/**
+ * Measures throughput of {@link TransactionIndex#registerTransaction()} and
+ * {@link TransactionIndex#notifyCompleted(TransactionStatus, long)} when
+ * between 1 and 128 threads run empty transactions, as in
+ * {@link TransactionIndexConcurrencyTest} but without MVVs, so that the
+ * TransactionIndexBucket locks are the only point of contention.
+ */
+public class TransactionIndexBenchmark {
+
+    private final static long SECOND = 1000000000;
+
+    private final static int HASH_TABLE_SIZE = 1000;
+
+    private final static int TRANSACTIONS = 1000000;
+
+    private final static int MAXIMUM_THREADS = 128;
+
+    @Test
+    public void testEmptyTransactionThroughput() throws Exception {
+        for (int threadCount = 1; threadCount <= MAXIMUM_THREADS; threadCount *= 2) {
+            final TimestampAllocator tsa = new TimestampAllocator();
+            final TransactionIndex ti = new TransactionIndex(tsa, HASH_TABLE_SIZE);
+            final Timer timer = new Timer();
+            timer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    ti.updateActiveTransactionCache();
+                }
+            }, 10, 10);
+
+            final int transactionsPerThread = TRANSACTIONS / threadCount;
+            final AtomicLong failures = new AtomicLong();
+            final Thread[] threads = new Thread[threadCount];
+            for (int t = 0; t < threadCount; t++) {
+                threads[t] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            for (int count = 0; count < transactionsPerThread; count++) {
+                                final TransactionStatus status = ti.registerTransaction();
+                                status.commit(tsa.getCurrentTimestamp());
+                                ti.notifyCompleted(status, tsa.updateTimestamp());
+                            }
+                        } catch (final Exception e) {
+                            e.printStackTrace();
+                            failures.incrementAndGet();
+                        }
+                    }
+                }, "TransactionIndexBenchmark_" + t);
+            }
+            final long start = System.nanoTime();
+            for (final Thread thread : threads) {
+                thread.start();
+            }
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+            final long elapsed = System.nanoTime() - start;
+            timer.cancel();
+
+            final long transactions = (long) threadCount * transactionsPerThread;
+            System.out.printf("%3d threads: %,12d transactions/sec\n", threadCount, transactions * SECOND / elapsed);
+            assertEquals(0, failures.get());
+            ti.updateActiveTransactionCache();
+            ti.cleanup();
+            assertEquals(0, ti.getCurrentCount() + ti.getLongRunningCount() + ti.getAbortedCount());
+        }
+    }
+}
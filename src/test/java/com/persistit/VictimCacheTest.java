@@ -0,0 +1,84 @@
+/**
+ * Copyright 2012 Akiban Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Properties;
+
+import org.junit.Test;
+
+public class VictimCacheTest extends PersistitUnitTestCase {
+
+    private final static String RED_FOX = "The quick red fox jumped over the lazy brown dog";
+
+    @Override
+    protected Properties doGetProperties(final boolean cleanup) {
+        final Properties properties = getProperties(cleanup);
+        properties.setProperty("buffer.victimcache.16384", "1M");
+        return properties;
+    }
+
+    @Test
+    public void evictedPagesAreReloadedFromCache() throws Exception {
+        final BufferPool pool = _persistit.getBufferPool(16384);
+        assertEquals(VictimCache.DEFLATE_CODEC, pool.getVictimCache().getCodec());
+        final Exchange ex = _persistit.getExchange("persistit", "VictimCacheTest", true);
+        final int count = pool.getBufferCount() * 200;
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < count; i++) {
+                ex.to(i).getValue().put(RED_FOX + round + ":" + i);
+                ex.store();
+            }
+            for (int pass = 0; pass < 2; pass++) {
+                ex.to(Key.BEFORE);
+                int i = 0;
+                while (ex.next()) {
+                    assertEquals(RED_FOX + round + ":" + i, ex.getValue().getString());
+                    i++;
+                }
+                assertEquals(count, i);
+            }
+        }
+        assertTrue("Pool misses should have been satisfied by the victim cache",
+                pool.getVictimCacheHitCounter() > 0);
+        assertTrue(pool.getVictimCachePageCount() > 0);
+    }
+
+    @Test
+    public void truncatedVolumeIsInvalidated() throws Exception {
+        final BufferPool pool = _persistit.getBufferPool(16384);
+        final Volume vol = _persistit.createTemporaryVolume();
+        final int count = pool.getBufferCount() * 200;
+        for (int round = 0; round < 2; round++) {
+            final Exchange ex = _persistit.getExchange(vol, "VictimCacheTest", true);
+            for (int i = 0; i < count; i++) {
+                ex.to(i).getValue().put(RED_FOX + round + ":" + i);
+                ex.store();
+            }
+            ex.to(Key.BEFORE);
+            int i = 0;
+            while (ex.next()) {
+                assertEquals(RED_FOX + round + ":" + i, ex.getValue().getString());
+                i++;
+            }
+            assertEquals(count, i);
+            vol.truncate();
+        }
+    }
+}
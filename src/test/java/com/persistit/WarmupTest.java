@@ -18,7 +18,9 @@ package com.persistit;
 
 import org.junit.Test;
 
+import java.util.HashSet;
 import java.util.Properties;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -120,4 +122,54 @@ public class WarmupTest extends PersistitUnitTestCase {
     assertTrue("Preload should have loaded pages from journal file", tfc.getReadPositionList().size() > 0);
     tfc.assertOrdered(true, true);
   }
+
+  @Test
+  public void parallelBackgroundPreload() throws Exception {
+    Exchange ex = _persistit.getExchange("persistit", "WarmupTest", true);
+    BufferPool pool = ex.getBufferPool();
+    final int full = pool.getBufferCount() * (pool.getBufferSize() / RED_FOX.length());
+    for (int i = 1; i <= full * 3; i++) {
+      ex.getValue().put(RED_FOX + i);
+      ex.clear().append(i).store();
+    }
+    _persistit.copyBackPages();
+
+    final Set<Long> pages = new HashSet<Long>();
+    for (int i = 0; i < pool.getBufferCount(); i++) {
+      final Buffer b = pool.getBufferCopy(i);
+      if (b.isValid() && b.getVolume() == ex.getVolume()) {
+        pages.add(b.getPageAddress());
+      }
+    }
+
+    ex = null;
+    pool = null;
+    _persistit.close();
+
+    _persistit = new Persistit();
+    _config.setBufferPreloadThreads(3);
+    _config.setBufferPreloadBackground(true);
+    _persistit.setConfiguration(_config);
+    _persistit.initialize();
+
+    ex = _persistit.getExchange("persistit", "WarmupTest", false);
+    pool = ex.getBufferPool();
+    pool.joinPreload();
+
+    for (int i = 0; i < pool.getBufferCount(); i++) {
+      final Buffer b = pool.getBufferCopy(i);
+      if (b.isValid()) {
+        pages.remove(b.getPageAddress());
+      }
+    }
+    /*
+     * Recording the inventory during close may displace one page
+     */
+    assertTrue("Preload should have restored the inventoried pages: " + pages, pages.size() <= 1);
+
+    for (int i = 1; i <= full * 3; i++) {
+      ex.clear().append(i).fetch();
+      assertEquals(RED_FOX + i, ex.getValue().getString());
+    }
+  }
 }